@@ -0,0 +1,140 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 3-year x 400-code backtest (about 300k replayed days) from history loaded beforehand:
+ * the columnar replay on the backtest pool and on the calling thread, and for comparison the
+ * same windows evaluated one by one through evaluate(), as the backtest did before the columnar
+ * layout. layout measures building the History from query rows. Bars are a seeded random walk
+ * on weekdays. Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=RecommendationBacktest
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RecommendationBacktestBenchmark {
+
+    private static final int CODES = 400;
+    private static final int HORIZON_DAYS = 5;
+    private static final LocalDate FROM = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    private CombinedRecommendationService recommendationService;
+    private RecommendationBacktestService backtestService;
+    private ForkJoinPool pool;
+    private RecommendationParameters params;
+    private List<String> codes;
+    private List<Object[]> rows;
+    private RecommendationBacktestService.History history;
+    // Each replayed day's window as DailyStats, most recent first, for the per-window baseline
+    private List<String> windowCodes;
+    private List<List<DailyStats>> windows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recommendationService = new CombinedRecommendationService(null, null);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        backtestService = new RecommendationBacktestService(recommendationService, null, null, pool, List.of());
+        params = RecommendationParameters.defaults();
+
+        Random random = new Random(42);
+        codes = new ArrayList<>(CODES);
+        rows = new ArrayList<>();
+        for (int c = 0; c < CODES; c++) {
+            String code = String.format("C%03d", c);
+            codes.add(code);
+            long close = 1_000 + random.nextInt(100_000);
+            for (LocalDate day = FROM.minusDays(30); !day.isAfter(TO.plusDays(30)); day = day.plusDays(1)) {
+                if (day.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+                long open = close;
+                close = Math.max(100, close + (long) (random.nextGaussian() * close * 0.02));
+                long buy = random.nextInt(5_000_000);
+                long sell = random.nextInt(5_000_000);
+                rows.add(new Object[]{code, Integer.parseInt(day.format(DateTimeFormatter.BASIC_ISO_DATE)),
+                        day.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                        BigDecimal.valueOf(open, 2), BigDecimal.valueOf(Math.max(open, close) + random.nextInt(200), 2),
+                        BigDecimal.valueOf(Math.min(open, close) - random.nextInt(50), 2), BigDecimal.valueOf(close, 2),
+                        buy, sell, buy + sell, (long) random.nextInt(5), (long) random.nextInt(5),
+                        (long) random.nextInt(10), (long) random.nextInt(10)});
+            }
+        }
+        history = backtestService.history(codes, FROM, TO, HORIZON_DAYS, rows);
+
+        DailyBarColumns bars = history.bars();
+        windowCodes = new ArrayList<>(bars.windows());
+        windows = new ArrayList<>(bars.windows());
+        List<DailyStats> stats = new ArrayList<>(bars.bars());
+        for (int i = 0; i < bars.bars(); i++) {
+            stats.add(DailyStats.builder()
+                    .openPrice(bars.open[i]).highPrice(bars.high[i]).lowPrice(bars.low[i]).closePrice(bars.close[i])
+                    .buyVolume(bars.buyVolume[i]).sellVolume(bars.sellVolume[i]).totalVolume(bars.totalVolume[i])
+                    .largeBuyBlocks(bars.largeBuyBlocks[i]).largeSellBlocks(bars.largeSellBlocks[i])
+                    .build());
+        }
+        for (int code = 0; code < CODES; code++) {
+            for (int w = history.codeWindows()[code]; w < history.codeWindows()[code + 1]; w++) {
+                List<DailyStats> window = new ArrayList<>(bars.windowSize[w]);
+                for (int d = 0; d < bars.windowSize[w]; d++) {
+                    window.add(stats.get(bars.windowEnd[w] - d));
+                }
+                windowCodes.add(codes.get(code));
+                windows.add(window);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Object replayParallel() {
+        return backtestService.replay(history, params, true);
+    }
+
+    @Benchmark
+    public Object replaySequential() {
+        return backtestService.replay(history, params, false);
+    }
+
+    @Benchmark
+    public void perWindowEvaluate(Blackhole blackhole) {
+        for (int w = 0; w < windows.size(); w++) {
+            blackhole.consume(recommendationService.evaluate(windowCodes.get(w), windows.get(w), params));
+        }
+    }
+
+    @Benchmark
+    public Object layout() {
+        return backtestService.history(codes, FROM, TO, HORIZON_DAYS, rows);
+    }
+}
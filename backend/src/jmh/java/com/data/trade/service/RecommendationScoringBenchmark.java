@@ -0,0 +1,105 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a recommendation universe per code (calculateRecommendationFromStats for each code, as
+ * before the snapshot batch) against the columnar batch (evaluateAll), and the formula pass alone
+ * over columns built beforehand, as the backtest reads them. Bars are a seeded random walk with
+ * full 10-day windows.
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendationScoringBenchmark {
+
+    @Param({"30", "1600"})
+    private int codes;
+
+    private CombinedRecommendationService service;
+    private RecommendationParameters params;
+    private List<String> codeList;
+    private List<List<DailyStats>> stats;
+    private DailyBarColumns columns;
+
+    @Setup
+    public void setUp() {
+        service = new CombinedRecommendationService(null, null);
+        params = RecommendationParameters.defaults();
+        codeList = new ArrayList<>(codes);
+        stats = new ArrayList<>(codes);
+        Random random = new Random(42);
+        for (int c = 0; c < codes; c++) {
+            codeList.add("C" + c);
+            stats.add(randomWalk(random, RecommendationParameters.DAYS));
+        }
+        columns = DailyBarColumns.ofWindows(stats);
+    }
+
+    @Benchmark
+    public void perCode(Blackhole blackhole) {
+        for (int c = 0; c < codes; c++) {
+            blackhole.consume(service.calculateRecommendationFromStats(codeList.get(c), stats.get(c), params));
+        }
+    }
+
+    @Benchmark
+    public List<CombinedRecommendationService.Evaluation> batch() {
+        return service.evaluateAll(codeList, stats, params);
+    }
+
+    @Benchmark
+    public void batchFormulasOnly(Blackhole blackhole) {
+        // Scores is package-private, and JMH's generated code lives in another package
+        blackhole.consume(service.score(columns, params));
+    }
+
+    // Most recent first, as the formulas take them
+    static List<DailyStats> randomWalk(Random random, int days) {
+        List<DailyStats> window = new ArrayList<>(days);
+        long close = 1_000 + random.nextInt(100_000);
+        for (int d = 0; d < days; d++) {
+            long open = close;
+            close = Math.max(100, close + (long) (random.nextGaussian() * close * 0.02));
+            long buy = random.nextInt(5_000_000);
+            long sell = random.nextInt(5_000_000);
+            window.add(DailyStats.builder()
+                    .tradeDate(String.format("%02d/01/2025", days - d))
+                    .openPrice(open)
+                    .closePrice(close)
+                    .highPrice(Math.max(open, close) + random.nextInt(200))
+                    .lowPrice(Math.min(open, close) - random.nextInt(50))
+                    .buyVolume(buy)
+                    .sellVolume(sell)
+                    .totalVolume(buy + sell)
+                    .largeBuyBlocks((long) random.nextInt(5))
+                    .largeSellBlocks((long) random.nextInt(5))
+                    .mediumBuyBlocks((long) random.nextInt(10))
+                    .mediumSellBlocks((long) random.nextInt(10))
+                    .build());
+        }
+        return window;
+    }
+}
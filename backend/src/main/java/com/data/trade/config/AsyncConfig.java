@@ -1,28 +1,50 @@
 package com.data.trade.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Configuration for async processing
- * Used for parallel recommendation calculations
+ * Used for parallel recommendation calculations and @Async methods
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    /**
+     * Executor for @Async methods, picked up by name since several executors are registered.
+     * Spring Boot's builder gives it virtual threads when spring.threads.virtual.enabled is set
+     */
+    @Bean(name = "taskExecutor")
+    public SimpleAsyncTaskExecutor taskExecutor(SimpleAsyncTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
     /**
      * Executor for parallel recommendation calculations
-     * Configured with pool size based on CPU cores
+     * Configured with pool size based on CPU cores; with spring.threads.virtual.enabled
+     * each task gets a virtual thread, with the same cap on tasks running at once
      */
     @Bean(name = "recommendationExecutor")
-    public Executor recommendationExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    public Executor recommendationExecutor(SimpleAsyncTaskExecutorBuilder builder,
+                                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         int corePoolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
+        if (virtualThreads) {
+            return builder.threadNamePrefix("recommendation-")
+                    .concurrencyLimit(corePoolSize * 2)
+                    .taskTerminationTimeout(Duration.ofSeconds(60))
+                    .build();
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(corePoolSize);
         executor.setMaxPoolSize(corePoolSize * 2);
         executor.setQueueCapacity(100);
@@ -32,5 +54,14 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
 
+    /**
+     * Fork-join pool of the recommendation backtest, so a replay does not take over the common
+     * pool that parallel streams elsewhere share.
+     * app.recommendations.backtest.parallelism threads (0 = one per core)
+     */
+    @Bean(name = "backtestExecutor", destroyMethod = "shutdown")
+    public ForkJoinPool backtestExecutor(@Value("${app.recommendations.backtest.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
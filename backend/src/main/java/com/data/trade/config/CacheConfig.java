@@ -12,7 +12,7 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Cache configuration using Caffeine for in-memory caching
- * Provides fast access to calculated suggestions and recommendations
+ * Provides fast access to recommendations for codes outside the VN30 snapshot
  */
 @Configuration
 @EnableCaching
@@ -27,8 +27,8 @@ public class CacheConfig {
     @Bean
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "recommendations",      // Cache for individual stock recommendations
-                "allSuggestions"        // Cache for all suggestions list
+                "recommendations",      // Cache for individual stock recommendations outside the VN30 snapshot
+                "recommendationInputs"  // Their stats and formula results, recombined with each user's weights
         );
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .maximumSize(cacheMaxSize)
@@ -0,0 +1,25 @@
+package com.data.trade.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+
+/**
+ * Configuration for @Scheduled jobs
+ */
+@Configuration
+public class SchedulingConfig {
+
+    /**
+     * Scheduler running jobs on virtual threads when spring.threads.virtual.enabled is set.
+     * The WebSocket broker registers its own TaskScheduler, which stops Spring Boot from creating
+     * this one, so jobs would otherwise run on the broker's platform threads
+     */
+    @Bean(name = "taskScheduler")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public SimpleAsyncTaskScheduler taskScheduler(SimpleAsyncTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+}
@@ -3,6 +3,8 @@ package com.data.trade.config;
 import com.data.trade.constants.ApiEndpoints;
 import com.data.trade.constants.RoleConstants;
 import com.data.trade.security.JwtAuthenticationFilter;
+import com.data.trade.service.MarketQuoteService;
+import com.data.trade.service.RecommendationSnapshotService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -63,6 +65,9 @@ public class SecurityConfig {
                 // Signals - VIP and ADMIN only
                 .requestMatchers(ApiEndpoints.API_SIGNALS_PATTERN).hasAnyRole(RoleConstants.ROLE_VIP, RoleConstants.ROLE_ADMIN)
                 
+                // Indicators - VIP and ADMIN only
+                .requestMatchers(ApiEndpoints.API_INDICATORS_PATTERN).hasAnyRole(RoleConstants.ROLE_VIP, RoleConstants.ROLE_ADMIN)
+                
                 // Price Alerts - VIP and ADMIN only
                 .requestMatchers(ApiEndpoints.API_PRICE_ALERTS_PATTERN).hasAnyRole(RoleConstants.ROLE_VIP, RoleConstants.ROLE_ADMIN)
                 
@@ -106,7 +111,9 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type",
+                MarketQuoteService.AS_OF_HEADER,
+                RecommendationSnapshotService.VERSION_HEADER, RecommendationSnapshotService.AS_OF_HEADER));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
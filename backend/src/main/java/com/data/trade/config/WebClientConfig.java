@@ -6,6 +6,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.ZoneId;
 import java.util.TimeZone;
@@ -13,11 +15,21 @@ import java.util.TimeZone;
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * Finpath client. Its connection pool is sized by app.finpath.max-connections, and callers
+     * beyond it wait for a free connection instead of failing; Reactor Netty's default (16 on most
+     * hosts, with a short wait queue) would cap blocking request threads, virtual or not.
+     */
     @Bean
-    public WebClient webClient(@Value("${app.finpath.base-url}") String baseUrl) {
+    public WebClient webClient(@Value("${app.finpath.base-url}") String baseUrl,
+                               @Value("${app.finpath.max-connections:200}") int maxConnections) {
+        ConnectionProvider connections = ConnectionProvider.builder("finpath")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
         return WebClient.builder()
                 .baseUrl(baseUrl)
-                .clientConnector(new ReactorClientHttpConnector())
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
                 .exchangeStrategies(ExchangeStrategies.builder()
                         .codecs(c -> c.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
                         .build())
@@ -16,6 +16,7 @@ public class ApiEndpoints {
     public static final String API_STOCKS = "/api/stocks";
     public static final String API_SUGGESTIONS = "/api/suggestions";
     public static final String API_SIGNALS = "/api/signals";
+    public static final String API_INDICATORS = "/api/indicators";
     public static final String API_PRICE_ALERTS = "/api/price-alerts";
     public static final String API_CONFIG = "/api/config";
     public static final String API_INTERNAL = "/api/internal";
@@ -35,6 +36,11 @@ public class ApiEndpoints {
     public static final String ADMIN_VIP_REQUESTS_BY_ID_PATH = "/vip-requests/{requestId}";
     public static final String ADMIN_VIP_REQUESTS_APPROVE_PATH = "/vip-requests/{requestId}/approve";
     public static final String ADMIN_VIP_REQUESTS_REJECT_PATH = "/vip-requests/{requestId}/reject";
+    public static final String ADMIN_TICK_STORE_MEMORY_PATH = "/tick-store/memory";
+    public static final String ADMIN_MARKET_QUOTES_STATS_PATH = "/market-quotes/stats";
+    public static final String ADMIN_RECOMMENDATIONS_BACKTEST_PATH = "/recommendations/backtest";
+    public static final String ADMIN_RECOMMENDATIONS_PARAMETERS_PATH = "/recommendations/parameters";
+    public static final String ADMIN_RECOMMENDATIONS_SWEEP_PATH = "/recommendations/sweep";
     
     // Note: ADMIN_USERS_BY_ID_PATH is used for both GET and DELETE operations
     
@@ -67,10 +73,14 @@ public class ApiEndpoints {
     // Suggestions endpoint paths (relative to base /api/suggestions)
     public static final String SUGGESTIONS_BY_CODE_PATH = "/{code}";
     public static final String SUGGESTIONS_TOP_PATH = "/top";
+    public static final String SUGGESTIONS_WEIGHTS_PATH = "/weights";
 
     // Signals endpoint paths (relative to base /api/signals)
     public static final String SIGNALS_REFRESH_PATH = "/refresh";
     public static final String SIGNALS_CHECK_TRACKED_PATH = "/check-tracked";
+
+    // Indicators endpoint paths (relative to base /api/indicators)
+    public static final String INDICATORS_BY_CODE_PATH = "/{code}";
     
     // Price Alerts endpoint paths (relative to base /api/price-alerts)
     public static final String PRICE_ALERTS_BY_ID_PATH = "/{id}";
@@ -86,6 +96,7 @@ public class ApiEndpoints {
     public static final String INTERNAL_SIGNALS_REFRESH_PATH = "/signals/refresh";
     public static final String INTERNAL_SIGNALS_CHECK_TRACKED_PATH = "/signals/check-tracked";
     public static final String INTERNAL_PRICE_ALERTS_CHECK_PATH = "/price-alerts/check";
+    public static final String INTERNAL_RECOMMENDATIONS_REFRESH_PATH = "/recommendations/refresh";
 
     // Security patterns (for use in SecurityConfig)
     public static final String API_AUTH_PATTERN = "/api/auth/**";
@@ -95,6 +106,7 @@ public class ApiEndpoints {
     public static final String API_SHORT_TERM_TRACKED_STOCKS_PATTERN = "/api/short-term-tracked-stocks/**";
     public static final String API_SUGGESTIONS_PATTERN = "/api/suggestions/**";
     public static final String API_SIGNALS_PATTERN = "/api/signals/**";
+    public static final String API_INDICATORS_PATTERN = "/api/indicators/**";
     public static final String API_PRICE_ALERTS_PATTERN = "/api/price-alerts/**";
     public static final String API_ADMIN_PATTERN = "/api/admin/**";
     public static final String API_CONFIG_PATTERN = "/api/config/**";
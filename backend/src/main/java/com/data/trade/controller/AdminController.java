@@ -2,21 +2,35 @@ package com.data.trade.controller;
 
 import com.data.trade.constants.ApiEndpoints;
 import com.data.trade.constants.RoleConstants;
+import com.data.trade.dto.BacktestReport;
+import com.data.trade.dto.ParameterSweepReport;
+import com.data.trade.dto.ParameterSweepRequest;
+import com.data.trade.dto.RecommendationParameters;
 import com.data.trade.dto.VipRequestDTO;
 import com.data.trade.dto.VipRequestActionRequest;
 import com.data.trade.dto.auth.UserResponse;
 import com.data.trade.model.User;
 import com.data.trade.model.UserRole;
 import com.data.trade.repository.UserRepository;
+import com.data.trade.service.IntradayTickStore;
+import com.data.trade.service.MarketQuoteService;
+import com.data.trade.service.RecommendationBacktestService;
+import com.data.trade.service.RecommendationParametersService;
+import com.data.trade.service.RecommendationSnapshotService;
+import com.data.trade.service.RecommendationSweepService;
 import com.data.trade.service.VipRequestService;
 import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,6 +41,12 @@ public class AdminController {
 
     private final UserRepository userRepository;
     private final VipRequestService vipRequestService;
+    private final IntradayTickStore tickStore;
+    private final MarketQuoteService marketQuoteService;
+    private final RecommendationBacktestService backtestService;
+    private final RecommendationSweepService sweepService;
+    private final RecommendationParametersService parametersService;
+    private final RecommendationSnapshotService snapshotService;
 
     @GetMapping(ApiEndpoints.ADMIN_USERS_PATH)
     public List<UserResponse> getAllUsers() {
@@ -69,6 +89,67 @@ public class AdminController {
         return ResponseEntity.ok().build();
     }
 
+    // Approximate bytes held by the in-memory tick store, per code
+    @GetMapping(ApiEndpoints.ADMIN_TICK_STORE_MEMORY_PATH)
+    public Map<String, Long> getTickStoreMemory() {
+        return tickStore.memoryUsage();
+    }
+
+    @GetMapping(ApiEndpoints.ADMIN_MARKET_QUOTES_STATS_PATH)
+    public Map<String, Long> getMarketQuoteStats() {
+        return marketQuoteService.stats();
+    }
+
+    // Replay the recommendation formulas over daily bars; codes default to app.recommendations.codes
+    @GetMapping(ApiEndpoints.ADMIN_RECOMMENDATIONS_BACKTEST_PATH)
+    public ResponseEntity<?> backtestRecommendations(
+            @RequestParam(required = false) List<String> codes,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "5") int horizon) {
+        try {
+            BacktestReport report = backtestService.backtest(codes, from, to, horizon);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping(ApiEndpoints.ADMIN_RECOMMENDATIONS_PARAMETERS_PATH)
+    public RecommendationParameters getRecommendationParameters() {
+        return parametersService.current();
+    }
+
+    // Switch the live formulas to another parameter set (e.g. a sweep result) and rebuild the recommendations
+    @PutMapping(ApiEndpoints.ADMIN_RECOMMENDATIONS_PARAMETERS_PATH)
+    public ResponseEntity<?> setRecommendationParameters(@RequestBody RecommendationParameters parameters) {
+        try {
+            RecommendationParameters active = parametersService.activate(parameters);
+            snapshotService.refresh();
+            return ResponseEntity.ok(active);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Start a parameter sweep in the background; poll the GET for its result
+    @PostMapping(ApiEndpoints.ADMIN_RECOMMENDATIONS_SWEEP_PATH)
+    public ResponseEntity<?> startParameterSweep(@RequestBody ParameterSweepRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(sweepService.start(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping(ApiEndpoints.ADMIN_RECOMMENDATIONS_SWEEP_PATH)
+    public ResponseEntity<ParameterSweepReport> getParameterSweep() {
+        ParameterSweepReport report = sweepService.latest();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.notFound().build();
+    }
+
     private UserResponse mapToUserResponse(User user) {
         return UserResponse.builder()
                 .id(user.getId())
@@ -0,0 +1,43 @@
+package com.data.trade.controller;
+
+import com.data.trade.constants.ApiEndpoints;
+import com.data.trade.dto.IndicatorsDTO;
+import com.data.trade.service.IndicatorStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for technical indicators over daily bars
+ * Served from IndicatorStore, which updates each code incrementally as bars arrive
+ */
+@RestController
+@RequestMapping(ApiEndpoints.API_INDICATORS)
+@RequiredArgsConstructor
+@Slf4j
+public class IndicatorController {
+
+    private final IndicatorStore indicatorStore;
+
+    /**
+     * Get the latest indicators for a stock (EMA, MACD, Bollinger, ATR, OBV, stochastic, VWAP, z-scores)
+     * Indicators without enough bars yet are null
+     */
+    @GetMapping(ApiEndpoints.INDICATORS_BY_CODE_PATH)
+    public ResponseEntity<IndicatorsDTO> getIndicators(@PathVariable String code) {
+        String normalized = code.trim().toUpperCase();
+        try {
+            IndicatorsDTO indicators = indicatorStore.indicators(List.of(normalized)).get(normalized);
+            if (indicators == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(indicators);
+        } catch (Exception e) {
+            log.error("Failed to get indicators for {}: {}", normalized, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
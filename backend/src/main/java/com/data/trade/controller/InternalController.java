@@ -1,7 +1,9 @@
 package com.data.trade.controller;
 
 import com.data.trade.constants.ApiEndpoints;
+import com.data.trade.service.IntradayTickStore;
 import com.data.trade.service.PriceAlertNotificationService;
+import com.data.trade.service.RecommendationSnapshotService;
 import com.data.trade.service.SignalCalculationService;
 import com.data.trade.service.TrackedStockNotificationService;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,6 +28,8 @@ public class InternalController {
     private final SignalCalculationService signalCalculationService;
     private final TrackedStockNotificationService trackedStockNotificationService;
     private final PriceAlertNotificationService priceAlertNotificationService;
+    private final IntradayTickStore tickStore;
+    private final RecommendationSnapshotService recommendationSnapshotService;
 
     /**
      * Internal endpoint for cron-jobs service to trigger signal calculation
@@ -35,6 +40,8 @@ public class InternalController {
         log.info("Signal refresh triggered by cron-jobs service via internal API");
         
         try {
+            // cron-jobs has just written new trades; pull them into the tick store first
+            tickStore.refreshAll();
             // This will calculate signals and broadcast them via backend's WebSocket
             signalCalculationService.calculateAndNotifySignals();
             
@@ -63,6 +70,7 @@ public class InternalController {
         log.info("Tracked stock notifications check triggered by cron-jobs service via internal API");
         
         try {
+            tickStore.refreshAll();
             trackedStockNotificationService.checkTrackedStocksAndNotify();
             
             Map<String, String> response = new HashMap<>();
@@ -107,6 +115,27 @@ public class InternalController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-}
 
+    /**
+     * Internal endpoint for cron-jobs service to rebuild the recommendation snapshot after it wrote new trades
+     * The rebuild runs in the background; this returns as soon as it is queued
+     * @param codes codes that got new trades; only these are reloaded. Without it every code is reloaded
+     */
+    @PostMapping(ApiEndpoints.INTERNAL_RECOMMENDATIONS_REFRESH_PATH)
+    public ResponseEntity<Map<String, String>> refreshRecommendations(@RequestParam(required = false) List<String> codes) {
+        log.info("Recommendation refresh triggered by cron-jobs service via internal API for {}",
+                codes == null || codes.isEmpty() ? "all codes" : codes);
 
+        // The trades were written by cron-jobs, so the daily bar windows are reloaded from the table
+        if (codes == null || codes.isEmpty()) {
+            recommendationSnapshotService.requestReload();
+        } else {
+            recommendationSnapshotService.requestReloadFor(codes.stream().map(code -> code.trim().toUpperCase()).toList());
+        }
+
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Recommendation snapshot refresh queued.");
+        return ResponseEntity.ok(response);
+    }
+}
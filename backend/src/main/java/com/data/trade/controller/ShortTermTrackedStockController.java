@@ -9,7 +9,7 @@ import com.data.trade.dto.TrackedStockStatsDTO;
 import com.data.trade.model.ShortTermTrackedStock;
 import com.data.trade.model.User;
 import com.data.trade.repository.ShortTermTrackedStockRepository;
-import com.data.trade.service.FinpathClient;
+import com.data.trade.service.MarketQuoteService;
 import com.data.trade.service.TrackedStockStatsService;
 import jakarta.validation.Valid;
 import lombok.Data;
@@ -24,8 +24,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -37,7 +35,7 @@ public class ShortTermTrackedStockController {
 
     private final ShortTermTrackedStockRepository shortTermTrackedStockRepository;
     private final TrackedStockStatsService trackedStockStatsService;
-    private final FinpathClient finpathClient;
+    private final MarketQuoteService marketQuoteService;
 
     /**
      * Get all tracked stocks WITHOUT market price (fast response)
@@ -54,10 +52,10 @@ public class ShortTermTrackedStockController {
     }
 
     /**
-     * Get market prices for multiple stock codes in parallel (no cache)
+     * Get market prices for multiple stock codes from the polled quote snapshot
      * POST /api/short-term-tracked-stocks/market-prices
      * Body: ["VCB", "FPT", "HPG"]
-     * Returns: {"VCB": 85000, "FPT": 125000, "HPG": 45000}
+     * Returns: {"VCB": 85000, "FPT": 125000, "HPG": 45000}, with the oldest quote time in X-Quotes-As-Of
      */
     @PostMapping("/market-prices")
     public ResponseEntity<Map<String, BigDecimal>> getMarketPrices(@RequestBody List<String> codes) {
@@ -65,42 +63,15 @@ public class ShortTermTrackedStockController {
             return ResponseEntity.ok(Collections.emptyMap());
         }
 
-        Map<String, BigDecimal> result = new ConcurrentHashMap<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        // Fetch all prices in parallel
-        for (String code : codes) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                BigDecimal price = getMarketPrice(code);
-                result.put(code, price); // null if failed
-            });
-            futures.add(future);
+        Map<String, MarketQuoteService.Quote> quotes = marketQuoteService.getQuotes(codes);
+        OffsetDateTime asOf = MarketQuoteService.oldestAsOf(quotes.values());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (asOf != null) {
+            response.header(MarketQuoteService.AS_OF_HEADER, asOf.toString());
         }
-
-        // Wait for all to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-        return ResponseEntity.ok(result);
+        return response.body(MarketQuoteService.prices(quotes));
     }
     
-    /**
-     * Get market price for a stock code from TradingView API
-     */
-    private BigDecimal getMarketPrice(String code) {
-        try {
-            var response = finpathClient.fetchTradingViewBars(code);
-            if (response != null) {
-                Double price = response.getMarketPrice();
-                if (price != null) {
-                    return BigDecimal.valueOf(price);
-                }
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch market price for {}: {}", code, e.getMessage());
-        }
-        return null;
-    }
-
     @GetMapping(ApiEndpoints.SHORT_TERM_TRACKED_STOCKS_STATS_PATH)
     public Map<String, TrackedStockStatsDTO> getShortTermTrackedStockStats(@AuthenticationPrincipal User currentUser) {
         // Use the same stats service, but filter by short-term tracked stocks
@@ -119,20 +90,8 @@ public class ShortTermTrackedStockController {
                     .map(ShortTermTrackedStock::getCode)
                     .collect(Collectors.toSet());
             
-            // Fetch prices in parallel
-            Map<String, BigDecimal> priceMap = new ConcurrentHashMap<>();
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            
-            for (String code : codes) {
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                    BigDecimal price = getMarketPrice(code);
-                    priceMap.put(code, price);
-                });
-                futures.add(future);
-            }
-            
-            // Wait for all to complete
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            Map<String, MarketQuoteService.Quote> quotes = marketQuoteService.getQuotes(codes);
+            Map<String, BigDecimal> priceMap = MarketQuoteService.prices(quotes);
             
             // Build result
             List<ShortTermTrackedStockWithMarketPriceDTO> result = stocks.stream()
@@ -150,7 +109,8 @@ public class ShortTermTrackedStockController {
                     "Market prices refreshed successfully",
                     successCount,
                     result.size() - successCount,
-                    result
+                    result,
+                    MarketQuoteService.oldestAsOf(quotes.values())
             ));
         } catch (Exception e) {
             log.error("Failed to refresh market prices", e);
@@ -164,12 +124,15 @@ public class ShortTermTrackedStockController {
         private int successCount;
         private int failedCount;
         private List<ShortTermTrackedStockWithMarketPriceDTO> stocks;
+        private OffsetDateTime asOf; // Fetch time of the oldest price in stocks
         
-        public RefreshMarketPriceResponse(String message, int successCount, int failedCount, List<ShortTermTrackedStockWithMarketPriceDTO> stocks) {
+        public RefreshMarketPriceResponse(String message, int successCount, int failedCount,
+                                          List<ShortTermTrackedStockWithMarketPriceDTO> stocks, OffsetDateTime asOf) {
             this.message = message;
             this.successCount = successCount;
             this.failedCount = failedCount;
             this.stocks = stocks;
+            this.asOf = asOf;
         }
     }
 
@@ -186,14 +149,18 @@ public class ShortTermTrackedStockController {
             BigDecimal totalCostBasis = BigDecimal.ZERO;
             BigDecimal totalCurrentValue = BigDecimal.ZERO;
 
+            // All quotes up front, fetched concurrently
+            Map<String, MarketQuoteService.Quote> quotes = marketQuoteService.getQuotes(request.getStocks().stream()
+                    .map(stock -> stock.getCode().toUpperCase())
+                    .collect(Collectors.toSet()));
+
             for (PortfolioSimulationRequest.SimulatedStock stock : request.getStocks()) {
                 String code = stock.getCode().toUpperCase();
                 BigDecimal costBasis = stock.getCostBasis();
                 Long volume = stock.getVolume();
                 BigDecimal targetPrice = stock.getTargetPrice();
 
-                // Get market price
-                BigDecimal marketPrice = getMarketPrice(code);
+                BigDecimal marketPrice = quotes.get(code).priceAsDecimal();
 
                 PortfolioSimulationResponse.SimulatedStockResult result;
                 if (marketPrice == null) {
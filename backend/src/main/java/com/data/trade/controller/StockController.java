@@ -6,7 +6,8 @@ import com.data.trade.dto.IntradayPriceBatchRequest;
 import com.data.trade.dto.IntradayPriceBatchResponse;
 import com.data.trade.dto.IntradayPriceDTO;
 import com.data.trade.dto.RoombarResponse;
-import com.data.trade.service.FinpathClient;
+import com.data.trade.model.BarResolution;
+import com.data.trade.service.MarketQuoteService;
 import com.data.trade.service.StockRoombarService;
 import com.data.trade.service.TradeService;
 import jakarta.validation.Valid;
@@ -19,6 +20,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,7 +33,7 @@ public class StockController {
     
     private final StockRoombarService stockRoombarService;
     private final TradeService tradeService;
-    private final FinpathClient finpathClient;
+    private final MarketQuoteService marketQuoteService;
     
     @GetMapping(ApiEndpoints.STOCKS_ROOMBARS_CODE_PATH)
     @PreAuthorize(RoleConstants.HAS_ANY_ROLE_ALL)
@@ -44,20 +46,33 @@ public class StockController {
 
     @GetMapping(ApiEndpoints.STOCKS_INTRADAY_PRICE_CODE_PATH)
     @PreAuthorize(RoleConstants.HAS_ANY_ROLE_ALL)
-    public ResponseEntity<List<IntradayPriceDTO>> getIntradayPrice(
+    public ResponseEntity<?> getIntradayPrice(
             @PathVariable String code,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        List<IntradayPriceDTO> data = tradeService.getIntradayPriceData(code.toUpperCase(), date);
-        return ResponseEntity.ok(data);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String resolution) {
+        try {
+            List<IntradayPriceDTO> data = tradeService.getIntradayPriceData(
+                    code.toUpperCase(), date, BarResolution.fromParam(resolution));
+            return ResponseEntity.ok(data);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping(ApiEndpoints.STOCKS_INTRADAY_PRICE_BATCH_PATH)
     @PreAuthorize(RoleConstants.HAS_ANY_ROLE_ALL)
-    public ResponseEntity<IntradayPriceBatchResponse> getIntradayPriceBatch(
+    public ResponseEntity<?> getIntradayPriceBatch(
             @Valid @RequestBody IntradayPriceBatchRequest request) {
+        BarResolution resolution;
+        try {
+            resolution = BarResolution.fromParam(request.getResolution());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         Map<String, List<IntradayPriceDTO>> data = tradeService.getIntradayPriceDataBatch(
                 request.getCodes(), 
-                request.getDate()
+                request.getDate(),
+                resolution
         );
         
         IntradayPriceBatchResponse response = IntradayPriceBatchResponse.builder()
@@ -78,14 +93,8 @@ public class StockController {
             String decodedCode = java.net.URLDecoder.decode(code, java.nio.charset.StandardCharsets.UTF_8);
             String normalizedCode = decodedCode.toUpperCase();
             
-            var response = finpathClient.fetchTradingViewBars(normalizedCode);
-            if (response != null) {
-                Double price = response.getMarketPrice();
-                if (price != null) {
-                    return ResponseEntity.ok(new MarketPriceResponse(normalizedCode, price));
-                }
-            }
-            return ResponseEntity.ok(new MarketPriceResponse(normalizedCode, null));
+            MarketQuoteService.Quote quote = marketQuoteService.getQuote(normalizedCode);
+            return ResponseEntity.ok(new MarketPriceResponse(normalizedCode, quote.price(), quote.asOf()));
         } catch (Exception e) {
             log.debug("Failed to fetch market price for {}: {}", code, e.getMessage());
             // Try to decode and normalize even on error
@@ -102,10 +111,16 @@ public class StockController {
     static class MarketPriceResponse {
         private String code;
         private Double marketPrice;
+        private OffsetDateTime asOf; // When the price was fetched; null without a price
 
         public MarketPriceResponse(String code, Double marketPrice) {
+            this(code, marketPrice, null);
+        }
+
+        public MarketPriceResponse(String code, Double marketPrice, OffsetDateTime asOf) {
             this.code = code;
             this.marketPrice = marketPrice;
+            this.asOf = asOf;
         }
     }
 }
@@ -1,31 +1,27 @@
 package com.data.trade.controller;
 
 import com.data.trade.constants.ApiEndpoints;
+import com.data.trade.dto.RecommendationParameters;
 import com.data.trade.dto.RecommendationResult;
+import com.data.trade.dto.RecommendationWeightsDTO;
+import com.data.trade.model.User;
 import com.data.trade.service.CombinedRecommendationService;
+import com.data.trade.service.RecommendationSnapshotService;
+import com.data.trade.service.UserRecommendationWeightsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import com.data.trade.dto.DailyStats;
-
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Controller for stock trading suggestions
- * Uses combined 4-formula approach based on 10 days of data
+ * Uses combined 4-formula approach based on each code's last 10 trading days (RecommendationParameters.DAYS)
+ * Users with their own formula weights get the shared formula results recombined with those weights
  */
 @RestController
 @RequestMapping(ApiEndpoints.API_SUGGESTIONS)
@@ -34,21 +30,27 @@ import java.util.stream.Collectors;
 public class SuggestionsController {
 
     private final CombinedRecommendationService recommendationService;
-
-    @Autowired
-    @Qualifier("recommendationExecutor")
-    private Executor recommendationExecutor;
-
-    @Value("${market.vn30.codes}")
-    private List<String> vn30Codes;
+    private final RecommendationSnapshotService snapshotService;
+    private final UserRecommendationWeightsService weightsService;
 
     /**
      * Get recommendation for a specific stock
+     * Codes in the recommendation snapshot are served from it; other codes are calculated (and cached) on demand,
+     * and for users with their own weights recombined from the cached formula results
      */
     @GetMapping(ApiEndpoints.SUGGESTIONS_BY_CODE_PATH)
-    public ResponseEntity<RecommendationResult> getSuggestion(@PathVariable String code) {
+    public ResponseEntity<RecommendationResult> getSuggestion(@PathVariable String code,
+                                                              @AuthenticationPrincipal User currentUser) {
         try {
-            RecommendationResult result = recommendationService.calculateRecommendation(code);
+            Optional<RecommendationParameters> params = weightsService.parametersFor(userId(currentUser));
+            RecommendationSnapshotService.Snapshot snapshot = snapshotFor(currentUser, params);
+            RecommendationResult result = snapshot.byCode().get(code.toUpperCase());
+            if (result != null) {
+                return withVersion(snapshot).body(result);
+            }
+            result = params.isPresent()
+                    ? snapshotService.personalizeOutside(code.toUpperCase(), params.get())
+                    : recommendationService.calculateRecommendation(code);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             log.error("Failed to calculate suggestion for {}: {}", code, e.getMessage(), e);
@@ -57,49 +59,20 @@ public class SuggestionsController {
     }
 
     /**
-     * Get suggestions for all VN30 stocks
+     * Get suggestions for all stocks in the recommendation snapshot (VN30 unless app.recommendations.codes is set)
      * Returns only stocks with actionable signals (not neutral)
-     * Results are cached for 5 minutes to improve performance
-     * Uses batch database query and parallel processing for optimal performance
+     * Served from the recommendation snapshot, which is rebuilt after each ingestion
      */
     @GetMapping
-    @Cacheable(value = "allSuggestions", key = "#includeNeutral")
     public ResponseEntity<List<RecommendationResult>> getAllSuggestions(
-            @RequestParam(required = false, defaultValue = "false") boolean includeNeutral) {
+            @RequestParam(required = false, defaultValue = "false") boolean includeNeutral,
+            @AuthenticationPrincipal User currentUser) {
         try {
-            log.debug("Fetching all suggestions (cache miss), includeNeutral: {}", includeNeutral);
-            long startTime = System.currentTimeMillis();
-
-            // Fetch all data in a single batch query
-            Map<String, List<DailyStats>> statsByCode = recommendationService.fetch10DaysDataBatch(vn30Codes);
-            
-            // Process recommendations in parallel
-            List<CompletableFuture<RecommendationResult>> futures = vn30Codes.stream()
-                    .map(code -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            List<DailyStats> stats = statsByCode.getOrDefault(code, new ArrayList<>());
-                            return recommendationService.calculateRecommendationFromStats(code, stats);
-                        } catch (Exception e) {
-                            log.warn("Failed to calculate suggestion for {}: {}", code, e.getMessage());
-                            return null;
-                        }
-                    }, recommendationExecutor))
-                    .collect(Collectors.toList());
-
-            // Wait for all futures to complete and collect results
-            List<RecommendationResult> suggestions = futures.stream()
-                    .map(CompletableFuture::join)
-                    .filter(Objects::nonNull)
+            RecommendationSnapshotService.Snapshot snapshot = snapshotFor(currentUser);
+            List<RecommendationResult> suggestions = snapshot.ranked().stream()
                     .filter(result -> includeNeutral || !"hold".equals(result.getAction()))
                     .collect(Collectors.toList());
-
-            // Sort by score (highest first)
-            suggestions.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
-
-            long duration = System.currentTimeMillis() - startTime;
-            log.debug("Fetched {} suggestions in {}ms", suggestions.size(), duration);
-
-            return ResponseEntity.ok(suggestions);
+            return withVersion(snapshot).body(suggestions);
         } catch (Exception e) {
             log.error("Failed to get suggestions: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -108,48 +81,15 @@ public class SuggestionsController {
 
     /**
      * Get top N suggestions (buy or sell signals only)
-     * Uses batch database query and parallel processing for optimal performance
+     * Served from the recommendation snapshot, ranked by |score| * confidence
      */
     @GetMapping(ApiEndpoints.SUGGESTIONS_TOP_PATH)
     public ResponseEntity<List<RecommendationResult>> getTopSuggestions(
-            @RequestParam(required = false, defaultValue = "10") int limit) {
+            @RequestParam(required = false, defaultValue = "10") int limit,
+            @AuthenticationPrincipal User currentUser) {
         try {
-            long startTime = System.currentTimeMillis();
-
-            // Fetch all data in a single batch query
-            Map<String, List<DailyStats>> statsByCode = recommendationService.fetch10DaysDataBatch(vn30Codes);
-            
-            // Process recommendations in parallel
-            List<CompletableFuture<RecommendationResult>> futures = vn30Codes.stream()
-                    .map(code -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            List<DailyStats> stats = statsByCode.getOrDefault(code, new ArrayList<>());
-                            return recommendationService.calculateRecommendationFromStats(code, stats);
-                        } catch (Exception e) {
-                            log.warn("Failed to calculate suggestion for {}: {}", code, e.getMessage());
-                            return null;
-                        }
-                    }, recommendationExecutor))
-                    .collect(Collectors.toList());
-
-            // Wait for all futures to complete and collect results
-            List<RecommendationResult> suggestions = futures.stream()
-                    .map(CompletableFuture::join)
-                    .filter(Objects::nonNull)
-                    .filter(result -> !"hold".equals(result.getAction()))
-                    .collect(Collectors.toList());
-
-            // Sort by score (absolute value) and confidence
-            suggestions.sort((a, b) -> {
-                double scoreA = Math.abs(a.getScore()) * a.getConfidence();
-                double scoreB = Math.abs(b.getScore()) * b.getConfidence();
-                return Double.compare(scoreB, scoreA);
-            });
-
-            long duration = System.currentTimeMillis() - startTime;
-            log.debug("Fetched top {} suggestions in {}ms", limit, duration);
-
-            return ResponseEntity.ok(suggestions.stream().limit(limit).collect(Collectors.toList()));
+            RecommendationSnapshotService.Snapshot snapshot = snapshotFor(currentUser);
+            return withVersion(snapshot).body(snapshot.top().stream().limit(limit).collect(Collectors.toList()));
         } catch (Exception e) {
             log.error("Failed to get top suggestions: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -157,14 +97,64 @@ public class SuggestionsController {
     }
 
     /**
-     * Refresh cache - evicts all cached suggestions
-     * Allows manual cache refresh when needed
+     * Rebuild the recommendation snapshot now, dropping cached per-code recommendations
+     * Allows manual refresh when needed
      */
     @PostMapping("/refresh")
-    @CacheEvict(value = {"recommendations", "allSuggestions"}, allEntries = true)
     public ResponseEntity<Void> refreshCache() {
-        log.info("Cache evicted for suggestions - recommendations and allSuggestions");
-        return ResponseEntity.ok().build();
+        RecommendationSnapshotService.Snapshot snapshot = snapshotService.reload();
+        log.info("Recommendation snapshot refreshed on request (v{})", snapshot.version());
+        return withVersion(snapshot).build();
+    }
+
+    /**
+     * The current user's formula weights and action thresholds (the shared ones until set)
+     */
+    @GetMapping(ApiEndpoints.SUGGESTIONS_WEIGHTS_PATH)
+    public RecommendationWeightsDTO getWeights(@AuthenticationPrincipal User currentUser) {
+        return weightsService.getWeights(currentUser.getId());
+    }
+
+    @PutMapping(ApiEndpoints.SUGGESTIONS_WEIGHTS_PATH)
+    public ResponseEntity<?> setWeights(@RequestBody RecommendationWeightsDTO request,
+                                        @AuthenticationPrincipal User currentUser) {
+        try {
+            return ResponseEntity.ok(weightsService.setWeights(currentUser.getId(), request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Go back to the shared weights
+     */
+    @DeleteMapping(ApiEndpoints.SUGGESTIONS_WEIGHTS_PATH)
+    public ResponseEntity<Void> resetWeights(@AuthenticationPrincipal User currentUser) {
+        weightsService.resetWeights(currentUser.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    // The snapshot as the user sees it: recombined with their weights if they set any
+    private RecommendationSnapshotService.Snapshot snapshotFor(User currentUser) {
+        return snapshotFor(currentUser, weightsService.parametersFor(userId(currentUser)));
+    }
+
+    private RecommendationSnapshotService.Snapshot snapshotFor(User currentUser,
+                                                              Optional<RecommendationParameters> params) {
+        RecommendationSnapshotService.Snapshot snapshot = snapshotService.current();
+        return params
+                .map(p -> snapshotService.personalize(snapshot, currentUser.getId(), p))
+                .orElse(snapshot);
+    }
+
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(RecommendationSnapshotService.Snapshot snapshot) {
+        return ResponseEntity.ok()
+                .header(RecommendationSnapshotService.VERSION_HEADER, String.valueOf(snapshot.version()))
+                .header(RecommendationSnapshotService.AS_OF_HEADER, snapshot.asOf().toString());
     }
 }
 
@@ -9,6 +9,7 @@ import com.data.trade.dto.TrackedStockStatsDTO;
 import com.data.trade.dto.TrackedStockWithMarketPriceDTO;
 import com.data.trade.model.TrackedStock;
 import com.data.trade.model.User;
+import com.data.trade.service.MarketQuoteService;
 import com.data.trade.service.TrackedStockService;
 import com.data.trade.service.TrackedStockStatsService;
 import jakarta.validation.Valid;
@@ -21,6 +22,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -40,16 +42,21 @@ public class TrackedStockController {
     }
 
     /**
-     * Get market prices for multiple stock codes in parallel (no cache)
+     * Get market prices for multiple stock codes from the polled quote snapshot
      * POST /api/tracked-stocks/market-prices
      * Body: ["VCB", "FPT", "HPG"]
-     * Returns: {"VCB": 85000, "FPT": 125000, "HPG": 45000}
+     * Returns: {"VCB": 85000, "FPT": 125000, "HPG": 45000}, with the oldest quote time in X-Quotes-As-Of
      */
     @PostMapping("/market-prices")
     public ResponseEntity<Map<String, BigDecimal>> getMarketPrices(@RequestBody List<String> codes) {
         Set<String> codeSet = codes != null ? new HashSet<>(codes) : Collections.emptySet();
-        Map<String, BigDecimal> prices = trackedStockService.getMarketPricesForCodes(codeSet);
-        return ResponseEntity.ok(prices);
+        Map<String, MarketQuoteService.Quote> quotes = trackedStockService.getMarketQuotesForCodes(codeSet);
+        OffsetDateTime asOf = MarketQuoteService.oldestAsOf(quotes.values());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (asOf != null) {
+            response.header(MarketQuoteService.AS_OF_HEADER, asOf.toString());
+        }
+        return response.body(MarketQuoteService.prices(quotes));
     }
 
     @GetMapping(ApiEndpoints.TRACKED_STOCKS_STATS_PATH)
@@ -5,12 +5,14 @@ import com.data.trade.config.RateLimitConfig;
 import com.data.trade.constants.ApiEndpoints;
 import com.data.trade.dto.DailyOHLCDTO;
 import com.data.trade.dto.DailyTradeStatsDTO;
+import com.data.trade.dto.TradeImportReport;
 import com.data.trade.dto.TradePageResponse;
 import com.data.trade.exception.RateLimitExceededException;
 import com.data.trade.model.Trade;
 import com.data.trade.model.User;
 import com.data.trade.model.UserRole;
 import com.data.trade.service.TradeExcelService;
+import com.data.trade.service.TradeIngestionService;
 import com.data.trade.service.TradeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
@@ -22,6 +24,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -56,6 +59,9 @@ public class TradeController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String sort,
             @RequestParam(required = false) String direction,
+            @RequestParam(defaultValue = "false") boolean keyset,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean summary,
             @AuthenticationPrincipal User currentUser
     ) {
         // Rate limiting check
@@ -89,6 +95,18 @@ public class TradeController {
             }
         }
         
+        // Keyset mode: chronological order only, next page via cursor instead of page number
+        if (keyset || cursor != null) {
+            Specification<Trade> spec = tradeService.buildTradeSpecification(
+                    code, type, minVolume, maxVolume, minPrice, maxPrice, highVolume, fromDate, toDate
+            );
+            try {
+                return ResponseEntity.ok(tradeService.findTradesAfterCursor(spec, cursor, size, direction, summary));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+
         TradePageResponse response = tradeService.findTradesWithFilters(
                 code, type, minVolume, maxVolume, minPrice, maxPrice, highVolume,
                 fromDate, toDate, page, size, sort, direction
@@ -107,8 +125,9 @@ public class TradeController {
 
     @PostMapping(ApiEndpoints.TRADES_INGEST_ALL_PATH)
     public ResponseEntity<?> ingestAllNow() {
-        tradeService.ingestAllVn30();
-        return ResponseEntity.ok("Ingestion completed for all vn30");
+        TradeIngestionService.IngestionResult result = tradeService.ingestAllVn30();
+        return ResponseEntity.ok(String.format("Ingestion completed for all vn30 (%d succeeded, %d failed, %d new trades)",
+                result.succeeded(), result.failed(), result.inserted()));
     }
 
     @GetMapping(ApiEndpoints.TRADES_RECOMMENDATION_PATH)
@@ -172,23 +191,22 @@ public class TradeController {
         Specification<Trade> spec = tradeService.buildTradeSpecification(
                 code, type, minVolume, maxVolume, minPrice, maxPrice, highVolume, fromDate, toDate
         );
-        List<Trade> all = tradeService.findAllTrades(spec);
-        byte[] bytes = tradeExcelService.exportToXlsx(all);
+        // Streamed to the client as it is written; no Content-Length since the size is unknown up front
+        StreamingResponseBody body = out -> tradeExcelService.exportToXlsx(spec, out);
         String filename = "trades-export.xlsx";
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-        headers.setContentLength(bytes.length);
-        return ResponseEntity.ok().headers(headers).body(bytes);
+        return ResponseEntity.ok().headers(headers).body(body);
     }
 
     @PostMapping(value = ApiEndpoints.TRADES_IMPORT_PATH, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> importFromExcel(@RequestPart("file") MultipartFile file) {
+    public ResponseEntity<?> importFromExcel(@RequestPart("file") MultipartFile file) {
         if (file == null || file.isEmpty()) {
             return ResponseEntity.badRequest().body("file is required");
         }
-        int saved = tradeExcelService.importFromXlsx(file);
-        return ResponseEntity.ok("Imported records: " + saved);
+        TradeImportReport report = tradeExcelService.importFromXlsx(file);
+        return ResponseEntity.ok(report);
     }
 
     @GetMapping(ApiEndpoints.TRADES_DAILY_STATS_PATH)
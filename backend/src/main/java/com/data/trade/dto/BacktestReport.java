@@ -0,0 +1,39 @@
+package com.data.trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of replaying the recommendation formulas over historical daily bars
+ */
+@Data
+@NoArgsConstructor
+public class BacktestReport {
+    private List<String> codes = new ArrayList<>();
+    private LocalDate from;
+    private LocalDate to;
+    private int horizonDays; // Forward return horizon, in trading days
+    private int codesWithData; // Codes with at least one evaluated day
+    private long observations; // (code, day) pairs evaluated
+    private double marketAvgForwardReturnPct; // Average forward return over all observations, the no-signal baseline
+    private long elapsedMs;
+    private List<SourceStats> sources = new ArrayList<>(); // The 4 formulas, then the combined recommendation
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SourceStats {
+        private String name; // Formula name, or "Combined"
+        private long signals; // Observations with a buy or sell signal
+        private long buySignals;
+        private long sellSignals;
+        private double hitRate; // Share of signals whose forward return had the signalled sign (0.0 to 1.0)
+        private double avgForwardReturnPct; // Average forward return in the signalled direction (sell signals negated)
+        private double turnover; // Position changes per observation, a long-to-short flip counting 2
+    }
+}
@@ -5,8 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-
 /**
  * Daily aggregated statistics for a stock
  * Used for 10-day analysis
@@ -17,10 +15,10 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class DailyStats {
     private String tradeDate; // Format: "DD/MM/YYYY"
-    private BigDecimal closePrice; // Latest price of the day
-    private BigDecimal openPrice; // First price of the day
-    private BigDecimal highPrice; // Highest price of the day
-    private BigDecimal lowPrice; // Lowest price of the day
+    private long closePrice; // Latest price of the day (ScaledPrice)
+    private long openPrice; // First price of the day (ScaledPrice)
+    private long highPrice; // Highest price of the day (ScaledPrice)
+    private long lowPrice; // Lowest price of the day (ScaledPrice)
     private Long buyVolume; // Total buy volume
     private Long sellVolume; // Total sell volume
     private Long totalVolume; // Total volume
@@ -0,0 +1,36 @@
+package com.data.trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Technical indicators of a code as of its latest daily bar (which may still be trading).
+ * Prices are in VND; a value is null until enough bars are available for it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndicatorsDTO {
+    private String code;
+    private String tradeDate; // Latest bar, format: "DD/MM/YYYY"
+    private int bars; // Daily bars the indicators were computed over
+    private Double close;
+    private Double ema12;
+    private Double ema26;
+    private Double macd; // EMA12 - EMA26
+    private Double macdSignal; // EMA9 of macd
+    private Double macdHistogram;
+    private Double bollingerUpper; // SMA20 + 2 standard deviations
+    private Double bollingerMiddle;
+    private Double bollingerLower;
+    private Double atr14; // Wilder's average true range
+    private Double obv; // On-balance volume since the oldest bar loaded; a relative level, compare its changes
+    private Double stochasticK; // 14 bars, 0 to 100
+    private Double stochasticD; // SMA3 of stochasticK
+    private Double vwap20; // Volume-weighted typical price over 20 bars
+    private Double closeZScore20;
+    private Double volumeZScore20;
+}
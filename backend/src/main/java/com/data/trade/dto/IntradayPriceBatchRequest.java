@@ -18,5 +18,7 @@ public class IntradayPriceBatchRequest {
     private List<String> codes;
     
     private LocalDate date; // Optional: if null, use current date
+
+    private String resolution; // Optional: 1m, 5m, 10m or 30m (default 10m)
 }
 
@@ -12,10 +12,12 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 public class IntradayPriceDTO {
-    private String time; // Format: "HH:mm" (e.g., "09:30", "09:40", "09:50")
-    private BigDecimal averagePrice; // Average price for the 10-minute interval
+    private String time; // Format: "HH:mm" (e.g., "09:30", "09:40", "09:50"), start of the interval
+    private BigDecimal averagePrice; // Average trade price in the interval
     private BigDecimal highestPrice; // Highest price in the interval
     private BigDecimal lowestPrice; // Lowest price in the interval
     private Long totalVolume; // Total volume in the interval
+    private BigDecimal openPrice; // First trade price in the interval
+    private BigDecimal closePrice; // Last trade price in the interval
 }
 
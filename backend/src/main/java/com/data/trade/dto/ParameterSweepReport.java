@@ -0,0 +1,42 @@
+package com.data.trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State and outcome of a recommendation parameter sweep
+ */
+@Data
+@NoArgsConstructor
+public class ParameterSweepReport {
+    private String status; // RUNNING, COMPLETED or FAILED
+    private OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+    private String error;
+    private List<String> codes = new ArrayList<>();
+    private LocalDate from;
+    private LocalDate to;
+    private int horizonDays;
+    private long seed;
+    private int candidatesEvaluated;
+    private long observations; // Per candidate
+    private long elapsedMs;
+    private BacktestReport.SourceStats baseline; // Combined recommendation with the default parameters
+    private List<Best> best = new ArrayList<>(); // One entry per objective
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Best {
+        private String objective; // HIT_RATE, AVG_RETURN or TOTAL_RETURN
+        private double value;
+        private RecommendationParameters parameters; // Ready to activate as is
+        private BacktestReport.SourceStats combined;
+    }
+}
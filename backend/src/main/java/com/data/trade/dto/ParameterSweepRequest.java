@@ -0,0 +1,22 @@
+package com.data.trade.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Range and search size of a recommendation parameter sweep
+ */
+@Data
+@NoArgsConstructor
+public class ParameterSweepRequest {
+    private List<String> codes; // Defaults to app.recommendations.codes
+    private LocalDate from;
+    private LocalDate to;
+    private int horizon = 5; // Forward return horizon, in trading days
+    private int candidates = 100; // Parameter sets sampled, the current defaults included
+    private Long seed; // Fixes the sample for a reproducible sweep
+    private int minSignals = 30; // Sets with fewer combined signals are not ranked
+}
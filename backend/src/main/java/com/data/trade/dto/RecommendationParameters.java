@@ -0,0 +1,81 @@
+package com.data.trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tunable constants of the combined recommendation formulas.
+ * defaults() reproduces the original hard-coded values; a swept set can be activated at runtime.
+ * Block thresholds (400k/100k) are not included: they are applied when daily_bars is rolled up.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationParameters {
+    public static final int DAYS = 10;
+    public static final int FORMULAS = 4;
+
+    private double[] dayWeights; // Weight per day, most recent first (DAYS entries)
+    private double[] formulaWeights; // VolumePriceMomentum, MACrossover, RSI, TrendStrength; summing to 1
+    private double voteScore; // |score| for a BUY/SELL vote of VolumePriceMomentum and TrendStrength
+    private double strongVoteScore; // |score| for their strong vote
+    private double weakActionScore; // |combined score| for a weak buy/sell
+    private double moderateActionScore; // |combined score| for a moderate buy/sell
+    private double strongActionScore; // |combined score| for a strong buy/sell
+    private double rsiOversold; // RSI below this with buying pressure is a strong buy
+    private double rsiOverbought; // RSI above this with selling pressure is a strong sell
+
+    public static RecommendationParameters defaults() {
+        return RecommendationParameters.builder()
+                .dayWeights(new double[]{1.0, 1.0, 0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3, 0.2})
+                .formulaWeights(new double[]{0.30, 0.25, 0.25, 0.20})
+                .voteScore(20)
+                .strongVoteScore(40)
+                .weakActionScore(20)
+                .moderateActionScore(40)
+                .strongActionScore(60)
+                .rsiOversold(30)
+                .rsiOverbought(70)
+                .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the set cannot drive the formulas
+     */
+    public void validate() {
+        if (dayWeights == null || dayWeights.length != DAYS) {
+            throw new IllegalArgumentException("dayWeights must have " + DAYS + " entries");
+        }
+        for (double weight : dayWeights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("dayWeights must not be negative");
+            }
+        }
+        if (formulaWeights == null || formulaWeights.length != FORMULAS) {
+            throw new IllegalArgumentException("formulaWeights must have " + FORMULAS + " entries");
+        }
+        double sum = 0;
+        for (double weight : formulaWeights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("formulaWeights must not be negative");
+            }
+            sum += weight;
+        }
+        if (Math.abs(sum - 1.0) > 0.001) {
+            throw new IllegalArgumentException("formulaWeights must sum to 1");
+        }
+        if (!(voteScore > 0 && voteScore < strongVoteScore && strongVoteScore <= 100)) {
+            throw new IllegalArgumentException("Vote scores must satisfy 0 < voteScore < strongVoteScore <= 100");
+        }
+        if (!(weakActionScore > 0 && weakActionScore < moderateActionScore
+                && moderateActionScore < strongActionScore && strongActionScore <= 100)) {
+            throw new IllegalArgumentException("Action scores must satisfy 0 < weak < moderate < strong <= 100");
+        }
+        if (!(rsiOversold > 0 && rsiOversold < 40 && rsiOverbought > 60 && rsiOverbought < 100)) {
+            throw new IllegalArgumentException("RSI bands must satisfy 0 < rsiOversold < 40 and 60 < rsiOverbought < 100");
+        }
+    }
+}
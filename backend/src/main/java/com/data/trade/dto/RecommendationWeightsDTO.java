@@ -0,0 +1,22 @@
+package com.data.trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The part of RecommendationParameters a user can override: how the four formula
+ * votes are combined and the score cutoffs of the final action
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationWeightsDTO {
+    private double[] formulaWeights; // VolumePriceMomentum, MACrossover, RSI, TrendStrength; summing to 1
+    private double weakActionScore;
+    private double moderateActionScore;
+    private double strongActionScore;
+    private boolean custom; // false when these are the shared defaults
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Data
@@ -14,5 +15,6 @@ public class RefreshMarketPriceResponse {
     private int successCount;
     private int failedCount;
     private List<TrackedStockWithMarketPriceDTO> stocks;
+    private OffsetDateTime asOf; // Fetch time of the oldest price in stocks
 }
 
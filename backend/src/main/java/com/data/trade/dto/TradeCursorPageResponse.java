@@ -0,0 +1,28 @@
+package com.data.trade.dto;
+
+import com.data.trade.model.Trade;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeCursorPageResponse {
+    private List<Trade> trades;
+    private String nextCursor; // Pass back as cursor for the following page; null on the last page
+    private boolean hasNext;
+    // Summary over all matching trades; only filled when requested (null otherwise)
+    private Long totalVolume;
+    private Long buyVolume;
+    private Long sellVolume;
+    private Long unknownVolume;
+    private Long totalRecords;
+    private Long buyCount;
+    private Long sellCount;
+    private Long unknownCount;
+}
@@ -0,0 +1,39 @@
+package com.data.trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class TradeImportReport {
+    private int rows; // Data rows read (header excluded)
+    private int imported; // New trades inserted; rows already stored are not counted
+    private int rejected; // Rows that could not be parsed
+    private int failed; // Parsed rows of batches that failed to insert, see batches for which
+    private List<BatchReport> batches = new ArrayList<>();
+    private List<RowError> errors = new ArrayList<>(); // First rejected rows only, see rejected for the total
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchReport {
+        private int batch; // 1-based
+        private int firstRow; // Excel row numbers (1-based)
+        private int lastRow;
+        private int rows;
+        private int inserted;
+        private String error; // null when the batch was written
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row; // Excel row number (1-based)
+        private String message;
+    }
+}
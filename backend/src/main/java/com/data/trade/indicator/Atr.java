@@ -0,0 +1,51 @@
+package com.data.trade.indicator;
+
+/**
+ * Average true range with Wilder smoothing, seeded with the mean of the first `period` true ranges
+ */
+public final class Atr {
+    private final int period;
+    private int count;
+    private double previousClose = Double.NaN;
+    private double value;
+
+    public Atr(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        this.period = period;
+    }
+
+    private Atr(Atr other) {
+        this.period = other.period;
+        this.count = other.count;
+        this.previousClose = other.previousClose;
+        this.value = other.value;
+    }
+
+    public Atr copy() {
+        return new Atr(this);
+    }
+
+    public void add(double high, double low, double close) {
+        double trueRange = high - low;
+        if (!Double.isNaN(previousClose)) {
+            trueRange = Math.max(trueRange, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+        }
+        previousClose = close;
+        count++;
+        if (count <= period) {
+            value += (trueRange - value) / count; // Running mean while seeding
+        } else {
+            value = (value * (period - 1) + trueRange) / period;
+        }
+    }
+
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    public double value() {
+        return isReady() ? value : Double.NaN;
+    }
+}
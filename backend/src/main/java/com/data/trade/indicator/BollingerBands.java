@@ -0,0 +1,43 @@
+package com.data.trade.indicator;
+
+/**
+ * Simple moving average of `period` closes with bands `width` standard deviations away
+ */
+public final class BollingerBands {
+    private final RollingWindow closes;
+    private final double width;
+
+    public BollingerBands(int period, double width) {
+        this.closes = new RollingWindow(period);
+        this.width = width;
+    }
+
+    private BollingerBands(BollingerBands other) {
+        this.closes = other.closes.copy();
+        this.width = other.width;
+    }
+
+    public BollingerBands copy() {
+        return new BollingerBands(this);
+    }
+
+    public void add(double close) {
+        closes.add(close);
+    }
+
+    public boolean isReady() {
+        return closes.isFull();
+    }
+
+    public double middle() {
+        return isReady() ? closes.mean() : Double.NaN;
+    }
+
+    public double upper() {
+        return isReady() ? closes.mean() + width * closes.stdDev() : Double.NaN;
+    }
+
+    public double lower() {
+        return isReady() ? closes.mean() - width * closes.stdDev() : Double.NaN;
+    }
+}
@@ -0,0 +1,52 @@
+package com.data.trade.indicator;
+
+/**
+ * Exponential moving average with alpha = 2 / (period + 1), seeded with the simple average of
+ * the first `period` values
+ */
+public final class Ema {
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double seedSum;
+    private double value;
+
+    public Ema(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    private Ema(Ema other) {
+        this.period = other.period;
+        this.alpha = other.alpha;
+        this.count = other.count;
+        this.seedSum = other.seedSum;
+        this.value = other.value;
+    }
+
+    public Ema copy() {
+        return new Ema(this);
+    }
+
+    public void add(double x) {
+        count++;
+        if (count < period) {
+            seedSum += x;
+        } else if (count == period) {
+            value = (seedSum + x) / period;
+        } else {
+            value += alpha * (x - value);
+        }
+    }
+
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    public double value() {
+        return isReady() ? value : Double.NaN;
+    }
+}
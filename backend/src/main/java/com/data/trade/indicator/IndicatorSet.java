@@ -0,0 +1,105 @@
+package com.data.trade.indicator;
+
+/**
+ * The standard indicator set over one code's daily bars, fed oldest first.
+ * Each update is O(1); copy() is O(total window size), so a still-open bar can be applied to a
+ * copy without disturbing the state built from closed bars.
+ */
+public final class IndicatorSet {
+
+    // Bars needed before every indicator is ready (MACD: slow EMA, then its signal EMA)
+    public static final int WARM_UP_BARS = 26 + 9 - 1;
+
+    private final Macd macd; // Its fast and slow EMAs are the EMA12 and EMA26
+    private final BollingerBands bollinger;
+    private final Atr atr;
+    private final Obv obv;
+    private final Stochastic stochastic;
+    private final Vwap vwap;
+    private final ZScore closeZScore;
+    private final ZScore volumeZScore;
+    private int bars;
+
+    public IndicatorSet() {
+        this.macd = new Macd(12, 26, 9);
+        this.bollinger = new BollingerBands(20, 2);
+        this.atr = new Atr(14);
+        this.obv = new Obv();
+        this.stochastic = new Stochastic(14, 3);
+        this.vwap = new Vwap(20);
+        this.closeZScore = new ZScore(20);
+        this.volumeZScore = new ZScore(20);
+    }
+
+    private IndicatorSet(IndicatorSet other) {
+        this.macd = other.macd.copy();
+        this.bollinger = other.bollinger.copy();
+        this.atr = other.atr.copy();
+        this.obv = other.obv.copy();
+        this.stochastic = other.stochastic.copy();
+        this.vwap = other.vwap.copy();
+        this.closeZScore = other.closeZScore.copy();
+        this.volumeZScore = other.volumeZScore.copy();
+        this.bars = other.bars;
+    }
+
+    public IndicatorSet copy() {
+        return new IndicatorSet(this);
+    }
+
+    public void add(double high, double low, double close, double volume) {
+        macd.add(close);
+        bollinger.add(close);
+        atr.add(high, low, close);
+        obv.add(close, volume);
+        stochastic.add(high, low, close);
+        vwap.add(high, low, close, volume);
+        closeZScore.add(close);
+        volumeZScore.add(volume);
+        bars++;
+    }
+
+    public int bars() {
+        return bars;
+    }
+
+    public double ema12() {
+        return macd.fastEma();
+    }
+
+    public double ema26() {
+        return macd.slowEma();
+    }
+
+    public Macd macd() {
+        return macd;
+    }
+
+    public BollingerBands bollinger() {
+        return bollinger;
+    }
+
+    public Atr atr() {
+        return atr;
+    }
+
+    public Obv obv() {
+        return obv;
+    }
+
+    public Stochastic stochastic() {
+        return stochastic;
+    }
+
+    public Vwap vwap() {
+        return vwap;
+    }
+
+    public ZScore closeZScore() {
+        return closeZScore;
+    }
+
+    public ZScore volumeZScore() {
+        return volumeZScore;
+    }
+}
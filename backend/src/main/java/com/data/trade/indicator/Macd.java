@@ -0,0 +1,64 @@
+package com.data.trade.indicator;
+
+/**
+ * MACD line (fast EMA - slow EMA), its signal EMA and the histogram between them
+ */
+public final class Macd {
+    private final Ema fast;
+    private final Ema slow;
+    private final Ema signal;
+
+    public Macd(int fastPeriod, int slowPeriod, int signalPeriod) {
+        if (fastPeriod >= slowPeriod) {
+            throw new IllegalArgumentException("fastPeriod must be shorter than slowPeriod");
+        }
+        this.fast = new Ema(fastPeriod);
+        this.slow = new Ema(slowPeriod);
+        this.signal = new Ema(signalPeriod);
+    }
+
+    private Macd(Macd other) {
+        this.fast = other.fast.copy();
+        this.slow = other.slow.copy();
+        this.signal = other.signal.copy();
+    }
+
+    public Macd copy() {
+        return new Macd(this);
+    }
+
+    public void add(double close) {
+        fast.add(close);
+        slow.add(close);
+        if (slow.isReady()) {
+            signal.add(line());
+        }
+    }
+
+    public boolean isReady() {
+        return signal.isReady();
+    }
+
+    /**
+     * The fast EMA the line is built from, so callers need not run their own
+     */
+    public double fastEma() {
+        return fast.value();
+    }
+
+    public double slowEma() {
+        return slow.value();
+    }
+
+    public double line() {
+        return slow.isReady() ? fast.value() - slow.value() : Double.NaN;
+    }
+
+    public double signal() {
+        return signal.value();
+    }
+
+    public double histogram() {
+        return isReady() ? line() - signal() : Double.NaN;
+    }
+}
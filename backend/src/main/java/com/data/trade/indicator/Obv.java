@@ -0,0 +1,45 @@
+package com.data.trade.indicator;
+
+/**
+ * On-balance volume: running total adding the volume of up closes and subtracting that of down closes.
+ * The total starts at 0 on the first bar fed, so its level is relative to that bar and only its
+ * changes compare between instances started at different bars.
+ */
+public final class Obv {
+    private double previousClose = Double.NaN;
+    private double value;
+    private int count;
+
+    public Obv() {
+    }
+
+    private Obv(Obv other) {
+        this.previousClose = other.previousClose;
+        this.value = other.value;
+        this.count = other.count;
+    }
+
+    public Obv copy() {
+        return new Obv(this);
+    }
+
+    public void add(double close, double volume) {
+        if (!Double.isNaN(previousClose)) {
+            if (close > previousClose) {
+                value += volume;
+            } else if (close < previousClose) {
+                value -= volume;
+            }
+        }
+        previousClose = close;
+        count++;
+    }
+
+    public boolean isReady() {
+        return count > 0;
+    }
+
+    public double value() {
+        return isReady() ? value : Double.NaN;
+    }
+}
@@ -0,0 +1,78 @@
+package com.data.trade.indicator;
+
+import java.util.Arrays;
+
+/**
+ * Maximum (or minimum) of the last `size` values: a monotonic deque in primitive rings,
+ * amortized O(1) per value
+ */
+public final class RollingExtreme {
+    private final int size;
+    private final boolean max;
+    private final double[] values;
+    private final long[] positions;
+    private int head;
+    private int length;
+    private long position;
+
+    private RollingExtreme(int size, boolean max) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.size = size;
+        this.max = max;
+        this.values = new double[size];
+        this.positions = new long[size];
+    }
+
+    private RollingExtreme(RollingExtreme other) {
+        this.size = other.size;
+        this.max = other.max;
+        this.values = Arrays.copyOf(other.values, other.values.length);
+        this.positions = Arrays.copyOf(other.positions, other.positions.length);
+        this.head = other.head;
+        this.length = other.length;
+        this.position = other.position;
+    }
+
+    public static RollingExtreme max(int size) {
+        return new RollingExtreme(size, true);
+    }
+
+    public static RollingExtreme min(int size) {
+        return new RollingExtreme(size, false);
+    }
+
+    public RollingExtreme copy() {
+        return new RollingExtreme(this);
+    }
+
+    public void add(double value) {
+        // Values the new one dominates can never be the extreme again
+        while (length > 0) {
+            double last = values[(head + length - 1) % size];
+            if (max ? last > value : last < value) {
+                break;
+            }
+            length--;
+        }
+        // Expire the front once it falls out of the window
+        if (length > 0 && positions[head] <= position - size) {
+            head = (head + 1) % size;
+            length--;
+        }
+        int tail = (head + length) % size;
+        values[tail] = value;
+        positions[tail] = position;
+        length++;
+        position++;
+    }
+
+    public boolean isFull() {
+        return position >= size;
+    }
+
+    public double value() {
+        return length == 0 ? Double.NaN : values[head];
+    }
+}
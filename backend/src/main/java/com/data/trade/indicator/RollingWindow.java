@@ -0,0 +1,76 @@
+package com.data.trade.indicator;
+
+import java.util.Arrays;
+
+/**
+ * Last `size` values in a primitive ring, with running sum and sum of squares
+ * so mean and standard deviation are O(1)
+ */
+public final class RollingWindow {
+    private final double[] values;
+    private int next;
+    private int count;
+    private double sum;
+    private double sumOfSquares;
+
+    public RollingWindow(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.values = new double[size];
+    }
+
+    private RollingWindow(RollingWindow other) {
+        this.values = Arrays.copyOf(other.values, other.values.length);
+        this.next = other.next;
+        this.count = other.count;
+        this.sum = other.sum;
+        this.sumOfSquares = other.sumOfSquares;
+    }
+
+    public RollingWindow copy() {
+        return new RollingWindow(this);
+    }
+
+    public void add(double value) {
+        if (count == values.length) {
+            double dropped = values[next];
+            sum -= dropped;
+            sumOfSquares -= dropped * dropped;
+        } else {
+            count++;
+        }
+        values[next] = value;
+        next = (next + 1) % values.length;
+        sum += value;
+        sumOfSquares += value * value;
+    }
+
+    public boolean isFull() {
+        return count == values.length;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Population standard deviation of the values held
+     */
+    public double stdDev() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sum / count;
+        // Running sums can drift slightly below zero variance
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+}
@@ -0,0 +1,48 @@
+package com.data.trade.indicator;
+
+/**
+ * Stochastic oscillator: %K places the close within the high-low range of the last `period` bars
+ * (0 to 100), %D is the simple average of the last `smoothing` %K values
+ */
+public final class Stochastic {
+    private final RollingExtreme highs;
+    private final RollingExtreme lows;
+    private final RollingWindow ks;
+    private double k = Double.NaN;
+
+    public Stochastic(int period, int smoothing) {
+        this.highs = RollingExtreme.max(period);
+        this.lows = RollingExtreme.min(period);
+        this.ks = new RollingWindow(smoothing);
+    }
+
+    private Stochastic(Stochastic other) {
+        this.highs = other.highs.copy();
+        this.lows = other.lows.copy();
+        this.ks = other.ks.copy();
+        this.k = other.k;
+    }
+
+    public Stochastic copy() {
+        return new Stochastic(this);
+    }
+
+    public void add(double high, double low, double close) {
+        highs.add(high);
+        lows.add(low);
+        if (highs.isFull()) {
+            double range = highs.value() - lows.value();
+            // A flat range leaves the close in the middle
+            k = range > 0 ? (close - lows.value()) / range * 100 : 50;
+            ks.add(k);
+        }
+    }
+
+    public double k() {
+        return k;
+    }
+
+    public double d() {
+        return ks.isFull() ? ks.mean() : Double.NaN;
+    }
+}
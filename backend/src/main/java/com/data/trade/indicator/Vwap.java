@@ -0,0 +1,36 @@
+package com.data.trade.indicator;
+
+/**
+ * Volume-weighted average of the typical price (high + low + close) / 3 over the last `period` bars
+ */
+public final class Vwap {
+    private final RollingWindow priceVolumes;
+    private final RollingWindow volumes;
+
+    public Vwap(int period) {
+        this.priceVolumes = new RollingWindow(period);
+        this.volumes = new RollingWindow(period);
+    }
+
+    private Vwap(Vwap other) {
+        this.priceVolumes = other.priceVolumes.copy();
+        this.volumes = other.volumes.copy();
+    }
+
+    public Vwap copy() {
+        return new Vwap(this);
+    }
+
+    public void add(double high, double low, double close, double volume) {
+        priceVolumes.add((high + low + close) / 3 * volume);
+        volumes.add(volume);
+    }
+
+    public boolean isReady() {
+        return volumes.isFull() && volumes.sum() > 0;
+    }
+
+    public double value() {
+        return isReady() ? priceVolumes.sum() / volumes.sum() : Double.NaN;
+    }
+}
@@ -0,0 +1,39 @@
+package com.data.trade.indicator;
+
+/**
+ * How many standard deviations the latest value is from the mean of the last `period` values (itself included)
+ */
+public final class ZScore {
+    private final RollingWindow window;
+    private double last = Double.NaN;
+
+    public ZScore(int period) {
+        this.window = new RollingWindow(period);
+    }
+
+    private ZScore(ZScore other) {
+        this.window = other.window.copy();
+        this.last = other.last;
+    }
+
+    public ZScore copy() {
+        return new ZScore(this);
+    }
+
+    public void add(double value) {
+        window.add(value);
+        last = value;
+    }
+
+    public boolean isReady() {
+        return window.isFull();
+    }
+
+    public double value() {
+        if (!isReady()) {
+            return Double.NaN;
+        }
+        double stdDev = window.stdDev();
+        return stdDev > 0 ? (last - window.mean()) / stdDev : 0;
+    }
+}
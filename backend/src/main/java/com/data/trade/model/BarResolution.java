@@ -0,0 +1,40 @@
+package com.data.trade.model;
+
+import java.util.Arrays;
+
+/**
+ * Bucket size for intraday bars, resampled from the one-minute rollup
+ */
+public enum BarResolution {
+    M1("1m", 1),
+    M5("5m", 5),
+    M10("10m", 10),
+    M30("30m", 30);
+
+    private final String param;
+    private final int minutes;
+
+    BarResolution(String param, int minutes) {
+        this.param = param;
+        this.minutes = minutes;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Parse a request parameter such as "5m"; null or blank means the 10-minute default
+     */
+    public static BarResolution fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return M10;
+        }
+        String normalized = value.trim().toLowerCase();
+        return Arrays.stream(values())
+                .filter(r -> r.param.equals(normalized))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unsupported resolution: " + value + " (expected one of 1m, 5m, 10m, 30m)"));
+    }
+}
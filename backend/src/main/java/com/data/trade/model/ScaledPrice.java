@@ -0,0 +1,54 @@
+package com.data.trade.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point VND price held in a long as hundredths (e.g. 25.35 -> 2535).
+ * Trade prices are NUMERIC(38, 2), so the conversion is exact. Analysis loops work on these
+ * longs; BigDecimal is only built for API responses. 0 (NONE) stands for a missing price.
+ */
+public final class ScaledPrice {
+
+    public static final int SCALE = 2;
+    public static final long ONE = 100;
+    public static final long NONE = 0;
+
+    private ScaledPrice() {
+    }
+
+    public static long of(BigDecimal price) {
+        return price == null ? NONE : price.movePointRight(SCALE).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Convert a numeric column value (BigDecimal for NUMERIC, or any other Number)
+     */
+    public static long of(Number price) {
+        if (price == null) {
+            return NONE;
+        }
+        if (price instanceof BigDecimal decimal) {
+            return of(decimal);
+        }
+        return Math.round(price.doubleValue() * ONE);
+    }
+
+    /**
+     * BigDecimal with scale 2 for API output; null for NONE
+     */
+    public static BigDecimal toBigDecimal(long price) {
+        return price == NONE ? null : BigDecimal.valueOf(price, SCALE);
+    }
+
+    public static double toDouble(long price) {
+        return (double) price / ONE;
+    }
+
+    /**
+     * Change from one price to another in percent; 0 when the base price is missing
+     */
+    public static double percentChange(long from, long to) {
+        return from > 0 ? (to - from) * 100.0 / from : 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.data.trade.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A user's own formula weights and action thresholds for the combined recommendation
+ */
+@Entity
+@Table(name = "user_recommendation_weights")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRecommendationWeights {
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Double momentumWeight;
+
+    @Column(nullable = false)
+    private Double maCrossoverWeight;
+
+    @Column(nullable = false)
+    private Double rsiWeight;
+
+    @Column(nullable = false)
+    private Double trendStrengthWeight;
+
+    @Column(nullable = false)
+    private Double weakActionScore;
+
+    @Column(nullable = false)
+    private Double moderateActionScore;
+
+    @Column(nullable = false)
+    private Double strongActionScore;
+
+    @Column(nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = OffsetDateTime.now();
+    }
+}
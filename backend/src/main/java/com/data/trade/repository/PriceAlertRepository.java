@@ -16,6 +16,9 @@ public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
     
     @Query("SELECT pa FROM PriceAlert pa JOIN FETCH pa.user WHERE pa.active = true")
     List<PriceAlert> findAllByActiveTrueWithUser();
+
+    @Query("SELECT DISTINCT pa.code FROM PriceAlert pa WHERE pa.active = true")
+    List<String> findDistinctActiveCodes();
     
     Optional<PriceAlert> findByUserIdAndCode(Long userId, String code);
     boolean existsByUserIdAndCode(Long userId, String code);
@@ -2,6 +2,7 @@ package com.data.trade.repository;
 
 import com.data.trade.model.ShortTermTrackedStock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +15,7 @@ public interface ShortTermTrackedStockRepository extends JpaRepository<ShortTerm
     List<ShortTermTrackedStock> findAllByUserIdAndActiveTrue(Long userId);
     Optional<ShortTermTrackedStock> findByUserIdAndCode(Long userId, String code);
     boolean existsByUserIdAndCode(Long userId, String code);
-}
 
+    @Query("SELECT DISTINCT s.code FROM ShortTermTrackedStock s")
+    List<String> findDistinctCodes();
+}
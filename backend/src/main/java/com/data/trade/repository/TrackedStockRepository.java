@@ -2,6 +2,7 @@ package com.data.trade.repository;
 
 import com.data.trade.model.TrackedStock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +15,7 @@ public interface TrackedStockRepository extends JpaRepository<TrackedStock, Long
     List<TrackedStock> findAllByUserIdAndActiveTrue(Long userId);
     Optional<TrackedStock> findByUserIdAndCode(Long userId, String code);
     boolean existsByUserIdAndCode(Long userId, String code);
+
+    @Query("SELECT DISTINCT t.code FROM TrackedStock t")
+    List<String> findDistinctCodes();
 }
@@ -9,67 +9,81 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecificationExecutor<Trade> {
+public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecificationExecutor<Trade>, TradeRepositoryCustom {
     
     @Query("SELECT DISTINCT t.code FROM Trade t")
     List<String> findDistinctCodes();
     
-    // Find latest trade for a given code, ordering by date DESC then time DESC
-    @Query("SELECT t FROM Trade t WHERE t.code = :code ORDER BY t.tradeDate DESC, t.tradeTime DESC")
-    List<Trade> findLatestByCode(@Param("code") String code);
+    // Find latest trade for a given code; only the newest partition holding the code is read
+    Optional<Trade> findFirstByCodeOrderByTradeDateNumericDescTradeSecondsDescSeqDesc(String code);
 
-    // Find trades for a code on a specific date
-    @Query("SELECT t FROM Trade t WHERE t.code = :code AND t.tradeDate = :tradeDate ORDER BY t.tradeTime DESC")
-    List<Trade> findByCodeAndTradeDate(@Param("code") String code, @Param("tradeDate") String tradeDate);
+    // Find trades for a code on a specific date (YYYYMMDD), latest first
+    @Query("SELECT t FROM Trade t WHERE t.code = :code AND t.tradeDateNumeric = :tradeDateNumeric ORDER BY t.tradeSeconds DESC, t.seq DESC")
+    List<Trade> findByCodeAndTradeDate(@Param("code") String code, @Param("tradeDateNumeric") int tradeDateNumeric);
 
+    /**
+     * Ticks of a code on one day with natural key (trade_seconds, seq) after the given one, oldest first.
+     * Returns: trade_seconds, seq, price, volume, side. Feeds the in-memory tick store.
+     */
+    @Query(value = """
+        SELECT t.trade_seconds, t.seq, t.price, t.volume, t.side
+        FROM trades t
+        WHERE t.code = :code
+          AND t.trade_date_numeric = :tradeDateNumeric
+          AND (t.trade_seconds, t.seq) > (:afterSeconds, :afterSeq)
+        ORDER BY t.trade_seconds, t.seq
+        """, nativeQuery = true)
+    List<Object[]> findTicksAfter(
+            @Param("code") String code,
+            @Param("tradeDateNumeric") int tradeDateNumeric,
+            @Param("afterSeconds") int afterSeconds,
+            @Param("afterSeq") int afterSeq
+    );
+
+    /**
+     * Natural key (trade_date_numeric, trade_time, seq) of the most recent stored trade for a code.
+     * Used to seed the ingestion high-water mark; served by idx_trades_code_date_seconds_id.
+     */
+    @Query(value = """
+        SELECT t.trade_date_numeric, t.trade_time, t.seq
+        FROM trades t
+        WHERE t.code = :code
+        ORDER BY t.trade_date_numeric DESC, t.trade_seconds DESC, t.seq DESC
+        LIMIT 1
+        """, nativeQuery = true)
+    List<Object[]> findLatestNaturalKey(@Param("code") String code);
+
+    // Drops the day's rollups together with its trades; re-ingestion rebuilds them
     @Transactional
     @Modifying
-    @Query(value = "delete from trades where code = :code and trade_date = :tradeDate", nativeQuery = true)
-    void deleteForCodeOnDate(@Param("code") String code, @Param("tradeDate") String tradeDate);
-
     @Query(value = """
-        select case
-          when (
-            coalesce(sum(case when t.side = 'sell' and t.volume >= 400000 then 1 else 0 end), 0) +
-            coalesce(sum(case when t.side = 'sell' and t.volume >= 100000 then 0.5 else 0 end), 0)
-          ) > (
-            coalesce(sum(case when t.side = 'buy'  and t.volume >= 400000 then 1 else 0 end), 0) +
-            coalesce(sum(case when t.side = 'buy'  and t.volume >= 100000 then 0.5 else 0 end), 0)
-          ) * 1.3 then 'Strong sell signal'
-          when (
-            coalesce(sum(case when t.side = 'buy'  and t.volume >= 400000 then 1 else 0 end), 0) +
-            coalesce(sum(case when t.side = 'buy'  and t.volume >= 100000 then 0.5 else 0 end), 0)
-          ) > (
-            coalesce(sum(case when t.side = 'sell' and t.volume >= 400000 then 1 else 0 end), 0) +
-            coalesce(sum(case when t.side = 'sell' and t.volume >= 100000 then 0.5 else 0 end), 0)
-          ) * 1.3 then 'Strong buy signal'
-          else 'Neutral — hold'
-        end
-        from trades t
-        where upper(t.code) = upper(:stockCode)
-          and t.trade_date = :tradeDate
-    """, nativeQuery = true)
-    String recommendationFor(
-            @Param("stockCode") String stockCode,
-            @Param("tradeDate") String tradeDate
-    );
+        with deleted_bar as (
+            delete from daily_bars where code = :code and trade_date_numeric = :tradeDateNumeric
+        ),
+        deleted_minutes as (
+            delete from minute_bars where code = :code and trade_date_numeric = :tradeDateNumeric
+        )
+        delete from trades where code = :code and trade_date_numeric = :tradeDateNumeric
+        """, nativeQuery = true)
+    void deleteForCodeOnDate(@Param("code") String code, @Param("tradeDateNumeric") int tradeDateNumeric);
 
     // Calculate volume statistics based on specifications
     @Query("SELECT COALESCE(SUM(t.volume), 0) FROM Trade t WHERE t.side = :side")
     Long sumVolumeBySide(@Param("side") String side);
 
     // Statistics queries for tracked stocks
-    @Query("SELECT MIN(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDate = :tradeDate")
-    Optional<BigDecimal> findMinPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDate") String tradeDate);
+    @Query("SELECT MIN(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDateNumeric = :tradeDateNumeric")
+    Optional<BigDecimal> findMinPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDateNumeric") int tradeDateNumeric);
 
-    @Query("SELECT MAX(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDate = :tradeDate")
-    Optional<BigDecimal> findMaxPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDate") String tradeDate);
+    @Query("SELECT MAX(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDateNumeric = :tradeDateNumeric")
+    Optional<BigDecimal> findMaxPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDateNumeric") int tradeDateNumeric);
 
-    @Query("SELECT MAX(t.volume) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDate = :tradeDate")
-    Optional<Long> findMaxVolumeByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDate") String tradeDate);
+    @Query("SELECT MAX(t.volume) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDateNumeric = :tradeDateNumeric")
+    Optional<Long> findMaxVolumeByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDateNumeric") int tradeDateNumeric);
 
     /**
      * Get the latest transaction date from all trades
@@ -77,80 +91,27 @@ public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecific
      */
     @Query(value = """
         SELECT trade_date
-        FROM (
-            SELECT DISTINCT trade_date,
-                CAST(
-                    SUBSTRING(trade_date, 7, 4) || 
-                    SUBSTRING(trade_date, 4, 2) || 
-                    SUBSTRING(trade_date, 1, 2)
-                AS INTEGER) as date_int
-            FROM trades
-        ) AS distinct_dates
-        ORDER BY date_int DESC
+        FROM trades
+        ORDER BY trade_date_numeric DESC
         LIMIT 1
         """, nativeQuery = true)
     Optional<String> findLatestTransactionDate();
 
-    // Aggregate daily statistics grouped by tradeDate
-    // Gets latest price of each day (based on latest trade_time)
-    // PostgreSQL compatible query
+    // Aggregate daily statistics grouped by tradeDate, read from the daily_bars rollup
+    // Gets latest price of each day (close of the bar with the latest close_time)
     @Query(value = """
-        WITH daily_agg AS (
-            SELECT 
-                t.trade_date,
-                MIN(CAST(t.price AS DECIMAL)) as minPrice,
-                MAX(CAST(t.price AS DECIMAL)) as maxPrice,
-                SUM(t.volume) as totalVolume
-            FROM trades t
-            WHERE (:code IS NULL OR UPPER(t.code) = UPPER(:code))
-              AND (:fromDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) >= CAST(:fromDateStr AS INTEGER))
-              AND (:toDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) <= CAST(:toDateStr AS INTEGER))
-            GROUP BY t.trade_date
-        ),
-        latest_prices AS (
-            SELECT DISTINCT ON (t.trade_date)
-                t.trade_date,
-                t.price as latestPrice
-            FROM trades t
-            WHERE (:code IS NULL OR UPPER(t.code) = UPPER(:code))
-              AND (:fromDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) >= CAST(:fromDateStr AS INTEGER))
-              AND (:toDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) <= CAST(:toDateStr AS INTEGER))
-            ORDER BY t.trade_date, t.trade_time DESC
-        )
         SELECT 
-            da.trade_date as date,
-            lp.latestPrice,
-            da.minPrice,
-            da.maxPrice,
-            da.totalVolume
-        FROM daily_agg da
-        LEFT JOIN latest_prices lp ON da.trade_date = lp.trade_date
-        ORDER BY 
-            CAST(
-                SUBSTRING(da.trade_date, 7, 4) || 
-                SUBSTRING(da.trade_date, 4, 2) || 
-                SUBSTRING(da.trade_date, 1, 2)
-            AS INTEGER) ASC
+            MIN(b.trade_date) as date,
+            (ARRAY_AGG(b.close_price ORDER BY b.close_time DESC, b.close_seq DESC))[1] as latestPrice,
+            MIN(b.low_price) as minPrice,
+            MAX(b.high_price) as maxPrice,
+            SUM(b.total_volume) as totalVolume
+        FROM daily_bars b
+        WHERE (:code IS NULL OR b.code = UPPER(:code))
+          AND (:fromDateStr IS NULL OR b.trade_date_numeric >= CAST(:fromDateStr AS INTEGER))
+          AND (:toDateStr IS NULL OR b.trade_date_numeric <= CAST(:toDateStr AS INTEGER))
+        GROUP BY b.trade_date_numeric
+        ORDER BY b.trade_date_numeric ASC
         """, nativeQuery = true)
     List<Object[]> findDailyStats(
             @Param("code") String code,
@@ -159,267 +120,121 @@ public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecific
     );
 
     /**
-     * Get last 10 trading days of aggregated statistics for a stock
+     * Get the last :days trading days of aggregated statistics for a stock from the daily_bars rollup
      * Returns: trade_date, close_price, open_price, high_price, low_price,
      *          buy_volume, sell_volume, total_volume,
      *          large_buy_blocks, large_sell_blocks, medium_buy_blocks, medium_sell_blocks
      */
     @Query(value = """
-        WITH last_10_dates AS (
-            SELECT DISTINCT 
-                trade_date,
-                trade_date_numeric
-            FROM trades
-            WHERE UPPER(code) = UPPER(:stockCode)
-            ORDER BY trade_date_numeric DESC
-            LIMIT 10
-        ),
-        daily_aggregates AS (
-            SELECT 
-                t.trade_date,
-                SUM(CASE WHEN t.side = 'buy' THEN t.volume ELSE 0 END) as buy_volume,
-                SUM(CASE WHEN t.side = 'sell' THEN t.volume ELSE 0 END) as sell_volume,
-                SUM(t.volume) as total_volume,
-                SUM(CASE WHEN t.side = 'buy' AND t.volume >= 400000 THEN 1 ELSE 0 END) as large_buy_blocks,
-                SUM(CASE WHEN t.side = 'sell' AND t.volume >= 400000 THEN 1 ELSE 0 END) as large_sell_blocks,
-                SUM(CASE WHEN t.side = 'buy' AND t.volume >= 100000 AND t.volume < 400000 THEN 1 ELSE 0 END) as medium_buy_blocks,
-                SUM(CASE WHEN t.side = 'sell' AND t.volume >= 100000 AND t.volume < 400000 THEN 1 ELSE 0 END) as medium_sell_blocks,
-                MIN(CAST(t.price AS DECIMAL)) as low_price,
-                MAX(CAST(t.price AS DECIMAL)) as high_price
-            FROM trades t
-            WHERE t.code = :stockCode
-              AND t.trade_date IN (SELECT trade_date FROM last_10_dates)
-            GROUP BY t.trade_date
-        ),
-        first_prices AS (
-            SELECT 
-                t.trade_date,
-                t.price as open_price,
-                ROW_NUMBER() OVER (PARTITION BY t.trade_date ORDER BY t.trade_time ASC) as rn
-            FROM trades t
-            WHERE t.code = :stockCode
-              AND t.trade_date IN (SELECT trade_date FROM last_10_dates)
-        ),
-        first_prices_filtered AS (
-            SELECT trade_date, open_price
-            FROM first_prices
-            WHERE rn = 1
-        ),
-        last_prices AS (
-            SELECT 
-                t.trade_date,
-                t.price as close_price,
-                ROW_NUMBER() OVER (PARTITION BY t.trade_date ORDER BY t.trade_time DESC) as rn
-            FROM trades t
-            WHERE t.code = :stockCode
-              AND t.trade_date IN (SELECT trade_date FROM last_10_dates)
-        ),
-        last_prices_filtered AS (
-            SELECT trade_date, close_price
-            FROM last_prices
-            WHERE rn = 1
-        )
         SELECT 
-            da.trade_date,
-            COALESCE(lp.close_price, 0) as close_price,
-            COALESCE(fp.open_price, 0) as open_price,
-            da.high_price,
-            da.low_price,
-            da.buy_volume,
-            da.sell_volume,
-            da.total_volume,
-            da.large_buy_blocks,
-            da.large_sell_blocks,
-            da.medium_buy_blocks,
-            da.medium_sell_blocks
-        FROM daily_aggregates da
-        LEFT JOIN first_prices_filtered fp ON da.trade_date = fp.trade_date
-        LEFT JOIN last_prices_filtered lp ON da.trade_date = lp.trade_date
-        LEFT JOIN last_10_dates l10d ON da.trade_date = l10d.trade_date
-        ORDER BY l10d.trade_date_numeric DESC
+            b.trade_date,
+            b.close_price,
+            b.open_price,
+            b.high_price,
+            b.low_price,
+            b.buy_volume,
+            b.sell_volume,
+            b.total_volume,
+            b.large_buy_blocks,
+            b.large_sell_blocks,
+            b.medium_buy_blocks,
+            b.medium_sell_blocks
+        FROM daily_bars b
+        WHERE b.code = UPPER(:stockCode)
+        ORDER BY b.trade_date_numeric DESC
+        LIMIT :days
+        """, nativeQuery = true)
+    List<Object[]> findRecentDailyStats(@Param("stockCode") String stockCode, @Param("days") int days);
+
+    /**
+     * Get the last :days daily bars of each stock in a single query, oldest first.
+     * Each code gets its own latest days (a suspended code's window ends at its last bar), read
+     * through the (code, trade_date_numeric) primary key, so the cost is codes x days rather than
+     * every row of the codes' history.
+     * Returns: code, trade_date_numeric, trade_date, open_price, high_price, low_price, close_price,
+     *          buy_volume, sell_volume, total_volume,
+     *          large_buy_blocks, large_sell_blocks, medium_buy_blocks, medium_sell_blocks,
+     *          close_time, close_seq (natural key of the day's last trade)
+     */
+    @Query(value = """
+        SELECT
+            b.code,
+            b.trade_date_numeric,
+            b.trade_date,
+            b.open_price,
+            b.high_price,
+            b.low_price,
+            b.close_price,
+            b.buy_volume,
+            b.sell_volume,
+            b.total_volume,
+            b.large_buy_blocks,
+            b.large_sell_blocks,
+            b.medium_buy_blocks,
+            b.medium_sell_blocks,
+            b.close_time,
+            b.close_seq
+        FROM (SELECT DISTINCT unnest(CAST(:stockCodes AS varchar[])) AS code) c
+        CROSS JOIN LATERAL (
+            SELECT d.*
+            FROM daily_bars d
+            WHERE d.code = c.code
+            ORDER BY d.trade_date_numeric DESC
+            LIMIT :days
+        ) b
+        ORDER BY b.code, b.trade_date_numeric
         """, nativeQuery = true)
-    List<Object[]> findLast10DaysStats(@Param("stockCode") String stockCode);
+    List<Object[]> findRecentDailyBars(@Param("stockCodes") String[] stockCodes, @Param("days") int days);
 
     /**
-     * Get last 10 trading days of aggregated statistics for multiple stocks in a single query
-     * Returns: code, trade_date, close_price, open_price, high_price, low_price,
+     * Daily bars of the given codes with trade_date_numeric in [fromDate, toDate] (YYYYMMDD),
+     * grouped by code and oldest first. Used to replay the recommendation formulas over history.
+     * Returns: code, trade_date_numeric, trade_date, open_price, high_price, low_price, close_price,
      *          buy_volume, sell_volume, total_volume,
      *          large_buy_blocks, large_sell_blocks, medium_buy_blocks, medium_sell_blocks
-     * This is optimized for batch processing to reduce database round trips
      */
     @Query(value = """
-        WITH last_10_dates AS (
-            SELECT DISTINCT 
-                trade_date,
-                trade_date_numeric
-            FROM trades
-            WHERE code IN :stockCodes
-            ORDER BY trade_date_numeric DESC
-            LIMIT 10
-        ),
-        daily_aggregates AS (
-            SELECT 
-                t.code,
-                t.trade_date,
-                SUM(CASE WHEN t.side = 'buy' THEN t.volume ELSE 0 END) as buy_volume,
-                SUM(CASE WHEN t.side = 'sell' THEN t.volume ELSE 0 END) as sell_volume,
-                SUM(t.volume) as total_volume,
-                SUM(CASE WHEN t.side = 'buy' AND t.volume >= 400000 THEN 1 ELSE 0 END) as large_buy_blocks,
-                SUM(CASE WHEN t.side = 'sell' AND t.volume >= 400000 THEN 1 ELSE 0 END) as large_sell_blocks,
-                SUM(CASE WHEN t.side = 'buy' AND t.volume >= 100000 AND t.volume < 400000 THEN 1 ELSE 0 END) as medium_buy_blocks,
-                SUM(CASE WHEN t.side = 'sell' AND t.volume >= 100000 AND t.volume < 400000 THEN 1 ELSE 0 END) as medium_sell_blocks,
-                MIN(CAST(t.price AS DECIMAL)) as low_price,
-                MAX(CAST(t.price AS DECIMAL)) as high_price
-            FROM trades t
-            WHERE t.code IN :stockCodes
-              AND t.trade_date IN (SELECT trade_date FROM last_10_dates)
-            GROUP BY t.code, t.trade_date
-        ),
-        first_prices AS (
-            SELECT 
-                t.code,
-                t.trade_date,
-                t.price as open_price,
-                ROW_NUMBER() OVER (PARTITION BY t.code, t.trade_date ORDER BY t.trade_time ASC) as rn
-            FROM trades t
-            WHERE t.code IN :stockCodes
-              AND t.trade_date IN (SELECT trade_date FROM last_10_dates)
-        ),
-        first_prices_filtered AS (
-            SELECT code, trade_date, open_price
-            FROM first_prices
-            WHERE rn = 1
-        ),
-        last_prices AS (
-            SELECT 
-                t.code,
-                t.trade_date,
-                t.price as close_price,
-                ROW_NUMBER() OVER (PARTITION BY t.code, t.trade_date ORDER BY t.trade_time DESC) as rn
-            FROM trades t
-            WHERE t.code IN :stockCodes
-              AND t.trade_date IN (SELECT trade_date FROM last_10_dates)
-        ),
-        last_prices_filtered AS (
-            SELECT code, trade_date, close_price
-            FROM last_prices
-            WHERE rn = 1
-        )
-        SELECT 
-            da.code,
-            da.trade_date,
-            COALESCE(lp.close_price, 0) as close_price,
-            COALESCE(fp.open_price, 0) as open_price,
-            da.high_price,
-            da.low_price,
-            da.buy_volume,
-            da.sell_volume,
-            da.total_volume,
-            da.large_buy_blocks,
-            da.large_sell_blocks,
-            da.medium_buy_blocks,
-            da.medium_sell_blocks
-        FROM daily_aggregates da
-        LEFT JOIN first_prices_filtered fp ON da.code = fp.code AND da.trade_date = fp.trade_date
-        LEFT JOIN last_prices_filtered lp ON da.code = lp.code AND da.trade_date = lp.trade_date
-        LEFT JOIN last_10_dates l10d ON da.trade_date = l10d.trade_date
-        ORDER BY da.code, l10d.trade_date_numeric DESC
+        SELECT
+            b.code,
+            b.trade_date_numeric,
+            b.trade_date,
+            b.open_price,
+            b.high_price,
+            b.low_price,
+            b.close_price,
+            b.buy_volume,
+            b.sell_volume,
+            b.total_volume,
+            b.large_buy_blocks,
+            b.large_sell_blocks,
+            b.medium_buy_blocks,
+            b.medium_sell_blocks
+        FROM daily_bars b
+        WHERE b.code IN :stockCodes
+          AND b.trade_date_numeric BETWEEN :fromDate AND :toDate
+        ORDER BY b.code, b.trade_date_numeric
         """, nativeQuery = true)
-    List<Object[]> findLast10DaysStatsForMultipleCodes(@Param("stockCodes") List<String> stockCodes);
+    List<Object[]> findDailyBarsBetween(@Param("stockCodes") Collection<String> stockCodes,
+                                        @Param("fromDate") int fromDate,
+                                        @Param("toDate") int toDate);
 
     /**
-     * Get daily OHLC (Open, High, Low, Close) data for a stock
+     * Get daily OHLC (Open, High, Low, Close) data for a stock from the daily_bars rollup
      * Returns: code, trade_date, open_price, high_price, low_price, close_price
      */
     @Query(value = """
-        WITH daily_aggregates AS (
-            SELECT 
-                t.code,
-                t.trade_date,
-                MIN(CAST(t.price AS DECIMAL)) AS low_price,
-                MAX(CAST(t.price AS DECIMAL)) AS high_price
-            FROM trades t
-            WHERE UPPER(t.code) = UPPER(:code)
-              AND (:fromDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) >= CAST(:fromDateStr AS INTEGER))
-              AND (:toDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) <= CAST(:toDateStr AS INTEGER))
-            GROUP BY t.code, t.trade_date
-        ),
-        first_prices AS (
-            SELECT 
-                t.trade_date,
-                CAST(t.price AS DECIMAL) AS open_price,
-                ROW_NUMBER() OVER (PARTITION BY t.trade_date ORDER BY t.trade_time ASC) as rn
-            FROM trades t
-            WHERE UPPER(t.code) = UPPER(:code)
-              AND (:fromDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) >= CAST(:fromDateStr AS INTEGER))
-              AND (:toDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) <= CAST(:toDateStr AS INTEGER))
-        ),
-        first_prices_filtered AS (
-            SELECT trade_date, open_price
-            FROM first_prices
-            WHERE rn = 1
-        ),
-        last_prices AS (
-            SELECT 
-                t.trade_date,
-                CAST(t.price AS DECIMAL) AS close_price,
-                ROW_NUMBER() OVER (PARTITION BY t.trade_date ORDER BY t.trade_time DESC) as rn
-            FROM trades t
-            WHERE UPPER(t.code) = UPPER(:code)
-              AND (:fromDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) >= CAST(:fromDateStr AS INTEGER))
-              AND (:toDateStr IS NULL OR 
-                   CAST(
-                     SUBSTRING(t.trade_date, 7, 4) || 
-                     SUBSTRING(t.trade_date, 4, 2) || 
-                     SUBSTRING(t.trade_date, 1, 2)
-                   AS INTEGER) <= CAST(:toDateStr AS INTEGER))
-        ),
-        last_prices_filtered AS (
-            SELECT trade_date, close_price
-            FROM last_prices
-            WHERE rn = 1
-        )
         SELECT 
-            da.code,
-            da.trade_date,
-            COALESCE(fp.open_price, 0) AS open_price,
-            da.high_price,
-            da.low_price,
-            COALESCE(lp.close_price, 0) AS close_price
-        FROM daily_aggregates da
-        LEFT JOIN first_prices_filtered fp ON da.trade_date = fp.trade_date
-        LEFT JOIN last_prices_filtered lp ON da.trade_date = lp.trade_date
-        ORDER BY 
-            CAST(
-                SUBSTRING(da.trade_date, 7, 4) || 
-                SUBSTRING(da.trade_date, 4, 2) || 
-                SUBSTRING(da.trade_date, 1, 2)
-            AS INTEGER) ASC
+            b.code,
+            b.trade_date,
+            b.open_price,
+            b.high_price,
+            b.low_price,
+            b.close_price
+        FROM daily_bars b
+        WHERE b.code = UPPER(:code)
+          AND (:fromDateStr IS NULL OR b.trade_date_numeric >= CAST(:fromDateStr AS INTEGER))
+          AND (:toDateStr IS NULL OR b.trade_date_numeric <= CAST(:toDateStr AS INTEGER))
+        ORDER BY b.trade_date_numeric ASC
         """, nativeQuery = true)
     List<Object[]> findDailyOHLC(
             @Param("code") String code,
@@ -428,36 +243,49 @@ public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecific
     );
 
     /**
-     * Get intraday price data for a stock on a specific date
-     * Groups trades into 10-minute intervals and calculates average, min, max prices and total volume
-     * Returns: time_interval (HH:mm), avg_price, min_price, max_price, total_volume
-     * Trading session: 09:15:00 - 15:00:00
-     * Groups by rounding down minutes to nearest 10 (e.g., 09:23 -> 09:20, 09:47 -> 09:40)
+     * Get intraday bars for several stocks on one date from the minute_bars rollup
+     * Minute bars are resampled into buckets of :resolution minutes (bucket = minute_of_day rounded down)
+     * Returns: code, bucket_minute, avg_price, min_price, max_price, total_volume, open_price, close_price
+     * Trading session: 09:15:00 - 15:00:00. The 15:00 minute bar would also hold prints after 15:00:00,
+     * so that minute is read from the trades printed at exactly 15:00:00 instead
      */
     @Query(value = """
+        WITH bars AS (
+            SELECT
+                m.code, m.minute_of_day, m.price_sum, m.trade_count, m.low_price, m.high_price, m.volume,
+                m.open_price, m.close_price
+            FROM minute_bars m
+            WHERE m.code IN :codes
+              AND m.trade_date_numeric = :tradeDateNumeric
+              AND m.minute_of_day >= 555
+              AND m.minute_of_day < 900
+            UNION ALL
+            SELECT
+                t.code, 900, SUM(t.price), COUNT(*), MIN(t.price), MAX(t.price), SUM(t.volume),
+                (ARRAY_AGG(t.price ORDER BY t.seq))[1],
+                (ARRAY_AGG(t.price ORDER BY t.seq DESC))[1]
+            FROM trades t
+            WHERE t.code IN :codes
+              AND t.trade_date_numeric = :tradeDateNumeric
+              AND t.trade_seconds = 54000
+            GROUP BY t.code
+        )
         SELECT 
-            SUBSTRING(t.trade_time, 1, 2) || ':' || 
-            CASE 
-                WHEN (CAST(SUBSTRING(t.trade_time, 4, 2) AS INTEGER) / 10) * 10 < 10 THEN
-                    '0' || CAST((CAST(SUBSTRING(t.trade_time, 4, 2) AS INTEGER) / 10) * 10 AS TEXT)
-                ELSE
-                    CAST((CAST(SUBSTRING(t.trade_time, 4, 2) AS INTEGER) / 10) * 10 AS TEXT)
-            END AS time_interval,
-            AVG(CAST(t.price AS DECIMAL)) AS avg_price,
-            MIN(CAST(t.price AS DECIMAL)) AS min_price,
-            MAX(CAST(t.price AS DECIMAL)) AS max_price,
-            SUM(t.volume) AS total_volume
-        FROM trades t
-        WHERE UPPER(t.code) = UPPER(:code)
-          AND t.trade_date = :tradeDate
-          AND t.trade_time >= '09:15:00'
-          AND t.trade_time <= '15:00:00'
-        GROUP BY SUBSTRING(t.trade_time, 1, 2), 
-                 (CAST(SUBSTRING(t.trade_time, 4, 2) AS INTEGER) / 10) * 10
-        ORDER BY 1
+            b.code,
+            (b.minute_of_day / :resolution) * :resolution AS bucket_minute,
+            SUM(b.price_sum) / SUM(b.trade_count) AS avg_price,
+            MIN(b.low_price) AS min_price,
+            MAX(b.high_price) AS max_price,
+            SUM(b.volume) AS total_volume,
+            (ARRAY_AGG(b.open_price ORDER BY b.minute_of_day))[1] AS open_price,
+            (ARRAY_AGG(b.close_price ORDER BY b.minute_of_day DESC))[1] AS close_price
+        FROM bars b
+        GROUP BY b.code, bucket_minute
+        ORDER BY b.code, bucket_minute
         """, nativeQuery = true)
-    List<Object[]> findIntradayPriceData(
-            @Param("code") String code,
-            @Param("tradeDate") String tradeDate
+    List<Object[]> findIntradayBars(
+            @Param("codes") List<String> codes,
+            @Param("tradeDateNumeric") int tradeDateNumeric,
+            @Param("resolution") int resolution
     );
 }
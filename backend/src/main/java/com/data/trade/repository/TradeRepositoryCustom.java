@@ -0,0 +1,52 @@
+package com.data.trade.repository;
+
+import com.data.trade.model.Trade;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Write paths and aggregates for trades that Spring Data cannot express with derived or annotated queries
+ */
+public interface TradeRepositoryCustom {
+
+    /**
+     * Insert trades keyed by (code, trade_date_numeric, trade_time, seq), silently skipping rows
+     * that already exist. Retried polls and re-imported files therefore never create duplicates.
+     * Rows are streamed with the COPY protocol into a staging table and merged in a single statement.
+     * The daily_bars and minute_bars rollups are updated from the newly inserted rows in the same statement.
+     * @return number of rows actually inserted
+     */
+    int insertIgnoringDuplicates(List<Trade> trades);
+
+    /**
+     * Create the monthly trades partitions from the current month through monthsAhead months ahead
+     * @return number of months checked
+     */
+    int ensurePartitions(int monthsAhead);
+
+    /**
+     * Detach every monthly trades partition lying entirely before the month of cutoffDateNumeric (YYYYMMDD).
+     * Detached partitions are kept as standalone tables, renamed trades_yYYYYmMM_detached_<timestamp>, unless
+     * drop is set; a later trade for their month gets a new partition.
+     * @return names of the detached (renamed) or dropped tables
+     */
+    List<String> detachPartitionsBefore(int cutoffDateNumeric, boolean drop);
+
+    /**
+     * Trade count and total volume per side over the trades matching spec, in one GROUP BY query.
+     * Sides are lower-cased so "Buy" and "buy" land in the same row.
+     * @return rows of [side, trade count, total volume]
+     */
+    List<Object[]> countAndSumVolumeBySide(Specification<Trade> spec);
+
+    /**
+     * Stream the trades matching spec in chronological order through a forward-only cursor,
+     * fetchSize rows per round trip. Only the exported columns are read and the returned trades
+     * are detached, so memory does not grow with the result size.
+     * Must be consumed inside a read-only transaction (the PostgreSQL driver only uses a cursor
+     * when autocommit is off) and closed afterwards.
+     */
+    Stream<Trade> streamForExport(Specification<Trade> spec, int fetchSize);
+}
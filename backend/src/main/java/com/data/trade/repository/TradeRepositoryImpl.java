@@ -0,0 +1,309 @@
+package com.data.trade.repository;
+
+import com.data.trade.model.Trade;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+@Slf4j
+public class TradeRepositoryImpl implements TradeRepositoryCustom {
+
+    // Rows are encoded into this buffer and flushed to the COPY stream when it fills up
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    // Session-local staging table: COPY cannot resolve conflicts itself, so rows land here first
+    private static final String CREATE_STAGING_SQL = """
+        CREATE TEMP TABLE IF NOT EXISTS trades_staging (
+            code VARCHAR,
+            price NUMERIC,
+            volume BIGINT,
+            side VARCHAR,
+            trade_date VARCHAR,
+            trade_time VARCHAR,
+            seq INTEGER,
+            trade_date_numeric INTEGER,
+            trade_seconds INTEGER
+        )
+        """;
+
+    // trades is partitioned by month; create any partition a staged row needs (no-op when present)
+    private static final String ENSURE_PARTITIONS_SQL = """
+        SELECT create_trade_partition(d.trade_date_numeric)
+        FROM (SELECT DISTINCT trade_date_numeric / 100 * 100 + 1 AS trade_date_numeric FROM trades_staging) d
+        """;
+
+    private static final String COPY_SQL = """
+        COPY trades_staging (code, price, volume, side, trade_date, trade_time, seq, trade_date_numeric, trade_seconds)
+        FROM STDIN WITH (FORMAT csv)
+        """;
+
+    /*
+     * Moves staged rows into trades and folds the rows that were actually inserted into
+     * daily_bars and minute_bars in the same statement, so the rollups can never drift from the ticks.
+     * Only days that received new trades are touched; earlier days stay frozen.
+     * Returns the number of trades inserted.
+     */
+    private static final String MERGE_STAGING_SQL = """
+        WITH inserted AS (
+            INSERT INTO trades (code, price, volume, side, trade_date, trade_time, seq, trade_date_numeric, trade_seconds)
+            SELECT code, price, volume, side, trade_date, trade_time, seq, trade_date_numeric, trade_seconds
+            FROM trades_staging
+            ON CONFLICT (code, trade_date_numeric, trade_time, seq) DO NOTHING
+            RETURNING code, price, volume, side, trade_date, trade_date_numeric, trade_time, trade_seconds, seq
+        ),
+        days AS (
+            INSERT INTO daily_bars (
+                code, trade_date_numeric, trade_date,
+                open_price, open_time, open_seq, high_price, low_price, close_price, close_time, close_seq,
+                buy_volume, sell_volume, total_volume,
+                large_buy_blocks, large_sell_blocks, medium_buy_blocks, medium_sell_blocks, trade_count
+            )
+            SELECT
+                i.code,
+                i.trade_date_numeric,
+                MIN(i.trade_date),
+                (ARRAY_AGG(i.price ORDER BY i.trade_time, i.seq))[1],
+                MIN(i.trade_time),
+                (ARRAY_AGG(i.seq ORDER BY i.trade_time, i.seq))[1],
+                MAX(i.price),
+                MIN(i.price),
+                (ARRAY_AGG(i.price ORDER BY i.trade_time DESC, i.seq DESC))[1],
+                MAX(i.trade_time),
+                (ARRAY_AGG(i.seq ORDER BY i.trade_time DESC, i.seq DESC))[1],
+                SUM(CASE WHEN i.side = 'buy' THEN i.volume ELSE 0 END),
+                SUM(CASE WHEN i.side = 'sell' THEN i.volume ELSE 0 END),
+                SUM(i.volume),
+                COUNT(*) FILTER (WHERE i.side = 'buy' AND i.volume >= 400000),
+                COUNT(*) FILTER (WHERE i.side = 'sell' AND i.volume >= 400000),
+                COUNT(*) FILTER (WHERE i.side = 'buy' AND i.volume >= 100000 AND i.volume < 400000),
+                COUNT(*) FILTER (WHERE i.side = 'sell' AND i.volume >= 100000 AND i.volume < 400000),
+                COUNT(*)
+            FROM inserted i
+            GROUP BY i.code, i.trade_date_numeric
+            ON CONFLICT (code, trade_date_numeric) DO UPDATE SET
+                open_price = CASE WHEN (EXCLUDED.open_time, EXCLUDED.open_seq) < (daily_bars.open_time, daily_bars.open_seq)
+                                  THEN EXCLUDED.open_price ELSE daily_bars.open_price END,
+                open_seq = CASE WHEN (EXCLUDED.open_time, EXCLUDED.open_seq) < (daily_bars.open_time, daily_bars.open_seq)
+                                THEN EXCLUDED.open_seq ELSE daily_bars.open_seq END,
+                open_time = LEAST(EXCLUDED.open_time, daily_bars.open_time),
+                high_price = GREATEST(EXCLUDED.high_price, daily_bars.high_price),
+                low_price = LEAST(EXCLUDED.low_price, daily_bars.low_price),
+                close_price = CASE WHEN (EXCLUDED.close_time, EXCLUDED.close_seq) > (daily_bars.close_time, daily_bars.close_seq)
+                                   THEN EXCLUDED.close_price ELSE daily_bars.close_price END,
+                close_seq = CASE WHEN (EXCLUDED.close_time, EXCLUDED.close_seq) > (daily_bars.close_time, daily_bars.close_seq)
+                                 THEN EXCLUDED.close_seq ELSE daily_bars.close_seq END,
+                close_time = GREATEST(EXCLUDED.close_time, daily_bars.close_time),
+                buy_volume = daily_bars.buy_volume + EXCLUDED.buy_volume,
+                sell_volume = daily_bars.sell_volume + EXCLUDED.sell_volume,
+                total_volume = daily_bars.total_volume + EXCLUDED.total_volume,
+                large_buy_blocks = daily_bars.large_buy_blocks + EXCLUDED.large_buy_blocks,
+                large_sell_blocks = daily_bars.large_sell_blocks + EXCLUDED.large_sell_blocks,
+                medium_buy_blocks = daily_bars.medium_buy_blocks + EXCLUDED.medium_buy_blocks,
+                medium_sell_blocks = daily_bars.medium_sell_blocks + EXCLUDED.medium_sell_blocks,
+                trade_count = daily_bars.trade_count + EXCLUDED.trade_count
+        ),
+        minutes AS (
+            INSERT INTO minute_bars (
+                code, trade_date_numeric, minute_of_day,
+                open_price, open_time, open_seq, high_price, low_price, close_price, close_time, close_seq,
+                volume, price_sum, trade_count
+            )
+            SELECT
+                i.code,
+                i.trade_date_numeric,
+                i.trade_seconds / 60,
+                (ARRAY_AGG(i.price ORDER BY i.trade_time, i.seq))[1],
+                MIN(i.trade_time),
+                (ARRAY_AGG(i.seq ORDER BY i.trade_time, i.seq))[1],
+                MAX(i.price),
+                MIN(i.price),
+                (ARRAY_AGG(i.price ORDER BY i.trade_time DESC, i.seq DESC))[1],
+                MAX(i.trade_time),
+                (ARRAY_AGG(i.seq ORDER BY i.trade_time DESC, i.seq DESC))[1],
+                SUM(i.volume),
+                SUM(i.price),
+                COUNT(*)
+            FROM inserted i
+            GROUP BY i.code, i.trade_date_numeric, 3
+            ON CONFLICT (code, trade_date_numeric, minute_of_day) DO UPDATE SET
+                open_price = CASE WHEN (EXCLUDED.open_time, EXCLUDED.open_seq) < (minute_bars.open_time, minute_bars.open_seq)
+                                  THEN EXCLUDED.open_price ELSE minute_bars.open_price END,
+                open_seq = CASE WHEN (EXCLUDED.open_time, EXCLUDED.open_seq) < (minute_bars.open_time, minute_bars.open_seq)
+                                THEN EXCLUDED.open_seq ELSE minute_bars.open_seq END,
+                open_time = LEAST(EXCLUDED.open_time, minute_bars.open_time),
+                high_price = GREATEST(EXCLUDED.high_price, minute_bars.high_price),
+                low_price = LEAST(EXCLUDED.low_price, minute_bars.low_price),
+                close_price = CASE WHEN (EXCLUDED.close_time, EXCLUDED.close_seq) > (minute_bars.close_time, minute_bars.close_seq)
+                                   THEN EXCLUDED.close_price ELSE minute_bars.close_price END,
+                close_seq = CASE WHEN (EXCLUDED.close_time, EXCLUDED.close_seq) > (minute_bars.close_time, minute_bars.close_seq)
+                                 THEN EXCLUDED.close_seq ELSE minute_bars.close_seq END,
+                close_time = GREATEST(EXCLUDED.close_time, minute_bars.close_time),
+                volume = minute_bars.volume + EXCLUDED.volume,
+                price_sum = minute_bars.price_sum + EXCLUDED.price_sum,
+                trade_count = minute_bars.trade_count + EXCLUDED.trade_count
+        )
+        SELECT COUNT(*) FROM inserted
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public int insertIgnoringDuplicates(List<Trade> trades) {
+        if (trades == null || trades.isEmpty()) {
+            return 0;
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            long start = System.nanoTime();
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_STAGING_SQL);
+                st.execute("TRUNCATE trades_staging");
+            }
+
+            long bytes = copyToStaging(con.unwrap(PGConnection.class), trades);
+
+            int inserted;
+            try (Statement st = con.createStatement()) {
+                st.execute(ENSURE_PARTITIONS_SQL);
+                try (ResultSet rs = st.executeQuery(MERGE_STAGING_SQL)) {
+                    rs.next();
+                    inserted = rs.getInt(1);
+                }
+                st.execute("TRUNCATE trades_staging");
+            }
+
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+            log.info("Bulk loaded {} trades ({} new) via COPY: {} bytes in {} ms ({} rows/s)",
+                    trades.size(), inserted, bytes, Math.round(seconds * 1000), Math.round(trades.size() / seconds));
+            return inserted;
+        });
+    }
+
+    @Override
+    public int ensurePartitions(int monthsAhead) {
+        Integer ensured = jdbcTemplate.queryForObject("SELECT ensure_trade_partitions(?)", Integer.class, monthsAhead);
+        return ensured != null ? ensured : 0;
+    }
+
+    @Override
+    public List<String> detachPartitionsBefore(int cutoffDateNumeric, boolean drop) {
+        return jdbcTemplate.queryForList("SELECT detach_trade_partitions_before(?, ?)", String.class, cutoffDateNumeric, drop);
+    }
+
+    @Override
+    public List<Object[]> countAndSumVolumeBySide(Specification<Trade> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Trade> root = query.from(Trade.class);
+        Expression<String> side = cb.lower(root.get("side"));
+        query.multiselect(side, cb.count(root), cb.sum(root.<Long>get("volume")));
+        Predicate where = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        query.groupBy(side);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Stream trades into the staging table as CSV
+     * @return number of bytes sent
+     */
+    private long copyToStaging(PGConnection pg, List<Trade> trades) throws SQLException {
+        CopyIn copy = pg.getCopyAPI().copyIn(COPY_SQL);
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+        StringBuilder row = new StringBuilder(96);
+        long bytes = 0;
+        try {
+            for (Trade t : trades) {
+                row.setLength(0);
+                appendCsv(row, t.getCode()).append(',');
+                if (t.getPrice() != null) row.append(t.getPrice().toPlainString());
+                row.append(',');
+                if (t.getVolume() != null) row.append(t.getVolume());
+                row.append(',');
+                appendCsv(row, t.getSide()).append(',');
+                appendCsv(row, t.getTradeDate()).append(',');
+                appendCsv(row, t.getTradeTime()).append(',')
+                        .append(t.getSeq()).append(',')
+                        .append(t.getTradeDateNumeric()).append(',')
+                        .append(t.getTradeSeconds()).append('\n');
+
+                byte[] encoded = row.toString().getBytes(StandardCharsets.UTF_8);
+                if (encoded.length > buffer.remaining()) {
+                    copy.writeToCopy(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                buffer.put(encoded);
+                bytes += encoded.length;
+            }
+            if (buffer.position() > 0) {
+                copy.writeToCopy(buffer.array(), 0, buffer.position());
+            }
+            copy.endCopy();
+            return bytes;
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Append a CSV field; null becomes an unquoted empty field, which COPY reads as NULL
+     */
+    private static StringBuilder appendCsv(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb;
+        }
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    @Override
+    public Stream<Trade> streamForExport(Specification<Trade> spec, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Trade> root = query.from(Trade.class);
+        query.multiselect(root.get("tradeTime"), root.get("tradeDate"), root.get("code"),
+                root.get("side"), root.get("price"), root.get("volume"));
+        Predicate where = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(cb.asc(root.get("tradeDateNumeric")), cb.asc(root.get("tradeSeconds")), cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(row -> Trade.builder()
+                        .tradeTime((String) row[0])
+                        .tradeDate((String) row[1])
+                        .code((String) row[2])
+                        .side((String) row[3])
+                        .price((BigDecimal) row[4])
+                        .volume((Long) row[5])
+                        .build());
+    }
+}
@@ -0,0 +1,9 @@
+package com.data.trade.repository;
+
+import com.data.trade.model.UserRecommendationWeights;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserRecommendationWeightsRepository extends JpaRepository<UserRecommendationWeights, Long> {
+}
@@ -1,6 +1,7 @@
 package com.data.trade.service;
 
 import com.data.trade.dto.*;
+import com.data.trade.model.ScaledPrice;
 import com.data.trade.repository.TradeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +18,7 @@ import java.util.stream.Collectors;
 
 /**
  * Service for calculating combined recommendation using 4 different formulas
- * Based on 10 days of trading data
+ * Based on the last RecommendationParameters.DAYS (10) trading days of each code
  */
 @Service
 @RequiredArgsConstructor
@@ -25,199 +26,100 @@ import java.util.stream.Collectors;
 public class CombinedRecommendationService {
 
     private final TradeRepository tradeRepository;
+    private final RecommendationParametersService parametersService;
+
+    // Days of stats the formulas need at least
+    public static final int MIN_DAYS = 5;
 
     private static final DateTimeFormatter DD_MM_YYYY_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final ZoneId VIETNAM_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
 
-    // Day weights for exponential decay (recent days more important)
-    private static final double[] DAY_WEIGHTS = {1.0, 1.0, 0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3, 0.2};
-
     /**
-     * Pre-computed statistics for performance optimization
-     * Converts BigDecimal to primitives and pre-calculates common values
+     * Formula results (combined.formulaDetails, in formula order) and the recommendation built from them
      */
-    private static class PrecomputedStats {
-        final int size;
-        final double[] closePrices;
-        final double[] openPrices;
-        final double[] highPrices;
-        final double[] lowPrices;
-        final long[] buyVolumes;
-        final long[] sellVolumes;
-        final long[] totalVolumes;
-        final long[] largeBuyBlocks;
-        final long[] largeSellBlocks;
-        
-        // Pre-computed sums
-        final long totalBuyVolume;
-        final long totalSellVolume;
-        final long totalLargeBuys;
-        final long totalLargeSells;
-        
-        PrecomputedStats(List<DailyStats> stats) {
-            this.size = stats.size();
-            int maxSize = Math.min(size, 10);
-            
-            this.closePrices = new double[maxSize];
-            this.openPrices = new double[maxSize];
-            this.highPrices = new double[maxSize];
-            this.lowPrices = new double[maxSize];
-            this.buyVolumes = new long[maxSize];
-            this.sellVolumes = new long[maxSize];
-            this.totalVolumes = new long[maxSize];
-            this.largeBuyBlocks = new long[maxSize];
-            this.largeSellBlocks = new long[maxSize];
-            
-            long totalBuy = 0;
-            long totalSell = 0;
-            long totalLargeBuy = 0;
-            long totalLargeSell = 0;
-            
-            for (int i = 0; i < maxSize; i++) {
-                DailyStats day = stats.get(i);
-                closePrices[i] = day.getClosePrice() != null ? day.getClosePrice().doubleValue() : 0.0;
-                openPrices[i] = day.getOpenPrice() != null ? day.getOpenPrice().doubleValue() : 0.0;
-                highPrices[i] = day.getHighPrice() != null ? day.getHighPrice().doubleValue() : 0.0;
-                lowPrices[i] = day.getLowPrice() != null ? day.getLowPrice().doubleValue() : 0.0;
-                buyVolumes[i] = day.getBuyVolume() != null ? day.getBuyVolume() : 0L;
-                sellVolumes[i] = day.getSellVolume() != null ? day.getSellVolume() : 0L;
-                totalVolumes[i] = day.getTotalVolume() != null ? day.getTotalVolume() : 0L;
-                largeBuyBlocks[i] = day.getLargeBuyBlocks() != null ? day.getLargeBuyBlocks() : 0L;
-                largeSellBlocks[i] = day.getLargeSellBlocks() != null ? day.getLargeSellBlocks() : 0L;
-                
-                totalBuy += buyVolumes[i];
-                totalSell += sellVolumes[i];
-                totalLargeBuy += largeBuyBlocks[i];
-                totalLargeSell += largeSellBlocks[i];
-            }
-            
-            this.totalBuyVolume = totalBuy;
-            this.totalSellVolume = totalSell;
-            this.totalLargeBuys = totalLargeBuy;
-            this.totalLargeSells = totalLargeSell;
-        }
+    public record Evaluation(CombinedResult combined, RecommendationResult recommendation) {
     }
 
-    /**
-     * Calculate combined recommendation for a stock based on 10 days of data
-     * Results are cached for 5 minutes per stock code to improve performance
-     */
-    @Cacheable(value = "recommendations", key = "#stockCode")
-    public RecommendationResult calculateRecommendation(String stockCode) {
-        log.debug("Calculating recommendation for stock: {} (cache miss)", stockCode);
-
-        // Fetch 10 days of data
-        List<DailyStats> dailyStats = fetch10DaysData(stockCode);
+    // Formula indexes, in formulaDetails order
+    static final int MOMENTUM = 0;
+    static final int MA_CROSSOVER = 1;
+    static final int RSI = 2;
+    static final int TREND_STRENGTH = 3;
+    private static final String[] FORMULA_NAMES = {"VolumePriceMomentum", "MACrossover", "RSI", "TrendStrength"};
 
-        if (dailyStats.isEmpty()) {
-            return RecommendationResult.builder()
-                    .code(stockCode)
-                    .action("hold")
-                    .strength("neutral")
-                    .confidence(0.0)
-                    .reason("No trading data available")
-                    .build();
-        }
+    // Why a formula scored: from the bars, or 0 for too few days or a degenerate input
+    private static final byte SCORED = 0;
+    private static final byte INSUFFICIENT = 1;
+    private static final byte UNABLE = 2;
 
-        if (dailyStats.size() < 5) {
-            return RecommendationResult.builder()
-                    .code(stockCode)
-                    .action("hold")
-                    .strength("neutral")
-                    .confidence(0.0)
-                    .reason("Insufficient data (need at least 5 days)")
-                    .build();
+    /**
+     * Formula results of every window of a DailyBarColumns, one slot per window: for each formula
+     * its score, vote (1 BUY, -1 SELL, 0 NEUTRAL), confidence and the figures its reason quotes,
+     * then the combined vote as a signal (3/2/1 strong/moderate/weak buy, 0 hold, -1/-2/-3 sell).
+     * Nothing is allocated per window, so backtests read votes and signals without building results.
+     */
+    static final class Scores {
+        final int windows;
+        final double[][] score;
+        final byte[][] vote;
+        final double[][] confidence;
+        final byte[][] state;
+        final double[] ma5;
+        final double[] ma10;
+        final double[] rsi;
+        final double[] volumeRatio;
+        final double[] priceChange10d;
+        final double[] weightedScore;
+        final double[] consensus;
+        final double[] averageConfidence;
+        final int[] buyVotes;
+        final int[] sellVotes;
+        final byte[] signal;
+
+        Scores(int windows) {
+            this.windows = windows;
+            score = new double[RecommendationParameters.FORMULAS][windows];
+            vote = new byte[RecommendationParameters.FORMULAS][windows];
+            confidence = new double[RecommendationParameters.FORMULAS][windows];
+            state = new byte[RecommendationParameters.FORMULAS][windows];
+            ma5 = new double[windows];
+            ma10 = new double[windows];
+            rsi = new double[windows];
+            volumeRatio = new double[windows];
+            priceChange10d = new double[windows];
+            weightedScore = new double[windows];
+            consensus = new double[windows];
+            averageConfidence = new double[windows];
+            buyVotes = new int[windows];
+            sellVotes = new int[windows];
+            signal = new byte[windows];
         }
-
-        // Pre-compute values once for all formulas
-        PrecomputedStats precomputed = new PrecomputedStats(dailyStats);
-        
-        // Calculate all 4 formulas using pre-computed values
-        FormulaResult formula1 = calculateWeightedVolumePriceMomentum(precomputed);
-        FormulaResult formula2 = calculateMovingAverageCrossover(precomputed);
-        FormulaResult formula3 = calculateRSIWithVolume(precomputed);
-        FormulaResult formula4 = calculateTrendStrengthADLine(precomputed);
-
-        // Combine results
-        CombinedResult combined = combineResults(formula1, formula2, formula3, formula4);
-
-        // Generate final recommendation
-        return generateFinalRecommendation(combined, dailyStats, stockCode);
     }
-
     /**
-     * Fetch last 10 trading days of aggregated data for multiple stocks in batch
-     * Returns a map of stock code to list of daily stats
+     * Calculate combined recommendation for a stock based on its last RecommendationParameters.DAYS days of data
+     * Results are cached for 5 minutes per stock code to improve performance,
+     * and dropped whenever RecommendationSnapshotService rebuilds after new data
      */
-    public Map<String, List<DailyStats>> fetch10DaysDataBatch(List<String> stockCodes) {
-        if (stockCodes == null || stockCodes.isEmpty()) {
-            return new HashMap<>();
-        }
-
-        List<Object[]> results = tradeRepository.findLast10DaysStatsForMultipleCodes(stockCodes);
-
-        // Group results by stock code
-        Map<String, List<DailyStats>> statsByCode = new HashMap<>();
-        
-        for (Object[] row : results) {
-            String code = (String) row[0];
-            DailyStats stats = DailyStats.builder()
-                    .tradeDate((String) row[1])
-                    .closePrice(((Number) row[2]).doubleValue() > 0 ? 
-                        BigDecimal.valueOf(((Number) row[2]).doubleValue()) : null)
-                    .openPrice(((Number) row[3]).doubleValue() > 0 ? 
-                        BigDecimal.valueOf(((Number) row[3]).doubleValue()) : null)
-                    .highPrice(((Number) row[4]).doubleValue() > 0 ? 
-                        BigDecimal.valueOf(((Number) row[4]).doubleValue()) : null)
-                    .lowPrice(((Number) row[5]).doubleValue() > 0 ? 
-                        BigDecimal.valueOf(((Number) row[5]).doubleValue()) : null)
-                    .buyVolume(((Number) row[6]).longValue())
-                    .sellVolume(((Number) row[7]).longValue())
-                    .totalVolume(((Number) row[8]).longValue())
-                    .largeBuyBlocks(((Number) row[9]).longValue())
-                    .largeSellBlocks(((Number) row[10]).longValue())
-                    .mediumBuyBlocks(((Number) row[11]).longValue())
-                    .mediumSellBlocks(((Number) row[12]).longValue())
-                    .build();
-
-            if (stats.getClosePrice() != null && stats.getClosePrice().compareTo(BigDecimal.ZERO) > 0) {
-                statsByCode.computeIfAbsent(code, k -> new ArrayList<>()).add(stats);
-            }
-        }
-
-        // Sort each list by date (most recent first)
-        statsByCode.values().forEach(list -> 
-            list.sort((a, b) -> {
-                int dateA = Integer.parseInt(a.getTradeDate().substring(6, 10) + 
-                                             a.getTradeDate().substring(3, 5) + 
-                                             a.getTradeDate().substring(0, 2));
-                int dateB = Integer.parseInt(b.getTradeDate().substring(6, 10) + 
-                                             b.getTradeDate().substring(3, 5) + 
-                                             b.getTradeDate().substring(0, 2));
-                return Integer.compare(dateB, dateA);
-            })
-        );
+    @Cacheable(value = "recommendations", key = "#stockCode")
+    public RecommendationResult calculateRecommendation(String stockCode) {
+        log.debug("Calculating recommendation for stock: {} (cache miss)", stockCode);
 
-        return statsByCode;
+        return calculateRecommendationFromStats(stockCode, fetchRecentData(stockCode));
     }
 
     /**
-     * Fetch last 10 trading days of aggregated data
+     * Fetch the code's last RecommendationParameters.DAYS trading days of aggregated data, most recent first
      */
-    private List<DailyStats> fetch10DaysData(String stockCode) {
-        List<Object[]> results = tradeRepository.findLast10DaysStats(stockCode);
+    public List<DailyStats> fetchRecentData(String stockCode) {
+        List<Object[]> results = tradeRepository.findRecentDailyStats(stockCode, RecommendationParameters.DAYS);
 
         return results.stream()
                 .map(row -> DailyStats.builder()
                         .tradeDate((String) row[0])
-                        .closePrice(((Number) row[1]).doubleValue() > 0 ? 
-                            BigDecimal.valueOf(((Number) row[1]).doubleValue()) : null)
-                        .openPrice(((Number) row[2]).doubleValue() > 0 ? 
-                            BigDecimal.valueOf(((Number) row[2]).doubleValue()) : null)
-                        .highPrice(((Number) row[3]).doubleValue() > 0 ? 
-                            BigDecimal.valueOf(((Number) row[3]).doubleValue()) : null)
-                        .lowPrice(((Number) row[4]).doubleValue() > 0 ? 
-                            BigDecimal.valueOf(((Number) row[4]).doubleValue()) : null)
+                        .closePrice(ScaledPrice.of((Number) row[1]))
+                        .openPrice(ScaledPrice.of((Number) row[2]))
+                        .highPrice(ScaledPrice.of((Number) row[3]))
+                        .lowPrice(ScaledPrice.of((Number) row[4]))
                         .buyVolume(((Number) row[5]).longValue())
                         .sellVolume(((Number) row[6]).longValue())
                         .totalVolume(((Number) row[7]).longValue())
@@ -226,7 +128,7 @@ public class CombinedRecommendationService {
                         .mediumBuyBlocks(((Number) row[10]).longValue())
                         .mediumSellBlocks(((Number) row[11]).longValue())
                         .build())
-                .filter(stats -> stats.getClosePrice() != null && stats.getClosePrice().compareTo(BigDecimal.ZERO) > 0)
+                .filter(stats -> stats.getClosePrice() > 0)
                 .collect(Collectors.toList());
     }
 
@@ -235,6 +137,11 @@ public class CombinedRecommendationService {
      * This method is used for batch processing to avoid redundant database queries
      */
     public RecommendationResult calculateRecommendationFromStats(String stockCode, List<DailyStats> dailyStats) {
+        return calculateRecommendationFromStats(stockCode, dailyStats, parametersService.current());
+    }
+
+    public RecommendationResult calculateRecommendationFromStats(String stockCode, List<DailyStats> dailyStats,
+                                                                 RecommendationParameters params) {
         if (dailyStats == null || dailyStats.isEmpty()) {
             return RecommendationResult.builder()
                     .code(stockCode)
@@ -245,7 +152,7 @@ public class CombinedRecommendationService {
                     .build();
         }
 
-        if (dailyStats.size() < 5) {
+        if (dailyStats.size() < MIN_DAYS) {
             return RecommendationResult.builder()
                     .code(stockCode)
                     .action("hold")
@@ -255,622 +162,691 @@ public class CombinedRecommendationService {
                     .build();
         }
 
-        // Pre-compute values once for all formulas
-        PrecomputedStats precomputed = new PrecomputedStats(dailyStats);
-        
-        // Calculate all 4 formulas using pre-computed values
-        FormulaResult formula1 = calculateWeightedVolumePriceMomentum(precomputed);
-        FormulaResult formula2 = calculateMovingAverageCrossover(precomputed);
-        FormulaResult formula3 = calculateRSIWithVolume(precomputed);
-        FormulaResult formula4 = calculateTrendStrengthADLine(precomputed);
+        return evaluate(stockCode, dailyStats, params).recommendation();
+    }
 
-        // Combine results
-        CombinedResult combined = combineResults(formula1, formula2, formula3, formula4);
+    /**
+     * Run the four formulas and the combined vote over at least 5 days of stats (most recent first)
+     * with the active parameters.
+     * Exposes the individual formula votes, so the backtest replays history through this same code
+     */
+    public Evaluation evaluate(String stockCode, List<DailyStats> dailyStats) {
+        return evaluate(stockCode, dailyStats, parametersService.current());
+    }
 
-        // Generate final recommendation
-        return generateFinalRecommendation(combined, dailyStats, stockCode);
+    /**
+     * Same as evaluate, with an explicit (validated) parameter set, for backtests and parameter sweeps
+     */
+    public Evaluation evaluate(String stockCode, List<DailyStats> dailyStats, RecommendationParameters params) {
+        return evaluateAll(List.of(stockCode), List.of(dailyStats), params).get(0);
     }
 
     /**
-     * Calculate recommendations for multiple stocks in batch
-     * Uses a single database query to fetch all data, then processes in parallel
+     * evaluate for many codes at once (stats.get(i) belongs to codes.get(i)): their bars are laid out
+     * as columns and each formula runs over all of them in one loop before any result is built
      */
-    public List<RecommendationResult> calculateRecommendationsBatch(List<String> stockCodes) {
-        if (stockCodes == null || stockCodes.isEmpty()) {
-            return new ArrayList<>();
+    public List<Evaluation> evaluateAll(List<String> codes, List<List<DailyStats>> stats,
+                                        RecommendationParameters params) {
+        Scores scores = score(DailyBarColumns.ofWindows(stats), params);
+        List<Evaluation> evaluations = new ArrayList<>(codes.size());
+        for (int w = 0; w < codes.size(); w++) {
+            List<FormulaResult> formulas = Arrays.asList(
+                    formulaResult(scores, MOMENTUM, w, params),
+                    formulaResult(scores, MA_CROSSOVER, w, params),
+                    formulaResult(scores, RSI, w, params),
+                    formulaResult(scores, TREND_STRENGTH, w, params));
+            CombinedResult combined = CombinedResult.builder()
+                    .weightedScore(scores.weightedScore[w])
+                    .buyVotes(scores.buyVotes[w])
+                    .sellVotes(scores.sellVotes[w])
+                    .neutralVotes(RecommendationParameters.FORMULAS - scores.buyVotes[w] - scores.sellVotes[w])
+                    .consensus(scores.consensus[w])
+                    .confidence(scores.averageConfidence[w])
+                    .formulaDetails(formulas)
+                    .build();
+            evaluations.add(new Evaluation(combined,
+                    generateFinalRecommendation(combined, scores.signal[w], stats.get(w), codes.get(w))));
         }
+        return evaluations;
+    }
 
-        // Fetch all data in a single query
-        Map<String, List<DailyStats>> statsByCode = fetch10DaysDataBatch(stockCodes);
+    /**
+     * Formula scores, votes and combined signals of every window in the columns
+     */
+    Scores score(DailyBarColumns columns, RecommendationParameters params) {
+        return score(columns, 0, columns.windows(), params);
+    }
 
-        // Calculate recommendations for each stock
-        return stockCodes.stream()
-                .map(code -> {
-                    List<DailyStats> stats = statsByCode.getOrDefault(code, new ArrayList<>());
-                    return calculateRecommendationFromStats(code, stats);
-                })
-                .collect(Collectors.toList());
+    /**
+     * Same as score for the windows [first, first + count) only; slot w of the result is window first + w
+     */
+    Scores score(DailyBarColumns columns, int first, int count, RecommendationParameters params) {
+        Scores scores = new Scores(count);
+        scoreVolumePriceMomentum(columns, first, params, scores);
+        scoreMovingAverageCrossover(columns, first, scores);
+        scoreRSIWithVolume(columns, first, params, scores);
+        scoreTrendStrengthADLine(columns, first, params, scores);
+        combine(params, scores);
+        return scores;
     }
 
     /**
-     * Formula 1: Weighted Volume-Price Momentum
-     * Analyzes volume accumulation and price momentum over 10 days
+     * Combine already computed formula results (from evaluate) with other formula weights and
+     * action thresholds. Only the weighted vote is redone, so per-user weighting costs no formula runs.
      */
-    private FormulaResult calculateWeightedVolumePriceMomentum(PrecomputedStats p) {
-        if (p.size < 2) {
-            return FormulaResult.builder()
-                    .formulaName("VolumePriceMomentum")
-                    .score(0)
-                    .vote("NEUTRAL")
-                    .confidence(0.0)
-                    .reason("Insufficient data")
-                    .build();
+    public RecommendationResult recombine(String stockCode, List<FormulaResult> formulas, List<DailyStats> dailyStats,
+                                          RecommendationParameters params) {
+        double[] weights = params.getFormulaWeights();
+        double weightedScore = 0;
+        int buyVotes = 0;
+        int sellVotes = 0;
+        for (int f = 0; f < RecommendationParameters.FORMULAS; f++) {
+            FormulaResult formula = formulas.get(f);
+            weightedScore += formula.getScore() * weights[f];
+            if ("BUY".equals(formula.getVote())) {
+                buyVotes++;
+            } else if ("SELL".equals(formula.getVote())) {
+                sellVotes++;
+            }
         }
+        double consensus = consensus(formulas.get(0).getScore(), formulas.get(1).getScore(),
+                formulas.get(2).getScore(), formulas.get(3).getScore());
 
-        double volumeScore = 0;
-        double priceMomentum = 0;
-        double blockScore = 0;
+        CombinedResult combined = CombinedResult.builder()
+                .weightedScore(weightedScore)
+                .buyVotes(buyVotes)
+                .sellVotes(sellVotes)
+                .neutralVotes(RecommendationParameters.FORMULAS - buyVotes - sellVotes)
+                .consensus(consensus)
+                .confidence(mean(formulas.get(0).getConfidence(), formulas.get(1).getConfidence(),
+                        formulas.get(2).getConfidence(), formulas.get(3).getConfidence()))
+                .formulaDetails(formulas)
+                .build();
+        return generateFinalRecommendation(combined, signal(weightedScore, consensus, buyVotes, sellVotes, params),
+                dailyStats, stockCode);
+    }
 
-        // 1. Volume Accumulation Score (weighted by day importance)
-        int maxDays = Math.min(p.size, DAY_WEIGHTS.length);
-        for (int i = 0; i < maxDays; i++) {
-            long totalVol = p.buyVolumes[i] + p.sellVolumes[i];
-            if (totalVol > 0) {
-                double dayRatio = (double) (p.buyVolumes[i] - p.sellVolumes[i]) / totalVol;
-                volumeScore += dayRatio * DAY_WEIGHTS[i] * 10;
+    /**
+     * Formula 1: Weighted Volume-Price Momentum
+     * Analyzes volume accumulation and price momentum over 10 days
+     */
+    private static void scoreVolumePriceMomentum(DailyBarColumns c, int first, RecommendationParameters params, Scores s) {
+        double[] dayWeights = params.getDayWeights();
+        double[] scores = s.score[MOMENTUM];
+        for (int w = 0; w < s.windows; w++) {
+            int size = c.windowSize[first + w];
+            int end = c.windowEnd[first + w];
+            if (size < 2) {
+                s.state[MOMENTUM][w] = INSUFFICIENT;
+                continue;
             }
-        }
-        volumeScore = Math.max(-30, Math.min(30, volumeScore));
 
-        // 2. Price Momentum Score (using primitives)
-        int maxDaysMinus1 = Math.min(p.size - 1, DAY_WEIGHTS.length - 1);
-        for (int i = 0; i < maxDaysMinus1; i++) {
-            double currentPrice = p.closePrices[i];
-            double previousPrice = p.closePrices[i + 1];
-            if (previousPrice > 0) {
-                double dayChange = ((currentPrice - previousPrice) / previousPrice) * 100;
-                priceMomentum += dayChange * DAY_WEIGHTS[i] * 0.5;
+            double volumeScore = 0;
+            double priceMomentum = 0;
+            double blockScore = 0;
+
+            // 1. Volume Accumulation Score (weighted by day importance)
+            int maxDays = Math.min(size, dayWeights.length);
+            for (int i = 0; i < maxDays; i++) {
+                long totalVol = c.buyVolume[end - i] + c.sellVolume[end - i];
+                if (totalVol > 0) {
+                    double dayRatio = (double) (c.buyVolume[end - i] - c.sellVolume[end - i]) / totalVol;
+                    volumeScore += dayRatio * dayWeights[i] * 10;
+                }
+            }
+            volumeScore = Math.max(-30, Math.min(30, volumeScore));
+
+            // 2. Price Momentum Score
+            int maxDaysMinus1 = Math.min(size - 1, dayWeights.length - 1);
+            for (int i = 0; i < maxDaysMinus1; i++) {
+                double currentPrice = c.close[end - i];
+                double previousPrice = c.close[end - i - 1];
+                if (previousPrice > 0) {
+                    double dayChange = ((currentPrice - previousPrice) / previousPrice) * 100;
+                    priceMomentum += dayChange * dayWeights[i] * 0.5;
+                }
+            }
+            priceMomentum = Math.max(-30, Math.min(30, priceMomentum));
+
+            // 3. Large Block Frequency over the whole window
+            long largeBuys = 0;
+            long largeSells = 0;
+            for (int i = 0; i < size; i++) {
+                largeBuys += c.largeBuyBlocks[end - i];
+                largeSells += c.largeSellBlocks[end - i];
+            }
+            long totalBlocks = largeBuys + largeSells;
+            if (totalBlocks > 0) {
+                double blockRatio = (double) (largeBuys - largeSells) / totalBlocks;
+                blockScore = blockRatio * 20;
             }
-        }
-        priceMomentum = Math.max(-30, Math.min(30, priceMomentum));
-
-        // 3. Large Block Frequency (using pre-computed sums)
-        long totalBlocks = p.totalLargeBuys + p.totalLargeSells;
-        if (totalBlocks > 0) {
-            double blockRatio = (double) (p.totalLargeBuys - p.totalLargeSells) / totalBlocks;
-            blockScore = blockRatio * 20;
-        }
 
-        // Calculate final score
-        double finalScore = volumeScore + priceMomentum + blockScore;
-        finalScore = Math.max(-100, Math.min(100, finalScore));
-
-        // Determine vote and confidence
-        String vote;
-        double confidence;
-        String reason;
-
-        if (finalScore >= 40) {
-            vote = "BUY";
-            confidence = Math.min(0.9, 0.5 + (finalScore / 200));
-            reason = "Strong volume-price momentum (score: " + String.format("%.1f", finalScore) + "). Buy volume accumulation and positive price trend.";
-        } else if (finalScore >= 20) {
-            vote = "BUY";
-            confidence = Math.min(0.7, 0.4 + (finalScore / 200));
-            reason = "Positive volume-price momentum (score: " + String.format("%.1f", finalScore) + "). Moderate buying pressure detected.";
-        } else if (finalScore <= -40) {
-            vote = "SELL";
-            confidence = Math.min(0.9, 0.5 + (Math.abs(finalScore) / 200));
-            reason = "Strong negative volume-price momentum (score: " + String.format("%.1f", finalScore) + "). Sell volume accumulation and negative price trend.";
-        } else if (finalScore <= -20) {
-            vote = "SELL";
-            confidence = Math.min(0.7, 0.4 + (Math.abs(finalScore) / 200));
-            reason = "Negative volume-price momentum (score: " + String.format("%.1f", finalScore) + "). Moderate selling pressure detected.";
-        } else {
-            vote = "NEUTRAL";
-            confidence = 0.3;
-            reason = "Neutral volume-price momentum (score: " + String.format("%.1f", finalScore) + "). No clear trend.";
+            // Calculate final score
+            double finalScore = volumeScore + priceMomentum + blockScore;
+            finalScore = Math.max(-100, Math.min(100, finalScore));
+            scores[w] = finalScore;
+
+            // Determine vote and confidence
+            if (finalScore >= params.getStrongVoteScore()) {
+                vote(s, MOMENTUM, w, 1, Math.min(0.9, 0.5 + (finalScore / 200)));
+            } else if (finalScore >= params.getVoteScore()) {
+                vote(s, MOMENTUM, w, 1, Math.min(0.7, 0.4 + (finalScore / 200)));
+            } else if (finalScore <= -params.getStrongVoteScore()) {
+                vote(s, MOMENTUM, w, -1, Math.min(0.9, 0.5 + (Math.abs(finalScore) / 200)));
+            } else if (finalScore <= -params.getVoteScore()) {
+                vote(s, MOMENTUM, w, -1, Math.min(0.7, 0.4 + (Math.abs(finalScore) / 200)));
+            } else {
+                vote(s, MOMENTUM, w, 0, 0.3);
+            }
         }
-
-        return FormulaResult.builder()
-                .formulaName("VolumePriceMomentum")
-                .score(finalScore)
-                .vote(vote)
-                .confidence(confidence)
-                .reason(reason)
-                .build();
     }
 
     /**
      * Formula 2: Moving Average Crossover
      * Analyzes 5-day and 10-day moving averages
      */
-    private FormulaResult calculateMovingAverageCrossover(PrecomputedStats p) {
-        if (p.size < 5) {
-            return FormulaResult.builder()
-                    .formulaName("MACrossover")
-                    .score(0)
-                    .vote("NEUTRAL")
-                    .confidence(0.0)
-                    .reason("Insufficient data for MA calculation")
-                    .build();
-        }
-
-        // Calculate 5-day and 10-day moving averages in single pass
-        double ma5Sum = 0;
-        double ma10Sum = 0;
-        long recentVolume = 0;
-        long totalVolume10d = 0;
-        int maxDays = Math.min(p.size, 10);
-        
-        for (int i = 0; i < maxDays; i++) {
-            double price = p.closePrices[i];
-            if (i < 5) ma5Sum += price;
-            ma10Sum += price;
-            if (i < 3) recentVolume += p.totalVolumes[i];
-            totalVolume10d += p.totalVolumes[i];
-        }
-        
-        double ma5 = ma5Sum / Math.min(5, p.size);
-        double ma10 = ma10Sum / maxDays;
-
-        if (ma5 == 0 || ma10 == 0) {
-            return FormulaResult.builder()
-                    .formulaName("MACrossover")
-                    .score(0)
-                    .vote("NEUTRAL")
-                    .confidence(0.0)
-                    .reason("Unable to calculate moving averages")
-                    .build();
-        }
+    private static void scoreMovingAverageCrossover(DailyBarColumns c, int first, Scores s) {
+        double[] scores = s.score[MA_CROSSOVER];
+        for (int w = 0; w < s.windows; w++) {
+            int size = c.windowSize[first + w];
+            int end = c.windowEnd[first + w];
+            if (size < 5) {
+                s.state[MA_CROSSOVER][w] = INSUFFICIENT;
+                continue;
+            }
 
-        // Calculate previous day's MA5 (if available)
-        double ma5Yesterday = ma5;
-        if (p.size >= 6) {
-            double ma5YesterdaySum = 0;
-            for (int i = 1; i <= 5; i++) {
-                ma5YesterdaySum += p.closePrices[i];
+            // Calculate 5-day and 10-day moving averages in single pass
+            double ma5Sum = 0;
+            double ma10Sum = 0;
+            long recentVolume = 0;
+            long totalVolume10d = 0;
+            int maxDays = Math.min(size, 10);
+
+            for (int i = 0; i < maxDays; i++) {
+                double price = c.close[end - i];
+                if (i < 5) ma5Sum += price;
+                ma10Sum += price;
+                if (i < 3) recentVolume += c.totalVolume[end - i];
+                totalVolume10d += c.totalVolume[end - i];
             }
-            ma5Yesterday = ma5YesterdaySum / 5;
-        }
 
-        double currentPrice = p.closePrices[0];
+            double ma5 = ma5Sum / Math.min(5, size);
+            double ma10 = ma10Sum / maxDays;
+            s.ma5[w] = ma5;
+            s.ma10[w] = ma10;
 
-        // Calculate volume trend
-        long avgVolume10d = totalVolume10d / maxDays;
-        double volumeTrend = avgVolume10d > 0 ? (double) (recentVolume / 3.0 - avgVolume10d) / avgVolume10d : 0;
+            if (ma5 == 0 || ma10 == 0) {
+                s.state[MA_CROSSOVER][w] = UNABLE;
+                continue;
+            }
 
-        // Score calculation
-        double score = 0;
+            // Calculate previous day's MA5 (if available)
+            double ma5Yesterday = ma5;
+            if (size >= 6) {
+                double ma5YesterdaySum = 0;
+                for (int i = 1; i <= 5; i++) {
+                    ma5YesterdaySum += c.close[end - i];
+                }
+                ma5Yesterday = ma5YesterdaySum / 5;
+            }
 
-        // Bullish crossover (MA5 crosses above MA10)
-        boolean bullishCrossover = (ma5 > ma10) && (ma5Yesterday <= ma10);
-        if (bullishCrossover) {
-            score += 40;
-        } else if (ma5 > ma10) {
-            score += 20; // MA5 above MA10 but no crossover
-        }
+            double currentPrice = c.close[end];
 
-        // Price above MA5
-        if (currentPrice > ma5) {
-            score += 20;
-        } else if (currentPrice < ma5) {
-            score -= 20;
-        }
+            // Calculate volume trend
+            long avgVolume10d = totalVolume10d / maxDays;
+            double volumeTrend = avgVolume10d > 0 ? (double) (recentVolume / 3.0 - avgVolume10d) / avgVolume10d : 0;
 
-        // Volume confirmation
-        if (volumeTrend > 0.2) {
-            score += 20; // Volume increasing
-        } else if (volumeTrend < -0.2) {
-            score -= 20; // Volume decreasing
-        }
+            // Score calculation
+            double score = 0;
 
-        // Bearish crossover
-        boolean bearishCrossover = (ma5 < ma10) && (ma5Yesterday >= ma10);
-        if (bearishCrossover) {
-            score -= 40;
-        } else if (ma5 < ma10) {
-            score -= 20; // MA5 below MA10 but no crossover
-        }
+            // Bullish crossover (MA5 crosses above MA10)
+            boolean bullishCrossover = (ma5 > ma10) && (ma5Yesterday <= ma10);
+            if (bullishCrossover) {
+                score += 40;
+            } else if (ma5 > ma10) {
+                score += 20; // MA5 above MA10 but no crossover
+            }
 
-        score = Math.max(-100, Math.min(100, score));
+            // Price above MA5
+            if (currentPrice > ma5) {
+                score += 20;
+            } else if (currentPrice < ma5) {
+                score -= 20;
+            }
 
-        String vote;
-        double confidence;
-        String reason;
+            // Volume confirmation
+            if (volumeTrend > 0.2) {
+                score += 20; // Volume increasing
+            } else if (volumeTrend < -0.2) {
+                score -= 20; // Volume decreasing
+            }
 
-        if (score >= 60) {
-            vote = "BUY";
-            confidence = 0.8;
-            reason = "Bullish MA crossover: MA5(" + (int)ma5 + ") > MA10(" + (int)ma10 + "). Price above MA5. Volume increasing.";
-        } else if (score >= 40) {
-            vote = "BUY";
-            confidence = 0.6;
-            reason = "MA5(" + (int)ma5 + ") above MA10(" + (int)ma10 + "). Positive trend confirmed.";
-        } else if (score <= -60) {
-            vote = "SELL";
-            confidence = 0.8;
-            reason = "Bearish MA crossover: MA5(" + (int)ma5 + ") < MA10(" + (int)ma10 + "). Price below MA5. Volume decreasing.";
-        } else if (score <= -40) {
-            vote = "SELL";
-            confidence = 0.6;
-            reason = "MA5(" + (int)ma5 + ") below MA10(" + (int)ma10 + "). Negative trend confirmed.";
-        } else {
-            vote = "NEUTRAL";
-            confidence = 0.4;
-            reason = "Mixed MA signals. MA5(" + (int)ma5 + ") vs MA10(" + (int)ma10 + ").";
-        }
+            // Bearish crossover
+            boolean bearishCrossover = (ma5 < ma10) && (ma5Yesterday >= ma10);
+            if (bearishCrossover) {
+                score -= 40;
+            } else if (ma5 < ma10) {
+                score -= 20; // MA5 below MA10 but no crossover
+            }
 
-        return FormulaResult.builder()
-                .formulaName("MACrossover")
-                .score(score)
-                .vote(vote)
-                .confidence(confidence)
-                .reason(reason)
-                .build();
+            score = Math.max(-100, Math.min(100, score));
+            scores[w] = score;
+            voteOnFixedBands(s, MA_CROSSOVER, w, score);
+        }
     }
 
     /**
      * Formula 3: RSI-Style Relative Strength with Volume Weighting
      */
-    private FormulaResult calculateRSIWithVolume(PrecomputedStats p) {
-        if (p.size < 2) {
-            return FormulaResult.builder()
-                    .formulaName("RSI")
-                    .score(0)
-                    .vote("NEUTRAL")
-                    .confidence(0.0)
-                    .reason("Insufficient data for RSI calculation")
-                    .build();
-        }
+    private static void scoreRSIWithVolume(DailyBarColumns c, int first, RecommendationParameters params, Scores s) {
+        double[] dayWeights = params.getDayWeights();
+        double[] scores = s.score[RSI];
+        for (int w = 0; w < s.windows; w++) {
+            int size = c.windowSize[first + w];
+            int end = c.windowEnd[first + w];
+            if (size < 2) {
+                s.state[RSI][w] = INSUFFICIENT;
+                continue;
+            }
 
-        // Calculate gains and losses weighted by volume and day importance (using primitives)
-        double avgGain = 0;
-        double avgLoss = 0;
-        double totalWeight = 0;
-
-        int maxDaysMinus1 = Math.min(p.size - 1, DAY_WEIGHTS.length - 1);
-        for (int i = 0; i < maxDaysMinus1; i++) {
-            double currentPrice = p.closePrices[i];
-            double previousPrice = p.closePrices[i + 1];
-            
-            if (previousPrice > 0) {
-                double change = currentPrice - previousPrice;
-                double volume = p.totalVolumes[i];
-                double weight = DAY_WEIGHTS[i] * (volume / 1000000.0); // Normalize volume
-                
-                if (change > 0) {
-                    avgGain += change * weight;
-                } else {
-                    avgLoss += Math.abs(change) * weight;
+            // Calculate gains and losses weighted by volume and day importance
+            double avgGain = 0;
+            double avgLoss = 0;
+            double totalWeight = 0;
+
+            int maxDaysMinus1 = Math.min(size - 1, dayWeights.length - 1);
+            for (int i = 0; i < maxDaysMinus1; i++) {
+                double currentPrice = c.close[end - i];
+                double previousPrice = c.close[end - i - 1];
+
+                if (previousPrice > 0) {
+                    double change = currentPrice - previousPrice;
+                    double volume = c.totalVolume[end - i];
+                    double weight = dayWeights[i] * (volume / 1000000.0); // Normalize volume
+
+                    if (change > 0) {
+                        avgGain += change * weight;
+                    } else {
+                        avgLoss += Math.abs(change) * weight;
+                    }
+                    totalWeight += weight;
                 }
-                totalWeight += weight;
             }
-        }
 
-        if (totalWeight == 0) {
-            return FormulaResult.builder()
-                    .formulaName("RSI")
-                    .score(0)
-                    .vote("NEUTRAL")
-                    .confidence(0.0)
-                    .reason("Unable to calculate RSI")
-                    .build();
-        }
+            if (totalWeight == 0) {
+                s.state[RSI][w] = UNABLE;
+                continue;
+            }
 
-        avgGain /= totalWeight;
-        avgLoss /= totalWeight;
-
-        // Calculate RSI
-        double rs = avgLoss == 0 ? 100 : avgGain / avgLoss;
-        double rsi = 100 - (100 / (1 + rs));
-
-        // Volume confirmation (using pre-computed sums)
-        double volumeRatio = p.totalSellVolume > 0 ? (double) p.totalBuyVolume / p.totalSellVolume : p.totalBuyVolume;
-
-        // Score calculation
-        double score = 0;
-
-        // RSI oversold (below 30) with buying pressure
-        if (rsi < 30 && volumeRatio > 1.5) {
-            score = 80; // Strong buy
-        } else if (rsi < 40 && volumeRatio > 1.2) {
-            score = 50; // Buy
-        } else if (rsi > 70 && volumeRatio < 0.67) {
-            score = -80; // Strong sell
-        } else if (rsi > 60 && volumeRatio < 0.83) {
-            score = -50; // Sell
-        } else if (rsi >= 40 && rsi <= 60) {
-            score = 0; // Neutral
-        } else {
-            // RSI in extreme zones but volume doesn't confirm
-            score = rsi < 40 ? 20 : -20;
-        }
+            avgGain /= totalWeight;
+            avgLoss /= totalWeight;
 
-        String vote;
-        double confidence;
-        String reason;
+            // Calculate RSI
+            double rs = avgLoss == 0 ? 100 : avgGain / avgLoss;
+            double rsi = 100 - (100 / (1 + rs));
 
-        if (score >= 60) {
-            vote = "BUY";
-            confidence = 0.8;
-            reason = "RSI oversold (" + String.format("%.1f", rsi) + ") with strong buying pressure (volume ratio: " + String.format("%.2f", volumeRatio) + "). Potential reversal.";
-        } else if (score >= 40) {
-            vote = "BUY";
-            confidence = 0.6;
-            reason = "RSI low (" + String.format("%.1f", rsi) + ") with buying pressure (volume ratio: " + String.format("%.2f", volumeRatio) + ").";
-        } else if (score <= -60) {
-            vote = "SELL";
-            confidence = 0.8;
-            reason = "RSI overbought (" + String.format("%.1f", rsi) + ") with strong selling pressure (volume ratio: " + String.format("%.2f", volumeRatio) + "). Potential reversal.";
-        } else if (score <= -40) {
-            vote = "SELL";
-            confidence = 0.6;
-            reason = "RSI high (" + String.format("%.1f", rsi) + ") with selling pressure (volume ratio: " + String.format("%.2f", volumeRatio) + ").";
-        } else {
-            vote = "NEUTRAL";
-            confidence = 0.4;
-            reason = "RSI neutral (" + String.format("%.1f", rsi) + "). No clear momentum.";
-        }
+            // Volume confirmation over the whole window
+            long totalBuyVolume = 0;
+            long totalSellVolume = 0;
+            for (int i = 0; i < size; i++) {
+                totalBuyVolume += c.buyVolume[end - i];
+                totalSellVolume += c.sellVolume[end - i];
+            }
+            double volumeRatio = totalSellVolume > 0 ? (double) totalBuyVolume / totalSellVolume : totalBuyVolume;
+            s.rsi[w] = rsi;
+            s.volumeRatio[w] = volumeRatio;
+
+            // Score calculation
+            double score;
+
+            // RSI oversold (below rsiOversold, 30 by default) with buying pressure
+            if (rsi < params.getRsiOversold() && volumeRatio > 1.5) {
+                score = 80; // Strong buy
+            } else if (rsi < 40 && volumeRatio > 1.2) {
+                score = 50; // Buy
+            } else if (rsi > params.getRsiOverbought() && volumeRatio < 0.67) {
+                score = -80; // Strong sell
+            } else if (rsi > 60 && volumeRatio < 0.83) {
+                score = -50; // Sell
+            } else if (rsi >= 40 && rsi <= 60) {
+                score = 0; // Neutral
+            } else {
+                // RSI in extreme zones but volume doesn't confirm
+                score = rsi < 40 ? 20 : -20;
+            }
 
-        return FormulaResult.builder()
-                .formulaName("RSI")
-                .score(score)
-                .vote(vote)
-                .confidence(confidence)
-                .reason(reason)
-                .build();
+            scores[w] = score;
+            voteOnFixedBands(s, RSI, w, score);
+        }
     }
 
     /**
      * Formula 4: Trend Strength with Accumulation/Distribution Line
      */
-    private FormulaResult calculateTrendStrengthADLine(PrecomputedStats p) {
-        if (p.size < 2) {
-            return FormulaResult.builder()
-                    .formulaName("TrendStrength")
-                    .score(0)
-                    .vote("NEUTRAL")
-                    .confidence(0.0)
-                    .reason("Insufficient data")
-                    .build();
-        }
+    private static void scoreTrendStrengthADLine(DailyBarColumns c, int first, RecommendationParameters params, Scores s) {
+        double[] dayWeights = params.getDayWeights();
+        double[] scores = s.score[TREND_STRENGTH];
+        for (int w = 0; w < s.windows; w++) {
+            int size = c.windowSize[first + w];
+            int end = c.windowEnd[first + w];
+            if (size < 2) {
+                s.state[TREND_STRENGTH][w] = INSUFFICIENT;
+                continue;
+            }
 
-        // Calculate Accumulation/Distribution Line (using primitives)
-        double adLine = 0;
-        int maxDays = Math.min(p.size, DAY_WEIGHTS.length);
-        for (int i = 0; i < maxDays; i++) {
-            double close = p.closePrices[i];
-            double low = p.lowPrices[i];
-            double high = p.highPrices[i];
-            long volume = p.totalVolumes[i];
-
-            if (high > low) {
-                // Money Flow Multiplier
-                double hlcRange = high - low;
-                double closeMinusLow = close - low;
-                double highMinusClose = high - close;
-                
-                double mfm = (closeMinusLow - highMinusClose) / hlcRange;
-                
-                adLine += mfm * volume * DAY_WEIGHTS[i];
+            // Calculate Accumulation/Distribution Line
+            double adLine = 0;
+            int maxDays = Math.min(size, dayWeights.length);
+            for (int i = 0; i < maxDays; i++) {
+                double close = c.close[end - i];
+                double low = c.low[end - i];
+                double high = c.high[end - i];
+                long volume = c.totalVolume[end - i];
+
+                if (high > low) {
+                    // Money Flow Multiplier
+                    double hlcRange = high - low;
+                    double closeMinusLow = close - low;
+                    double highMinusClose = high - close;
+
+                    double mfm = (closeMinusLow - highMinusClose) / hlcRange;
+
+                    adLine += mfm * volume * dayWeights[i];
+                }
             }
-        }
 
-        // Price trend (10-day change) - using primitives
-        double latestPrice = p.closePrices[0];
-        int oldestIdx = Math.min(p.size - 1, 9);
-        double oldestPrice = p.closePrices[oldestIdx];
-        double priceChange10d = 0;
-        if (oldestPrice > 0) {
-            priceChange10d = ((latestPrice - oldestPrice) / oldestPrice) * 100;
-        }
+            // Price trend (10-day change)
+            double latestPrice = c.close[end];
+            int oldestIdx = Math.min(size - 1, 9);
+            double oldestPrice = c.close[end - oldestIdx];
+            double priceChange10d = 0;
+            if (oldestPrice > 0) {
+                priceChange10d = ((latestPrice - oldestPrice) / oldestPrice) * 100;
+            }
+            s.priceChange10d[w] = priceChange10d;
+
+            // VWAP trend (simplified)
+            double recentPriceVolume = 0;
+            long recentVol = 0;
+            double olderPriceVolume = 0;
+            long olderVol = 0;
+
+            int maxDays5 = Math.min(size, 5);
+            for (int i = 0; i < maxDays5; i++) {
+                recentPriceVolume += c.close[end - i] * c.totalVolume[end - i];
+                recentVol += c.totalVolume[end - i];
+            }
 
-        // VWAP trend (simplified) - single pass calculation
-        double recentPriceVolume = 0;
-        long recentVol = 0;
-        double olderPriceVolume = 0;
-        long olderVol = 0;
-        
-        int maxDays5 = Math.min(p.size, 5);
-        for (int i = 0; i < maxDays5; i++) {
-            recentPriceVolume += p.closePrices[i] * p.totalVolumes[i];
-            recentVol += p.totalVolumes[i];
-        }
-        
-        int maxDays10 = Math.min(p.size, 10);
-        for (int i = 5; i < maxDays10; i++) {
-            olderPriceVolume += p.closePrices[i] * p.totalVolumes[i];
-            olderVol += p.totalVolumes[i];
-        }
-        
-        double vwapTrend = 0;
-        if (recentVol > 0 && olderVol > 0) {
-            double recentVWAP = recentPriceVolume / recentVol;
-            double olderVWAP = olderPriceVolume / olderVol;
-            vwapTrend = ((recentVWAP - olderVWAP) / olderVWAP) * 100;
-        }
+            int maxDays10 = Math.min(size, 10);
+            for (int i = 5; i < maxDays10; i++) {
+                olderPriceVolume += c.close[end - i] * c.totalVolume[end - i];
+                olderVol += c.totalVolume[end - i];
+            }
 
-        // Score calculation
-        double score = 0;
-
-        // A/D Line positive with uptrend
-        if (adLine > 0 && priceChange10d > 2) {
-            score += 40;
-        } else if (adLine > 0 && priceChange10d > 0) {
-            score += 20;
-        } else if (adLine < 0 && priceChange10d < -2) {
-            score -= 40;
-        } else if (adLine < 0 && priceChange10d < 0) {
-            score -= 20;
-        }
+            double vwapTrend = 0;
+            if (recentVol > 0 && olderVol > 0) {
+                double recentVWAP = recentPriceVolume / recentVol;
+                double olderVWAP = olderPriceVolume / olderVol;
+                vwapTrend = ((recentVWAP - olderVWAP) / olderVWAP) * 100;
+            }
 
-        // VWAP trend
-        if (vwapTrend > 1) {
-            score += 20;
-        } else if (vwapTrend < -1) {
-            score -= 20;
-        }
+            // Score calculation
+            double score = 0;
+
+            // A/D Line positive with uptrend
+            if (adLine > 0 && priceChange10d > 2) {
+                score += 40;
+            } else if (adLine > 0 && priceChange10d > 0) {
+                score += 20;
+            } else if (adLine < 0 && priceChange10d < -2) {
+                score -= 40;
+            } else if (adLine < 0 && priceChange10d < 0) {
+                score -= 20;
+            }
 
-        score = Math.max(-100, Math.min(100, score));
+            // VWAP trend
+            if (vwapTrend > 1) {
+                score += 20;
+            } else if (vwapTrend < -1) {
+                score -= 20;
+            }
 
-        String vote;
-        double confidence;
-        String reason;
+            score = Math.max(-100, Math.min(100, score));
+            scores[w] = score;
+
+            if (score >= params.getStrongVoteScore()) {
+                vote(s, TREND_STRENGTH, w, 1, 0.8);
+            } else if (score >= params.getVoteScore()) {
+                vote(s, TREND_STRENGTH, w, 1, 0.6);
+            } else if (score <= -params.getStrongVoteScore()) {
+                vote(s, TREND_STRENGTH, w, -1, 0.8);
+            } else if (score <= -params.getVoteScore()) {
+                vote(s, TREND_STRENGTH, w, -1, 0.6);
+            } else {
+                vote(s, TREND_STRENGTH, w, 0, 0.4);
+            }
+        }
+    }
 
-        if (score >= 40) {
-            vote = "BUY";
-            confidence = 0.8;
-            reason = "Strong accumulation trend. A/D Line positive, price up " + String.format("%.2f", priceChange10d) + "%, VWAP trending up.";
-        } else if (score >= 20) {
-            vote = "BUY";
-            confidence = 0.6;
-            reason = "Accumulation trend. A/D Line positive, price up " + String.format("%.2f", priceChange10d) + "%.";
+    // MACrossover and RSI vote on +-60 (strong) and +-40
+    private static void voteOnFixedBands(Scores s, int formula, int w, double score) {
+        if (score >= 60) {
+            vote(s, formula, w, 1, 0.8);
+        } else if (score >= 40) {
+            vote(s, formula, w, 1, 0.6);
+        } else if (score <= -60) {
+            vote(s, formula, w, -1, 0.8);
         } else if (score <= -40) {
-            vote = "SELL";
-            confidence = 0.8;
-            reason = "Strong distribution trend. A/D Line negative, price down " + String.format("%.2f", priceChange10d) + "%, VWAP trending down.";
-        } else if (score <= -20) {
-            vote = "SELL";
-            confidence = 0.6;
-            reason = "Distribution trend. A/D Line negative, price down " + String.format("%.2f", priceChange10d) + "%.";
+            vote(s, formula, w, -1, 0.6);
         } else {
-            vote = "NEUTRAL";
-            confidence = 0.4;
-            reason = "Mixed accumulation/distribution signals. Price change: " + String.format("%.2f", priceChange10d) + "%.";
+            vote(s, formula, w, 0, 0.4);
         }
+    }
 
-        return FormulaResult.builder()
-                .formulaName("TrendStrength")
-                .score(score)
-                .vote(vote)
-                .confidence(confidence)
-                .reason(reason)
-                .build();
+    private static void vote(Scores s, int formula, int w, int vote, double confidence) {
+        s.vote[formula][w] = (byte) vote;
+        s.confidence[formula][w] = confidence;
     }
 
     /**
-     * Combine results from all 4 formulas
+     * Combine the four formulas of every window: weighted score, vote counts, consensus and signal
      */
-    private CombinedResult combineResults(FormulaResult f1, FormulaResult f2, FormulaResult f3, FormulaResult f4) {
-        List<FormulaResult> formulas = Arrays.asList(f1, f2, f3, f4);
-
-        // Extract scores
-        double[] scores = {
-                f1.getScore(),
-                f2.getScore(),
-                f3.getScore(),
-                f4.getScore()
-        };
+    private static void combine(RecommendationParameters params, Scores s) {
+        double[] weights = params.getFormulaWeights();
+        for (int w = 0; w < s.windows; w++) {
+            double weightedScore = 0;
+            int buyVotes = 0;
+            int sellVotes = 0;
+            for (int f = 0; f < RecommendationParameters.FORMULAS; f++) {
+                weightedScore += s.score[f][w] * weights[f];
+                if (s.vote[f][w] > 0) {
+                    buyVotes++;
+                } else if (s.vote[f][w] < 0) {
+                    sellVotes++;
+                }
+            }
+            double consensus = consensus(s.score[MOMENTUM][w], s.score[MA_CROSSOVER][w],
+                    s.score[RSI][w], s.score[TREND_STRENGTH][w]);
 
-        // Extract votes
-        String[] votes = {
-                f1.getVote(),
-                f2.getVote(),
-                f3.getVote(),
-                f4.getVote()
-        };
+            s.weightedScore[w] = weightedScore;
+            s.buyVotes[w] = buyVotes;
+            s.sellVotes[w] = sellVotes;
+            s.consensus[w] = consensus;
+            s.averageConfidence[w] = mean(s.confidence[MOMENTUM][w], s.confidence[MA_CROSSOVER][w],
+                    s.confidence[RSI][w], s.confidence[TREND_STRENGTH][w]);
+            s.signal[w] = signal(weightedScore, consensus, buyVotes, sellVotes, params);
+        }
+    }
 
-        // Extract confidences
-        double[] confidences = {
-                f1.getConfidence(),
-                f2.getConfidence(),
-                f3.getConfidence(),
-                f4.getConfidence()
-        };
+    /**
+     * Agreement of the formula scores: 1 - their standard deviation / 100, at least 0
+     */
+    private static double consensus(double s1, double s2, double s3, double s4) {
+        double avgScore = mean(s1, s2, s3, s4);
+        double variance = mean((s1 - avgScore) * (s1 - avgScore), (s2 - avgScore) * (s2 - avgScore),
+                (s3 - avgScore) * (s3 - avgScore), (s4 - avgScore) * (s4 - avgScore));
+        return Math.max(0.0, 1.0 - (Math.sqrt(variance) / 100.0));
+    }
 
-        // Calculate weighted average score
-        double[] weights = {0.30, 0.25, 0.25, 0.20};
-        double weightedScore = 0;
-        for (int i = 0; i < scores.length; i++) {
-            weightedScore += scores[i] * weights[i];
+    /**
+     * Mean of four values, summed with compensation as DoubleStream.average does, so e.g. the
+     * confidences 0.3, 0.4, 0.4, 0.6 average to 0.425 rather than 0.42500000000000004
+     */
+    private static double mean(double v1, double v2, double v3, double v4) {
+        double sum = v1;
+        double compensation = 0;
+        double y = v2 - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+        y = v3 - compensation;
+        t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+        y = v4 - compensation;
+        t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+        return (sum - compensation) / 4;
+    }
+
+    /**
+     * Decision matrix of the combined vote: 3/2/1 for a strong/moderate/weak buy, 0 for hold,
+     * -1/-2/-3 for a weak/moderate/strong sell
+     */
+    private static byte signal(double score, double consensus, int buyVotes, int sellVotes,
+                               RecommendationParameters params) {
+        // Strong signals: High score + High consensus + Majority vote
+        if (score >= params.getStrongActionScore() && consensus >= 0.7 && buyVotes >= 3) {
+            return 3;
+        } else if (score <= -params.getStrongActionScore() && consensus >= 0.7 && sellVotes >= 3) {
+            return -3;
+        }
+        // Moderate signals
+        else if (score >= params.getModerateActionScore() && consensus >= 0.5 && buyVotes >= 2) {
+            return 2;
+        } else if (score <= -params.getModerateActionScore() && consensus >= 0.5 && sellVotes >= 2) {
+            return -2;
         }
+        // Weak signals
+        else if (score >= params.getWeakActionScore() && buyVotes >= 2) {
+            return 1;
+        } else if (score <= -params.getWeakActionScore() && sellVotes >= 2) {
+            return -1;
+        }
+        return 0;
+    }
 
-        // Count votes
-        int buyVotes = (int) Arrays.stream(votes).filter(v -> "BUY".equals(v)).count();
-        int sellVotes = (int) Arrays.stream(votes).filter(v -> "SELL".equals(v)).count();
-        int neutralVotes = (int) Arrays.stream(votes).filter(v -> "NEUTRAL".equals(v)).count();
+    /**
+     * One window's result of one formula, with its reason
+     */
+    private static FormulaResult formulaResult(Scores s, int formula, int w, RecommendationParameters params) {
+        double score = s.score[formula][w];
+        return FormulaResult.builder()
+                .formulaName(FORMULA_NAMES[formula])
+                .score(score)
+                .vote(s.vote[formula][w] > 0 ? "BUY" : s.vote[formula][w] < 0 ? "SELL" : "NEUTRAL")
+                .confidence(s.confidence[formula][w])
+                .reason(switch (formula) {
+                    case MOMENTUM -> momentumReason(s.state[formula][w], score, params);
+                    case MA_CROSSOVER -> movingAverageReason(s.state[formula][w], score, s.ma5[w], s.ma10[w]);
+                    case RSI -> rsiReason(s.state[formula][w], score, s.rsi[w], s.volumeRatio[w]);
+                    default -> trendStrengthReason(s.state[formula][w], score, s.priceChange10d[w], params);
+                })
+                .build();
+    }
 
-        // Calculate consensus (standard deviation as measure of agreement)
-        double avgScore = Arrays.stream(scores).average().orElse(0.0);
-        double variance = Arrays.stream(scores)
-                .map(s -> Math.pow(s - avgScore, 2))
-                .average()
-                .orElse(0.0);
-        double stdDev = Math.sqrt(variance);
-        double consensus = Math.max(0.0, 1.0 - (stdDev / 100.0)); // 0.0 to 1.0
+    private static String momentumReason(byte state, double score, RecommendationParameters params) {
+        if (state == INSUFFICIENT) {
+            return "Insufficient data";
+        }
+        if (score >= params.getStrongVoteScore()) {
+            return "Strong volume-price momentum (score: " + fixed(score, 1) + "). Buy volume accumulation and positive price trend.";
+        } else if (score >= params.getVoteScore()) {
+            return "Positive volume-price momentum (score: " + fixed(score, 1) + "). Moderate buying pressure detected.";
+        } else if (score <= -params.getStrongVoteScore()) {
+            return "Strong negative volume-price momentum (score: " + fixed(score, 1) + "). Sell volume accumulation and negative price trend.";
+        } else if (score <= -params.getVoteScore()) {
+            return "Negative volume-price momentum (score: " + fixed(score, 1) + "). Moderate selling pressure detected.";
+        }
+        return "Neutral volume-price momentum (score: " + fixed(score, 1) + "). No clear trend.";
+    }
 
-        // Average confidence
-        double avgConfidence = Arrays.stream(confidences).average().orElse(0.0);
+    private static String movingAverageReason(byte state, double score, double ma5, double ma10) {
+        if (state == INSUFFICIENT) {
+            return "Insufficient data for MA calculation";
+        }
+        if (state == UNABLE) {
+            return "Unable to calculate moving averages";
+        }
+        if (score >= 60) {
+            return "Bullish MA crossover: MA5(" + price(ma5) + ") > MA10(" + price(ma10) + "). Price above MA5. Volume increasing.";
+        } else if (score >= 40) {
+            return "MA5(" + price(ma5) + ") above MA10(" + price(ma10) + "). Positive trend confirmed.";
+        } else if (score <= -60) {
+            return "Bearish MA crossover: MA5(" + price(ma5) + ") < MA10(" + price(ma10) + "). Price below MA5. Volume decreasing.";
+        } else if (score <= -40) {
+            return "MA5(" + price(ma5) + ") below MA10(" + price(ma10) + "). Negative trend confirmed.";
+        }
+        return "Mixed MA signals. MA5(" + price(ma5) + ") vs MA10(" + price(ma10) + ").";
+    }
 
-        return CombinedResult.builder()
-                .weightedScore(weightedScore)
-                .buyVotes(buyVotes)
-                .sellVotes(sellVotes)
-                .neutralVotes(neutralVotes)
-                .consensus(consensus)
-                .confidence(avgConfidence)
-                .formulaDetails(formulas)
-                .build();
+    private static String rsiReason(byte state, double score, double rsi, double volumeRatio) {
+        if (state == INSUFFICIENT) {
+            return "Insufficient data for RSI calculation";
+        }
+        if (state == UNABLE) {
+            return "Unable to calculate RSI";
+        }
+        if (score >= 60) {
+            return "RSI oversold (" + fixed(rsi, 1) + ") with strong buying pressure (volume ratio: " + fixed(volumeRatio, 2) + "). Potential reversal.";
+        } else if (score >= 40) {
+            return "RSI low (" + fixed(rsi, 1) + ") with buying pressure (volume ratio: " + fixed(volumeRatio, 2) + ").";
+        } else if (score <= -60) {
+            return "RSI overbought (" + fixed(rsi, 1) + ") with strong selling pressure (volume ratio: " + fixed(volumeRatio, 2) + "). Potential reversal.";
+        } else if (score <= -40) {
+            return "RSI high (" + fixed(rsi, 1) + ") with selling pressure (volume ratio: " + fixed(volumeRatio, 2) + ").";
+        }
+        return "RSI neutral (" + fixed(rsi, 1) + "). No clear momentum.";
+    }
+
+    private static String trendStrengthReason(byte state, double score, double priceChange10d,
+                                              RecommendationParameters params) {
+        if (state == INSUFFICIENT) {
+            return "Insufficient data";
+        }
+        if (score >= params.getStrongVoteScore()) {
+            return "Strong accumulation trend. A/D Line positive, price up " + fixed(priceChange10d, 2) + "%, VWAP trending up.";
+        } else if (score >= params.getVoteScore()) {
+            return "Accumulation trend. A/D Line positive, price up " + fixed(priceChange10d, 2) + "%.";
+        } else if (score <= -params.getStrongVoteScore()) {
+            return "Strong distribution trend. A/D Line negative, price down " + fixed(priceChange10d, 2) + "%, VWAP trending down.";
+        } else if (score <= -params.getVoteScore()) {
+            return "Distribution trend. A/D Line negative, price down " + fixed(priceChange10d, 2) + "%.";
+        }
+        return "Mixed accumulation/distribution signals. Price change: " + fixed(priceChange10d, 2) + "%.";
     }
 
     /**
-     * Generate final recommendation from combined results
+     * Generate final recommendation from combined results and their signal
      */
     private RecommendationResult generateFinalRecommendation(
-            CombinedResult combined, List<DailyStats> dailyStats, String stockCode) {
-
-        double score = combined.getWeightedScore();
-        double consensus = combined.getConsensus();
-        double confidence = combined.getConfidence();
-        int buyVotes = combined.getBuyVotes();
-        int sellVotes = combined.getSellVotes();
+            CombinedResult combined, int signal, List<DailyStats> dailyStats, String stockCode) {
 
         // Get current price and volume
-        BigDecimal currentPrice = dailyStats.get(0).getClosePrice();
+        long currentPrice = dailyStats.get(0).getClosePrice();
         Long volume24h = dailyStats.get(0).getTotalVolume();
 
-        // Decision matrix
-        String action;
-        String strength;
-        BigDecimal targetPrice;
-
-        // Strong signals: High score + High consensus + Majority vote
-        if (score >= 60 && consensus >= 0.7 && buyVotes >= 3) {
-            action = "buy";
-            strength = "strong";
-            targetPrice = calculateTargetPrice(dailyStats, "up");
-        } else if (score <= -60 && consensus >= 0.7 && sellVotes >= 3) {
-            action = "sell";
-            strength = "strong";
-            targetPrice = calculateTargetPrice(dailyStats, "down");
-        }
-        // Moderate signals
-        else if (score >= 40 && consensus >= 0.5 && buyVotes >= 2) {
-            action = "buy";
-            strength = "moderate";
-            targetPrice = calculateTargetPrice(dailyStats, "up");
-        } else if (score <= -40 && consensus >= 0.5 && sellVotes >= 2) {
-            action = "sell";
-            strength = "moderate";
-            targetPrice = calculateTargetPrice(dailyStats, "down");
-        }
-        // Weak signals
-        else if (score >= 20 && buyVotes >= 2) {
-            action = "buy";
-            strength = "weak";
-            targetPrice = calculateTargetPrice(dailyStats, "up");
-        } else if (score <= -20 && sellVotes >= 2) {
-            action = "sell";
-            strength = "weak";
-            targetPrice = calculateTargetPrice(dailyStats, "down");
-        }
-        // Neutral
-        else {
-            action = "hold";
-            strength = "neutral";
-            targetPrice = currentPrice;
-        }
+        String action = signal > 0 ? "buy" : signal < 0 ? "sell" : "hold";
+        String strength = switch (Math.abs(signal)) {
+            case 3 -> "strong";
+            case 2 -> "moderate";
+            case 1 -> "weak";
+            default -> "neutral";
+        };
+        long targetPrice = signal > 0 ? calculateTargetPrice(dailyStats, "up")
+                : signal < 0 ? calculateTargetPrice(dailyStats, "down")
+                : currentPrice;
 
         // Generate reason
         String reason = generateReason(combined, dailyStats);
@@ -879,40 +855,34 @@ public class CombinedRecommendationService {
                 .code(stockCode)
                 .action(action)
                 .strength(strength)
-                .confidence(confidence)
-                .currentPrice(currentPrice)
-                .targetPrice(targetPrice)
-                .score(score)
-                .consensus(consensus)
-                .buyVotes(buyVotes)
-                .sellVotes(sellVotes)
+                .confidence(combined.getConfidence())
+                .currentPrice(ScaledPrice.toBigDecimal(currentPrice))
+                .targetPrice(ScaledPrice.toBigDecimal(targetPrice))
+                .score(combined.getWeightedScore())
+                .consensus(combined.getConsensus())
+                .buyVotes(combined.getBuyVotes())
+                .sellVotes(combined.getSellVotes())
                 .reason(reason)
                 .volume24h(volume24h)
                 .build();
     }
-
     /**
-     * Calculate target price based on trend direction
+     * Calculate target price (ScaledPrice) based on trend direction
      */
-    private BigDecimal calculateTargetPrice(List<DailyStats> stats, String direction) {
+    private long calculateTargetPrice(List<DailyStats> stats, String direction) {
         if (stats.isEmpty()) {
-            return BigDecimal.ZERO;
+            return ScaledPrice.NONE;
         }
 
-        BigDecimal currentPrice = stats.get(0).getClosePrice();
+        long currentPrice = stats.get(0).getClosePrice();
 
         // Calculate average price change percentage
         double avgChange = 0;
         int count = 0;
         for (int i = 0; i < Math.min(stats.size() - 1, 5); i++) {
-            BigDecimal current = stats.get(i).getClosePrice();
-            BigDecimal previous = stats.get(i + 1).getClosePrice();
-            if (previous.compareTo(BigDecimal.ZERO) > 0) {
-                double change = current.subtract(previous)
-                        .divide(previous, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100))
-                        .doubleValue();
-                avgChange += change;
+            long previous = stats.get(i + 1).getClosePrice();
+            if (previous > 0) {
+                avgChange += ScaledPrice.percentChange(previous, stats.get(i).getClosePrice());
                 count++;
             }
         }
@@ -932,8 +902,8 @@ public class CombinedRecommendationService {
             return currentPrice;
         }
 
-        return currentPrice.multiply(BigDecimal.valueOf(1 + targetPercent / 100))
-                .setScale(0, RoundingMode.HALF_UP);
+        // Rounded to a whole price unit
+        return Math.round(ScaledPrice.toDouble(currentPrice) * (1 + targetPercent / 100)) * ScaledPrice.ONE;
     }
 
     /**
@@ -945,38 +915,38 @@ public class CombinedRecommendationService {
         int buyVotes = combined.getBuyVotes();
         int sellVotes = combined.getSellVotes();
 
-        reason.append(String.format(
-                "Consensus: %d of 4 formulas suggest %s. ",
-                Math.max(buyVotes, sellVotes),
-                buyVotes > sellVotes ? "buying" : "selling"
-        ));
+        reason.append("Consensus: ").append(Math.max(buyVotes, sellVotes)).append(" of 4 formulas suggest ")
+                .append(buyVotes > sellVotes ? "buying" : "selling").append(". ");
 
-        reason.append(String.format(
-                "Weighted score: %.1f/100. ",
-                combined.getWeightedScore()
-        ));
+        reason.append("Weighted score: ").append(fixed(combined.getWeightedScore(), 1)).append("/100. ");
 
-        reason.append(String.format(
-                "Formula agreement: %.0f%%. ",
-                combined.getConsensus() * 100
-        ));
+        reason.append("Formula agreement: ").append(fixed(combined.getConsensus() * 100, 0)).append("%. ");
 
         // Add specific formula insights
         List<FormulaResult> formulas = combined.getFormulaDetails();
         for (FormulaResult formula : formulas) {
             if (Math.abs(formula.getScore()) > 50) {
-                reason.append(String.format(
-                        "%s: %s (score: %.1f). ",
-                        formula.getFormulaName(),
-                        formula.getVote(),
-                        formula.getScore()
-                ));
+                reason.append(formula.getFormulaName()).append(": ").append(formula.getVote())
+                        .append(" (score: ").append(fixed(formula.getScore(), 1)).append("). ");
             }
         }
 
         return reason.toString().trim();
     }
-}
-
 
+    // ScaledPrice average -> price text, e.g. 2545.4 -> "25.45"
+    private static String price(double scaledAverage) {
+        return fixed(ScaledPrice.toDouble(Math.round(scaledAverage)), ScaledPrice.SCALE);
+    }
 
+    /**
+     * Same text as String.format("%." + decimals + "f", value) for finite values (half-up on the
+     * shortest decimal form, sign kept when the result rounds to zero), without parsing a
+     * format pattern on every call; reasons are built for every code on each snapshot refresh
+     */
+    private static String fixed(double value, int decimals) {
+        BigDecimal rounded = new BigDecimal(Double.toString(value)).setScale(decimals, RoundingMode.HALF_UP);
+        String text = rounded.toPlainString();
+        return rounded.signum() == 0 && Double.doubleToRawLongBits(value) < 0 ? "-" + text : text;
+    }
+}
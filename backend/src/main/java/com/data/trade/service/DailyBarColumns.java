@@ -0,0 +1,107 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+
+import java.util.List;
+
+/**
+ * Daily bars laid out as primitive columns (prices as ScaledPrice), and the windows the
+ * recommendation formulas read from them. A window is up to RecommendationParameters.DAYS
+ * consecutive bars ending at one bar, read newest first: day d of window w is bar windowEnd[w] - d.
+ * Bars are appended oldest first, so the overlapping windows of a backtest share one copy of each bar.
+ */
+final class DailyBarColumns {
+
+    final int[] date;
+    final long[] open;
+    final long[] high;
+    final long[] low;
+    final long[] close;
+    final long[] buyVolume;
+    final long[] sellVolume;
+    final long[] totalVolume;
+    final long[] largeBuyBlocks;
+    final long[] largeSellBlocks;
+
+    final int[] windowEnd;
+    final int[] windowSize;
+
+    private int bars;
+    private int windows;
+
+    DailyBarColumns(int barCapacity, int windowCapacity) {
+        date = new int[barCapacity];
+        open = new long[barCapacity];
+        high = new long[barCapacity];
+        low = new long[barCapacity];
+        close = new long[barCapacity];
+        buyVolume = new long[barCapacity];
+        sellVolume = new long[barCapacity];
+        totalVolume = new long[barCapacity];
+        largeBuyBlocks = new long[barCapacity];
+        largeSellBlocks = new long[barCapacity];
+        windowEnd = new int[windowCapacity];
+        windowSize = new int[windowCapacity];
+    }
+
+    /**
+     * One window per list, each list most recent first as the formulas take them
+     */
+    static DailyBarColumns ofWindows(List<List<DailyStats>> windowsStats) {
+        int barCount = 0;
+        for (List<DailyStats> stats : windowsStats) {
+            barCount += Math.min(stats.size(), RecommendationParameters.DAYS);
+        }
+        DailyBarColumns columns = new DailyBarColumns(barCount, windowsStats.size());
+        for (List<DailyStats> stats : windowsStats) {
+            int size = Math.min(stats.size(), RecommendationParameters.DAYS);
+            for (int d = size - 1; d >= 0; d--) {
+                columns.addBar(0, stats.get(d));
+            }
+            columns.addWindow(columns.bars() - 1, size);
+        }
+        return columns;
+    }
+
+    /**
+     * Append a bar after the previous one (missing volumes and block counts read as 0)
+     * @return its index
+     */
+    int addBar(int dateNumeric, DailyStats day) {
+        int i = bars++;
+        date[i] = dateNumeric;
+        open[i] = day.getOpenPrice();
+        high[i] = day.getHighPrice();
+        low[i] = day.getLowPrice();
+        close[i] = day.getClosePrice();
+        buyVolume[i] = orZero(day.getBuyVolume());
+        sellVolume[i] = orZero(day.getSellVolume());
+        totalVolume[i] = orZero(day.getTotalVolume());
+        largeBuyBlocks[i] = orZero(day.getLargeBuyBlocks());
+        largeSellBlocks[i] = orZero(day.getLargeSellBlocks());
+        return i;
+    }
+
+    /**
+     * Add the window of the size bars ending at bar end (sizes above RecommendationParameters.DAYS
+     * are capped; the formulas read no further)
+     */
+    void addWindow(int end, int size) {
+        int w = windows++;
+        windowEnd[w] = end;
+        windowSize[w] = Math.min(size, RecommendationParameters.DAYS);
+    }
+
+    int bars() {
+        return bars;
+    }
+
+    int windows() {
+        return windows;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,320 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.model.ScaledPrice;
+import com.data.trade.model.Trade;
+import com.data.trade.repository.TradeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Rolling window of each code's own last RecommendationParameters.DAYS daily bars (the daily_bars
+ * columns the recommendation formulas read), kept in a ring with the newest day open for updates.
+ * The days are counted per code, so a newly listed or suspended code still gets its latest bars
+ * rather than only those on the market's latest dates.
+ * Windows are loaded from daily_bars in one query and then fed by ingestion: a trade of the
+ * newest day is folded into that bar in O(1), a trade of a later day starts a new bar and drops
+ * the oldest. A trade that cannot be applied in order (a late print, an older day) marks the
+ * window stale, and it is reloaded from daily_bars the next time it is read.
+ * Codes daily_bars has no bars for (unknown or mistyped ones) are not kept, so reads of arbitrary
+ * codes cannot grow the map; they are looked up again on each read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DailyBarWindows {
+
+    // Block thresholds used by the daily_bars rollup
+    private static final long LARGE_BLOCK_VOLUME = 400_000;
+    private static final long MEDIUM_BLOCK_VOLUME = 100_000;
+
+    private final TradeRepository tradeRepository;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Bars of each code, newest first, as the recommendation formulas take them.
+     * Windows not loaded yet or marked stale are (re)loaded together in a single query.
+     */
+    public Map<String, List<DailyStats>> recentStats(List<String> codes) {
+        Map<String, Window> held = new LinkedHashMap<>();
+        // Sorted, so concurrent loaders always take the window locks in the same order
+        Map<String, Window> toLoad = new TreeMap<>();
+        for (String code : codes) {
+            Window window = windows.computeIfAbsent(code, k -> new Window(k, RecommendationParameters.DAYS));
+            held.put(code, window);
+            if (window.needsLoad()) {
+                toLoad.put(code, window);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            load(toLoad);
+        }
+
+        Map<String, List<DailyStats>> stats = new LinkedHashMap<>();
+        held.forEach((code, window) -> {
+            List<DailyStats> bars = window.toStats();
+            if (bars.isEmpty()) {
+                windows.remove(code, window);
+            }
+            stats.put(code, bars);
+        });
+        return stats;
+    }
+
+    /**
+     * Feed newly ingested trades. Only codes whose window is held are updated; the others
+     * are read from daily_bars when first asked for. Must be called once the trades are committed.
+     */
+    public void append(List<Trade> trades) {
+        Map<String, List<Trade>> byCode = trades.stream().collect(Collectors.groupingBy(Trade::getCode));
+        byCode.forEach((code, list) -> {
+            Window window = windows.get(code);
+            if (window != null) {
+                window.append(list);
+            }
+        });
+    }
+
+    /**
+     * Drop a code's window; the next read reloads it from daily_bars
+     */
+    public void evict(String code) {
+        windows.remove(code);
+    }
+
+    /**
+     * Reload these codes' windows on their next read, for trades another process wrote for them
+     */
+    public void invalidate(Collection<String> codes) {
+        for (String code : codes) {
+            Window window = windows.get(code);
+            if (window != null) {
+                window.markStale();
+            }
+        }
+    }
+
+    /**
+     * Reload every window on its next read, for trades written by another process or outside ingestion order
+     */
+    public void invalidateAll() {
+        windows.values().forEach(Window::markStale);
+    }
+
+    private void load(Map<String, Window> toLoad) {
+        toLoad.values().forEach(window -> window.lock.lock());
+        try {
+            Map<String, List<Object[]>> rowsByCode = new HashMap<>();
+            for (Object[] row : tradeRepository.findRecentDailyBars(toLoad.keySet().toArray(String[]::new), RecommendationParameters.DAYS)) {
+                rowsByCode.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add(row);
+            }
+            toLoad.forEach((code, window) -> window.reset(rowsByCode.getOrDefault(code, List.of())));
+            log.debug("Loaded daily bar windows for {} codes", toLoad.size());
+        } finally {
+            toLoad.values().forEach(window -> window.lock.unlock());
+        }
+    }
+
+    /**
+     * Ring of one code's bars; slot `newest` holds the latest day, which is still open for trades.
+     * Prices are ScaledPrice.
+     */
+    private static final class Window {
+        private final String code;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final int capacity;
+        private final int[] dates;
+        private final String[] tradeDates;
+        private final long[] opens;
+        private final long[] highs;
+        private final long[] lows;
+        private final long[] closes;
+        private final long[] buyVolumes;
+        private final long[] sellVolumes;
+        private final long[] totalVolumes;
+        private final long[] largeBuyBlocks;
+        private final long[] largeSellBlocks;
+        private final long[] mediumBuyBlocks;
+        private final long[] mediumSellBlocks;
+        private int newest = -1;
+        private int size;
+
+        // Natural key of the newest day's last trade; later trades of that day extend the bar
+        private int closeSeconds;
+        private int closeSeq;
+
+        private volatile boolean loaded;
+        private volatile boolean stale;
+
+        private Window(String code, int capacity) {
+            this.code = code;
+            this.capacity = capacity;
+            this.dates = new int[capacity];
+            this.tradeDates = new String[capacity];
+            this.opens = new long[capacity];
+            this.highs = new long[capacity];
+            this.lows = new long[capacity];
+            this.closes = new long[capacity];
+            this.buyVolumes = new long[capacity];
+            this.sellVolumes = new long[capacity];
+            this.totalVolumes = new long[capacity];
+            this.largeBuyBlocks = new long[capacity];
+            this.largeSellBlocks = new long[capacity];
+            this.mediumBuyBlocks = new long[capacity];
+            this.mediumSellBlocks = new long[capacity];
+        }
+
+        boolean needsLoad() {
+            return !loaded || stale;
+        }
+
+        void markStale() {
+            stale = true;
+        }
+
+        void reset(List<Object[]> rows) {
+            newest = -1;
+            size = 0;
+            // Rows come oldest first
+            for (Object[] row : rows) {
+                int slot = push(((Number) row[1]).intValue(), (String) row[2]);
+                opens[slot] = ScaledPrice.of((Number) row[3]);
+                highs[slot] = ScaledPrice.of((Number) row[4]);
+                lows[slot] = ScaledPrice.of((Number) row[5]);
+                closes[slot] = ScaledPrice.of((Number) row[6]);
+                buyVolumes[slot] = ((Number) row[7]).longValue();
+                sellVolumes[slot] = ((Number) row[8]).longValue();
+                totalVolumes[slot] = ((Number) row[9]).longValue();
+                largeBuyBlocks[slot] = ((Number) row[10]).longValue();
+                largeSellBlocks[slot] = ((Number) row[11]).longValue();
+                mediumBuyBlocks[slot] = ((Number) row[12]).longValue();
+                mediumSellBlocks[slot] = ((Number) row[13]).longValue();
+                closeSeconds = LocalTime.parse((String) row[14]).toSecondOfDay();
+                closeSeq = ((Number) row[15]).intValue();
+            }
+            loaded = true;
+            stale = false;
+        }
+
+        void append(List<Trade> trades) {
+            lock.lock();
+            try {
+                for (Trade trade : trades) {
+                    if (needsLoad()) {
+                        return;
+                    }
+                    apply(trade);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<DailyStats> toStats() {
+            lock.lock();
+            try {
+                List<DailyStats> stats = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    int slot = Math.floorMod(newest - i, capacity);
+                    if (closes[slot] > 0) {
+                        stats.add(DailyStats.builder()
+                                .tradeDate(tradeDates[slot])
+                                .closePrice(closes[slot])
+                                .openPrice(opens[slot])
+                                .highPrice(highs[slot])
+                                .lowPrice(lows[slot])
+                                .buyVolume(buyVolumes[slot])
+                                .sellVolume(sellVolumes[slot])
+                                .totalVolume(totalVolumes[slot])
+                                .largeBuyBlocks(largeBuyBlocks[slot])
+                                .largeSellBlocks(largeSellBlocks[slot])
+                                .mediumBuyBlocks(mediumBuyBlocks[slot])
+                                .mediumSellBlocks(mediumSellBlocks[slot])
+                                .build());
+                    }
+                }
+                return stats;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void apply(Trade trade) {
+            int date = trade.getTradeDateNumeric();
+            int seconds = trade.getTradeSeconds();
+            int seq = trade.getSeq();
+            long price = ScaledPrice.of(trade.getPrice());
+
+            int slot;
+            if (size == 0 || date > dates[newest]) {
+                slot = push(date, trade.getTradeDate());
+                opens[slot] = price;
+                highs[slot] = price;
+                lows[slot] = price;
+            } else if (date == dates[newest] && (seconds > closeSeconds || (seconds == closeSeconds && seq > closeSeq))) {
+                slot = newest;
+                highs[slot] = Math.max(highs[slot], price);
+                lows[slot] = Math.min(lows[slot], price);
+            } else {
+                // Older than the bar it would belong to; only a reload can place it
+                log.debug("[{}] Out-of-order trade {} {}#{}, window marked for reload", code, date, seconds, seq);
+                stale = true;
+                return;
+            }
+
+            closes[slot] = price;
+            closeSeconds = seconds;
+            closeSeq = seq;
+
+            long volume = trade.getVolume();
+            totalVolumes[slot] += volume;
+            if ("buy".equals(trade.getSide())) {
+                buyVolumes[slot] += volume;
+                if (volume >= LARGE_BLOCK_VOLUME) {
+                    largeBuyBlocks[slot]++;
+                } else if (volume >= MEDIUM_BLOCK_VOLUME) {
+                    mediumBuyBlocks[slot]++;
+                }
+            } else if ("sell".equals(trade.getSide())) {
+                sellVolumes[slot] += volume;
+                if (volume >= LARGE_BLOCK_VOLUME) {
+                    largeSellBlocks[slot]++;
+                } else if (volume >= MEDIUM_BLOCK_VOLUME) {
+                    mediumSellBlocks[slot]++;
+                }
+            }
+        }
+
+        // Start a new newest bar, overwriting the oldest once the ring is full
+        private int push(int date, String tradeDate) {
+            newest = (newest + 1) % capacity;
+            size = Math.min(size + 1, capacity);
+            dates[newest] = date;
+            tradeDates[newest] = tradeDate;
+            buyVolumes[newest] = 0;
+            sellVolumes[newest] = 0;
+            totalVolumes[newest] = 0;
+            largeBuyBlocks[newest] = 0;
+            largeSellBlocks[newest] = 0;
+            mediumBuyBlocks[newest] = 0;
+            mediumSellBlocks[newest] = 0;
+            return newest;
+        }
+    }
+}
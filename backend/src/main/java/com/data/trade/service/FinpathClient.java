@@ -6,6 +6,7 @@ import com.data.trade.dto.TradingViewBarsResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Service
 public class FinpathClient {
@@ -19,6 +20,13 @@ public class FinpathClient {
     }
 
     public FinpathResponse fetchTrades(String code, int page, Integer pageSizeOverride) {
+        return fetchTradesAsync(code, page, pageSizeOverride).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchTrades} for fanning out over many codes
+     */
+    public Mono<FinpathResponse> fetchTradesAsync(String code, int page, Integer pageSizeOverride) {
         int pageSize = pageSizeOverride != null ? pageSizeOverride : defaultPageSize;
         String path = "/api/stocks/v2/trades/" + code;
         return webClient.get()
@@ -27,8 +35,7 @@ public class FinpathClient {
                         .queryParam("pageSize", pageSize)
                         .build())
                 .retrieve()
-                .bodyToMono(FinpathResponse.class)
-                .block();
+                .bodyToMono(FinpathResponse.class);
     }
 
     public RoombarResponse fetchRoombars(String code, String type) {
@@ -48,6 +55,13 @@ public class FinpathClient {
      * @return TradingViewBarsResponse containing market price data
      */
     public TradingViewBarsResponse fetchTradingViewBars(String code) {
+        return fetchTradingViewBarsAsync(code).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchTradingViewBars}, used by MarketQuoteService
+     */
+    public Mono<TradingViewBarsResponse> fetchTradingViewBarsAsync(String code) {
         String path = "/api/tradingview/v2/bars/" + code;
         return webClient.get()
                 .uri(uriBuilder -> uriBuilder.path(path)
@@ -55,7 +69,6 @@ public class FinpathClient {
                         .queryParam("countBack", "1")
                         .build())
                 .retrieve()
-                .bodyToMono(TradingViewBarsResponse.class)
-                .block();
+                .bodyToMono(TradingViewBarsResponse.class);
     }
 }
@@ -0,0 +1,242 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.IndicatorsDTO;
+import com.data.trade.indicator.IndicatorSet;
+import com.data.trade.model.ScaledPrice;
+import com.data.trade.repository.TradeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streaming technical indicators per code over daily bars.
+ * Each code's IndicatorSet holds every closed day: it is built once from the last LOAD_DAYS rows of
+ * daily_bars and then advanced one bar at a time from DailyBarWindows, which ingestion keeps
+ * current. The still-open newest day is applied to a copy on each read, so reads run no SQL.
+ * A closed day that changed after it was applied (a late import) or a gap longer than the
+ * window rebuilds the code from daily_bars. OBV counts from the oldest bar of the last rebuild,
+ * so its level is relative to that bar and may shift when the code is rebuilt.
+ * Only codes DailyBarWindows holds bars for are kept, so asking for unknown codes adds no entries.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndicatorStore {
+
+    // Enough history for the EMAs to settle well past IndicatorSet.WARM_UP_BARS
+    public static final int LOAD_DAYS = 120;
+
+    private final TradeRepository tradeRepository;
+    private final DailyBarWindows dailyBarWindows;
+
+    private final Map<String, CodeIndicators> codes = new ConcurrentHashMap<>();
+
+    /**
+     * Indicators of each code as of its latest bar; codes without bars are left out
+     */
+    public Map<String, IndicatorsDTO> indicators(List<String> requested) {
+        Map<String, List<DailyStats>> windows = dailyBarWindows.recentStats(requested);
+
+        Map<String, CodeIndicators> held = new LinkedHashMap<>();
+        // Sorted, so concurrent loaders always take the locks in the same order
+        Map<String, CodeIndicators> toLoad = new TreeMap<>();
+        for (String code : requested) {
+            List<DailyStats> window = windows.get(code);
+            if (window == null || window.isEmpty()) {
+                continue;
+            }
+            CodeIndicators indicators = codes.computeIfAbsent(code, CodeIndicators::new);
+            held.put(code, indicators);
+            if (indicators.needsLoad(window)) {
+                toLoad.put(code, indicators);
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            load(toLoad);
+        }
+
+        Map<String, IndicatorsDTO> result = new LinkedHashMap<>();
+        held.forEach((code, indicators) -> result.put(code, indicators.read(windows.get(code))));
+        return result;
+    }
+
+    /**
+     * Drop a code; the next read rebuilds it from daily_bars
+     */
+    public void evict(String code) {
+        codes.remove(code);
+    }
+
+    /**
+     * Rebuild these codes on their next read, along with DailyBarWindows.invalidate
+     */
+    public void invalidate(Collection<String> codes) {
+        for (String code : codes) {
+            CodeIndicators indicators = this.codes.get(code);
+            if (indicators != null) {
+                indicators.stale = true;
+            }
+        }
+    }
+
+    /**
+     * Rebuild every code on its next read, along with DailyBarWindows.invalidateAll
+     */
+    public void invalidateAll() {
+        codes.values().forEach(indicators -> indicators.stale = true);
+    }
+
+    private void load(Map<String, CodeIndicators> toLoad) {
+        toLoad.values().forEach(indicators -> indicators.lock.lock());
+        try {
+            Map<String, List<Object[]>> rowsByCode = new HashMap<>();
+            for (Object[] row : tradeRepository.findRecentDailyBars(toLoad.keySet().toArray(String[]::new), LOAD_DAYS)) {
+                rowsByCode.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add(row);
+            }
+            toLoad.forEach((code, indicators) -> indicators.reset(rowsByCode.getOrDefault(code, List.of())));
+            log.debug("Built indicators for {} codes", toLoad.size());
+        } finally {
+            toLoad.values().forEach(indicators -> indicators.lock.unlock());
+        }
+    }
+
+    // "DD/MM/YYYY" -> YYYYMMDD
+    private static int numericDate(String tradeDate) {
+        return Integer.parseInt(tradeDate.substring(6, 10)) * 10000
+                + Integer.parseInt(tradeDate.substring(3, 5)) * 100
+                + Integer.parseInt(tradeDate.substring(0, 2));
+    }
+
+    /**
+     * One code's indicators over its closed days, and the last closed day applied
+     * (date, close and volume, to notice it being rewritten)
+     */
+    private static final class CodeIndicators {
+        private final String code;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private IndicatorSet closed;
+        private int closedDate;
+        private long closedClose;
+        private long closedVolume;
+        private volatile boolean loaded;
+        private volatile boolean stale;
+
+        private CodeIndicators(String code) {
+            this.code = code;
+        }
+
+        /**
+         * Whether the window (not empty) cannot be applied on top of the closed days held
+         */
+        boolean needsLoad(List<DailyStats> window) {
+            if (!loaded || stale) {
+                return true;
+            }
+            lock.lock();
+            try {
+                // Window is newest first; a gap between closedDate and its oldest day means missed bars
+                int oldest = numericDate(window.get(window.size() - 1).getTradeDate());
+                return closedDate > 0 && oldest > closedDate;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void reset(List<Object[]> rows) {
+            closed = new IndicatorSet();
+            closedDate = 0;
+            // Rows come oldest first; the newest may still be trading, so it is left to read()
+            for (int i = 0; i < rows.size() - 1; i++) {
+                Object[] row = rows.get(i);
+                long close = ScaledPrice.of((Number) row[6]);
+                if (close > 0) {
+                    apply(((Number) row[1]).intValue(), ScaledPrice.of((Number) row[4]), ScaledPrice.of((Number) row[5]),
+                            close, ((Number) row[9]).longValue());
+                }
+            }
+            loaded = true;
+            stale = false;
+        }
+
+        IndicatorsDTO read(List<DailyStats> window) {
+            lock.lock();
+            try {
+                // Advance over the window's closed days not applied yet (all but the newest)
+                for (int i = window.size() - 1; i >= 1; i--) {
+                    DailyStats day = window.get(i);
+                    int date = numericDate(day.getTradeDate());
+                    if (date > closedDate) {
+                        apply(date, day.getHighPrice(), day.getLowPrice(), day.getClosePrice(), volume(day));
+                    } else if (date == closedDate && (day.getClosePrice() != closedClose || volume(day) != closedVolume)) {
+                        log.debug("[{}] Closed day {} changed, indicators marked for rebuild", code, date);
+                        stale = true;
+                    }
+                }
+
+                DailyStats newest = window.get(0);
+                int newestDate = numericDate(newest.getTradeDate());
+                IndicatorSet current = closed;
+                if (newestDate > closedDate) {
+                    current = closed.copy();
+                    current.add(ScaledPrice.toDouble(newest.getHighPrice()), ScaledPrice.toDouble(newest.getLowPrice()),
+                            ScaledPrice.toDouble(newest.getClosePrice()), volume(newest));
+                }
+                return toDTO(code, newest, current);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void apply(int date, long high, long low, long close, long volume) {
+            closed.add(ScaledPrice.toDouble(high), ScaledPrice.toDouble(low), ScaledPrice.toDouble(close), volume);
+            closedDate = date;
+            closedClose = close;
+            closedVolume = volume;
+        }
+
+        private static long volume(DailyStats day) {
+            return day.getTotalVolume() != null ? day.getTotalVolume() : 0L;
+        }
+    }
+
+    private static IndicatorsDTO toDTO(String code, DailyStats newest, IndicatorSet set) {
+        return IndicatorsDTO.builder()
+                .code(code)
+                .tradeDate(newest.getTradeDate())
+                .bars(set.bars())
+                .close(ScaledPrice.toDouble(newest.getClosePrice()))
+                .ema12(value(set.ema12()))
+                .ema26(value(set.ema26()))
+                .macd(value(set.macd().line()))
+                .macdSignal(value(set.macd().signal()))
+                .macdHistogram(value(set.macd().histogram()))
+                .bollingerUpper(value(set.bollinger().upper()))
+                .bollingerMiddle(value(set.bollinger().middle()))
+                .bollingerLower(value(set.bollinger().lower()))
+                .atr14(value(set.atr().value()))
+                .obv(value(set.obv().value()))
+                .stochasticK(value(set.stochastic().k()))
+                .stochasticD(value(set.stochastic().d()))
+                .vwap20(value(set.vwap().value()))
+                .closeZScore20(value(set.closeZScore().value()))
+                .volumeZScore20(value(set.volumeZScore().value()))
+                .build();
+    }
+
+    // NaN (not enough bars yet) -> null
+    private static Double value(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,436 @@
+package com.data.trade.service;
+
+import com.data.trade.model.ScaledPrice;
+import com.data.trade.model.Trade;
+import com.data.trade.repository.TradeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process store of the current trading day's ticks, one set of primitive columns per code
+ * (seconds of day, ScaledPrice, volume, side) kept in (seconds, seq) order.
+ * A code enters the store from ingestion, or from the trades table when first read with ticks today;
+ * refresh pulls rows written by another process (cron-jobs) since the last load.
+ * Everything is dropped when the trading day changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IntradayTickStore {
+
+    public static final byte OTHER = 0;
+    public static final byte BUY = 1;
+    public static final byte SELL = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TradeRepository tradeRepository;
+
+    @Value("${app.timezone:Asia/Ho_Chi_Minh}")
+    private String appTz;
+
+    private final Map<String, CodeTicks> codes = new ConcurrentHashMap<>();
+    // A lock rather than synchronized so a virtual thread waiting here does not pin its carrier
+    private final ReentrantLock rollOverLock = new ReentrantLock();
+    private volatile int day;
+
+    /**
+     * One tick; price is a ScaledPrice
+     */
+    public record Tick(int seconds, long price, long volume, byte side) {
+    }
+
+    /**
+     * OHLCV of the ticks in [startSeconds, startSeconds + bucket size); prices are ScaledPrice
+     */
+    public record Bar(int startSeconds, long open, long high, long low, long close,
+                      long averagePrice, long volume, int tradeCount) {
+    }
+
+    public static byte side(String side) {
+        if ("buy".equalsIgnoreCase(side)) {
+            return BUY;
+        }
+        return "sell".equalsIgnoreCase(side) ? SELL : OTHER;
+    }
+
+    /**
+     * Today's date as YYYYMMDD in the application timezone
+     */
+    public int today() {
+        return Integer.parseInt(LocalDate.now(ZoneId.of(appTz)).format(DateTimeFormatter.BASIC_ISO_DATE));
+    }
+
+    /**
+     * Today's ticks for a code, loaded from the trades table on first access.
+     * Only codes that have ticks today are kept, so lookups of unknown codes do not grow the store;
+     * for those an empty, unregistered instance is returned.
+     */
+    public CodeTicks get(String code) {
+        rollOver();
+        CodeTicks ticks = codes.get(code);
+        if (ticks != null) {
+            ticks.loadIfNeeded();
+            return ticks;
+        }
+        CodeTicks loaded = new CodeTicks(code);
+        loaded.loadIfNeeded();
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        CodeTicks existing = codes.putIfAbsent(code, loaded);
+        if (existing == null) {
+            return loaded;
+        }
+        // Ingestion registered the code meanwhile
+        existing.loadIfNeeded();
+        return existing;
+    }
+
+    /**
+     * Feed newly ingested trades; this is where codes enter the store. A code not held yet
+     * is completed from the table on its first read. Must be called once the trades are committed.
+     */
+    public void append(List<Trade> trades) {
+        rollOver();
+        int today = day;
+        Map<String, List<Trade>> byCode = trades.stream()
+                .filter(t -> t.getTradeDateNumeric() == today)
+                .collect(Collectors.groupingBy(Trade::getCode));
+        byCode.forEach((code, list) -> {
+            codes.computeIfAbsent(code, CodeTicks::new).append(list);
+        });
+    }
+
+    /**
+     * Load rows stored since the last read for every code held
+     */
+    public void refreshAll() {
+        rollOver();
+        codes.values().forEach(CodeTicks::refresh);
+    }
+
+    /**
+     * Drop a code; the next access reloads it from the table
+     */
+    public void evict(String code) {
+        codes.remove(code);
+    }
+
+    /**
+     * Approximate heap used by each code's columns, in bytes
+     */
+    public Map<String, Long> memoryUsage() {
+        return new TreeMap<>(codes.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().memoryBytes())));
+    }
+
+    private void rollOver() {
+        int today = today();
+        if (day != today) {
+            rollOverLock.lock();
+            try {
+                if (day != today) {
+                    log.info("Tick store rolled over to {}, dropping {} codes", today, codes.size());
+                    codes.clear();
+                    day = today;
+                }
+            } finally {
+                rollOverLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Column store of one code's ticks for the day. Rows are unique on (seconds, seq),
+     * so feeding the same trade from ingestion and from the table keeps a single copy.
+     */
+    public final class CodeTicks {
+        private final String code;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private int[] seconds = new int[0];
+        private int[] seqs = new int[0];
+        private long[] prices = new long[0];
+        private long[] volumes = new long[0];
+        private byte[] sides = new byte[0];
+        private int size;
+
+        // Natural key of the last row read from the table; -1 until loaded
+        private int loadedSeconds = -1;
+        private int loadedSeq = -1;
+        private boolean loaded;
+
+        private CodeTicks(String code) {
+            this.code = code;
+        }
+
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        public long volume(byte side) {
+            lock.readLock().lock();
+            try {
+                long sum = 0;
+                for (int i = 0; i < size; i++) {
+                    if (sides[i] == side) {
+                        sum += volumes[i];
+                    }
+                }
+                return sum;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Number of ticks of a side with volume >= minVolume
+         */
+        public int count(byte side, long minVolume) {
+            lock.readLock().lock();
+            try {
+                int count = 0;
+                for (int i = 0; i < size; i++) {
+                    if (sides[i] == side && volumes[i] >= minVolume) {
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Lowest price of a side, ScaledPrice.NONE without ticks
+         */
+        public long minPrice(byte side) {
+            lock.readLock().lock();
+            try {
+                long min = Long.MAX_VALUE;
+                for (int i = 0; i < size; i++) {
+                    if (sides[i] == side && prices[i] < min) {
+                        min = prices[i];
+                    }
+                }
+                return min == Long.MAX_VALUE ? ScaledPrice.NONE : min;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Highest price of a side, ScaledPrice.NONE without ticks
+         */
+        public long maxPrice(byte side) {
+            lock.readLock().lock();
+            try {
+                long max = Long.MIN_VALUE;
+                for (int i = 0; i < size; i++) {
+                    if (sides[i] == side && prices[i] > max) {
+                        max = prices[i];
+                    }
+                }
+                return max == Long.MIN_VALUE ? ScaledPrice.NONE : max;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public Long maxVolume(byte side) {
+            lock.readLock().lock();
+            try {
+                long max = -1;
+                for (int i = 0; i < size; i++) {
+                    if (sides[i] == side && volumes[i] > max) {
+                        max = volumes[i];
+                    }
+                }
+                return max < 0 ? null : max;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public Tick first() {
+            return tickAt(0);
+        }
+
+        public Tick last() {
+            lock.readLock().lock();
+            try {
+                return size == 0 ? null : tickAt(size - 1);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Bars of bucketSeconds over the ticks in [fromSeconds, toSeconds], in time order; empty buckets are skipped
+         */
+        public List<Bar> bars(int bucketSeconds, int fromSeconds, int toSeconds) {
+            lock.readLock().lock();
+            try {
+                List<Bar> bars = new ArrayList<>();
+                int i = lowerBound(fromSeconds, -1);
+                while (i < size && seconds[i] <= toSeconds) {
+                    int start = seconds[i] / bucketSeconds * bucketSeconds;
+                    int end = start + bucketSeconds;
+                    long open = prices[i];
+                    long high = open;
+                    long low = open;
+                    long close = open;
+                    long priceSum = 0;
+                    long volume = 0;
+                    int count = 0;
+                    for (; i < size && seconds[i] < end && seconds[i] <= toSeconds; i++) {
+                        high = Math.max(high, prices[i]);
+                        low = Math.min(low, prices[i]);
+                        close = prices[i];
+                        priceSum += prices[i];
+                        volume += volumes[i];
+                        count++;
+                    }
+                    bars.add(new Bar(start, open, high, low, close, Math.round((double) priceSum / count), volume, count));
+                }
+                return bars;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long memoryBytes() {
+            lock.readLock().lock();
+            try {
+                // int seconds + int seq + long price + long volume + byte side per slot
+                return (long) seconds.length * (Integer.BYTES * 2 + Long.BYTES * 2 + Byte.BYTES);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Tick tickAt(int i) {
+            lock.readLock().lock();
+            try {
+                return i < size ? new Tick(seconds[i], prices[i], volumes[i], sides[i]) : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void loadIfNeeded() {
+            if (!loaded) {
+                refresh();
+            }
+        }
+
+        private void refresh() {
+            lock.writeLock().lock();
+            try {
+                List<Object[]> rows = tradeRepository.findTicksAfter(code, day, loadedSeconds, loadedSeq);
+                for (Object[] row : rows) {
+                    int s = ((Number) row[0]).intValue();
+                    int q = ((Number) row[1]).intValue();
+                    insert(s, q, ScaledPrice.of((Number) row[2]), ((Number) row[3]).longValue(), side((String) row[4]));
+                    loadedSeconds = s;
+                    loadedSeq = q;
+                }
+                if (!loaded) {
+                    log.debug("[{}] Loaded {} ticks for {}", code, rows.size(), day);
+                }
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void append(List<Trade> trades) {
+            lock.writeLock().lock();
+            try {
+                for (Trade t : trades) {
+                    insert(t.getTradeSeconds(), t.getSeq(), ScaledPrice.of(t.getPrice()), t.getVolume(), side(t.getSide()));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Ticks almost always arrive in order, so this is an append; earlier keys are shifted in
+        private void insert(int s, int q, long price, long volume, byte side) {
+            int at = size;
+            if (size > 0 && compare(size - 1, s, q) >= 0) {
+                at = lowerBound(s, q);
+                if (at < size && compare(at, s, q) == 0) {
+                    return;
+                }
+            }
+            if (size == seconds.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+                seconds = Arrays.copyOf(seconds, capacity);
+                seqs = Arrays.copyOf(seqs, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+                sides = Arrays.copyOf(sides, capacity);
+            }
+            if (at < size) {
+                int moved = size - at;
+                System.arraycopy(seconds, at, seconds, at + 1, moved);
+                System.arraycopy(seqs, at, seqs, at + 1, moved);
+                System.arraycopy(prices, at, prices, at + 1, moved);
+                System.arraycopy(volumes, at, volumes, at + 1, moved);
+                System.arraycopy(sides, at, sides, at + 1, moved);
+            }
+            seconds[at] = s;
+            seqs[at] = q;
+            prices[at] = price;
+            volumes[at] = volume;
+            sides[at] = side;
+            size++;
+        }
+
+        // First index whose (seconds, seq) is >= (s, q)
+        private int lowerBound(int s, int q) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(mid, s, q) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int compare(int i, int s, int q) {
+            int c = Integer.compare(seconds[i], s);
+            return c != 0 ? c : Integer.compare(seqs[i], q);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.data.trade.service;
+
+import com.data.trade.repository.PriceAlertRepository;
+import com.data.trade.repository.ShortTermTrackedStockRepository;
+import com.data.trade.repository.TrackedStockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the MarketQuoteService snapshot current for every watched code: tracked and short-term
+ * tracked stocks, active price alerts and VN30. Market price endpoints then answer from memory
+ * instead of calling Finpath on the request thread.
+ * Polls only during trading hours, like the ingestion jobs; outside them prices do not move and
+ * the few lookups made are served by the quote cache.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MarketQuotePoller {
+
+    private final MarketQuoteService marketQuoteService;
+    private final TrackedStockRepository trackedStockRepository;
+    private final ShortTermTrackedStockRepository shortTermTrackedStockRepository;
+    private final PriceAlertRepository priceAlertRepository;
+
+    @Value("${market.vn30.codes}")
+    private List<String> vn30;
+
+    @Value("${app.market-quotes.poller.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.timezone:Asia/Ho_Chi_Minh}")
+    private String appTz;
+
+    // Trading hours: Monday to Friday, 9:15 AM to 3:00 PM (15:00) inclusive
+    private static final LocalTime TRADING_START = LocalTime.of(9, 15);
+    private static final LocalTime TRADING_END = LocalTime.of(15, 0);
+
+    @Scheduled(fixedDelayString = "${app.market-quotes.poll-interval-ms:5000}",
+            initialDelayString = "${app.market-quotes.poll-initial-delay-ms:10000}")
+    public void poll() {
+        if (!enabled || !isTradingHours(LocalDateTime.now(ZoneId.of(appTz)))) {
+            return;
+        }
+        try {
+            Set<String> codes = new HashSet<>(vn30);
+            codes.addAll(trackedStockRepository.findDistinctCodes());
+            codes.addAll(shortTermTrackedStockRepository.findDistinctCodes());
+            codes.addAll(priceAlertRepository.findDistinctActiveCodes());
+
+            long start = System.currentTimeMillis();
+            int quoted = marketQuoteService.refreshSnapshot(codes);
+            log.debug("Polled {} market quotes ({} with data) in {} ms", codes.size(), quoted, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Market quote poll failed: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isTradingHours(LocalDateTime now) {
+        DayOfWeek dayOfWeek = now.getDayOfWeek();
+        if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            return false;
+        }
+        LocalTime time = now.toLocalTime();
+        return !time.isBefore(TRADING_START) && !time.isAfter(TRADING_END);
+    }
+}
@@ -0,0 +1,233 @@
+package com.data.trade.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Latest price and volume per code from the TradingView daily bar, shared by every caller.
+ * Watched codes are served from a snapshot that MarketQuotePoller refreshes in the background.
+ * Other codes go through a short-TTL cache, where concurrent requests for a code being fetched
+ * wait on the same upstream call, so a burst of N users asking for M codes costs M upstream requests.
+ */
+@Service
+@Slf4j
+public class MarketQuoteService {
+
+    /**
+     * Response header carrying the oldest asOf of the quotes in a response
+     */
+    public static final String AS_OF_HEADER = "X-Quotes-As-Of";
+
+    private final FinpathClient finpathClient;
+    private final AsyncCache<String, Quote> quotes;
+    private final int concurrency;
+    private final Duration fetchTimeout;
+    private final Duration snapshotMaxAge;
+    private final Counter snapshotHits;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter errors;
+
+    // Last polled quote per watched code; replaced as a whole by each poll
+    private volatile Map<String, Quote> snapshot = Map.of();
+
+    /**
+     * Close price and volume of the current daily bar, fetched at asOf.
+     * Fields are null when unavailable (asOf too when the fetch failed).
+     */
+    public record Quote(Double price, Long volume, OffsetDateTime asOf) {
+        static final Quote EMPTY = new Quote(null, null, null);
+
+        public BigDecimal priceAsDecimal() {
+            return price != null ? BigDecimal.valueOf(price) : null;
+        }
+    }
+
+    public MarketQuoteService(FinpathClient finpathClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${cache.market-quotes.ttl-seconds:10}") int ttlSeconds,
+                              @Value("${cache.market-quotes.max-size:2000}") int maxSize,
+                              @Value("${cache.market-quotes.snapshot-max-age-seconds:30}") int snapshotMaxAgeSeconds,
+                              @Value("${app.market-quotes.concurrency:16}") int concurrency,
+                              @Value("${app.market-quotes.timeout-ms:5000}") long timeoutMs) {
+        this.finpathClient = finpathClient;
+        this.concurrency = concurrency;
+        this.fetchTimeout = Duration.ofMillis(timeoutMs);
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .buildAsync();
+        this.snapshotMaxAge = Duration.ofSeconds(snapshotMaxAgeSeconds);
+        this.snapshotHits = requests(meterRegistry, "snapshot");
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.errors = Counter.builder("market.quote.upstream.errors")
+                .description("Failed upstream quote fetches")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("market.quote.requests")
+                .description("Quote lookups by outcome: polled snapshot, cache hit, fetched, or joined an in-flight fetch")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Quote for a code; never null. A failed fetch yields an empty quote, which is cached like
+     * any other for the TTL so an upstream outage is not retried by every request.
+     */
+    public Quote getQuote(String code) {
+        return quoteAsync(code).join();
+    }
+
+    /**
+     * Quotes for several codes, keyed by the codes as given. Codes missing from the snapshot are
+     * fetched app.market-quotes.concurrency at a time, each bounded by app.market-quotes.timeout-ms,
+     * so the call takes about as long as the slowest fetch rather than the sum of them.
+     */
+    public Map<String, Quote> getQuotes(Collection<String> codes) {
+        Map<String, Quote> fetched = Flux.fromIterable(new LinkedHashSet<>(codes))
+                // suppressCancel: the future is shared through the cache with other callers
+                .flatMap(code -> Mono.fromFuture(() -> quoteAsync(code), true)
+                        .map(quote -> Map.entry(code, quote)), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .blockOptional()
+                .orElse(Map.of());
+        Map<String, Quote> result = new LinkedHashMap<>();
+        for (String code : codes) {
+            result.put(code, fetched.getOrDefault(code, Quote.EMPTY));
+        }
+        return result;
+    }
+
+    /**
+     * Oldest fetch time among quotes, null when none has data
+     */
+    public static OffsetDateTime oldestAsOf(Collection<Quote> quotes) {
+        return quotes.stream()
+                .map(Quote::asOf)
+                .filter(Objects::nonNull)
+                .min(OffsetDateTime::compareTo)
+                .orElse(null);
+    }
+
+    /**
+     * Prices keyed like quotes; values are null where no price is available
+     */
+    public static Map<String, BigDecimal> prices(Map<String, Quote> quotes) {
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        quotes.forEach((code, quote) -> prices.put(code, quote.priceAsDecimal()));
+        return prices;
+    }
+
+    /**
+     * Fetch every code and replace the snapshot with the result. A code whose fetch fails keeps
+     * its previous quote (until it ages out), so one upstream error does not blank a price.
+     * The fresh quotes also seed the cache.
+     * @return number of codes with a quote in the new snapshot
+     */
+    public int refreshSnapshot(Collection<String> codes) {
+        Set<String> keys = codes.stream()
+                .filter(Objects::nonNull)
+                .map(code -> code.trim().toUpperCase())
+                .collect(Collectors.toSet());
+        Map<String, Quote> fetched = Flux.fromIterable(keys)
+                .flatMap(code -> fetch(code).map(quote -> Map.entry(code, quote)), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .blockOptional()
+                .orElse(Map.of());
+
+        Map<String, Quote> previous = snapshot;
+        Map<String, Quote> next = new HashMap<>();
+        for (String code : keys) {
+            Quote quote = fetched.getOrDefault(code, Quote.EMPTY);
+            if (quote.asOf() != null) {
+                next.put(code, quote);
+                quotes.put(code, CompletableFuture.completedFuture(quote));
+            } else if (isFresh(previous.get(code))) {
+                next.put(code, previous.get(code));
+            }
+        }
+        snapshot = Map.copyOf(next);
+        return next.size();
+    }
+
+    /**
+     * Request counters since startup, for the admin endpoint
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("snapshotHits", (long) snapshotHits.count());
+        stats.put("hits", (long) hits.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("coalesced", (long) coalesced.count());
+        stats.put("upstreamErrors", (long) errors.count());
+        stats.put("snapshot", (long) snapshot.size());
+        stats.put("cached", quotes.synchronous().estimatedSize());
+        return stats;
+    }
+
+    private CompletableFuture<Quote> quoteAsync(String code) {
+        String key = code.trim().toUpperCase();
+        Quote polled = snapshot.get(key);
+        if (isFresh(polled)) {
+            snapshotHits.increment();
+            return CompletableFuture.completedFuture(polled);
+        }
+
+        AtomicBoolean fetched = new AtomicBoolean();
+        CompletableFuture<Quote> future = quotes.get(key, (k, executor) -> {
+            fetched.set(true);
+            return fetch(k).toFuture();
+        });
+        if (fetched.get()) {
+            misses.increment();
+        } else if (future.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+        return future;
+    }
+
+    private boolean isFresh(Quote quote) {
+        return quote != null && quote.asOf() != null
+                && quote.asOf().isAfter(OffsetDateTime.now().minus(snapshotMaxAge));
+    }
+
+    private Mono<Quote> fetch(String code) {
+        return finpathClient.fetchTradingViewBarsAsync(code)
+                .timeout(fetchTimeout)
+                .map(response -> new Quote(response.getMarketPrice(), response.getMarketVolume(), OffsetDateTime.now()))
+                .defaultIfEmpty(Quote.EMPTY)
+                .onErrorResume(e -> {
+                    errors.increment();
+                    log.debug("Failed to fetch market quote for {}: {}", code, e.getMessage());
+                    return Mono.just(Quote.EMPTY);
+                });
+    }
+}
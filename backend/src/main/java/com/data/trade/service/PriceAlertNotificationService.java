@@ -21,7 +21,7 @@ import java.util.stream.Collectors;
 public class PriceAlertNotificationService {
 
     private final PriceAlertRepository priceAlertRepository;
-    private final FinpathClient finpathClient;
+    private final MarketQuoteService marketQuoteService;
     private final SimpMessagingTemplate messagingTemplate;
     
     // Track last notification time per alert to prevent spam (notify at most once per 5 minutes)
@@ -59,9 +59,10 @@ public class PriceAlertNotificationService {
             List<PriceAlert> alertsForCode = entry.getValue();
             
             try {
-                // Fetch current market data (price and volume) for this stock
-                BigDecimal currentPrice = getMarketPrice(code);
-                Long currentVolume = getMarketVolume(code);
+                // Fetch current market data (price and volume) for this stock in one quote
+                MarketQuoteService.Quote quote = marketQuoteService.getQuote(code);
+                BigDecimal currentPrice = quote.priceAsDecimal();
+                Long currentVolume = quote.volume();
                 
                 // Skip if we can't get any market data (at least price or volume should be available)
                 if (currentPrice == null && currentVolume == null) {
@@ -167,39 +168,6 @@ public class PriceAlertNotificationService {
         return now.isAfter(cooldownEnd);
     }
     
-    /**
-     * Get market price for a stock code
-     */
-    private BigDecimal getMarketPrice(String code) {
-        try {
-            var response = finpathClient.fetchTradingViewBars(code);
-            if (response != null) {
-                Double price = response.getMarketPrice();
-                if (price != null) {
-                    return BigDecimal.valueOf(price);
-                }
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch market price for {}: {}", code, e.getMessage());
-        }
-        return null;
-    }
-    
-    /**
-     * Get market volume for a stock code
-     */
-    private Long getMarketVolume(String code) {
-        try {
-            var response = finpathClient.fetchTradingViewBars(code);
-            if (response != null) {
-                return response.getMarketVolume();
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch market volume for {}: {}", code, e.getMessage());
-        }
-        return null;
-    }
-    
     /**
      * Build alert message
      */
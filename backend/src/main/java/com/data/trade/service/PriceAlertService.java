@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,7 +22,7 @@ import java.util.stream.Collectors;
 public class PriceAlertService {
 
     private final PriceAlertRepository priceAlertRepository;
-    private final FinpathClient finpathClient;
+    private final MarketQuoteService marketQuoteService;
     private final PriceAlertNotificationService priceAlertNotificationService;
 
     /**
@@ -29,47 +30,25 @@ public class PriceAlertService {
      */
     public List<PriceAlertDTO> getAllPriceAlertsForUser(Long userId) {
         List<PriceAlert> alerts = priceAlertRepository.findAllByUserId(userId);
-        
+
+        // One concurrent fetch for every code instead of a quote per alert in turn
+        Map<String, MarketQuoteService.Quote> quotes = marketQuoteService.getQuotes(alerts.stream()
+                .map(PriceAlert::getCode)
+                .collect(Collectors.toSet()));
         return alerts.stream()
-                .map(alert -> {
-                    BigDecimal marketPrice = getMarketPrice(alert.getCode());
-                    Long marketVolume = getMarketVolume(alert.getCode());
-                    return PriceAlertDTO.fromPriceAlertWithMarketData(alert, marketPrice, marketVolume);
-                })
+                .map(alert -> withMarketData(alert, quotes.get(alert.getCode())))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get market price for a stock code from TradingView API
+     * Map an alert to its DTO with the current market price and volume from one quote
      */
-    private BigDecimal getMarketPrice(String code) {
-        try {
-            var response = finpathClient.fetchTradingViewBars(code);
-            if (response != null) {
-                Double price = response.getMarketPrice();
-                if (price != null) {
-                    return BigDecimal.valueOf(price);
-                }
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch market price for {}: {}", code, e.getMessage());
-        }
-        return null;
+    private PriceAlertDTO withMarketData(PriceAlert alert) {
+        return withMarketData(alert, marketQuoteService.getQuote(alert.getCode()));
     }
-    
-    /**
-     * Get market volume for a stock code from TradingView API
-     */
-    private Long getMarketVolume(String code) {
-        try {
-            var response = finpathClient.fetchTradingViewBars(code);
-            if (response != null) {
-                return response.getMarketVolume();
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch market volume for {}: {}", code, e.getMessage());
-        }
-        return null;
+
+    private PriceAlertDTO withMarketData(PriceAlert alert, MarketQuoteService.Quote quote) {
+        return PriceAlertDTO.fromPriceAlertWithMarketData(alert, quote.priceAsDecimal(), quote.volume());
     }
 
     /**
@@ -100,9 +79,7 @@ public class PriceAlertService {
                 .build();
 
         PriceAlert saved = priceAlertRepository.save(alert);
-        BigDecimal marketPrice = getMarketPrice(saved.getCode());
-        Long marketVolume = getMarketVolume(saved.getCode());
-        return PriceAlertDTO.fromPriceAlertWithMarketData(saved, marketPrice, marketVolume);
+        return withMarketData(saved);
     }
 
     /**
@@ -155,9 +132,7 @@ public class PriceAlertService {
         // Clear notification cooldown when alert is updated
         priceAlertNotificationService.clearNotificationCooldown(alert.getId());
         
-        BigDecimal marketPrice = getMarketPrice(updated.getCode());
-        Long marketVolume = getMarketVolume(updated.getCode());
-        return PriceAlertDTO.fromPriceAlertWithMarketData(updated, marketPrice, marketVolume);
+        return withMarketData(updated);
     }
 
     /**
@@ -196,9 +171,7 @@ public class PriceAlertService {
         // Clear notification cooldown when alert is toggled
         priceAlertNotificationService.clearNotificationCooldown(alert.getId());
         
-        BigDecimal marketPrice = getMarketPrice(updated.getCode());
-        Long marketVolume = getMarketVolume(updated.getCode());
-        return PriceAlertDTO.fromPriceAlertWithMarketData(updated, marketPrice, marketVolume);
+        return withMarketData(updated);
     }
 
     /**
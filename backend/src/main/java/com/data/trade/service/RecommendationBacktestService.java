@@ -0,0 +1,348 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.BacktestReport;
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.model.ScaledPrice;
+import com.data.trade.repository.TradeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays the combined recommendation formulas over daily_bars history.
+ * For every code and trading day in the range, the formulas see the same RecommendationParameters.DAYS window
+ * the live recommendation would have seen at that day's close, and each buy/sell signal is
+ * scored against the close horizonDays trading days later.
+ * Bars are read in one query into a columnar History (each bar once, every replayed day a window
+ * over them) that can be replayed with many parameter sets. A replay scores chunks of whole codes
+ * with the batch formula pass, in parallel on the backtestExecutor fork-join pool.
+ */
+@Service
+@Slf4j
+public class RecommendationBacktestService {
+
+    public static final String COMBINED = "Combined";
+    public static final int MAX_HORIZON_DAYS = 60;
+    public static final int MAX_RANGE_YEARS = 10;
+
+    // The formulas need at least MIN_DAYS and read up to RecommendationParameters.DAYS
+    private static final int MIN_DAYS = CombinedRecommendationService.MIN_DAYS;
+    // Calendar days read before `from` so its first days get a full window, holidays included
+    private static final int WARM_UP_CALENDAR_DAYS = 30;
+    private static final String[] FORMULAS = {"VolumePriceMomentum", "MACrossover", "RSI", "TrendStrength"};
+    // Windows scored per task; codes are never split across tasks
+    private static final int CHUNK_WINDOWS = 8192;
+
+    private final CombinedRecommendationService recommendationService;
+    private final RecommendationParametersService parametersService;
+    private final TradeRepository tradeRepository;
+    private final ForkJoinPool backtestExecutor;
+    private final List<String> defaultCodes;
+
+    public RecommendationBacktestService(CombinedRecommendationService recommendationService,
+                                         RecommendationParametersService parametersService,
+                                         TradeRepository tradeRepository,
+                                         @Qualifier("backtestExecutor") ForkJoinPool backtestExecutor,
+                                         @Value("${app.recommendations.codes:${market.vn30.codes}}") List<String> defaultCodes) {
+        this.recommendationService = recommendationService;
+        this.parametersService = parametersService;
+        this.tradeRepository = tradeRepository;
+        this.backtestExecutor = backtestExecutor;
+        this.defaultCodes = defaultCodes;
+    }
+
+    /**
+     * Daily bars loaded for one backtest range, replayed once per parameter set.
+     * bars holds each code's bars oldest first, codes one after another, and one window per
+     * replayed day: code i's windows are [codeWindows[i], codeWindows[i + 1]), in date order.
+     * forwardReturns[w] is the close-to-close return (%) from window w's day to horizonDays later.
+     */
+    record History(List<String> codes, LocalDate from, LocalDate to, int horizonDays,
+                   DailyBarColumns bars, int[] codeWindows, double[] forwardReturns) {
+    }
+
+    /**
+     * Backtest the given codes (app.recommendations.codes when empty) over the days in [from, to]
+     * with the active parameters
+     */
+    public BacktestReport backtest(List<String> codes, LocalDate from, LocalDate to, int horizonDays) {
+        long startTime = System.currentTimeMillis();
+        BacktestReport report = replay(load(codes, from, to, horizonDays), parametersService.current(), true);
+        report.setElapsedMs(System.currentTimeMillis() - startTime);
+        log.info("Backtested {} codes over {} to {} ({} observations, {} days horizon) in {}ms",
+                report.getCodes().size(), from, to, report.getObservations(), horizonDays, report.getElapsedMs());
+        return report;
+    }
+
+    /**
+     * Validate a backtest range and read its bars in one query
+     */
+    History load(List<String> codes, LocalDate from, LocalDate to, int horizonDays) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (from.plusYears(MAX_RANGE_YEARS).isBefore(to)) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_YEARS + " years");
+        }
+        if (horizonDays < 1 || horizonDays > MAX_HORIZON_DAYS) {
+            throw new IllegalArgumentException("horizon must be between 1 and " + MAX_HORIZON_DAYS);
+        }
+
+        List<String> targetCodes = normalize(codes == null || codes.isEmpty() ? defaultCodes : codes);
+
+        // Forward returns of the last days need bars after `to`; trading days are about 5/7 of calendar days
+        int loadFrom = numeric(from.minusDays(WARM_UP_CALENDAR_DAYS));
+        int loadTo = numeric(to.plusDays(horizonDays * 2L + 14));
+        return history(targetCodes, from, to, horizonDays,
+                tradeRepository.findDailyBarsBetween(targetCodes, loadFrom, loadTo));
+    }
+
+    /**
+     * Lay out findDailyBarsBetween rows (ordered by code and date) as a History. Bars without a
+     * close are skipped; a day is replayed if it is in [from, to], has MIN_DAYS bars up to it
+     * and a bar horizonDays later.
+     */
+    History history(List<String> codes, LocalDate from, LocalDate to, int horizonDays, List<Object[]> rows) {
+        Map<String, Integer> codeIndex = new HashMap<>();
+        for (int i = 0; i < codes.size(); i++) {
+            codeIndex.put(codes.get(i), i);
+        }
+        // Group by code in the order of codes, keeping each code's rows in date order
+        List<List<Object[]>> rowsByCode = new ArrayList<>(codes.size());
+        for (int i = 0; i < codes.size(); i++) {
+            rowsByCode.add(new ArrayList<>());
+        }
+        for (Object[] row : rows) {
+            Integer i = codeIndex.get((String) row[0]);
+            if (i != null && ScaledPrice.of((Number) row[6]) > 0) {
+                rowsByCode.get(i).add(row);
+            }
+        }
+
+        int fromDate = numeric(from);
+        int toDate = numeric(to);
+        DailyBarColumns bars = new DailyBarColumns(rows.size(), rows.size());
+        int[] codeWindows = new int[codes.size() + 1];
+        for (int i = 0; i < codes.size(); i++) {
+            codeWindows[i] = bars.windows();
+            List<Object[]> codeRows = rowsByCode.get(i);
+            int first = bars.bars();
+            for (Object[] row : codeRows) {
+                bars.addBar(((Number) row[1]).intValue(), stats(row));
+            }
+            for (int t = MIN_DAYS - 1; t + horizonDays < codeRows.size(); t++) {
+                int date = bars.date[first + t];
+                if (date < fromDate) {
+                    continue;
+                }
+                if (date > toDate) {
+                    break;
+                }
+                bars.addWindow(first + t, Math.min(RecommendationParameters.DAYS, t + 1));
+            }
+        }
+        codeWindows[codes.size()] = bars.windows();
+
+        double[] forwardReturns = new double[bars.windows()];
+        for (int w = 0; w < forwardReturns.length; w++) {
+            int end = bars.windowEnd[w];
+            forwardReturns[w] = ScaledPrice.percentChange(bars.close[end], bars.close[end + horizonDays]);
+        }
+        return new History(codes, from, to, horizonDays, bars, codeWindows, forwardReturns);
+    }
+
+    /**
+     * Replay loaded history with one parameter set. Chunks of codes run on backtestExecutor when
+     * parallel, or on the calling thread (for callers that parallelize across parameter sets).
+     */
+    BacktestReport replay(History history, RecommendationParameters params, boolean parallel) {
+        List<int[]> chunks = chunks(history.codeWindows());
+        Tally total = new Tally();
+        if (parallel) {
+            List<CompletableFuture<Tally>> tallies = new ArrayList<>(chunks.size());
+            for (int[] chunk : chunks) {
+                tallies.add(CompletableFuture.supplyAsync(
+                        () -> replay(history, chunk[0], chunk[1], params), backtestExecutor));
+            }
+            for (CompletableFuture<Tally> tally : tallies) {
+                total = total.merge(tally.join());
+            }
+        } else {
+            for (int[] chunk : chunks) {
+                total = total.merge(replay(history, chunk[0], chunk[1], params));
+            }
+        }
+
+        BacktestReport report = total.toReport();
+        report.setCodes(history.codes());
+        report.setFrom(history.from());
+        report.setTo(history.to());
+        report.setHorizonDays(history.horizonDays());
+        return report;
+    }
+
+    /**
+     * Ranges [fromCode, toCode) of whole codes with about CHUNK_WINDOWS windows each
+     */
+    private static List<int[]> chunks(int[] codeWindows) {
+        List<int[]> chunks = new ArrayList<>();
+        int codes = codeWindows.length - 1;
+        int fromCode = 0;
+        for (int code = 1; code <= codes; code++) {
+            if (code == codes || codeWindows[code + 1] - codeWindows[fromCode] > CHUNK_WINDOWS) {
+                chunks.add(new int[]{fromCode, code});
+                fromCode = code;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Score the windows of codes [fromCode, toCode) in one batch and tally their signals
+     */
+    private Tally replay(History history, int fromCode, int toCode, RecommendationParameters params) {
+        int first = history.codeWindows()[fromCode];
+        CombinedRecommendationService.Scores scores = recommendationService.score(
+                history.bars(), first, history.codeWindows()[toCode] - first, params);
+
+        Tally tally = new Tally();
+        int[] previous = new int[FORMULAS.length + 1];
+        for (int code = fromCode; code < toCode; code++) {
+            int codeFirst = history.codeWindows()[code];
+            int codeEnd = history.codeWindows()[code + 1];
+            for (int w = codeFirst; w < codeEnd; w++) {
+                int slot = w - first;
+                double forwardReturn = history.forwardReturns()[w];
+                tally.observations++;
+                tally.forwardReturnSum += forwardReturn;
+
+                for (int f = 0; f < FORMULAS.length; f++) {
+                    int position = scores.vote[f][slot];
+                    tally.record(f, position, w > codeFirst ? previous[f] : position, forwardReturn);
+                    previous[f] = position;
+                }
+                int position = Integer.signum(scores.signal[slot]);
+                tally.record(FORMULAS.length, position, w > codeFirst ? previous[FORMULAS.length] : position,
+                        forwardReturn);
+                previous[FORMULAS.length] = position;
+            }
+            if (codeEnd > codeFirst) {
+                tally.codesWithData++;
+            }
+        }
+        return tally;
+    }
+
+    private static List<String> normalize(List<String> codes) {
+        LinkedHashSet<String> normalized = new LinkedHashSet<>();
+        for (String code : codes) {
+            if (code != null && !code.isBlank()) {
+                normalized.add(code.trim().toUpperCase());
+            }
+        }
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("No codes to backtest");
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    private static int numeric(LocalDate date) {
+        return Integer.parseInt(date.format(DateTimeFormatter.BASIC_ISO_DATE));
+    }
+
+    private static DailyStats stats(Object[] row) {
+        return DailyStats.builder()
+                .tradeDate((String) row[2])
+                .openPrice(ScaledPrice.of((Number) row[3]))
+                .highPrice(ScaledPrice.of((Number) row[4]))
+                .lowPrice(ScaledPrice.of((Number) row[5]))
+                .closePrice(ScaledPrice.of((Number) row[6]))
+                .buyVolume(((Number) row[7]).longValue())
+                .sellVolume(((Number) row[8]).longValue())
+                .totalVolume(((Number) row[9]).longValue())
+                .largeBuyBlocks(((Number) row[10]).longValue())
+                .largeSellBlocks(((Number) row[11]).longValue())
+                .mediumBuyBlocks(((Number) row[12]).longValue())
+                .mediumSellBlocks(((Number) row[13]).longValue())
+                .build();
+    }
+
+    /**
+     * Running counts per signal source (the formulas, then the combined recommendation); merged across codes
+     */
+    private static final class Tally {
+        private final long[] buys = new long[FORMULAS.length + 1];
+        private final long[] sells = new long[FORMULAS.length + 1];
+        private final long[] hits = new long[FORMULAS.length + 1];
+        private final double[] signalReturnSums = new double[FORMULAS.length + 1];
+        private final long[] positionChanges = new long[FORMULAS.length + 1];
+        private long observations;
+        private double forwardReturnSum;
+        private int codesWithData;
+
+        void record(int source, int position, int previousPosition, double forwardReturn) {
+            positionChanges[source] += Math.abs(position - previousPosition);
+            if (position == 0) {
+                return;
+            }
+            if (position > 0) {
+                buys[source]++;
+            } else {
+                sells[source]++;
+            }
+            if (position * forwardReturn > 0) {
+                hits[source]++;
+            }
+            signalReturnSums[source] += position * forwardReturn;
+        }
+
+        Tally merge(Tally other) {
+            Tally merged = new Tally();
+            for (int s = 0; s <= FORMULAS.length; s++) {
+                merged.buys[s] = buys[s] + other.buys[s];
+                merged.sells[s] = sells[s] + other.sells[s];
+                merged.hits[s] = hits[s] + other.hits[s];
+                merged.signalReturnSums[s] = signalReturnSums[s] + other.signalReturnSums[s];
+                merged.positionChanges[s] = positionChanges[s] + other.positionChanges[s];
+            }
+            merged.observations = observations + other.observations;
+            merged.forwardReturnSum = forwardReturnSum + other.forwardReturnSum;
+            merged.codesWithData = codesWithData + other.codesWithData;
+            return merged;
+        }
+
+        BacktestReport toReport() {
+            BacktestReport report = new BacktestReport();
+            report.setObservations(observations);
+            report.setCodesWithData(codesWithData);
+            report.setMarketAvgForwardReturnPct(observations > 0 ? forwardReturnSum / observations : 0);
+            for (int s = 0; s <= FORMULAS.length; s++) {
+                long signals = buys[s] + sells[s];
+                report.getSources().add(new BacktestReport.SourceStats(
+                        s < FORMULAS.length ? FORMULAS[s] : COMBINED,
+                        signals,
+                        buys[s],
+                        sells[s],
+                        signals > 0 ? (double) hits[s] / signals : 0,
+                        signals > 0 ? signalReturnSums[s] / signals : 0,
+                        observations > 0 ? (double) positionChanges[s] / observations : 0));
+            }
+            return report;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.model.AppConfig;
+import com.data.trade.repository.AppConfigRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The parameter set the live recommendation formulas run with, stored in app_config so it
+ * can be switched (e.g. to a parameter sweep result) without redeploying.
+ * Read once and then served from memory; defaults() when nothing valid is stored.
+ * A failed read is not remembered: defaults() are served and the next call reads again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationParametersService {
+
+    public static final String CONFIG_KEY = "recommendation.parameters";
+    private static final int MAX_CONFIG_VALUE_LENGTH = 500;
+
+    private final AppConfigRepository appConfigRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<RecommendationParameters> active = new AtomicReference<>();
+
+    public RecommendationParameters current() {
+        RecommendationParameters parameters = active.get();
+        if (parameters != null) {
+            return parameters;
+        }
+        try {
+            parameters = load();
+        } catch (DataAccessException e) {
+            log.warn("Unable to read recommendation parameters, using defaults until the next read: {}", e.getMessage());
+            return RecommendationParameters.defaults();
+        }
+        active.compareAndSet(null, parameters);
+        return active.get();
+    }
+
+    /**
+     * Validate, store and switch to a parameter set. Callers refresh recommendations afterwards.
+     */
+    public RecommendationParameters activate(RecommendationParameters parameters) {
+        parameters.validate();
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(parameters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to serialize parameters: " + e.getMessage());
+        }
+        if (json.length() > MAX_CONFIG_VALUE_LENGTH) {
+            throw new IllegalArgumentException("Parameters too long to store; round the values");
+        }
+
+        AppConfig config = appConfigRepository.findByConfigKey(CONFIG_KEY)
+                .orElse(AppConfig.builder()
+                        .configKey(CONFIG_KEY)
+                        .description("Active recommendation formula parameters (JSON)")
+                        .build());
+        config.setConfigValue(json);
+        appConfigRepository.save(config);
+
+        active.set(parameters);
+        log.info("Activated recommendation parameters: {}", json);
+        return parameters;
+    }
+
+    private RecommendationParameters load() {
+        return appConfigRepository.findByConfigKey(CONFIG_KEY)
+                .map(config -> parse(config.getConfigValue()))
+                .orElseGet(RecommendationParameters::defaults);
+    }
+
+    private RecommendationParameters parse(String json) {
+        try {
+            RecommendationParameters parameters = objectMapper.readValue(json, RecommendationParameters.class);
+            parameters.validate();
+            return parameters;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Invalid stored recommendation parameters, using defaults: {}", e.getMessage());
+            return RecommendationParameters.defaults();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.FormulaResult;
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.dto.RecommendationResult;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recommendations for the codes in app.recommendations.codes (VN30 by default), computed once
+ * per data change and served from an immutable snapshot.
+ * Ingestion requests a refresh after each commit; requests arriving while a refresh runs
+ * are folded into one more pass. Every snapshot carries an increasing version.
+ * The formulas read DailyBarWindows, which ingestion keeps current, so a refresh runs no SQL
+ * unless the windows were invalidated.
+ * Each code's formula results are kept with the snapshot, so users with their own weights get a
+ * personalized snapshot by recombining them, without running the formulas again. It is built once
+ * per user and snapshot version and cached until the next refresh. Codes outside the snapshot keep
+ * their stats and formula results in the "recommendationInputs" cache for the same purpose.
+ */
+@Service
+@Slf4j
+public class RecommendationSnapshotService {
+
+    public static final String VERSION_HEADER = "X-Recommendations-Version";
+    public static final String AS_OF_HEADER = "X-Recommendations-As-Of";
+    // Per-code caches of the codes outside the snapshot, dropped whenever their data changes
+    public static final String RECOMMENDATIONS_CACHE = "recommendations";
+    public static final String INPUTS_CACHE = "recommendationInputs";
+
+    private final CombinedRecommendationService recommendationService;
+    private final RecommendationParametersService parametersService;
+    private final DailyBarWindows dailyBarWindows;
+    private final IndicatorStore indicatorStore;
+    private final Executor recommendationExecutor;
+    private final CacheManager cacheManager;
+    private final List<String> codes;
+    private final Set<String> codeSet;
+    private final com.github.benmanes.caffeine.cache.Cache<PersonalizedKey, Personalized> personalized;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    /**
+     * One computed recommendation set.
+     * ranked: every code by score, highest first; top: buy/sell signals by |score| * confidence;
+     * scored: formula inputs and results of the codes with enough data, shared by personalized snapshots
+     */
+    public record Snapshot(long version, OffsetDateTime asOf, Map<String, RecommendationResult> byCode,
+                           List<RecommendationResult> ranked, List<RecommendationResult> top,
+                           Map<String, Scored> scored) {
+    }
+
+    /**
+     * A code's daily stats (most recent first) and its four formula results, in formula order
+     */
+    public record Scored(List<DailyStats> stats, List<FormulaResult> formulas) {
+    }
+
+    private record PersonalizedKey(long userId, long version) {
+    }
+
+    // Kept with the parameters it was built with, so changed weights are never served from the cache
+    private record Personalized(RecommendationParameters params, Snapshot snapshot) {
+    }
+
+    public RecommendationSnapshotService(CombinedRecommendationService recommendationService,
+                                         RecommendationParametersService parametersService,
+                                         DailyBarWindows dailyBarWindows,
+                                         IndicatorStore indicatorStore,
+                                         @Qualifier("recommendationExecutor") Executor recommendationExecutor,
+                                         CacheManager cacheManager,
+                                         @Value("${app.recommendations.codes:${market.vn30.codes}}") List<String> codes,
+                                         @Value("${cache.personalized-suggestions.max-size:500}") int personalizedMaxSize) {
+        this.recommendationService = recommendationService;
+        this.parametersService = parametersService;
+        this.dailyBarWindows = dailyBarWindows;
+        this.indicatorStore = indicatorStore;
+        this.recommendationExecutor = recommendationExecutor;
+        this.cacheManager = cacheManager;
+        this.codes = codes;
+        this.codeSet = Set.copyOf(codes);
+        this.personalized = Caffeine.newBuilder()
+                .maximumSize(personalizedMaxSize)
+                .build();
+    }
+
+    /**
+     * The latest snapshot, computed on the spot if none has been built yet
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot : refresh();
+    }
+
+    /**
+     * Recompute in the background. Returns at once; calls made while a refresh is queued
+     * are served by that refresh.
+     */
+    public void requestRefresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            recommendationExecutor.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.error("Failed to refresh recommendations: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * New trades were stored for these codes. Recompute in the background only if one of them is
+     * in the snapshot; for the others just drop their cached per-code recommendation.
+     */
+    public void requestRefreshFor(Collection<String> changedCodes) {
+        boolean inSnapshot = false;
+        for (String code : changedCodes) {
+            if (codeSet.contains(code)) {
+                inSnapshot = true;
+            } else {
+                perCodeCaches().forEach(cache -> cache.evict(code));
+            }
+        }
+        if (inSnapshot) {
+            requestRefresh();
+        }
+    }
+
+    /**
+     * Like requestRefresh, but first reloads the daily bar windows (and indicators) from daily_bars.
+     * For trades written by another process or out of ingestion order (imports)
+     */
+    public void requestReload() {
+        dailyBarWindows.invalidateAll();
+        indicatorStore.invalidateAll();
+        requestRefresh();
+    }
+
+    /**
+     * Like requestRefreshFor, but first reloads these codes' daily bar windows (and indicators)
+     * from daily_bars. For trades another process wrote for them
+     */
+    public void requestReloadFor(Collection<String> changedCodes) {
+        dailyBarWindows.invalidate(changedCodes);
+        indicatorStore.invalidate(changedCodes);
+        requestRefreshFor(changedCodes);
+    }
+
+    /**
+     * Reload the daily bar windows and recompute now
+     */
+    public Snapshot reload() {
+        dailyBarWindows.invalidateAll();
+        indicatorStore.invalidateAll();
+        return refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        requestRefresh();
+    }
+
+    /**
+     * Recompute now and publish the result. Per-code recommendations cached for other codes
+     * are dropped as well, since the data behind them has changed.
+     */
+    public Snapshot refresh() {
+        refreshLock.lock();
+        try {
+            // Anything requested from here on needs a pass that starts after this one
+            refreshQueued.set(false);
+            long startTime = System.currentTimeMillis();
+
+            Map<String, List<DailyStats>> statsByCode = dailyBarWindows.recentStats(codes);
+            List<RecommendationResult> results = new ArrayList<>(codes.size());
+            List<String> scorable = new ArrayList<>(codes.size());
+            List<List<DailyStats>> scorableStats = new ArrayList<>(codes.size());
+            List<Integer> positions = new ArrayList<>(codes.size());
+            statsByCode.forEach((code, stats) -> {
+                if (stats.size() >= CombinedRecommendationService.MIN_DAYS) {
+                    scorable.add(code);
+                    scorableStats.add(stats);
+                    positions.add(results.size());
+                    results.add(null);
+                } else {
+                    results.add(recommendationService.calculateRecommendationFromStats(code, stats));
+                }
+            });
+
+            // All codes with enough data are scored in one batch over columnar bars
+            List<CombinedRecommendationService.Evaluation> evaluations =
+                    recommendationService.evaluateAll(scorable, scorableStats, parametersService.current());
+            Map<String, Scored> scored = new LinkedHashMap<>();
+            for (int i = 0; i < scorable.size(); i++) {
+                CombinedRecommendationService.Evaluation evaluation = evaluations.get(i);
+                results.set(positions.get(i), evaluation.recommendation());
+                scored.put(scorable.get(i), new Scored(scorableStats.get(i),
+                        List.copyOf(evaluation.combined().getFormulaDetails())));
+            }
+            Snapshot snapshot = build(versions.incrementAndGet(), OffsetDateTime.now(), results,
+                    Collections.unmodifiableMap(scored));
+            current.set(snapshot);
+            personalized.invalidateAll();
+            perCodeCaches().forEach(Cache::clear);
+            log.info("Recommendation snapshot v{} built for {} codes in {}ms",
+                    snapshot.version(), results.size(), System.currentTimeMillis() - startTime);
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * The snapshot as a user with their own weights sees it, built on the first request of each
+     * snapshot version and served from memory until the next one (or until the weights change)
+     */
+    public Snapshot personalize(Snapshot snapshot, long userId, RecommendationParameters params) {
+        PersonalizedKey key = new PersonalizedKey(userId, snapshot.version());
+        Personalized cached = personalized.getIfPresent(key);
+        if (cached != null && cached.params().equals(params)) {
+            return cached.snapshot();
+        }
+        Snapshot built = personalize(snapshot, params);
+        personalized.put(key, new Personalized(params, built));
+        return built;
+    }
+
+    /**
+     * The snapshot as seen with other formula weights and action thresholds: same version and
+     * formula results, each code's vote recombined. Codes without enough data stay as they are.
+     */
+    public Snapshot personalize(Snapshot snapshot, RecommendationParameters params) {
+        List<RecommendationResult> results = new ArrayList<>(snapshot.byCode().size());
+        snapshot.byCode().forEach((code, result) -> {
+            Scored scored = snapshot.scored().get(code);
+            results.add(scored == null ? result
+                    : recommendationService.recombine(code, scored.formulas(), scored.stats(), params));
+        });
+        return build(snapshot.version(), snapshot.asOf(), results, snapshot.scored());
+    }
+
+    /**
+     * A code outside the snapshot with other weights. Its stats are read from daily_bars and run
+     * through the formulas once, then kept in INPUTS_CACHE and recombined for each user.
+     */
+    public RecommendationResult personalizeOutside(String code, RecommendationParameters params) {
+        Cache cache = cacheManager.getCache(INPUTS_CACHE);
+        Scored scored = cache != null ? cache.get(code, () -> score(code)) : score(code);
+        if (scored.formulas() == null) {
+            return recommendationService.calculateRecommendationFromStats(code, scored.stats(), params);
+        }
+        return recommendationService.recombine(code, scored.formulas(), scored.stats(), params);
+    }
+
+    // Formulas are null when the code has too few days for them
+    private Scored score(String code) {
+        List<DailyStats> stats = recommendationService.fetchRecentData(code);
+        if (stats.size() < CombinedRecommendationService.MIN_DAYS) {
+            return new Scored(stats, null);
+        }
+        return new Scored(stats, List.copyOf(recommendationService.evaluate(code, stats).combined().getFormulaDetails()));
+    }
+
+    private List<Cache> perCodeCaches() {
+        List<Cache> caches = new ArrayList<>(2);
+        for (String name : List.of(RECOMMENDATIONS_CACHE, INPUTS_CACHE)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                caches.add(cache);
+            }
+        }
+        return caches;
+    }
+
+    private static Snapshot build(long version, OffsetDateTime asOf, List<RecommendationResult> results,
+                                  Map<String, Scored> scored) {
+        Map<String, RecommendationResult> byCode = new LinkedHashMap<>();
+        results.forEach(result -> byCode.put(result.getCode(), result));
+
+        List<RecommendationResult> ranked = new ArrayList<>(results);
+        ranked.sort(Comparator.comparingDouble(RecommendationResult::getScore).reversed());
+
+        List<RecommendationResult> top = results.stream()
+                .filter(result -> !"hold".equals(result.getAction()))
+                .sorted(Comparator.comparingDouble(
+                        (RecommendationResult result) -> Math.abs(result.getScore()) * result.getConfidence()).reversed())
+                .toList();
+
+        return new Snapshot(version, asOf, Collections.unmodifiableMap(byCode), List.copyOf(ranked), top, scored);
+    }
+}
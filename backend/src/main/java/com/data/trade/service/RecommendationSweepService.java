@@ -0,0 +1,247 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.BacktestReport;
+import com.data.trade.dto.ParameterSweepReport;
+import com.data.trade.dto.ParameterSweepRequest;
+import com.data.trade.dto.RecommendationParameters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Offline search for recommendation parameters. Samples random parameter sets around the
+ * defaults, backtests each over the same history (bars are read once) and reports the best set
+ * per objective for the combined recommendation. Sets are evaluated in parallel on a fork-join
+ * pool of its own, so the sweep does not compete with request handling for the common pool.
+ * One sweep runs at a time; the best sets are activated through RecommendationParametersService.
+ */
+@Service
+@Slf4j
+public class RecommendationSweepService {
+
+    public static final int MAX_CANDIDATES = 2000;
+
+    private static final int[] VOTE_SCORES = {10, 15, 20, 25, 30};
+    private static final int[] VOTE_SCORE_STEPS = {10, 15, 20, 25};
+    private static final int[] ACTION_SCORES = {10, 15, 20, 25, 30};
+    private static final int[] ACTION_SCORE_STEPS = {10, 15, 20};
+    private static final int[] RSI_OVERSOLD = {20, 25, 30, 35};
+    private static final int[] RSI_OVERBOUGHT = {65, 70, 75, 80};
+
+    private final RecommendationBacktestService backtestService;
+    private final int parallelism;
+
+    private final AtomicReference<ParameterSweepReport> latest = new AtomicReference<>();
+
+    /**
+     * What a sweep maximizes, over the combined recommendation's signals
+     */
+    enum Objective {
+        HIT_RATE(BacktestReport.SourceStats::getHitRate),
+        AVG_RETURN(BacktestReport.SourceStats::getAvgForwardReturnPct),
+        // Edge times frequency: total forward return captured by the signals
+        TOTAL_RETURN(stats -> stats.getAvgForwardReturnPct() * stats.getSignals());
+
+        private final ToDoubleFunction<BacktestReport.SourceStats> value;
+
+        Objective(ToDoubleFunction<BacktestReport.SourceStats> value) {
+            this.value = value;
+        }
+    }
+
+    private record Candidate(RecommendationParameters parameters, BacktestReport.SourceStats combined) {
+    }
+
+    public RecommendationSweepService(RecommendationBacktestService backtestService,
+                                      @Value("${app.recommendations.sweep.parallelism:0}") int parallelism) {
+        this.backtestService = backtestService;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The running or last finished sweep, null if none was started
+     */
+    public ParameterSweepReport latest() {
+        return latest.get();
+    }
+
+    /**
+     * Validate the request, read the history and start the sweep in the background
+     * @throws IllegalStateException if a sweep is already running
+     */
+    public ParameterSweepReport start(ParameterSweepRequest request) {
+        if (request.getCandidates() < 1 || request.getCandidates() > MAX_CANDIDATES) {
+            throw new IllegalArgumentException("candidates must be between 1 and " + MAX_CANDIDATES);
+        }
+        if (request.getMinSignals() < 0) {
+            throw new IllegalArgumentException("minSignals must not be negative");
+        }
+
+        ParameterSweepReport running = new ParameterSweepReport();
+        running.setStatus("RUNNING");
+        running.setStartedAt(OffsetDateTime.now());
+        running.setSeed(request.getSeed() != null ? request.getSeed() : System.nanoTime());
+        ParameterSweepReport previous = latest.get();
+        if (previous != null && "RUNNING".equals(previous.getStatus())) {
+            throw new IllegalStateException("A parameter sweep is already running since " + previous.getStartedAt());
+        }
+        if (!latest.compareAndSet(previous, running)) {
+            throw new IllegalStateException("A parameter sweep is already running");
+        }
+
+        RecommendationBacktestService.History history;
+        try {
+            history = backtestService.load(request.getCodes(), request.getFrom(), request.getTo(), request.getHorizon());
+        } catch (RuntimeException e) {
+            latest.compareAndSet(running, previous);
+            throw e;
+        }
+        running.setCodes(history.codes());
+        running.setFrom(history.from());
+        running.setTo(history.to());
+        running.setHorizonDays(history.horizonDays());
+
+        List<RecommendationParameters> candidates = sample(request.getCandidates(), new Random(running.getSeed()));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        // A parallel stream started from one of the pool's workers runs on that pool
+        CompletableFuture.supplyAsync(() -> sweep(history, candidates, request.getMinSignals(), running), pool)
+                .whenComplete((report, e) -> {
+                    pool.shutdown();
+                    if (e != null) {
+                        log.error("Parameter sweep failed: {}", e.getMessage(), e);
+                        ParameterSweepReport failed = copyHeader(running);
+                        failed.setStatus("FAILED");
+                        failed.setFinishedAt(OffsetDateTime.now());
+                        failed.setError(e.getMessage());
+                        latest.set(failed);
+                    } else {
+                        latest.set(report);
+                    }
+                });
+        log.info("Started parameter sweep of {} candidates over {} codes ({} to {}, seed {}) on {} threads",
+                candidates.size(), history.codes().size(), history.from(), history.to(), running.getSeed(), parallelism);
+        return running;
+    }
+
+    private ParameterSweepReport sweep(RecommendationBacktestService.History history,
+                                       List<RecommendationParameters> candidates, int minSignals,
+                                       ParameterSweepReport running) {
+        long startTime = System.currentTimeMillis();
+        List<BacktestReport> reports = candidates.parallelStream()
+                .map(parameters -> backtestService.replay(history, parameters, false))
+                .toList();
+
+        List<Candidate> evaluated = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            evaluated.add(new Candidate(candidates.get(i), combined(reports.get(i))));
+        }
+
+        ParameterSweepReport report = copyHeader(running);
+        report.setStatus("COMPLETED");
+        report.setCandidatesEvaluated(candidates.size());
+        report.setObservations(reports.get(0).getObservations());
+        // The first candidate is always the defaults
+        report.setBaseline(evaluated.get(0).combined());
+        for (Objective objective : Objective.values()) {
+            Candidate best = null;
+            for (Candidate candidate : evaluated) {
+                if (candidate.combined().getSignals() >= minSignals && candidate.combined().getSignals() > 0
+                        && (best == null || objective.value.applyAsDouble(candidate.combined())
+                        > objective.value.applyAsDouble(best.combined()))) {
+                    best = candidate;
+                }
+            }
+            if (best != null) {
+                report.getBest().add(new ParameterSweepReport.Best(objective.name(),
+                        objective.value.applyAsDouble(best.combined()), best.parameters(), best.combined()));
+            }
+        }
+        report.setElapsedMs(System.currentTimeMillis() - startTime);
+        report.setFinishedAt(OffsetDateTime.now());
+        log.info("Parameter sweep of {} candidates finished in {}ms", candidates.size(), report.getElapsedMs());
+        return report;
+    }
+
+    private static BacktestReport.SourceStats combined(BacktestReport report) {
+        return report.getSources().stream()
+                .filter(stats -> RecommendationBacktestService.COMBINED.equals(stats.getName()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static ParameterSweepReport copyHeader(ParameterSweepReport running) {
+        ParameterSweepReport report = new ParameterSweepReport();
+        report.setStartedAt(running.getStartedAt());
+        report.setSeed(running.getSeed());
+        report.setCodes(running.getCodes());
+        report.setFrom(running.getFrom());
+        report.setTo(running.getTo());
+        report.setHorizonDays(running.getHorizonDays());
+        return report;
+    }
+
+    /**
+     * The defaults followed by count - 1 random sets. Values are rounded to 2 decimals so a set
+     * fits the app_config value column.
+     */
+    static List<RecommendationParameters> sample(int count, Random random) {
+        List<RecommendationParameters> candidates = new ArrayList<>(count);
+        candidates.add(RecommendationParameters.defaults());
+        while (candidates.size() < count) {
+            // Flat for the two latest days, then geometric decay (the defaults are roughly 0.9)
+            double decay = 0.7 + random.nextDouble() * 0.3;
+            double[] dayWeights = new double[RecommendationParameters.DAYS];
+            for (int i = 0; i < dayWeights.length; i++) {
+                dayWeights[i] = round(Math.pow(decay, Math.max(0, i - 1)));
+            }
+
+            double[] formulaWeights = new double[RecommendationParameters.FORMULAS];
+            double sum = 0;
+            for (int i = 0; i < formulaWeights.length; i++) {
+                formulaWeights[i] = 0.1 + random.nextDouble() * 0.3;
+                sum += formulaWeights[i];
+            }
+            double assigned = 0;
+            for (int i = 0; i < formulaWeights.length - 1; i++) {
+                formulaWeights[i] = round(formulaWeights[i] / sum);
+                assigned += formulaWeights[i];
+            }
+            formulaWeights[formulaWeights.length - 1] = round(1.0 - assigned);
+
+            int voteScore = pick(VOTE_SCORES, random);
+            int weakActionScore = pick(ACTION_SCORES, random);
+            int moderateActionScore = weakActionScore + pick(ACTION_SCORE_STEPS, random);
+            candidates.add(RecommendationParameters.builder()
+                    .dayWeights(dayWeights)
+                    .formulaWeights(formulaWeights)
+                    .voteScore(voteScore)
+                    .strongVoteScore(voteScore + pick(VOTE_SCORE_STEPS, random))
+                    .weakActionScore(weakActionScore)
+                    .moderateActionScore(moderateActionScore)
+                    .strongActionScore(moderateActionScore + pick(ACTION_SCORE_STEPS, random))
+                    .rsiOversold(pick(RSI_OVERSOLD, random))
+                    .rsiOverbought(pick(RSI_OVERBOUGHT, random))
+                    .build());
+        }
+        return candidates;
+    }
+
+    private static int pick(int[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static double round(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -17,8 +17,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,7 +25,7 @@ import java.util.stream.Collectors;
 public class TrackedStockService {
 
     private final TrackedStockRepository trackedStockRepository;
-    private final FinpathClient finpathClient;
+    private final MarketQuoteService marketQuoteService;
 
     @Value("${market.vn30.codes}")
     private List<String> vn30Codes;
@@ -47,53 +45,18 @@ public class TrackedStockService {
     }
 
     /**
-     * Get market prices for multiple stock codes in parallel (no cache)
+     * Get market quotes for multiple stock codes, from the polled snapshot where available
      * Used by frontend to fetch prices asynchronously after stocks are loaded
      */
-    public Map<String, BigDecimal> getMarketPricesForCodes(Set<String> codes) {
+    public Map<String, MarketQuoteService.Quote> getMarketQuotesForCodes(Set<String> codes) {
         if (codes == null || codes.isEmpty()) {
             return Collections.emptyMap();
         }
-
-        Map<String, BigDecimal> result = new ConcurrentHashMap<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        // Fetch all prices in parallel
-        for (String code : codes) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                BigDecimal price = getMarketPrice(code);
-                result.put(code, price); // null if failed
-            });
-            futures.add(future);
-        }
-
-        // Wait for all to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-        return result;
-    }
-
-    /**
-     * Get market price for a stock code from TradingView API
-     */
-    private BigDecimal getMarketPrice(String code) {
-        try {
-            var response = finpathClient.fetchTradingViewBars(code);
-            if (response != null) {
-                Double price = response.getMarketPrice();
-                if (price != null) {
-                    return BigDecimal.valueOf(price);
-                }
-            }
-        } catch (Exception e) {
-            log.debug("Failed to fetch market price for {}: {}", code, e.getMessage());
-        }
-        return null;
+        return marketQuoteService.getQuotes(codes);
     }
 
     /**
      * Refresh market prices for all tracked stocks of a user
-     * Uses parallel fetching for better performance
      */
     public RefreshMarketPriceResponse refreshMarketPriceForUser(Long userId) {
         List<TrackedStock> stocks = trackedStockRepository.findAllByUserId(userId);
@@ -103,8 +66,8 @@ public class TrackedStockService {
                 .map(TrackedStock::getCode)
                 .collect(Collectors.toSet());
         
-        // Fetch prices in parallel
-        Map<String, BigDecimal> priceMap = getMarketPricesForCodes(codes);
+        Map<String, MarketQuoteService.Quote> quotes = getMarketQuotesForCodes(codes);
+        Map<String, BigDecimal> priceMap = MarketQuoteService.prices(quotes);
         
         // Build result
         List<TrackedStockWithMarketPriceDTO> result = stocks.stream()
@@ -122,7 +85,8 @@ public class TrackedStockService {
                 "Market prices refreshed successfully",
                 successCount,
                 result.size() - successCount,
-                result
+                result,
+                MarketQuoteService.oldestAsOf(quotes.values())
         );
     }
 
@@ -135,14 +99,18 @@ public class TrackedStockService {
         BigDecimal totalCostBasis = BigDecimal.ZERO;
         BigDecimal totalCurrentValue = BigDecimal.ZERO;
 
+        // All quotes up front, fetched concurrently
+        Map<String, MarketQuoteService.Quote> quotes = marketQuoteService.getQuotes(request.getStocks().stream()
+                .map(stock -> stock.getCode().toUpperCase())
+                .collect(Collectors.toSet()));
+
         for (PortfolioSimulationRequest.SimulatedStock stock : request.getStocks()) {
             String code = stock.getCode().toUpperCase();
             BigDecimal costBasis = stock.getCostBasis();
             Long volume = stock.getVolume();
             BigDecimal targetPrice = stock.getTargetPrice();
 
-            // Get market price
-            BigDecimal marketPrice = getMarketPrice(code);
+            BigDecimal marketPrice = quotes.get(code).priceAsDecimal();
 
             PortfolioSimulationResponse.SimulatedStockResult result;
             if (marketPrice == null) {
@@ -1,6 +1,7 @@
 package com.data.trade.service;
 
 import com.data.trade.dto.TrackedStockStatsDTO;
+import com.data.trade.model.ScaledPrice;
 import com.data.trade.model.TrackedStock;
 import com.data.trade.repository.TrackedStockRepository;
 import com.data.trade.repository.TradeRepository;
@@ -29,6 +30,7 @@ public class TrackedStockStatsService {
     private final TradeRepository tradeRepository;
     private final TrackedStockRepository trackedStockRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final IntradayTickStore tickStore;
 
     @Value("${app.timezone:Asia/Ho_Chi_Minh}")
     private String appTz;
@@ -41,13 +43,17 @@ public class TrackedStockStatsService {
      */
     public TrackedStockStatsDTO calculateStatsForCode(String code, String tradeDate) {
         log.debug("Calculating stats for code: {} on date: {}", code, tradeDate);
+        int tradeDateNumeric = TradeSequencer.dateKey(tradeDate);
+        if (tradeDateNumeric == tickStore.today()) {
+            return statsFromTicks(code, tickStore.get(code));
+        }
 
-        BigDecimal lowestPriceBuy = tradeRepository.findMinPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDate).orElse(null);
-        BigDecimal highestPriceBuy = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDate).orElse(null);
-        BigDecimal lowestPriceSell = tradeRepository.findMinPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDate).orElse(null);
-        BigDecimal highestPriceSell = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDate).orElse(null);
-        Long largestVolumeBuy = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, BUY_SIDE, tradeDate).orElse(null);
-        Long largestVolumeSell = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, SELL_SIDE, tradeDate).orElse(null);
+        BigDecimal lowestPriceBuy = tradeRepository.findMinPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDateNumeric).orElse(null);
+        BigDecimal highestPriceBuy = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDateNumeric).orElse(null);
+        BigDecimal lowestPriceSell = tradeRepository.findMinPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDateNumeric).orElse(null);
+        BigDecimal highestPriceSell = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDateNumeric).orElse(null);
+        Long largestVolumeBuy = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, BUY_SIDE, tradeDateNumeric).orElse(null);
+        Long largestVolumeSell = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, SELL_SIDE, tradeDateNumeric).orElse(null);
 
         return TrackedStockStatsDTO.builder()
                 .code(code)
@@ -61,6 +67,22 @@ public class TrackedStockStatsService {
                 .build();
     }
 
+    /**
+     * Same statistics computed from today's in-memory ticks
+     */
+    private TrackedStockStatsDTO statsFromTicks(String code, IntradayTickStore.CodeTicks ticks) {
+        return TrackedStockStatsDTO.builder()
+                .code(code)
+                .lowestPriceBuy(ScaledPrice.toBigDecimal(ticks.minPrice(IntradayTickStore.BUY)))
+                .highestPriceBuy(ScaledPrice.toBigDecimal(ticks.maxPrice(IntradayTickStore.BUY)))
+                .lowestPriceSell(ScaledPrice.toBigDecimal(ticks.minPrice(IntradayTickStore.SELL)))
+                .highestPriceSell(ScaledPrice.toBigDecimal(ticks.maxPrice(IntradayTickStore.SELL)))
+                .largestVolumeBuy(ticks.maxVolume(IntradayTickStore.BUY))
+                .largestVolumeSell(ticks.maxVolume(IntradayTickStore.SELL))
+                .lastUpdated(OffsetDateTime.now())
+                .build();
+    }
+
     /**
      * Get current trade date in DD/MM/YYYY format
      */
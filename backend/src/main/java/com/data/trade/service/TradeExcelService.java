@@ -1,38 +1,86 @@
 package com.data.trade.service;
 
+import com.data.trade.dto.TradeImportReport;
 import com.data.trade.model.Trade;
 import com.data.trade.repository.TradeRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
-import java.io.ByteArrayOutputStream;
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class TradeExcelService {
     private final TradeRepository tradeRepository;
+    private final RecommendationSnapshotService recommendationSnapshotService;
+    private final IntradayTickStore tickStore;
 
-    public byte[] exportToXlsx(List<Trade> trades) {
-        try (Workbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    // Rows kept in memory by the streaming workbook; older rows are flushed to a temp file
+    private static final int ROW_WINDOW = 100;
+    private static final int FETCH_SIZE = 1000;
+    // Column widths in 1/256 of a character: SXSSF cannot auto-size rows already flushed
+    private static final int[] COLUMN_WIDTHS = {10 * 256, 12 * 256, 8 * 256, 6 * 256, 10 * 256, 12 * 256};
+
+    // Parsed import rows held before each insert
+    private static final int IMPORT_BATCH_SIZE = 5000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    /**
+     * Write the trades matching spec as XLSX straight to out. Rows come from a database cursor and
+     * go through a windowed SXSSF sheet, so memory stays flat whatever the number of rows.
+     * Runs in its own read-only transaction, which the cursor needs.
+     */
+    @Transactional(readOnly = true)
+    public void exportToXlsx(Specification<Trade> spec, OutputStream out) {
+        SXSSFWorkbook wb = new SXSSFWorkbook(ROW_WINDOW);
+        wb.setCompressTempFiles(true);
+        try (Stream<Trade> trades = tradeRepository.streamForExport(spec, FETCH_SIZE)) {
             Sheet sheet = wb.createSheet("trades");
             int r = 0;
             Row header = sheet.createRow(r++);
             String[] cols = new String[]{"time", "date", "code", "side", "price", "volume"};
-            for (int i = 0; i < cols.length; i++) header.createCell(i).setCellValue(cols[i]);
+            for (int i = 0; i < cols.length; i++) {
+                header.createCell(i).setCellValue(cols[i]);
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i]);
+            }
 
-            for (Trade t : trades) {
+            Iterator<Trade> it = trades.iterator();
+            while (it.hasNext()) {
+                Trade t = it.next();
                 Row row = sheet.createRow(r++);
                 row.createCell(0).setCellValue(nullToEmpty(t.getTradeTime())); // HH:mm:ss
                 row.createCell(1).setCellValue(nullToEmpty(t.getTradeDate())); // DD/MM/YYYY
@@ -41,136 +89,241 @@ public class TradeExcelService {
                 row.createCell(4).setCellValue(t.getPrice() == null ? 0 : t.getPrice().doubleValue());
                 row.createCell(5).setCellValue(t.getVolume() == null ? 0 : t.getVolume());
             }
-            for (int i = 0; i < cols.length; i++) sheet.autoSizeColumn(i);
             wb.write(out);
-            return out.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException("Failed to export trades to XLSX", e);
+        } finally {
+            wb.dispose();
         }
     }
 
-    public int importFromXlsx(MultipartFile file) {
-        try (InputStream in = file.getInputStream(); Workbook wb = new XSSFWorkbook(in)) {
-            Sheet sheet = wb.getSheetAt(0);
-            if (sheet == null) return 0;
-            int rows = sheet.getPhysicalNumberOfRows();
-            if (rows <= 1) return 0;
-
-            List<Trade> toSave = new ArrayList<>();
-
-            for (int i = 1; i < rows; i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                String code = getCellString(row.getCell(1));
-                BigDecimal price = getCellBigDecimal(row.getCell(2));
-                String side = getCellString(row.getCell(3));
-                String dateStr = getCellString(row.getCell(4)); // DD/MM/YYYY
-                String timeStr = getCellString(row.getCell(5)); // HH:mm:ss
-                Long volume = getCellLong(row.getCell(6));
-
-                if (code == null || code.isBlank()) continue;
-                if (price == null || volume == null) continue;
-                if (timeStr == null || timeStr.isBlank()) timeStr = "00:00:00";
-                if (dateStr == null || dateStr.isBlank()) {
-                    DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                    dateStr = LocalDate.now().format(fmt);
+    /**
+     * Import trades from the first sheet of an XLSX upload (columns: _, code, price, side, date, time, volume).
+     * The sheet is read with the SAX event API, so no cell model is built, and parsed rows are
+     * written in batches of IMPORT_BATCH_SIZE. Rows already stored are skipped by the natural key,
+     * so re-importing the same file is a no-op. Codes given rows for today are dropped from the tick store
+     * after each batch, since its refresh only reads rows after the last one loaded.
+     * @return rows read, trades inserted per batch and the rows that were rejected
+     */
+    public TradeImportReport importFromXlsx(MultipartFile file) {
+        Path tmp = null;
+        try {
+            // OPCPackage reads the zip entries lazily from a file, but buffers a whole stream in memory
+            tmp = Files.createTempFile("trades-import", ".xlsx");
+            file.transferTo(tmp);
+            try (OPCPackage pkg = OPCPackage.open(tmp.toFile(), PackageAccess.READ)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                TradeImportReport report = new TradeImportReport();
+                if (!sheets.hasNext()) {
+                    return report;
                 }
-
-                Trade t = Trade.builder()
-                        .code(code.trim().toUpperCase())
-                        .side(side == null ? "other" : side.trim().toLowerCase())
-                        .price(price)
-                        .volume(volume)
-                        .tradeTime(timeStr)
-                        .tradeDate(dateStr)
-                        .build();
-                toSave.add(t);
+                ImportRowHandler rows = new ImportRowHandler(report);
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings, rows, new ImportCellFormatter(), false));
+                    parser.parse(new InputSource(sheet));
+                }
+                rows.flush();
+                log.info("Imported {} trades from {} rows in {} batches ({} rows rejected, {} rows in failed batches)",
+                        report.getImported(), report.getRows(), report.getBatches().size(), report.getRejected(), report.getFailed());
+                if (report.getImported() > 0) {
+                    recommendationSnapshotService.requestReload();
+                }
+                return report;
             }
-            if (!toSave.isEmpty()) tradeRepository.saveAll(toSave);
-            return toSave.size();
-        } catch (IOException e) {
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException e) {
             throw new RuntimeException("Failed to import trades from XLSX", e);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    log.warn("Could not delete import temp file {}", tmp, e);
+                }
+            }
         }
     }
 
-    private static String nullToEmpty(String s) { return s == null ? "" : s; }
+    /**
+     * Turns sheet rows into trades and writes them batch by batch. Rows missing a code,
+     * price or volume, or with an unreadable value, are rejected and reported.
+     */
+    private final class ImportRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private static final int COLUMNS = 7;
+
+        private final TradeImportReport report;
+        private final TradeSequencer.Running sequencer = new TradeSequencer.Running();
+        private final List<Trade> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final String[] cells = new String[COLUMNS];
+        private int batchFirstRow;
+        private int batchLastRow;
 
-    private static String getCellString(Cell c) {
-        if (c == null) return null;
-        return switch (c.getCellType()) {
-            case STRING -> c.getStringCellValue();
-            case NUMERIC -> {
-                if (DateUtil.isCellDateFormatted(c)) {
-                    // Excel stores dates as serial numbers (days since 1900-01-01)
-                    // Use DataFormatter first to get Excel's display format, which avoids timezone conversion issues
-                    DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                    try {
-                        DataFormatter formatter = new DataFormatter();
-                        String dateStr = formatter.formatCellValue(c);
-                        // If DataFormatter returns a date string that matches our format, use it directly
-                        // This preserves Excel's display format and avoids timezone conversion
-                        if (dateStr.matches("\\d{1,2}/\\d{1,2}/\\d{4}")) {
-                            yield dateStr;
-                        }
-                        // If DataFormatter gave us a different format, try to parse it
-                        // Try common Excel date formats
-                        String[] patterns = {"dd/MM/yyyy", "MM/dd/yyyy", "yyyy-MM-dd", "dd-MM-yyyy"};
-                        for (String pattern : patterns) {
-                            try {
-                                DateTimeFormatter testFmt = DateTimeFormatter.ofPattern(pattern);
-                                LocalDate parsed = LocalDate.parse(dateStr, testFmt);
-                                yield parsed.format(fmt);
-                            } catch (Exception ignored) {
-                                // Try next pattern
-                            }
-                        }
-                        // Last resort: convert using Java Date but ensure we're at midnight in Vietnam timezone
-                        // Get Excel date as Java Date (this may have timezone issues)
-                        Date excelDate = c.getDateCellValue();
-                        // Convert to LocalDate using Vietnam timezone to prevent day shifts
-                        LocalDate date = excelDate.toInstant()
-                                .atZone(ZoneId.of("Asia/Ho_Chi_Minh"))
-                                .toLocalDate();
-                        yield date.format(fmt);
-                    } catch (Exception e) {
-                        // Final fallback: use Vietnam timezone
-                        Date excelDate = c.getDateCellValue();
-                        LocalDate date = excelDate.toInstant()
-                                .atZone(ZoneId.of("Asia/Ho_Chi_Minh"))
-                                .toLocalDate();
-                        yield date.format(fmt);
-                    }
-                } else {
-                    yield String.valueOf(c.getNumericCellValue());
+        private ImportRowHandler(TradeImportReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null) {
+                return;
+            }
+            int col = new CellReference(cellReference).getCol();
+            if (col < COLUMNS) {
+                cells[col] = formattedValue;
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || Arrays.stream(cells).allMatch(c -> c == null || c.isBlank())) {
+                return; // header or empty row
+            }
+            int excelRow = rowNum + 1;
+            report.setRows(report.getRows() + 1);
+            try {
+                Trade t = parseRow();
+                if (batch.isEmpty()) {
+                    batchFirstRow = excelRow;
+                }
+                batchLastRow = excelRow;
+                batch.add(t);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                report.setRejected(report.getRejected() + 1);
+                if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                    report.getErrors().add(new TradeImportReport.RowError(excelRow, e.getMessage()));
                 }
             }
-            case BOOLEAN -> String.valueOf(c.getBooleanCellValue());
-            case FORMULA -> c.getCellFormula();
-            default -> null;
-        };
+            if (batch.size() >= IMPORT_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private Trade parseRow() {
+            String code = cells[1];
+            if (code == null || code.isBlank()) {
+                throw new IllegalArgumentException("code is missing");
+            }
+            BigDecimal price = parseNumber(cells[2], "price");
+            Long volume = parseNumber(cells[6], "volume").longValue();
+            String side = cells[3];
+            String dateStr = normalizeDate(cells[4]); // DD/MM/YYYY
+            String timeStr = cells[5]; // HH:mm:ss
+            if (timeStr == null || timeStr.isBlank()) timeStr = "00:00:00";
+            // Validate here so a bad value rejects the row rather than failing the batch
+            TradeSequencer.secondsOfDay(timeStr.trim());
+
+            return Trade.builder()
+                    .code(code.trim().toUpperCase())
+                    .side(side == null || side.isBlank() ? "other" : side.trim().toLowerCase())
+                    .price(price)
+                    .volume(volume)
+                    .tradeTime(timeStr.trim())
+                    .tradeDate(dateStr)
+                    .build();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int number = report.getBatches().size() + 1;
+            int rows = batch.size();
+            int inserted = 0;
+            String error = null;
+            try {
+                List<Trade> sequenced = sequencer.sequence(batch);
+                inserted = tradeRepository.insertIgnoringDuplicates(sequenced);
+                if (inserted > 0) {
+                    evictTodaysCodes(sequenced);
+                }
+            } catch (RuntimeException e) {
+                // The batch's rows are not stored; name them so the file can be fixed and re-imported
+                Trade first = batch.get(0);
+                Trade last = batch.get(rows - 1);
+                log.error("Import batch {} (rows {}-{}, {} {} {} .. {} {} {}) failed, its {} trades were not stored",
+                        number, batchFirstRow, batchLastRow,
+                        first.getCode(), first.getTradeDate(), first.getTradeTime(),
+                        last.getCode(), last.getTradeDate(), last.getTradeTime(), rows, e);
+                error = e.getMessage();
+                report.setFailed(report.getFailed() + rows);
+            }
+            report.setImported(report.getImported() + inserted);
+            report.getBatches().add(new TradeImportReport.BatchReport(number, batchFirstRow, batchLastRow, rows, inserted, error));
+            batch.clear();
+        }
+
+        /**
+         * Imported rows can fall before the last tick a code loaded, where refresh would not see them;
+         * the next read reloads the code from the table instead
+         */
+        private void evictTodaysCodes(List<Trade> trades) {
+            int today = tickStore.today();
+            trades.stream()
+                    .filter(t -> t.getTradeDateNumeric() == today)
+                    .map(Trade::getCode)
+                    .distinct()
+                    .forEach(tickStore::evict);
+        }
     }
 
-    private static BigDecimal getCellBigDecimal(Cell c) {
-        if (c == null) return null;
-        return switch (c.getCellType()) {
-            case NUMERIC -> BigDecimal.valueOf(c.getNumericCellValue());
-            case STRING -> {
-                try { yield new BigDecimal(c.getStringCellValue().trim()); }
-                catch (Exception e) { yield null; }
+    /**
+     * Formats date cells as DD/MM/YYYY and time-only cells as HH:mm:ss whatever their Excel display
+     * format. Excel date serials carry no timezone, so no conversion can shift the day.
+     */
+    private static final class ImportCellFormatter extends DataFormatter {
+        private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                LocalDateTime dateTime = DateUtil.getLocalDateTime(value, use1904Windowing, true);
+                return value < 1 ? dateTime.format(TIME) : dateTime.format(DATE);
             }
-            default -> null;
-        };
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
     }
 
-    private static Long getCellLong(Cell c) {
-        if (c == null) return null;
-        return switch (c.getCellType()) {
-            case NUMERIC -> (long) c.getNumericCellValue();
-            case STRING -> {
-                try { yield Long.parseLong(c.getStringCellValue().trim().replace(",", "")); }
-                catch (Exception e) { yield null; }
+    private static String nullToEmpty(String s) { return s == null ? "" : s; }
+
+    /**
+     * Date text as DD/MM/YYYY; today when blank
+     */
+    private static String normalizeDate(String value) {
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        if (value == null || value.isBlank()) {
+            return LocalDate.now().format(fmt);
+        }
+        String dateStr = value.trim();
+        if (dateStr.matches("\\d{1,2}/\\d{1,2}/\\d{4}")) {
+            return dateStr;
+        }
+        String[] patterns = {"yyyy-MM-dd", "dd-MM-yyyy"};
+        for (String pattern : patterns) {
+            try {
+                return LocalDate.parse(dateStr, DateTimeFormatter.ofPattern(pattern)).format(fmt);
+            } catch (DateTimeParseException ignored) {
+                // Try next pattern
             }
-            default -> null;
-        };
+        }
+        throw new IllegalArgumentException("unrecognised date: " + dateStr);
+    }
+
+    private static BigDecimal parseNumber(String value, String column) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(column + " is missing");
+        }
+        try {
+            return new BigDecimal(value.trim().replace(",", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
     }
 }
@@ -3,23 +3,27 @@ package com.data.trade.service;
 import com.data.trade.dto.DailyOHLCDTO;
 import com.data.trade.dto.DailyTradeStatsDTO;
 import com.data.trade.dto.IntradayPriceDTO;
+import com.data.trade.dto.TradeCursorPageResponse;
 import com.data.trade.dto.TradePageResponse;
+import com.data.trade.model.BarResolution;
+import com.data.trade.model.ScaledPrice;
 import com.data.trade.model.Trade;
 import com.data.trade.repository.TradeRepository;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.Expression;
-import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Path;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -31,85 +35,200 @@ public class TradeService {
 
     private final TradeRepository tradeRepository;
     private final TradeIngestionService ingestionService;
+    private final IntradayTickStore tickStore;
+    private final DailyBarWindows dailyBarWindows;
+    private final IndicatorStore indicatorStore;
 
     @Value("${market.vn30.codes}")
     private List<String> vn30;
     
     private static final DateTimeFormatter DD_MM_YYYY_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter YYYYMMDD_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Intraday trading session 09:15:00 - 15:00:00 (inclusive), in seconds of day
+    private static final int SESSION_START_SECONDS = 555 * 60;
+    private static final int SESSION_END_SECONDS = 900 * 60;
+
+    // Block thresholds of the recommendation rule, as in the daily_bars rollup
+    private static final long LARGE_BLOCK_VOLUME = 400_000;
+    private static final long MEDIUM_BLOCK_VOLUME = 100_000;
     
     /**
-     * Converts DD/MM/YYYY format date string to YYYYMMDD format for lexicographic comparison.
-     * This is a helper method to build a sortable date expression from the tradeDate field.
+     * Sort on the typed columns when the client asks for the string date/time fields,
+     * which also makes the order chronological rather than lexicographic on DD/MM/YYYY
      */
-    private Expression<String> buildSortableDateExpression(
-            Root<Trade> root,
-            CriteriaBuilder cb) {
-        // Extract parts: "DD/MM/YYYY" -> YYYYMMDD
-        // Position 1-2: Day, Position 4-5: Month, Position 7-10: Year
-        Expression<String> year = cb.function(
-            "SUBSTRING", String.class, root.get("tradeDate"), cb.literal(7), cb.literal(4)
-        );
-        Expression<String> month = cb.function(
-            "SUBSTRING", String.class, root.get("tradeDate"), cb.literal(4), cb.literal(2)
-        );
-        Expression<String> day = cb.function(
-            "SUBSTRING", String.class, root.get("tradeDate"), cb.literal(1), cb.literal(2)
-        );
-        return cb.concat(year, cb.concat(month, day));
+    private static Sort sortBy(Sort.Direction direction, String field) {
+        return switch (field) {
+            case "tradeDate" -> Sort.by(direction, "tradeDateNumeric");
+            case "tradeTime" -> Sort.by(direction, "tradeDateNumeric", "tradeSeconds");
+            default -> Sort.by(direction, field);
+        };
+    }
+
+    private static int toDateNumeric(LocalDate date) {
+        return Integer.parseInt(date.format(YYYYMMDD_FORMATTER));
     }
 
     public TradePageResponse findTrades(Specification<Trade> spec, Pageable pageable) {
-        // Get paginated results
-        Page<Trade> tradesPage = tradeRepository.findAll(spec, pageable);
-        
-        // Calculate volume statistics from all matching records (not just the current page)
-        List<Trade> allMatchingTrades = tradeRepository.findAll(spec);
-        
-        long totalVolume = allMatchingTrades.stream()
-                .mapToLong(Trade::getVolume)
-                .sum();
-        
-        long buyVolume = allMatchingTrades.stream()
-                .filter(t -> "buy".equalsIgnoreCase(t.getSide()))
-                .mapToLong(Trade::getVolume)
-                .sum();
-        
-        long sellVolume = allMatchingTrades.stream()
-                .filter(t -> "sell".equalsIgnoreCase(t.getSide()))
-                .mapToLong(Trade::getVolume)
-                .sum();
-        
-        long unknownVolume = allMatchingTrades.stream()
-                .filter(t -> !"buy".equalsIgnoreCase(t.getSide()) && !"sell".equalsIgnoreCase(t.getSide()))
-                .mapToLong(Trade::getVolume)
-                .sum();
-
-        long buyCount = allMatchingTrades.stream()
-                .filter(t -> "buy".equalsIgnoreCase(t.getSide()))
-                .count();
-        
-        long sellCount = allMatchingTrades.stream()
-                .filter(t -> "sell".equalsIgnoreCase(t.getSide()))
-                .count();
-        
-        long unknownCount = allMatchingTrades.stream()
-                .filter(t -> !"buy".equalsIgnoreCase(t.getSide()) && !"sell".equalsIgnoreCase(t.getSide()))
-                .count();
-        
+        // Summarize all matching records (not just the current page) in one GROUP BY side query
+        SideSummary summary = summarize(spec);
+
+        // The page is read as a slice, so no separate COUNT runs; the total comes from the summary
+        Slice<Trade> slice = tradeRepository.findBy(spec, q -> q.slice(pageable));
+        Page<Trade> tradesPage = PageableExecutionUtils.getPage(slice.getContent(), pageable, summary::totalRecords);
+
         return TradePageResponse.builder()
                 .trades(tradesPage)
-                .totalVolume(totalVolume)
-                .buyVolume(buyVolume)
-                .sellVolume(sellVolume)
-                .unknownVolume(unknownVolume)
-                .totalRecords(allMatchingTrades.size())
-                .buyCount(buyCount)
-                .sellCount(sellCount)
-                .unknownCount(unknownCount)
+                .totalVolume(summary.totalVolume())
+                .buyVolume(summary.buyVolume())
+                .sellVolume(summary.sellVolume())
+                .unknownVolume(summary.unknownVolume())
+                .totalRecords((int) summary.totalRecords())
+                .buyCount(summary.buyCount())
+                .sellCount(summary.sellCount())
+                .unknownCount(summary.unknownCount())
                 .build();
     }
 
+    /**
+     * Keyset (seek) pagination in chronological order on (tradeDateNumeric, tradeSeconds, id).
+     * The next page starts right after the trade encoded in cursor instead of skipping an OFFSET,
+     * so deep pages cost the same as the first one. No count is run unless includeSummary is set.
+     * @param cursor nextCursor of the previous page; null or blank for the first page
+     * @param direction "asc" for oldest first, anything else for newest first
+     */
+    public TradeCursorPageResponse findTradesAfterCursor(Specification<Trade> spec, String cursor, int size,
+                                                         String direction, boolean includeSummary) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+        Sort sort = Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, "tradeDateNumeric", "tradeSeconds", "id");
+
+        Specification<Trade> pageSpec = spec;
+        if (cursor != null && !cursor.isBlank()) {
+            pageSpec = spec.and(TradeCursor.decode(cursor).seek(ascending));
+        }
+
+        // One extra row tells whether another page follows
+        List<Trade> rows = tradeRepository.findBy(pageSpec, q -> q.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Trade> trades = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        TradeCursorPageResponse.TradeCursorPageResponseBuilder response = TradeCursorPageResponse.builder()
+                .trades(trades)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? TradeCursor.of(trades.get(size - 1)).encode() : null);
+        if (includeSummary) {
+            SideSummary summary = summarize(spec);
+            response.totalVolume(summary.totalVolume())
+                    .buyVolume(summary.buyVolume())
+                    .sellVolume(summary.sellVolume())
+                    .unknownVolume(summary.unknownVolume())
+                    .totalRecords(summary.totalRecords())
+                    .buyCount(summary.buyCount())
+                    .sellCount(summary.sellCount())
+                    .unknownCount(summary.unknownCount());
+        }
+        return response.build();
+    }
+
+    /**
+     * Trade counts and volumes per side over all trades matching a specification
+     */
+    private record SideSummary(long buyVolume, long sellVolume, long unknownVolume,
+                               long buyCount, long sellCount, long unknownCount) {
+        long totalVolume() {
+            return buyVolume + sellVolume + unknownVolume;
+        }
+
+        long totalRecords() {
+            return buyCount + sellCount + unknownCount;
+        }
+    }
+
+    private SideSummary summarize(Specification<Trade> spec) {
+        long buyVolume = 0;
+        long sellVolume = 0;
+        long unknownVolume = 0;
+        long buyCount = 0;
+        long sellCount = 0;
+        long unknownCount = 0;
+        for (Object[] row : tradeRepository.countAndSumVolumeBySide(spec)) {
+            String side = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            long volume = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+            if ("buy".equals(side)) {
+                buyCount += count;
+                buyVolume += volume;
+            } else if ("sell".equals(side)) {
+                sellCount += count;
+                sellVolume += volume;
+            } else {
+                unknownCount += count;
+                unknownVolume += volume;
+            }
+        }
+        return new SideSummary(buyVolume, sellVolume, unknownVolume, buyCount, sellCount, unknownCount);
+    }
+
+    /**
+     * Position of a trade in (tradeDateNumeric, tradeSeconds, id) order, passed to clients
+     * as an opaque URL-safe token
+     */
+    record TradeCursor(int tradeDateNumeric, int tradeSeconds, long id) {
+        static TradeCursor of(Trade trade) {
+            return new TradeCursor(trade.getTradeDateNumeric(), trade.getTradeSeconds(), trade.getId());
+        }
+
+        /**
+         * @throws IllegalArgumentException unless cursor is an encoded date.seconds.id
+         */
+        static TradeCursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\.", -1);
+                if (parts.length == 3) {
+                    return new TradeCursor(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+                }
+            } catch (IllegalArgumentException e) {
+                // Not Base64, or a part that is not a number
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        String encode() {
+            String key = tradeDateNumeric + "." + tradeSeconds + "." + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Trades strictly after this position in the given order. The leading bound on
+         * tradeDateNumeric alone keeps partition pruning and the index range scan.
+         */
+        Specification<Trade> seek(boolean ascending) {
+            return (root, q, cb) -> {
+                Path<Integer> day = root.get("tradeDateNumeric");
+                Path<Integer> seconds = root.get("tradeSeconds");
+                Path<Long> tradeId = root.get("id");
+                if (ascending) {
+                    return cb.and(
+                            cb.greaterThanOrEqualTo(day, tradeDateNumeric),
+                            cb.or(cb.greaterThan(day, tradeDateNumeric),
+                                    cb.and(cb.equal(day, tradeDateNumeric),
+                                            cb.or(cb.greaterThan(seconds, tradeSeconds),
+                                                    cb.and(cb.equal(seconds, tradeSeconds), cb.greaterThan(tradeId, id))))));
+                }
+                return cb.and(
+                        cb.lessThanOrEqualTo(day, tradeDateNumeric),
+                        cb.or(cb.lessThan(day, tradeDateNumeric),
+                                cb.and(cb.equal(day, tradeDateNumeric),
+                                        cb.or(cb.lessThan(seconds, tradeSeconds),
+                                                cb.and(cb.equal(seconds, tradeSeconds), cb.lessThan(tradeId, id))))));
+            };
+        }
+    }
+
     public TradePageResponse findTradesWithFilters(
             String code,
             String type,
@@ -132,7 +251,7 @@ public class TradeService {
                 "desc".equalsIgnoreCase(direction) ? 
                 Sort.Direction.DESC : 
                 Sort.Direction.ASC;
-            pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
+            pageable = PageRequest.of(page, size, sortBy(sortDirection, sort));
         } else {
             pageable = PageRequest.of(page, size);
         }
@@ -140,7 +259,7 @@ public class TradeService {
         // Build specifications for filtering
         List<Specification<Trade>> specs = new ArrayList<>();
         if (code != null && !code.isBlank()) {
-            specs.add((root, q, cb) -> cb.equal(cb.upper(root.get("code")), code.toUpperCase()));
+            specs.add((root, q, cb) -> cb.equal(root.get("code"), code.trim().toUpperCase()));
         }
         if (type != null && !type.isBlank()) {
             // Use case-insensitive comparison for side filter
@@ -162,30 +281,14 @@ public class TradeService {
             specs.add((root, q, cb) -> cb.greaterThanOrEqualTo(root.get("volume"), highVolume));
         }
         
-        // Date range filtering on tradeDate (string in DD/MM/YYYY format)
-        // Convert DD/MM/YYYY to YYYYMMDD format for lexicographic comparison
-        if (fromDate != null && toDate != null) {
-            String fromDateSortable = fromDate.format(YYYYMMDD_FORMATTER);
-            String toDateSortable = toDate.format(YYYYMMDD_FORMATTER);
-            specs.add((root, q, cb) -> {
-                jakarta.persistence.criteria.Expression<String> tradeDateSortable = buildSortableDateExpression(root, cb);
-                return cb.and(
-                    cb.greaterThanOrEqualTo(tradeDateSortable, cb.literal(fromDateSortable)),
-                    cb.lessThanOrEqualTo(tradeDateSortable, cb.literal(toDateSortable))
-                );
-            });
-        } else if (fromDate != null) {
-            String fromDateSortable = fromDate.format(YYYYMMDD_FORMATTER);
-            specs.add((root, q, cb) -> {
-                jakarta.persistence.criteria.Expression<String> tradeDateSortable = buildSortableDateExpression(root, cb);
-                return cb.greaterThanOrEqualTo(tradeDateSortable, cb.literal(fromDateSortable));
-            });
-        } else if (toDate != null) {
-            String toDateSortable = toDate.format(YYYYMMDD_FORMATTER);
-            specs.add((root, q, cb) -> {
-                jakarta.persistence.criteria.Expression<String> tradeDateSortable = buildSortableDateExpression(root, cb);
-                return cb.lessThanOrEqualTo(tradeDateSortable, cb.literal(toDateSortable));
-            });
+        // Date range filtering on the typed tradeDateNumeric column (YYYYMMDD)
+        if (fromDate != null) {
+            int fromDateNumeric = toDateNumeric(fromDate);
+            specs.add((root, q, cb) -> cb.greaterThanOrEqualTo(root.get("tradeDateNumeric"), fromDateNumeric));
+        }
+        if (toDate != null) {
+            int toDateNumeric = toDateNumeric(toDate);
+            specs.add((root, q, cb) -> cb.lessThanOrEqualTo(root.get("tradeDateNumeric"), toDateNumeric));
         }
         
         Specification<Trade> spec = Specification.allOf(specs);
@@ -207,7 +310,7 @@ public class TradeService {
         // Build specifications for filtering
         List<Specification<Trade>> specs = new ArrayList<>();
         if (code != null && !code.isBlank()) {
-            specs.add((root, q, cb) -> cb.equal(cb.upper(root.get("code")), code.toUpperCase()));
+            specs.add((root, q, cb) -> cb.equal(root.get("code"), code.trim().toUpperCase()));
         }
         if (type != null && !type.isBlank()) {
             // Use case-insensitive comparison for side filter
@@ -229,30 +332,14 @@ public class TradeService {
             specs.add((root, q, cb) -> cb.greaterThanOrEqualTo(root.get("volume"), highVolume));
         }
         
-        // Date range filtering on tradeDate (string in DD/MM/YYYY format)
-        // Convert DD/MM/YYYY to YYYYMMDD format for lexicographic comparison
-        if (fromDate != null && toDate != null) {
-            String fromDateSortable = fromDate.format(YYYYMMDD_FORMATTER);
-            String toDateSortable = toDate.format(YYYYMMDD_FORMATTER);
-            specs.add((root, q, cb) -> {
-                jakarta.persistence.criteria.Expression<String> tradeDateSortable = buildSortableDateExpression(root, cb);
-                return cb.and(
-                    cb.greaterThanOrEqualTo(tradeDateSortable, cb.literal(fromDateSortable)),
-                    cb.lessThanOrEqualTo(tradeDateSortable, cb.literal(toDateSortable))
-                );
-            });
-        } else if (fromDate != null) {
-            String fromDateSortable = fromDate.format(YYYYMMDD_FORMATTER);
-            specs.add((root, q, cb) -> {
-                jakarta.persistence.criteria.Expression<String> tradeDateSortable = buildSortableDateExpression(root, cb);
-                return cb.greaterThanOrEqualTo(tradeDateSortable, cb.literal(fromDateSortable));
-            });
-        } else if (toDate != null) {
-            String toDateSortable = toDate.format(YYYYMMDD_FORMATTER);
-            specs.add((root, q, cb) -> {
-                jakarta.persistence.criteria.Expression<String> tradeDateSortable = buildSortableDateExpression(root, cb);
-                return cb.lessThanOrEqualTo(tradeDateSortable, cb.literal(toDateSortable));
-            });
+        // Date range filtering on the typed tradeDateNumeric column (YYYYMMDD)
+        if (fromDate != null) {
+            int fromDateNumeric = toDateNumeric(fromDate);
+            specs.add((root, q, cb) -> cb.greaterThanOrEqualTo(root.get("tradeDateNumeric"), fromDateNumeric));
+        }
+        if (toDate != null) {
+            int toDateNumeric = toDateNumeric(toDate);
+            specs.add((root, q, cb) -> cb.lessThanOrEqualTo(root.get("tradeDateNumeric"), toDateNumeric));
         }
         
         return Specification.allOf(specs);
@@ -263,32 +350,58 @@ public class TradeService {
         ingestionService.ingestForCode(normalized);
     }
 
-    public void ingestAllVn30() {
-        for (String stockCode : vn30) {
-            ingestionService.ingestForCode(stockCode);
-        }
+    public TradeIngestionService.IngestionResult ingestAllVn30() {
+        return ingestionService.ingestAll(vn30);
     }
 
     public String getRecommendation(String code, LocalDate date) {
         String normalized = code.trim().toUpperCase();
         LocalDate tradeDate = (date == null) ? LocalDate.now() : date;
-        String tradeDateStr = tradeDate.format(DD_MM_YYYY_FORMATTER);
-        String rec = tradeRepository.recommendationFor(normalized, tradeDateStr);
-        return (rec == null) ? "Neutral — hold" : rec;
+        int tradeDateNumeric = toDateNumeric(tradeDate);
+        if (tradeDateNumeric == tickStore.today()) {
+            IntradayTickStore.CodeTicks ticks = tickStore.get(normalized);
+            return recommendationFor(
+                    ticks.count(IntradayTickStore.BUY, LARGE_BLOCK_VOLUME), ticks.count(IntradayTickStore.SELL, LARGE_BLOCK_VOLUME),
+                    ticks.count(IntradayTickStore.BUY, MEDIUM_BLOCK_VOLUME), ticks.count(IntradayTickStore.SELL, MEDIUM_BLOCK_VOLUME));
+        }
+        // Past days come from the daily_bars rollup, whose medium blocks exclude the large ones
+        List<Object[]> bars = tradeRepository.findDailyBarsBetween(List.of(normalized), tradeDateNumeric, tradeDateNumeric);
+        if (bars.isEmpty()) {
+            return recommendationFor(0, 0, 0, 0);
+        }
+        Object[] bar = bars.get(0);
+        long largeBuy = ((Number) bar[10]).longValue();
+        long largeSell = ((Number) bar[11]).longValue();
+        return recommendationFor(largeBuy, largeSell,
+                largeBuy + ((Number) bar[12]).longValue(), largeSell + ((Number) bar[13]).longValue());
+    }
+
+    /**
+     * The block-flow recommendation: a side's weight is its blocks >= 400k plus half its blocks >= 100k,
+     * and it wins when it outweighs the other side by 30%
+     */
+    static String recommendationFor(long largeBuy, long largeSell, long blocksBuy, long blocksSell) {
+        double buyWeight = largeBuy + 0.5 * blocksBuy;
+        double sellWeight = largeSell + 0.5 * blocksSell;
+        if (sellWeight > buyWeight * 1.3) {
+            return "Strong sell signal";
+        }
+        if (buyWeight > sellWeight * 1.3) {
+            return "Strong buy signal";
+        }
+        return "Neutral — hold";
     }
 
     public void reingestForCode(String code) {
         String normalized = code.trim().toUpperCase();
-        LocalDate today = LocalDate.now();
-        String todayStr = today.format(DD_MM_YYYY_FORMATTER);
-        tradeRepository.deleteForCodeOnDate(normalized, todayStr);
+        tradeRepository.deleteForCodeOnDate(normalized, toDateNumeric(LocalDate.now()));
+        ingestionService.resetWatermark(normalized);
+        tickStore.evict(normalized);
+        dailyBarWindows.evict(normalized);
+        indicatorStore.evict(normalized);
         ingestionService.ingestForCode(normalized);
     }
 
-    public List<Trade> findAllTrades(Specification<Trade> spec) {
-        return tradeRepository.findAll(spec);
-    }
-
     public List<DailyTradeStatsDTO> getDailyStats(String code, LocalDate fromDate, LocalDate toDate) {
         // Convert LocalDate to YYYYMMDD string format for comparison
         String fromDateStr = (fromDate != null) ? fromDate.format(YYYYMMDD_FORMATTER) : null;
@@ -365,7 +478,7 @@ public class TradeService {
                 .collect(Collectors.toList());
     }
 
-    public List<IntradayPriceDTO> getIntradayPriceData(String code, LocalDate tradeDate) {
+    public List<IntradayPriceDTO> getIntradayPriceData(String code, LocalDate tradeDate, BarResolution resolution) {
         // Normalize code
         String normalizedCode = (code != null && !code.isBlank()) ? code.trim().toUpperCase() : null;
         
@@ -373,53 +486,29 @@ public class TradeService {
             return new ArrayList<>();
         }
         
-        // Use today's date if not provided
-        LocalDate targetDate = (tradeDate != null) ? tradeDate : LocalDate.now();
-        String tradeDateStr = targetDate.format(DD_MM_YYYY_FORMATTER);
-        
-        // Get intraday price data from repository
-        List<Object[]> results = tradeRepository.findIntradayPriceData(normalizedCode, tradeDateStr);
-        
-        // Transform to DTOs
-        // Query returns: time_interval (HH:mm), avg_price, min_price, max_price, total_volume
-        return results.stream()
-                .map(row -> {
-                    String timeInterval = (String) row[0]; // time_interval (HH:mm)
-                    BigDecimal avgPrice = row[1] != null ? 
-                        ((BigDecimal) row[1]).setScale(2, RoundingMode.HALF_UP) : null;
-                    BigDecimal minPrice = row[2] != null ? 
-                        ((BigDecimal) row[2]).setScale(2, RoundingMode.HALF_UP) : null;
-                    BigDecimal maxPrice = row[3] != null ? 
-                        ((BigDecimal) row[3]).setScale(2, RoundingMode.HALF_UP) : null;
-                    Long totalVolume = row[4] != null ? ((Number) row[4]).longValue() : 0L;
-                    
-                    return IntradayPriceDTO.builder()
-                            .time(timeInterval)
-                            .averagePrice(avgPrice)
-                            .highestPrice(maxPrice)
-                            .lowestPrice(minPrice)
-                            .totalVolume(totalVolume)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        return getIntradayPriceDataBatch(List.of(normalizedCode), tradeDate, resolution)
+                .getOrDefault(normalizedCode, new ArrayList<>());
     }
 
     /**
      * Get intraday price data for multiple stock codes in batch
+     * Today is served from the in-memory tick store; other days from a single range read over the minute_bars rollup
      * @param codes List of stock codes
      * @param tradeDate Optional trade date (if null, uses current date)
+     * @param resolution Bucket size the minute bars are resampled to
      * @return Map of stock code to list of intraday price data
      */
     public Map<String, List<IntradayPriceDTO>> getIntradayPriceDataBatch(
             List<String> codes, 
-            LocalDate tradeDate) {
+            LocalDate tradeDate,
+            BarResolution resolution) {
         if (codes == null || codes.isEmpty()) {
             return new HashMap<>();
         }
         
         // Use today's date if not provided
         LocalDate targetDate = (tradeDate != null) ? tradeDate : LocalDate.now();
-        String tradeDateStr = targetDate.format(DD_MM_YYYY_FORMATTER);
+        int tradeDateNumeric = toDateNumeric(targetDate);
         
         // Normalize codes and filter out null/blank codes
         List<String> normalizedCodes = codes.stream()
@@ -432,46 +521,53 @@ public class TradeService {
             return new HashMap<>();
         }
         
-        // Get intraday price data for all codes
+        // Every requested code gets an entry, even without data
         Map<String, List<IntradayPriceDTO>> resultMap = new HashMap<>();
-        
-        for (String code : normalizedCodes) {
-            try {
-                List<Object[]> results = tradeRepository.findIntradayPriceData(code, tradeDateStr);
-                
-                // Transform to DTOs
-                List<IntradayPriceDTO> priceData = results.stream()
-                        .map(row -> {
-                            String timeInterval = (String) row[0]; // time_interval (HH:mm)
-                            BigDecimal avgPrice = row[1] != null ? 
-                                ((BigDecimal) row[1]).setScale(2, RoundingMode.HALF_UP) : null;
-                            BigDecimal minPrice = row[2] != null ? 
-                                ((BigDecimal) row[2]).setScale(2, RoundingMode.HALF_UP) : null;
-                            BigDecimal maxPrice = row[3] != null ? 
-                                ((BigDecimal) row[3]).setScale(2, RoundingMode.HALF_UP) : null;
-                            Long totalVolume = row[4] != null ? ((Number) row[4]).longValue() : 0L;
-                            
-                            return IntradayPriceDTO.builder()
-                                    .time(timeInterval)
-                                    .averagePrice(avgPrice)
-                                    .highestPrice(maxPrice)
-                                    .lowestPrice(minPrice)
-                                    .totalVolume(totalVolume)
-                                    .build();
-                        })
-                        .collect(Collectors.toList());
-                
-                resultMap.put(code, priceData);
-            } catch (Exception e) {
-                // Log error but continue with other codes
-                // Return empty list for this code
-                resultMap.put(code, new ArrayList<>());
+        normalizedCodes.forEach(code -> resultMap.put(code, new ArrayList<>()));
+        
+        // Today's bars are cut from the in-memory ticks
+        if (tradeDateNumeric == tickStore.today()) {
+            int bucketSeconds = resolution.getMinutes() * 60;
+            for (String code : normalizedCodes) {
+                for (IntradayTickStore.Bar b : tickStore.get(code).bars(bucketSeconds, SESSION_START_SECONDS, SESSION_END_SECONDS)) {
+                    int bucketMinute = b.startSeconds() / 60;
+                    resultMap.get(code).add(IntradayPriceDTO.builder()
+                            .time(String.format("%02d:%02d", bucketMinute / 60, bucketMinute % 60))
+                            .averagePrice(ScaledPrice.toBigDecimal(b.averagePrice()))
+                            .lowestPrice(ScaledPrice.toBigDecimal(b.low()))
+                            .highestPrice(ScaledPrice.toBigDecimal(b.high()))
+                            .totalVolume(b.volume())
+                            .openPrice(ScaledPrice.toBigDecimal(b.open()))
+                            .closePrice(ScaledPrice.toBigDecimal(b.close()))
+                            .build());
+                }
             }
+            return resultMap;
+        }
+
+        // Query returns: code, bucket_minute, avg_price, min_price, max_price, total_volume, open_price, close_price
+        List<Object[]> results = tradeRepository.findIntradayBars(normalizedCodes, tradeDateNumeric, resolution.getMinutes());
+        for (Object[] row : results) {
+            int bucketMinute = ((Number) row[1]).intValue();
+            IntradayPriceDTO bar = IntradayPriceDTO.builder()
+                    .time(String.format("%02d:%02d", bucketMinute / 60, bucketMinute % 60))
+                    .averagePrice(scalePrice(row[2]))
+                    .lowestPrice(scalePrice(row[3]))
+                    .highestPrice(scalePrice(row[4]))
+                    .totalVolume(row[5] != null ? ((Number) row[5]).longValue() : 0L)
+                    .openPrice(scalePrice(row[6]))
+                    .closePrice(scalePrice(row[7]))
+                    .build();
+            resultMap.get((String) row[0]).add(bar);
         }
         
         return resultMap;
     }
 
+    private static BigDecimal scalePrice(Object value) {
+        return value != null ? ((BigDecimal) value).setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
     /**
      * Get the latest transaction date from all trades
      * @return Optional LocalDate representing the latest transaction date, or empty if no trades exist
@@ -0,0 +1,115 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.dto.RecommendationWeightsDTO;
+import com.data.trade.model.UserRecommendationWeights;
+import com.data.trade.repository.UserRecommendationWeightsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users' own formula weights and action thresholds for the combined recommendation.
+ * They are laid over the active RecommendationParameters, so formula results stay shared and
+ * only the weighted vote differs per user. Weights are read once per user and then held in memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserRecommendationWeightsService {
+
+    private final UserRecommendationWeightsRepository weightsRepository;
+    private final RecommendationParametersService parametersService;
+
+    private final Map<Long, Optional<UserRecommendationWeights>> weightsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * The user's parameters, or empty if the user has no weights of their own
+     */
+    public Optional<RecommendationParameters> parametersFor(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return find(userId).map(weights -> apply(weights, parametersService.current()));
+    }
+
+    /**
+     * The user's weights, or the shared ones (custom = false) if the user has none
+     */
+    public RecommendationWeightsDTO getWeights(Long userId) {
+        return find(userId)
+                .map(weights -> toDTO(apply(weights, parametersService.current()), true))
+                .orElseGet(() -> toDTO(parametersService.current(), false));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the weights do not make a valid parameter set
+     */
+    @Transactional
+    public RecommendationWeightsDTO setWeights(Long userId, RecommendationWeightsDTO request) {
+        double[] formulaWeights = request.getFormulaWeights();
+        if (formulaWeights == null || formulaWeights.length != RecommendationParameters.FORMULAS) {
+            throw new IllegalArgumentException("formulaWeights must have " + RecommendationParameters.FORMULAS + " entries");
+        }
+        UserRecommendationWeights weights = UserRecommendationWeights.builder()
+                .userId(userId)
+                .momentumWeight(formulaWeights[0])
+                .maCrossoverWeight(formulaWeights[1])
+                .rsiWeight(formulaWeights[2])
+                .trendStrengthWeight(formulaWeights[3])
+                .weakActionScore(request.getWeakActionScore())
+                .moderateActionScore(request.getModerateActionScore())
+                .strongActionScore(request.getStrongActionScore())
+                .build();
+        RecommendationParameters parameters = apply(weights, parametersService.current());
+        parameters.validate();
+
+        weightsByUser.put(userId, Optional.of(weightsRepository.save(weights)));
+        log.info("User {} set recommendation weights", userId);
+        return toDTO(parameters, true);
+    }
+
+    /**
+     * Go back to the shared weights
+     */
+    @Transactional
+    public void resetWeights(Long userId) {
+        if (weightsRepository.existsById(userId)) {
+            weightsRepository.deleteById(userId);
+        }
+        weightsByUser.put(userId, Optional.empty());
+    }
+
+    private Optional<UserRecommendationWeights> find(Long userId) {
+        return weightsByUser.computeIfAbsent(userId, weightsRepository::findById);
+    }
+
+    private static RecommendationParameters apply(UserRecommendationWeights weights, RecommendationParameters shared) {
+        return shared.toBuilder()
+                .formulaWeights(new double[]{
+                        weights.getMomentumWeight(),
+                        weights.getMaCrossoverWeight(),
+                        weights.getRsiWeight(),
+                        weights.getTrendStrengthWeight()
+                })
+                .weakActionScore(weights.getWeakActionScore())
+                .moderateActionScore(weights.getModerateActionScore())
+                .strongActionScore(weights.getStrongActionScore())
+                .build();
+    }
+
+    private static RecommendationWeightsDTO toDTO(RecommendationParameters parameters, boolean custom) {
+        return RecommendationWeightsDTO.builder()
+                .formulaWeights(parameters.getFormulaWeights().clone())
+                .weakActionScore(parameters.getWeakActionScore())
+                .moderateActionScore(parameters.getModerateActionScore())
+                .strongActionScore(parameters.getStrongActionScore())
+                .custom(custom)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+-- create_trade_partition is run by every bulk load of both the backend and cron-jobs, so the first
+-- trades of a new month can reach it from two sessions at once; its check and CREATE were not atomic.
+-- It also looked partitions up by name, so a month detached by detach_trade_partitions_before (which
+-- kept the name) was taken as present and a late trade for it found no partition.
+-- Partitions are now found through pg_inherits, creation is serialized, and detached partitions
+-- are renamed out of the partition naming scheme.
+
+-- Free name for a detached monthly partition: trades_yYYYYmMM_detached_<timestamp>[_n]
+CREATE OR REPLACE FUNCTION detached_trade_partition_name(p_name TEXT) RETURNS TEXT AS $$
+DECLARE
+    base TEXT := p_name || '_detached_' || to_char(clock_timestamp(), 'YYYYMMDDHH24MISS');
+    candidate TEXT := base;
+    n INTEGER := 1;
+BEGIN
+    WHILE to_regclass(candidate) IS NOT NULL LOOP
+        n := n + 1;
+        candidate := base || '_' || n;
+    END LOOP;
+    RETURN candidate;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Whether the named table is currently a partition of trades
+CREATE OR REPLACE FUNCTION is_trade_partition(p_name TEXT) RETURNS BOOLEAN AS $$
+    SELECT EXISTS (
+        SELECT 1
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'trades'::regclass
+          AND c.relname = p_name);
+$$ LANGUAGE sql;
+
+-- Create the monthly partition holding the given day, if missing.
+-- Partitions are named trades_yYYYYmMM and cover [YYYYMM01, next month's YYYYMM01).
+CREATE OR REPLACE FUNCTION create_trade_partition(p_day INTEGER) RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := to_date((p_day / 100 * 100 + 1)::TEXT, 'YYYYMMDD');
+    month_end DATE := (month_start + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'trades_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+BEGIN
+    -- The common case, without taking any lock
+    IF is_trade_partition(partition_name) THEN
+        RETURN partition_name;
+    END IF;
+
+    -- Concurrent loads wait here until the first one's transaction ends, then find the partition
+    PERFORM pg_advisory_xact_lock(hashtext('create_trade_partition'));
+    IF is_trade_partition(partition_name) THEN
+        RETURN partition_name;
+    END IF;
+
+    -- A table with the name that is not attached was detached before partitions were renamed on detach
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', partition_name, detached_trade_partition_name(partition_name));
+    END IF;
+
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF trades FOR VALUES FROM (%s) TO (%s)',
+                   partition_name,
+                   to_char(month_start, 'YYYYMMDD'),
+                   to_char(month_end, 'YYYYMMDD'));
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detach (and optionally drop) every monthly partition lying entirely before the month of p_cutoff_day.
+-- Detached partitions stay as standalone tables, renamed trades_yYYYYmMM_detached_<timestamp>, that can be
+-- archived or dropped later; a late trade for their month gets a new, empty partition.
+-- Returns the names of the detached tables.
+CREATE OR REPLACE FUNCTION detach_trade_partitions_before(p_cutoff_day INTEGER, p_drop BOOLEAN)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    part RECORD;
+    detached_name TEXT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('create_trade_partition'));
+    FOR part IN
+        SELECT c.relname AS name
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'trades'::regclass
+          AND c.relname ~ '^trades_y[0-9]{4}m[0-9]{2}$'
+          AND (substring(c.relname, 9, 4) || substring(c.relname, 14, 2) || '01')::INTEGER
+              < p_cutoff_day / 100 * 100 + 1
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE trades DETACH PARTITION %I', part.name);
+        IF p_drop THEN
+            EXECUTE format('DROP TABLE %I', part.name);
+            RETURN NEXT part.name;
+        ELSE
+            detached_name := detached_trade_partition_name(part.name);
+            EXECUTE format('ALTER TABLE %I RENAME TO %I', part.name, detached_name);
+            RETURN NEXT detached_name;
+        END IF;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
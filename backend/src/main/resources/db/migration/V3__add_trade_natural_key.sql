@@ -0,0 +1,20 @@
+-- Natural key for idempotent ingestion.
+-- A trade is identified by its code, trade date/time and its ordinal (seq)
+-- among the trades printed for that code in the same second.
+ALTER TABLE trades
+ADD COLUMN IF NOT EXISTS seq INTEGER NOT NULL DEFAULT 0;
+
+-- Number existing rows so that the unique key below can be created
+WITH numbered AS (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY code, trade_date, trade_time ORDER BY id) - 1 AS rn
+    FROM trades
+)
+UPDATE trades t
+SET seq = n.rn
+FROM numbered n
+WHERE t.id = n.id
+  AND n.rn <> 0;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_trades_natural_key
+ON trades(code, trade_date, trade_time, seq);
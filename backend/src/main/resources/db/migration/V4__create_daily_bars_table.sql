@@ -0,0 +1,59 @@
+-- Daily OHLCV rollup per stock, maintained incrementally by trade ingestion.
+-- open_time/open_seq and close_time/close_seq hold the natural key of the first and
+-- last trade of the day so that late-arriving trades can be merged in correctly.
+CREATE TABLE IF NOT EXISTS daily_bars (
+    code VARCHAR(16) NOT NULL,
+    trade_date_numeric INTEGER NOT NULL,
+    trade_date VARCHAR(10) NOT NULL,
+    open_price NUMERIC(38, 2) NOT NULL,
+    open_time VARCHAR(8) NOT NULL,
+    open_seq INTEGER NOT NULL,
+    high_price NUMERIC(38, 2) NOT NULL,
+    low_price NUMERIC(38, 2) NOT NULL,
+    close_price NUMERIC(38, 2) NOT NULL,
+    close_time VARCHAR(8) NOT NULL,
+    close_seq INTEGER NOT NULL,
+    buy_volume BIGINT NOT NULL DEFAULT 0,
+    sell_volume BIGINT NOT NULL DEFAULT 0,
+    total_volume BIGINT NOT NULL DEFAULT 0,
+    large_buy_blocks INTEGER NOT NULL DEFAULT 0,
+    large_sell_blocks INTEGER NOT NULL DEFAULT 0,
+    medium_buy_blocks INTEGER NOT NULL DEFAULT 0,
+    medium_sell_blocks INTEGER NOT NULL DEFAULT 0,
+    trade_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT pk_daily_bars PRIMARY KEY (code, trade_date_numeric)
+);
+
+-- Serves the cross-code "latest N trading days" lookups
+CREATE INDEX IF NOT EXISTS idx_daily_bars_date ON daily_bars(trade_date_numeric DESC);
+
+-- Backfill from existing trades (block thresholds: large >= 400k, medium 100k..400k)
+INSERT INTO daily_bars (
+    code, trade_date_numeric, trade_date,
+    open_price, open_time, open_seq, high_price, low_price, close_price, close_time, close_seq,
+    buy_volume, sell_volume, total_volume,
+    large_buy_blocks, large_sell_blocks, medium_buy_blocks, medium_sell_blocks, trade_count
+)
+SELECT
+    t.code,
+    t.trade_date_numeric,
+    MIN(t.trade_date),
+    (ARRAY_AGG(t.price ORDER BY t.trade_time, t.seq))[1],
+    MIN(t.trade_time),
+    (ARRAY_AGG(t.seq ORDER BY t.trade_time, t.seq))[1],
+    MAX(t.price),
+    MIN(t.price),
+    (ARRAY_AGG(t.price ORDER BY t.trade_time DESC, t.seq DESC))[1],
+    MAX(t.trade_time),
+    (ARRAY_AGG(t.seq ORDER BY t.trade_time DESC, t.seq DESC))[1],
+    SUM(CASE WHEN t.side = 'buy' THEN t.volume ELSE 0 END),
+    SUM(CASE WHEN t.side = 'sell' THEN t.volume ELSE 0 END),
+    SUM(t.volume),
+    COUNT(*) FILTER (WHERE t.side = 'buy' AND t.volume >= 400000),
+    COUNT(*) FILTER (WHERE t.side = 'sell' AND t.volume >= 400000),
+    COUNT(*) FILTER (WHERE t.side = 'buy' AND t.volume >= 100000 AND t.volume < 400000),
+    COUNT(*) FILTER (WHERE t.side = 'sell' AND t.volume >= 100000 AND t.volume < 400000),
+    COUNT(*)
+FROM trades t
+GROUP BY t.code, t.trade_date_numeric
+ON CONFLICT (code, trade_date_numeric) DO NOTHING;
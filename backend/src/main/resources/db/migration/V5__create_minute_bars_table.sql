@@ -0,0 +1,45 @@
+-- One-minute bars per stock, maintained incrementally by trade ingestion and
+-- resampled to coarser resolutions (5m, 10m, 30m...) at query time.
+-- minute_of_day = hour * 60 + minute of the trade time.
+CREATE TABLE IF NOT EXISTS minute_bars (
+    code VARCHAR(16) NOT NULL,
+    trade_date_numeric INTEGER NOT NULL,
+    minute_of_day SMALLINT NOT NULL,
+    open_price NUMERIC(38, 2) NOT NULL,
+    open_time VARCHAR(8) NOT NULL,
+    open_seq INTEGER NOT NULL,
+    high_price NUMERIC(38, 2) NOT NULL,
+    low_price NUMERIC(38, 2) NOT NULL,
+    close_price NUMERIC(38, 2) NOT NULL,
+    close_time VARCHAR(8) NOT NULL,
+    close_seq INTEGER NOT NULL,
+    volume BIGINT NOT NULL DEFAULT 0,
+    price_sum NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    trade_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT pk_minute_bars PRIMARY KEY (code, trade_date_numeric, minute_of_day)
+);
+
+-- Backfill from existing trades
+INSERT INTO minute_bars (
+    code, trade_date_numeric, minute_of_day,
+    open_price, open_time, open_seq, high_price, low_price, close_price, close_time, close_seq,
+    volume, price_sum, trade_count
+)
+SELECT
+    t.code,
+    t.trade_date_numeric,
+    CAST(SUBSTRING(t.trade_time, 1, 2) AS INTEGER) * 60 + CAST(SUBSTRING(t.trade_time, 4, 2) AS INTEGER),
+    (ARRAY_AGG(t.price ORDER BY t.trade_time, t.seq))[1],
+    MIN(t.trade_time),
+    (ARRAY_AGG(t.seq ORDER BY t.trade_time, t.seq))[1],
+    MAX(t.price),
+    MIN(t.price),
+    (ARRAY_AGG(t.price ORDER BY t.trade_time DESC, t.seq DESC))[1],
+    MAX(t.trade_time),
+    (ARRAY_AGG(t.seq ORDER BY t.trade_time DESC, t.seq DESC))[1],
+    SUM(t.volume),
+    SUM(t.price),
+    COUNT(*)
+FROM trades t
+GROUP BY t.code, t.trade_date_numeric, 3
+ON CONFLICT (code, trade_date_numeric, minute_of_day) DO NOTHING;
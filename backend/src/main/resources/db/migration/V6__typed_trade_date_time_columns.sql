@@ -0,0 +1,30 @@
+-- Typed trade day / time-of-day columns.
+-- trade_date_numeric (YYYYMMDD) stops being a generated column and is written by the
+-- application, so it can later serve as a partition key; trade_seconds holds the
+-- time of day as seconds since midnight. Range filters use these instead of
+-- rebuilding dates from the DD/MM/YYYY string.
+ALTER TABLE trades
+ALTER COLUMN trade_date_numeric DROP EXPRESSION;
+
+ALTER TABLE trades
+ADD COLUMN IF NOT EXISTS trade_seconds INTEGER;
+
+UPDATE trades
+SET trade_seconds = CAST(SUBSTRING(trade_time, 1, 2) AS INTEGER) * 3600
+                  + CAST(SUBSTRING(trade_time, 4, 2) AS INTEGER) * 60
+                  + CAST(SUBSTRING(trade_time, 7, 2) AS INTEGER)
+WHERE trade_seconds IS NULL;
+
+ALTER TABLE trades
+ALTER COLUMN trade_date_numeric SET NOT NULL,
+ALTER COLUMN trade_seconds SET NOT NULL;
+
+-- Date-range filters across all codes (trade list, latest transaction date)
+CREATE INDEX IF NOT EXISTS idx_trades_date_numeric_seconds
+ON trades(trade_date_numeric, trade_seconds);
+
+-- Per-code range filters in chronological order
+CREATE INDEX IF NOT EXISTS idx_trades_code_date_seconds
+ON trades(code, trade_date_numeric, trade_seconds);
+
+DROP INDEX IF EXISTS idx_trades_code_date_numeric;
@@ -0,0 +1,107 @@
+-- Turn trades into a table partitioned by month on trade_date_numeric (YYYYMMDD).
+-- Queries that filter on trade_date_numeric only touch the matching partitions, and
+-- retention becomes DETACH PARTITION instead of a bulk DELETE.
+
+ALTER TABLE trades RENAME TO trades_unpartitioned;
+
+-- Free the index names for the new table (and skip index maintenance while copying)
+DROP INDEX IF EXISTS uk_trades_natural_key;
+DROP INDEX IF EXISTS idx_trades_code_date_seconds;
+DROP INDEX IF EXISTS idx_trades_date_numeric_seconds;
+DROP INDEX IF EXISTS idx_trades_code_date_time;
+DROP INDEX IF EXISTS idx_trades_volume;
+DROP INDEX IF EXISTS idx_trades_price;
+
+-- Partitioned tables cannot carry an identity column on PostgreSQL 16, so ids come from a plain sequence
+CREATE SEQUENCE IF NOT EXISTS trades_pk_seq AS BIGINT;
+SELECT setval('trades_pk_seq', COALESCE((SELECT MAX(id) FROM trades_unpartitioned), 0) + 1, false);
+
+CREATE TABLE trades (
+    id BIGINT NOT NULL DEFAULT nextval('trades_pk_seq'),
+    code VARCHAR(16) NOT NULL,
+    price NUMERIC(38, 2) NOT NULL,
+    volume BIGINT NOT NULL,
+    side VARCHAR(8) NOT NULL,
+    trade_date VARCHAR(10) NOT NULL,
+    trade_time VARCHAR(8) NOT NULL,
+    seq INTEGER NOT NULL DEFAULT 0,
+    trade_date_numeric INTEGER NOT NULL,
+    trade_seconds INTEGER NOT NULL,
+    CONSTRAINT pk_trades PRIMARY KEY (id, trade_date_numeric),
+    -- Natural key; trade_date_numeric is derived from trade_date and is required in every unique key
+    CONSTRAINT uk_trades_natural_key UNIQUE (code, trade_date_numeric, trade_time, seq)
+) PARTITION BY RANGE (trade_date_numeric);
+
+ALTER SEQUENCE trades_pk_seq OWNED BY trades.id;
+
+CREATE INDEX IF NOT EXISTS idx_trades_code_date_seconds ON trades(code, trade_date_numeric, trade_seconds);
+CREATE INDEX IF NOT EXISTS idx_trades_date_numeric_seconds ON trades(trade_date_numeric, trade_seconds);
+CREATE INDEX IF NOT EXISTS idx_trades_volume ON trades(volume);
+
+-- Create the monthly partition holding the given day, if missing.
+-- Partitions are named trades_yYYYYmMM and cover [YYYYMM01, next month's YYYYMM01).
+CREATE OR REPLACE FUNCTION create_trade_partition(p_day INTEGER) RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := to_date((p_day / 100 * 100 + 1)::TEXT, 'YYYYMMDD');
+    month_end DATE := (month_start + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'trades_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF trades FOR VALUES FROM (%s) TO (%s)',
+                       partition_name,
+                       to_char(month_start, 'YYYYMMDD'),
+                       to_char(month_end, 'YYYYMMDD'));
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Make sure partitions exist from the current month through p_months_ahead months ahead
+CREATE OR REPLACE FUNCTION ensure_trade_partitions(p_months_ahead INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    m INTEGER;
+BEGIN
+    FOR m IN 0..p_months_ahead LOOP
+        PERFORM create_trade_partition(to_char(CURRENT_DATE + make_interval(months => m), 'YYYYMMDD')::INTEGER);
+    END LOOP;
+    RETURN p_months_ahead + 1;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detach (and optionally drop) every monthly partition lying entirely before the month of p_cutoff_day.
+-- Detached partitions stay as standalone tables that can be archived or dropped later.
+CREATE OR REPLACE FUNCTION detach_trade_partitions_before(p_cutoff_day INTEGER, p_drop BOOLEAN)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    part RECORD;
+BEGIN
+    FOR part IN
+        SELECT c.relname AS name
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'trades'::regclass
+          AND c.relname ~ '^trades_y[0-9]{4}m[0-9]{2}$'
+          AND (substring(c.relname, 9, 4) || substring(c.relname, 14, 2) || '01')::INTEGER
+              < p_cutoff_day / 100 * 100 + 1
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE trades DETACH PARTITION %I', part.name);
+        IF p_drop THEN
+            EXECUTE format('DROP TABLE %I', part.name);
+        END IF;
+        RETURN NEXT part.name;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for existing data plus the months ahead
+SELECT create_trade_partition(d.trade_date_numeric)
+FROM (SELECT DISTINCT trade_date_numeric / 100 * 100 + 1 AS trade_date_numeric FROM trades_unpartitioned) d;
+
+SELECT ensure_trade_partitions(3);
+
+INSERT INTO trades (id, code, price, volume, side, trade_date, trade_time, seq, trade_date_numeric, trade_seconds)
+SELECT id, code, price, volume, side, trade_date, trade_time, seq, trade_date_numeric, trade_seconds
+FROM trades_unpartitioned;
+
+DROP TABLE trades_unpartitioned;
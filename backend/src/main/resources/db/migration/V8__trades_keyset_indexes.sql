@@ -0,0 +1,12 @@
+-- Keyset pagination of the trade list walks (trade_date_numeric, trade_seconds, id).
+-- Extending the chronological indexes with id lets the seek and the ORDER BY be served
+-- straight from the index, without sorting ties within a second.
+CREATE INDEX IF NOT EXISTS idx_trades_date_numeric_seconds_id
+ON trades(trade_date_numeric, trade_seconds, id);
+
+CREATE INDEX IF NOT EXISTS idx_trades_code_date_seconds_id
+ON trades(code, trade_date_numeric, trade_seconds, id);
+
+-- Prefixes of the indexes above
+DROP INDEX IF EXISTS idx_trades_date_numeric_seconds;
+DROP INDEX IF EXISTS idx_trades_code_date_seconds;
@@ -0,0 +1,14 @@
+-- Per-user weighting of the combined recommendation vote.
+-- Formula results are shared by all users; only the combination below is applied per user.
+CREATE TABLE IF NOT EXISTS user_recommendation_weights (
+    user_id BIGINT PRIMARY KEY,
+    momentum_weight DOUBLE PRECISION NOT NULL,
+    ma_crossover_weight DOUBLE PRECISION NOT NULL,
+    rsi_weight DOUBLE PRECISION NOT NULL,
+    trend_strength_weight DOUBLE PRECISION NOT NULL,
+    weak_action_score DOUBLE PRECISION NOT NULL,
+    moderate_action_score DOUBLE PRECISION NOT NULL,
+    strong_action_score DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT fk_user_recommendation_weights_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
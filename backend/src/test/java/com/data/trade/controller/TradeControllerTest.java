@@ -0,0 +1,38 @@
+package com.data.trade.controller;
+
+import com.data.trade.config.RateLimitConfig;
+import com.data.trade.repository.TradeRepository;
+import com.data.trade.service.DailyBarWindows;
+import com.data.trade.service.IndicatorStore;
+import com.data.trade.service.IntradayTickStore;
+import com.data.trade.service.TradeExcelService;
+import com.data.trade.service.TradeIngestionService;
+import com.data.trade.service.TradeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TradeControllerTest {
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        TradeRepository tradeRepository = mock(TradeRepository.class);
+        TradeService tradeService = new TradeService(tradeRepository, mock(TradeIngestionService.class),
+                mock(IntradayTickStore.class), mock(DailyBarWindows.class), mock(IndicatorStore.class));
+        TradeController controller = new TradeController(tradeService, mock(TradeExcelService.class), mock(RateLimitConfig.class));
+
+        ResponseEntity<?> response = controller.findTrades(null, null, null, null, null, null, null, null, null,
+                0, 10, null, "asc", true, "not-a-cursor", false, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor: not-a-cursor", response.getBody());
+        verify(tradeRepository, never()).findBy(any(Specification.class), any());
+    }
+}
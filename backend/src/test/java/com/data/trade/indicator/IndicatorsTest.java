@@ -0,0 +1,327 @@
+package com.data.trade.indicator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each streaming indicator against a naive recomputation over the whole prefix, after every bar of a
+ * fixed series, and its copy() against the original once they are fed different bars
+ */
+class IndicatorsTest {
+
+    private static final int BARS = 90;
+    private static final double[] HIGH = new double[BARS];
+    private static final double[] LOW = new double[BARS];
+    private static final double[] CLOSE = new double[BARS];
+    private static final double[] VOLUME = new double[BARS];
+
+    static {
+        // A random walk with a flat stretch (bars 40-55: equal closes, zero range) and a zero-volume day
+        Random random = new Random(42);
+        double close = 100;
+        for (int i = 0; i < BARS; i++) {
+            boolean flat = i >= 40 && i < 56;
+            close = flat ? 120 : Math.max(1, close + Math.round(random.nextGaussian() * 200) / 100.0);
+            double spread = flat ? 0 : Math.round(random.nextDouble() * 300) / 100.0;
+            CLOSE[i] = close;
+            HIGH[i] = close + spread;
+            LOW[i] = close - spread / 2;
+            VOLUME[i] = i == 20 ? 0 : 1_000 + random.nextInt(50_000);
+        }
+    }
+
+    @Test
+    void emaMatchesSeededRecursion() {
+        Ema ema = new Ema(12);
+        for (int n = 1; n <= BARS; n++) {
+            ema.add(CLOSE[n - 1]);
+            assertEquals(n >= 12, ema.isReady());
+            assertClose(naiveEma(prefix(CLOSE, n), 12), ema.value());
+        }
+    }
+
+    @Test
+    void macdMatchesItsEmasAndTheSignalOfTheLine() {
+        Macd macd = new Macd(12, 26, 9);
+        List<Double> line = new ArrayList<>();
+        for (int n = 1; n <= BARS; n++) {
+            macd.add(CLOSE[n - 1]);
+            double fast = naiveEma(prefix(CLOSE, n), 12);
+            double slow = naiveEma(prefix(CLOSE, n), 26);
+            assertClose(fast, macd.fastEma());
+            assertClose(slow, macd.slowEma());
+            assertClose(n >= 26 ? fast - slow : Double.NaN, macd.line());
+            if (n >= 26) {
+                line.add(fast - slow);
+            }
+            double signal = naiveEma(line.stream().mapToDouble(Double::doubleValue).toArray(), 9);
+            assertClose(signal, macd.signal());
+            assertClose(Double.isNaN(signal) ? Double.NaN : fast - slow - signal, macd.histogram());
+            assertEquals(n >= 26 + 9 - 1, macd.isReady());
+        }
+    }
+
+    @Test
+    void atrMatchesWilderSmoothingOfTrueRanges() {
+        Atr atr = new Atr(14);
+        for (int n = 1; n <= BARS; n++) {
+            atr.add(HIGH[n - 1], LOW[n - 1], CLOSE[n - 1]);
+            assertClose(naiveAtr(n, 14), atr.value());
+        }
+    }
+
+    @Test
+    void rollingExtremeMatchesTheMaxAndMinOfTheLastValues() {
+        RollingExtreme max = RollingExtreme.max(14);
+        RollingExtreme min = RollingExtreme.min(14);
+        for (int n = 1; n <= BARS; n++) {
+            max.add(CLOSE[n - 1]);
+            min.add(CLOSE[n - 1]);
+            double[] last = last(CLOSE, n, 14);
+            assertEquals(Arrays.stream(last).max().orElseThrow(), max.value());
+            assertEquals(Arrays.stream(last).min().orElseThrow(), min.value());
+            assertEquals(n >= 14, max.isFull());
+        }
+    }
+
+    @Test
+    void rollingWindowMatchesTheMeanAndStdDevOfTheLastValues() {
+        RollingWindow window = new RollingWindow(20);
+        assertEquals(0, window.mean());
+        assertEquals(0, window.stdDev());
+        for (int n = 1; n <= BARS; n++) {
+            window.add(VOLUME[n - 1]);
+            double[] last = last(VOLUME, n, 20);
+            assertEquals(last.length, window.count());
+            assertEquals(n >= 20, window.isFull());
+            assertClose(Arrays.stream(last).sum(), window.sum());
+            assertClose(mean(last), window.mean());
+            assertClose(stdDev(last), window.stdDev());
+        }
+    }
+
+    @Test
+    void stochasticMatchesTheCloseWithinTheRangeAndItsAverage() {
+        Stochastic stochastic = new Stochastic(14, 3);
+        List<Double> ks = new ArrayList<>();
+        for (int n = 1; n <= BARS; n++) {
+            stochastic.add(HIGH[n - 1], LOW[n - 1], CLOSE[n - 1]);
+            double k = Double.NaN;
+            if (n >= 14) {
+                double high = Arrays.stream(last(HIGH, n, 14)).max().orElseThrow();
+                double low = Arrays.stream(last(LOW, n, 14)).min().orElseThrow();
+                k = high > low ? (CLOSE[n - 1] - low) / (high - low) * 100 : 50;
+                ks.add(k);
+            }
+            assertClose(k, stochastic.k());
+            double d = ks.size() >= 3 ? mean(last(ks.stream().mapToDouble(Double::doubleValue).toArray(), ks.size(), 3))
+                    : Double.NaN;
+            assertClose(d, stochastic.d());
+        }
+    }
+
+    @Test
+    void vwapMatchesTheVolumeWeightedTypicalPrice() {
+        Vwap vwap = new Vwap(20);
+        for (int n = 1; n <= BARS; n++) {
+            vwap.add(HIGH[n - 1], LOW[n - 1], CLOSE[n - 1], VOLUME[n - 1]);
+            double expected = Double.NaN;
+            if (n >= 20) {
+                double priceVolume = 0;
+                double volume = 0;
+                for (int i = n - 20; i < n; i++) {
+                    priceVolume += (HIGH[i] + LOW[i] + CLOSE[i]) / 3 * VOLUME[i];
+                    volume += VOLUME[i];
+                }
+                expected = priceVolume / volume;
+            }
+            assertClose(expected, vwap.value());
+        }
+    }
+
+    @Test
+    void zScoreMatchesTheDistanceFromTheMeanInStdDevs() {
+        ZScore zScore = new ZScore(20);
+        for (int n = 1; n <= BARS; n++) {
+            zScore.add(CLOSE[n - 1]);
+            double expected = Double.NaN;
+            if (n >= 20) {
+                double[] last = last(CLOSE, n, 20);
+                double stdDev = stdDev(last);
+                // The flat stretch has no spread at all
+                expected = stdDev > 1e-9 ? (CLOSE[n - 1] - mean(last)) / stdDev : 0;
+            }
+            assertClose(expected, zScore.value(), 1e-6);
+        }
+    }
+
+    @Test
+    void bollingerBandsMatchTheMeanAndStdDevOfTheLastCloses() {
+        BollingerBands bollinger = new BollingerBands(20, 2);
+        for (int n = 1; n <= BARS; n++) {
+            bollinger.add(CLOSE[n - 1]);
+            double[] last = last(CLOSE, n, 20);
+            boolean ready = n >= 20;
+            assertEquals(ready, bollinger.isReady());
+            assertClose(ready ? mean(last) : Double.NaN, bollinger.middle());
+            assertClose(ready ? mean(last) + 2 * stdDev(last) : Double.NaN, bollinger.upper());
+            assertClose(ready ? mean(last) - 2 * stdDev(last) : Double.NaN, bollinger.lower());
+        }
+    }
+
+    @Test
+    void obvMatchesTheSignedVolumeSinceTheFirstBar() {
+        Obv obv = new Obv();
+        assertFalse(obv.isReady());
+        double expected = 0;
+        for (int n = 1; n <= BARS; n++) {
+            obv.add(CLOSE[n - 1], VOLUME[n - 1]);
+            if (n > 1) {
+                expected += Math.signum(CLOSE[n - 1] - CLOSE[n - 2]) * VOLUME[n - 1];
+            }
+            assertEquals(expected, obv.value());
+        }
+    }
+
+    @Test
+    void indicatorSetTakesItsEmasFromMacd() {
+        IndicatorSet set = new IndicatorSet();
+        for (int n = 1; n <= BARS; n++) {
+            set.add(HIGH[n - 1], LOW[n - 1], CLOSE[n - 1], VOLUME[n - 1]);
+            assertClose(naiveEma(prefix(CLOSE, n), 12), set.ema12());
+            assertClose(naiveEma(prefix(CLOSE, n), 26), set.ema26());
+        }
+        assertEquals(BARS, set.bars());
+        assertTrue(set.macd().isReady());
+    }
+
+    @Test
+    void copiesAreIsolatedFromTheOriginal() {
+        int split = 60;
+        IndicatorSet original = new IndicatorSet();
+        for (int i = 0; i < split; i++) {
+            original.add(HIGH[i], LOW[i], CLOSE[i], VOLUME[i]);
+        }
+        IndicatorSet copy = original.copy();
+        double[] before = values(original);
+        assertArrayClose(before, values(copy));
+
+        // Feeding the copy other bars leaves the original untouched
+        for (int i = 0; i < 30; i++) {
+            copy.add(500 + i, 400, 450 + i, 1_000_000);
+        }
+        assertArrayClose(before, values(original));
+        assertEquals(split, original.bars());
+        assertEquals(split + 30, copy.bars());
+
+        // And the original goes on exactly as one fed the series straight through
+        IndicatorSet straight = new IndicatorSet();
+        for (int i = 0; i < BARS; i++) {
+            straight.add(HIGH[i], LOW[i], CLOSE[i], VOLUME[i]);
+            if (i >= split) {
+                original.add(HIGH[i], LOW[i], CLOSE[i], VOLUME[i]);
+            }
+        }
+        assertArrayClose(values(straight), values(original));
+    }
+
+    @Test
+    void rollingExtremeAndWindowCopiesAreIsolated() {
+        RollingExtreme max = RollingExtreme.max(5);
+        RollingWindow window = new RollingWindow(5);
+        for (double value : new double[]{3, 1, 4, 1, 5, 9, 2}) {
+            max.add(value);
+            window.add(value);
+        }
+        RollingExtreme maxCopy = max.copy();
+        RollingWindow windowCopy = window.copy();
+        for (int i = 0; i < 5; i++) {
+            maxCopy.add(100);
+            windowCopy.add(100);
+        }
+        assertEquals(9, max.value());
+        assertClose(mean(new double[]{4, 1, 5, 9, 2}), window.mean());
+        assertEquals(100, maxCopy.value());
+        assertEquals(100, windowCopy.mean());
+    }
+
+    // Every value the set exposes
+    private static double[] values(IndicatorSet set) {
+        return new double[]{set.ema12(), set.ema26(), set.macd().line(), set.macd().signal(), set.macd().histogram(),
+                set.bollinger().upper(), set.bollinger().middle(), set.bollinger().lower(), set.atr().value(),
+                set.obv().value(), set.stochastic().k(), set.stochastic().d(), set.vwap().value(),
+                set.closeZScore().value(), set.volumeZScore().value()};
+    }
+
+    private static double naiveEma(double[] values, int period) {
+        if (values.length < period) {
+            return Double.NaN;
+        }
+        double ema = mean(Arrays.copyOf(values, period));
+        double alpha = 2.0 / (period + 1);
+        for (int i = period; i < values.length; i++) {
+            ema = alpha * values[i] + (1 - alpha) * ema;
+        }
+        return ema;
+    }
+
+    private static double naiveAtr(int n, int period) {
+        if (n < period) {
+            return Double.NaN;
+        }
+        double[] trueRanges = new double[n];
+        for (int i = 0; i < n; i++) {
+            trueRanges[i] = i == 0 ? HIGH[i] - LOW[i]
+                    : Math.max(HIGH[i], CLOSE[i - 1]) - Math.min(LOW[i], CLOSE[i - 1]);
+        }
+        double atr = mean(Arrays.copyOf(trueRanges, period));
+        for (int i = period; i < n; i++) {
+            atr = (atr * (period - 1) + trueRanges[i]) / period;
+        }
+        return atr;
+    }
+
+    private static double[] prefix(double[] values, int n) {
+        return Arrays.copyOf(values, n);
+    }
+
+    // The last min(n, size) of the first n values
+    private static double[] last(double[] values, int n, int size) {
+        return Arrays.copyOfRange(values, Math.max(0, n - size), n);
+    }
+
+    private static double mean(double[] values) {
+        return Arrays.stream(values).sum() / values.length;
+    }
+
+    private static double stdDev(double[] values) {
+        double mean = mean(values);
+        return Math.sqrt(Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / values.length);
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertClose(expected, actual, 1e-9);
+    }
+
+    private static void assertClose(double expected, double actual, double tolerance) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual), "expected NaN but was " + actual);
+        } else {
+            assertEquals(expected, actual, tolerance * Math.max(1, Math.abs(expected)));
+        }
+    }
+
+    private static void assertArrayClose(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertClose(expected[i], actual[i]);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.data.trade.loadtest;
+
+import com.data.trade.TradeApplication;
+import com.data.trade.security.JwtTokenProvider;
+import jdk.jfr.consumer.RecordingStream;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test for the virtual-thread mode: 1,000 concurrent GET /api/stocks/roombars/{code} requests,
+ * each parking its request thread on an upstream call that a MockWebServer answers after
+ * UPSTREAM_DELAY. The backend runs on virtual threads, and the run fails if any request fails,
+ * if the burst is served below MIN_THROUGHPUT, or if a virtual thread was pinned to its carrier
+ * (JFR jdk.VirtualThreadPinned) while blocking.
+ * Needs the database, like TradeApplicationTests. Tagged "load" and run with: mvn test -Pload-test
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENT_REQUESTS = 1000;
+    private static final Duration UPSTREAM_DELAY = Duration.ofSeconds(2);
+    // Requests per second. The burst is CPU-bound well before UPSTREAM_DELAY limits it (a single core
+    // serves about 80 req/s), so the default only catches a regression such as requests queuing
+    // behind a thread pool; raise it with -Dloadtest.min-throughput on a larger machine
+    private static final double MIN_THROUGHPUT = Double.parseDouble(System.getProperty("loadtest.min-throughput", "50"));
+    private static final String ROOMBARS = "{\"data\":{\"bars\":[{\"code\":\"FPT\",\"buyVal\":1.0,\"sellVal\":2.0}]}}";
+
+    private static MockWebServer upstream;
+
+    @BeforeAll
+    static void startUpstream() throws Exception {
+        upstream = new MockWebServer();
+        upstream.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody(ROOMBARS)
+                        .setHeadersDelay(UPSTREAM_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+        // MockWebServer listens with a backlog of 50, which would drop most of a 1,000-connection burst
+        upstream.setServerSocketFactory(new ServerSocketFactory() {
+            @Override
+            public ServerSocket createServerSocket() throws IOException {
+                return new ServerSocket() {
+                    @Override
+                    public void bind(SocketAddress endpoint, int backlog) throws IOException {
+                        super.bind(endpoint, CONCURRENT_REQUESTS);
+                    }
+                };
+            }
+
+            @Override
+            public ServerSocket createServerSocket(int port) throws IOException {
+                return new ServerSocket(port, CONCURRENT_REQUESTS);
+            }
+
+            @Override
+            public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+                return new ServerSocket(port, CONCURRENT_REQUESTS);
+            }
+
+            @Override
+            public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+                return new ServerSocket(port, CONCURRENT_REQUESTS, address);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    static void stopUpstream() throws Exception {
+        upstream.shutdown();
+    }
+
+    @Test
+    void virtualThreadsServeConcurrentBlockingRequestsWithoutPinning() throws Exception {
+        Result result = run();
+        System.out.println("Virtual threads: " + result);
+
+        assertEquals(0, result.failed(), "requests failed");
+        assertEquals(0, result.pinned(), "virtual threads were pinned to their carrier while blocking");
+        assertTrue(result.throughput() >= MIN_THROUGHPUT,
+                String.format("throughput %.0f req/s is below %.0f req/s", result.throughput(), MIN_THROUGHPUT));
+    }
+
+    private record Result(int ok, Duration elapsed, int pinned) {
+        int failed() {
+            return CONCURRENT_REQUESTS - ok;
+        }
+
+        double throughput() {
+            return ok * 1000.0 / Math.max(1, elapsed.toMillis());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d ok in %d ms (%.0f req/s), %d pinned events", ok, CONCURRENT_REQUESTS,
+                    elapsed.toMillis(), throughput(), pinned);
+        }
+    }
+
+    private Result run() throws Exception {
+        // Passed as arguments, which take precedence over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TradeApplication.class, LoadTestUsers.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=true",
+                        // Let every connection of the burst queue up rather than being refused
+                        "--server.tomcat.accept-count=" + CONCURRENT_REQUESTS,
+                        "--app.finpath.base-url=" + upstream.url("/").toString().replaceAll("/$", ""),
+                        "--app.finpath.max-connections=" + CONCURRENT_REQUESTS,
+                        "--app.market-quotes.poller.enabled=false");
+             RecordingStream pinning = new RecordingStream();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            AtomicInteger pinned = new AtomicInteger();
+            pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            pinning.onEvent("jdk.VirtualThreadPinned", event -> {
+                pinned.incrementAndGet();
+                System.out.println("Pinned: " + event);
+            });
+            pinning.startAsync();
+
+            String port = context.getEnvironment().getProperty("local.server.port");
+            UserDetails user = context.getBean(UserDetailsService.class).loadUserByUsername("loadtest");
+            String token = context.getBean(JwtTokenProvider.class)
+                    .generateToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clients)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/stocks/roombars/FPT"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+
+            // An unmeasured burst first, so class loading and JIT compilation are not timed
+            burst(http, request);
+
+            long start = System.nanoTime();
+            int ok = burst(http, request);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            return new Result(ok, elapsed, pinned.get());
+        }
+    }
+
+    /**
+     * Sends CONCURRENT_REQUESTS requests at once and waits for them all
+     * @return the number answered with 200
+     */
+    private static int burst(HttpClient http, HttpRequest request) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(http.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.handle((r, e) -> e == null && r.statusCode() == 200).join()) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Authenticates the load-test user without a users table lookup on each request
+     */
+    @TestConfiguration
+    static class LoadTestUsers {
+        @Bean
+        @Primary
+        UserDetailsService loadTestUserDetailsService() {
+            return username -> User.withUsername(username).password("{noop}unused").roles("NORMAL").build();
+        }
+    }
+}
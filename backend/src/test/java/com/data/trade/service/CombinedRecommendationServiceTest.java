@@ -0,0 +1,78 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.FormulaResult;
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.dto.RecommendationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CombinedRecommendationServiceTest {
+
+    private final CombinedRecommendationService service = new CombinedRecommendationService(null, null);
+
+    @Test
+    void recombiningTheSharedFormulaResultsMatchesEvaluatingWithTheUsersParameters() {
+        RecommendationParameters shared = RecommendationParameters.defaults();
+        List<RecommendationParameters> users = List.of(
+                shared.toBuilder().formulaWeights(new double[]{0.10, 0.40, 0.10, 0.40}).build(),
+                shared.toBuilder().formulaWeights(new double[]{0.70, 0.10, 0.10, 0.10})
+                        .weakActionScore(5).moderateActionScore(10).strongActionScore(15).build(),
+                shared.toBuilder().formulaWeights(new double[]{0.25, 0.25, 0.25, 0.25})
+                        .weakActionScore(50).moderateActionScore(70).strongActionScore(90).build());
+
+        for (List<DailyStats> stats : List.of(window(100, 150, 1), window(200, -300, 2), window(150, 40, 3))) {
+            List<FormulaResult> formulas =
+                    service.evaluate("FPT", stats, shared).combined().getFormulaDetails();
+            for (RecommendationParameters user : users) {
+                RecommendationResult expected = service.evaluate("FPT", stats, user).recommendation();
+                assertEquals(expected, service.recombine("FPT", formulas, stats, user));
+            }
+        }
+    }
+
+    @Test
+    void otherWeightsChangeTheCombinedScore() {
+        List<DailyStats> stats = window(100, 150, 1);
+        RecommendationParameters shared = RecommendationParameters.defaults();
+        RecommendationParameters user = shared.toBuilder().formulaWeights(new double[]{0.10, 0.40, 0.10, 0.40}).build();
+
+        assertNotEquals(service.evaluate("FPT", stats, shared).recommendation().getScore(),
+                service.evaluate("FPT", stats, user).recommendation().getScore());
+    }
+
+    /**
+     * RecommendationParameters.DAYS days, most recent first, starting at start (in thousands of VND)
+     * and moving by step hundredths a day with some noise; buying leans with the price
+     */
+    private static List<DailyStats> window(long start, long step, int seed) {
+        List<DailyStats> oldestFirst = new ArrayList<>();
+        long close = start * 100;
+        for (int d = 0; d < RecommendationParameters.DAYS; d++) {
+            long open = close;
+            close = Math.max(100, close + step + ((d * 37L + seed * 11L) % 7 - 3) * 50);
+            long buy = 100_000 + (close > open ? 40_000 : 0) + d * 3_000L * seed;
+            long sell = 100_000 + (close < open ? 40_000 : 0) + (10 - d) * 2_000L;
+            oldestFirst.add(DailyStats.builder()
+                    .tradeDate(String.format("%02d/01/2025", d + 1))
+                    .openPrice(open)
+                    .closePrice(close)
+                    .highPrice(Math.max(open, close) + 100)
+                    .lowPrice(Math.min(open, close) - 100)
+                    .buyVolume(buy)
+                    .sellVolume(sell)
+                    .totalVolume(buy + sell)
+                    .largeBuyBlocks((long) (d % 3))
+                    .largeSellBlocks((long) ((d + seed) % 2))
+                    .mediumBuyBlocks(2L)
+                    .mediumSellBlocks(1L)
+                    .build());
+        }
+        return oldestFirst.reversed();
+    }
+}
@@ -0,0 +1,193 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.model.Trade;
+import com.data.trade.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DailyBarWindowsTest {
+
+    private static final int LOOKBACK = RecommendationParameters.DAYS;
+
+    private TradeRepository tradeRepository;
+    private DailyBarWindows windows;
+
+    @BeforeEach
+    void setUp() {
+        tradeRepository = mock(TradeRepository.class);
+        windows = new DailyBarWindows(tradeRepository);
+    }
+
+    @Test
+    void loadsBarsNewestFirstAndReadsThemFromMemoryAfterwards() {
+        stubBars(rows("FPT", 20250101, LOOKBACK));
+
+        List<DailyStats> stats = windows.recentStats(List.of("FPT")).get("FPT");
+
+        assertEquals(LOOKBACK, stats.size());
+        assertEquals("10/01/2025", stats.get(0).getTradeDate());
+        assertEquals("01/01/2025", stats.get(LOOKBACK - 1).getTradeDate());
+        assertEquals(10_000 + 9 * 100, stats.get(0).getClosePrice());
+
+        windows.recentStats(List.of("FPT"));
+        verify(tradeRepository, times(1)).findRecentDailyBars(any(), anyInt());
+    }
+
+    @Test
+    void foldsLaterTradesOfTheNewestDayIntoItsBar() {
+        stubBars(rows("FPT", 20250101, 3));
+        windows.recentStats(List.of("FPT"));
+
+        // The newest bar closed at 14:00:00#0 at 102.00
+        windows.append(List.of(
+                trade("FPT", 20250103, "14:00:01", 0, "105.50", 450_000, "buy"),
+                trade("FPT", 20250103, "14:00:01", 1, "99.00", 150_000, "sell"),
+                trade("FPT", 20250103, "14:30:00", 0, "101.00", 10_000, "buy")));
+
+        DailyStats newest = windows.recentStats(List.of("FPT")).get("FPT").get(0);
+        assertEquals(10_100, newest.getClosePrice());
+        assertEquals(10_550, newest.getHighPrice());
+        assertEquals(9_900, newest.getLowPrice());
+        assertEquals(10_200, newest.getOpenPrice());
+        assertEquals(1_000 + 460_000, newest.getBuyVolume());
+        assertEquals(1_000 + 150_000, newest.getSellVolume());
+        assertEquals(2_000 + 610_000, newest.getTotalVolume());
+        assertEquals(1, newest.getLargeBuyBlocks());
+        assertEquals(0, newest.getMediumBuyBlocks());
+        assertEquals(1, newest.getMediumSellBlocks());
+        verify(tradeRepository, times(1)).findRecentDailyBars(any(), anyInt());
+    }
+
+    @Test
+    void pushesANewDayAndDropsTheOldestOnceFull() {
+        stubBars(rows("FPT", 20250101, LOOKBACK));
+        windows.recentStats(List.of("FPT"));
+
+        windows.append(List.of(
+                trade("FPT", 20250111, "09:15:00", 0, "110.00", 200_000, "buy"),
+                trade("FPT", 20250111, "09:16:00", 0, "111.00", 500_000, "sell")));
+
+        List<DailyStats> stats = windows.recentStats(List.of("FPT")).get("FPT");
+        assertEquals(LOOKBACK, stats.size());
+        DailyStats newest = stats.get(0);
+        assertEquals("11/01/2025", newest.getTradeDate());
+        assertEquals(11_000, newest.getOpenPrice());
+        assertEquals(11_100, newest.getClosePrice());
+        assertEquals(11_100, newest.getHighPrice());
+        assertEquals(11_000, newest.getLowPrice());
+        assertEquals(700_000, newest.getTotalVolume());
+        assertEquals(1, newest.getMediumBuyBlocks());
+        assertEquals(1, newest.getLargeSellBlocks());
+        // 01/01 fell out of the window
+        assertEquals("02/01/2025", stats.get(LOOKBACK - 1).getTradeDate());
+        verify(tradeRepository, times(1)).findRecentDailyBars(any(), anyInt());
+    }
+
+    @Test
+    void outOfOrderTradeMarksTheWindowStaleAndTheNextReadReloads() {
+        stubBars(rows("FPT", 20250101, 3));
+        windows.recentStats(List.of("FPT"));
+
+        // Before the newest bar's close (14:00:00#0), so it cannot be folded in order
+        windows.append(List.of(trade("FPT", 20250103, "13:59:59", 0, "150.00", 1_000, "buy")));
+
+        DailyStats newest = windows.recentStats(List.of("FPT")).get("FPT").get(0);
+        assertEquals(10_200, newest.getClosePrice());
+        verify(tradeRepository, times(2)).findRecentDailyBars(any(), anyInt());
+    }
+
+    @Test
+    void invalidateReloadsOnlyTheGivenCodes() {
+        List<Object[]> rows = new ArrayList<>(rows("FPT", 20250101, 3));
+        rows.addAll(rows("HPG", 20250101, 3));
+        stubBars(rows);
+        windows.recentStats(List.of("FPT", "HPG"));
+
+        windows.invalidate(List.of("HPG"));
+        windows.recentStats(List.of("FPT", "HPG"));
+
+        verify(tradeRepository).findRecentDailyBars(new String[]{"FPT", "HPG"}, LOOKBACK);
+        verify(tradeRepository).findRecentDailyBars(new String[]{"HPG"}, LOOKBACK);
+
+        windows.invalidateAll();
+        windows.recentStats(List.of("FPT", "HPG"));
+        verify(tradeRepository, times(2)).findRecentDailyBars(new String[]{"FPT", "HPG"}, LOOKBACK);
+    }
+
+    @Test
+    void tradesOfCodesNotHeldAreLeftToTheFirstRead() {
+        stubBars(rows("FPT", 20250101, 3));
+
+        windows.append(List.of(trade("FPT", 20250104, "09:15:00", 0, "120.00", 1_000, "buy")));
+        List<DailyStats> stats = windows.recentStats(List.of("FPT")).get("FPT");
+
+        // Read from the table only; the trade was not kept
+        assertEquals(3, stats.size());
+        assertEquals("03/01/2025", stats.get(0).getTradeDate());
+    }
+
+    @Test
+    void codesWithoutBarsAreNotKept() {
+        stubBars(rows("FPT", 20250101, 3));
+
+        assertEquals(List.of(), windows.recentStats(List.of("NOPE")).get("NOPE"));
+        windows.append(List.of(trade("NOPE", 20250104, "09:15:00", 0, "10.00", 1_000, "buy")));
+        assertEquals(List.of(), windows.recentStats(List.of("NOPE")).get("NOPE"));
+
+        // Looked up again rather than held as an empty window
+        verify(tradeRepository, times(2)).findRecentDailyBars(new String[]{"NOPE"}, LOOKBACK);
+    }
+
+    private void stubBars(List<Object[]> rows) {
+        when(tradeRepository.findRecentDailyBars(any(), anyInt())).thenAnswer(invocation -> {
+            List<String> codes = List.of((String[]) invocation.getArgument(0));
+            return rows.stream().filter(row -> codes.contains((String) row[0])).toList();
+        });
+    }
+
+    /**
+     * Consecutive daily_bars rows oldest first, closing at 100.00, 101.00, ... with 1,000 bought
+     * and 1,000 sold; each day's last trade is 14:00:00#0
+     */
+    private static List<Object[]> rows(String code, int firstDate, int days) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            int date = firstDate + i;
+            String tradeDate = String.format("%02d/%02d/%04d", date % 100, date / 100 % 100, date / 10000);
+            BigDecimal close = BigDecimal.valueOf(100 + i).setScale(2);
+            rows.add(new Object[]{code, date, tradeDate, close, close, close, close,
+                    1_000L, 1_000L, 2_000L, 0, 0, 0, 0, "14:00:00", 0});
+        }
+        return rows;
+    }
+
+    private static Trade trade(String code, int date, String time, int seq, String price, long volume, String side) {
+        String tradeDate = String.format("%02d/%02d/%04d", date % 100, date / 100 % 100, date / 10000);
+        Trade trade = Trade.builder()
+                .code(code)
+                .price(new BigDecimal(price))
+                .volume(volume)
+                .side(side)
+                .tradeDate(tradeDate)
+                .tradeTime(time)
+                .build();
+        trade.setTradeDateNumeric(date);
+        trade.setTradeSeconds(TradeSequencer.secondsOfDay(time));
+        trade.setSeq(seq);
+        return trade;
+    }
+}
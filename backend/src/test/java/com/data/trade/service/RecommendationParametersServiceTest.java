@@ -0,0 +1,73 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.model.AppConfig;
+import com.data.trade.repository.AppConfigRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationParametersServiceTest {
+
+    private static final RecommendationParameters STORED = RecommendationParameters.defaults().toBuilder()
+            .formulaWeights(new double[]{0.10, 0.40, 0.10, 0.40})
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AppConfigRepository appConfigRepository;
+    private RecommendationParametersService parametersService;
+
+    @BeforeEach
+    void setUp() {
+        appConfigRepository = mock(AppConfigRepository.class);
+        parametersService = new RecommendationParametersService(appConfigRepository, objectMapper);
+    }
+
+    @Test
+    void storedParametersAreReadOnce() throws Exception {
+        when(appConfigRepository.findByConfigKey(RecommendationParametersService.CONFIG_KEY))
+                .thenReturn(Optional.of(config(objectMapper.writeValueAsString(STORED))));
+
+        assertEquals(STORED, parametersService.current());
+        assertEquals(STORED, parametersService.current());
+        verify(appConfigRepository, times(1)).findByConfigKey(RecommendationParametersService.CONFIG_KEY);
+    }
+
+    @Test
+    void aFailedReadServesDefaultsAndIsRetried() throws Exception {
+        when(appConfigRepository.findByConfigKey(RecommendationParametersService.CONFIG_KEY))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(Optional.of(config(objectMapper.writeValueAsString(STORED))));
+
+        assertEquals(RecommendationParameters.defaults(), parametersService.current());
+        assertEquals(STORED, parametersService.current());
+        assertEquals(STORED, parametersService.current());
+        verify(appConfigRepository, times(2)).findByConfigKey(RecommendationParametersService.CONFIG_KEY);
+    }
+
+    @Test
+    void missingOrInvalidStoredValuesAreReadAsDefaultsAndKept() {
+        when(appConfigRepository.findByConfigKey(RecommendationParametersService.CONFIG_KEY))
+                .thenReturn(Optional.of(config("{\"formulaWeights\":[1.0]}")));
+
+        assertEquals(RecommendationParameters.defaults(), parametersService.current());
+        parametersService.current();
+        verify(appConfigRepository, times(1)).findByConfigKey(RecommendationParametersService.CONFIG_KEY);
+    }
+
+    private static AppConfig config(String value) {
+        return AppConfig.builder()
+                .configKey(RecommendationParametersService.CONFIG_KEY)
+                .configValue(value)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.DailyStats;
+import com.data.trade.dto.RecommendationParameters;
+import com.data.trade.dto.RecommendationResult;
+import com.data.trade.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendationSnapshotServiceTest {
+
+    private static final RecommendationParameters SHARED = RecommendationParameters.defaults();
+    private static final RecommendationParameters USER =
+            SHARED.toBuilder().formulaWeights(new double[]{0.10, 0.40, 0.10, 0.40}).build();
+
+    private TradeRepository tradeRepository;
+    private CombinedRecommendationService recommendationService;
+    private RecommendationSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        tradeRepository = mock(TradeRepository.class);
+        RecommendationParametersService parametersService = mock(RecommendationParametersService.class);
+        when(parametersService.current()).thenReturn(SHARED);
+        DailyBarWindows dailyBarWindows = mock(DailyBarWindows.class);
+        Map<String, List<DailyStats>> windows = Map.of("FPT", stats(rows(100)));
+        when(dailyBarWindows.recentStats(any())).thenReturn(windows);
+
+        recommendationService = new CombinedRecommendationService(tradeRepository, parametersService);
+        snapshotService = new RecommendationSnapshotService(recommendationService, parametersService,
+                dailyBarWindows, mock(IndicatorStore.class), Runnable::run,
+                new CaffeineCacheManager(RecommendationSnapshotService.RECOMMENDATIONS_CACHE,
+                        RecommendationSnapshotService.INPUTS_CACHE),
+                List.of("FPT"), 10);
+    }
+
+    @Test
+    void personalizedSnapshotIsBuiltOncePerUserAndVersion() {
+        RecommendationSnapshotService.Snapshot snapshot = snapshotService.current();
+
+        RecommendationSnapshotService.Snapshot first = snapshotService.personalize(snapshot, 1L, USER);
+        assertSame(first, snapshotService.personalize(snapshot, 1L, USER));
+        assertEquals(recommendationService.evaluate("FPT", snapshot.scored().get("FPT").stats(), USER).recommendation(),
+                first.byCode().get("FPT"));
+
+        // New weights, another user and a new version are each built again
+        RecommendationParameters changed = USER.toBuilder().weakActionScore(5).build();
+        assertNotSame(first, snapshotService.personalize(snapshot, 1L, changed));
+        assertNotSame(snapshotService.personalize(snapshot, 1L, changed), snapshotService.personalize(snapshot, 2L, changed));
+
+        RecommendationSnapshotService.Snapshot next = snapshotService.refresh();
+        RecommendationSnapshotService.Snapshot nextFirst = snapshotService.personalize(next, 1L, USER);
+        assertEquals(next.version(), nextFirst.version());
+        assertNotSame(first, nextFirst);
+    }
+
+    @Test
+    void codesOutsideTheSnapshotAreReadOnceAndRecombinedForEachUser() {
+        when(tradeRepository.findRecentDailyStats("HPG", RecommendationParameters.DAYS)).thenReturn(rows(50));
+        List<DailyStats> stats = stats(rows(50));
+        RecommendationParameters other = SHARED.toBuilder().formulaWeights(new double[]{0.70, 0.10, 0.10, 0.10}).build();
+
+        RecommendationResult forUser = snapshotService.personalizeOutside("HPG", USER);
+        RecommendationResult forOther = snapshotService.personalizeOutside("HPG", other);
+
+        assertEquals(recommendationService.evaluate("HPG", stats, USER).recommendation(), forUser);
+        assertEquals(recommendationService.evaluate("HPG", stats, other).recommendation(), forOther);
+        verify(tradeRepository, times(1)).findRecentDailyStats(eq("HPG"), anyInt());
+
+        // New trades for the code drop its cached inputs
+        snapshotService.requestRefreshFor(List.of("HPG"));
+        snapshotService.personalizeOutside("HPG", USER);
+        verify(tradeRepository, times(2)).findRecentDailyStats(eq("HPG"), anyInt());
+    }
+
+    @Test
+    void codesOutsideTheSnapshotWithTooFewDaysAreCalculatedFromTheirStats() {
+        List<Object[]> rows = rows(50).subList(0, CombinedRecommendationService.MIN_DAYS - 1);
+        when(tradeRepository.findRecentDailyStats(eq("HPG"), anyInt())).thenReturn(rows);
+
+        assertEquals(recommendationService.calculateRecommendationFromStats("HPG", stats(rows), USER),
+                snapshotService.personalizeOutside("HPG", USER));
+    }
+
+    /**
+     * findRecentDailyStats rows, most recent first: RecommendationParameters.DAYS days closing
+     * at start, start + 1.50, ... (oldest first), with buying growing over the window
+     */
+    private static List<Object[]> rows(int start) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int d = RecommendationParameters.DAYS - 1; d >= 0; d--) {
+            BigDecimal close = BigDecimal.valueOf(start * 100L + d * 150L + (d % 3) * 40L, 2);
+            BigDecimal open = close.subtract(BigDecimal.valueOf(d % 2 == 0 ? 100 : -60, 2));
+            rows.add(new Object[]{String.format("%02d/01/2025", d + 1), close, open,
+                    close.max(open).add(BigDecimal.ONE), close.min(open).subtract(BigDecimal.ONE),
+                    100_000L + d * 8_000L, 110_000L - d * 3_000L, 210_000L + d * 5_000L,
+                    (long) (d % 3), 1L, 2L, 1L});
+        }
+        return rows;
+    }
+
+    private List<DailyStats> stats(List<Object[]> rows) {
+        TradeRepository repository = mock(TradeRepository.class);
+        when(repository.findRecentDailyStats(any(), anyInt())).thenReturn(rows);
+        return new CombinedRecommendationService(repository, null)
+                .fetchRecentData("ANY");
+    }
+}
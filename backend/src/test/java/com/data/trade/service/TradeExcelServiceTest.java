@@ -0,0 +1,89 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.TradeImportReport;
+import com.data.trade.model.Trade;
+import com.data.trade.repository.TradeRepository;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TradeExcelServiceTest {
+
+    private static final int TODAY = 20250110;
+
+    private TradeRepository tradeRepository;
+    private IntradayTickStore tickStore;
+    private TradeExcelService excelService;
+
+    @BeforeEach
+    void setUp() {
+        tradeRepository = mock(TradeRepository.class);
+        tickStore = mock(IntradayTickStore.class);
+        when(tickStore.today()).thenReturn(TODAY);
+        excelService = new TradeExcelService(tradeRepository, mock(RecommendationSnapshotService.class), tickStore);
+    }
+
+    @Test
+    void importedCodesWithTradesTodayAreDroppedFromTheTickStore() throws IOException {
+        when(tradeRepository.insertIgnoringDuplicates(anyList()))
+                .thenAnswer(invocation -> ((List<Trade>) invocation.getArgument(0)).size());
+
+        TradeImportReport report = excelService.importFromXlsx(xlsx(
+                new String[]{"FPT", "10/01/2025", "09:15:00"},
+                new String[]{"FPT", "10/01/2025", "09:15:01"},
+                new String[]{"HPG", "09/01/2025", "14:45:00"}));
+
+        assertEquals(3, report.getImported());
+        verify(tickStore).evict("FPT");
+        verify(tickStore, never()).evict("HPG");
+    }
+
+    @Test
+    void aBatchThatInsertedNothingLeavesTheTickStoreAlone() throws IOException {
+        when(tradeRepository.insertIgnoringDuplicates(anyList())).thenReturn(0);
+
+        excelService.importFromXlsx(xlsx(new String[]{"FPT", "10/01/2025", "09:15:00"}));
+
+        verify(tickStore, never()).evict(any());
+    }
+
+    /**
+     * Upload with a header row and one trade per {code, date, time}
+     */
+    private static MockMultipartFile xlsx(String[]... trades) throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet("trades");
+            String[] header = {"", "code", "price", "side", "date", "time", "volume"};
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < header.length; i++) {
+                headerRow.createCell(i).setCellValue(header[i]);
+            }
+            for (int r = 0; r < trades.length; r++) {
+                Row row = sheet.createRow(r + 1);
+                row.createCell(1).setCellValue(trades[r][0]);
+                row.createCell(2).setCellValue(100.5);
+                row.createCell(3).setCellValue("buy");
+                row.createCell(4).setCellValue(trades[r][1]);
+                row.createCell(5).setCellValue(trades[r][2]);
+                row.createCell(6).setCellValue(1_000);
+            }
+            wb.write(out);
+            return new MockMultipartFile("file", "trades.xlsx", null, out.toByteArray());
+        }
+    }
+}
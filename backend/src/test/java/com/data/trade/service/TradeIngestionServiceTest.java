@@ -0,0 +1,74 @@
+package com.data.trade.service;
+
+import com.data.trade.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.data.trade.service.TradeSequencerTest.trade;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradeIngestionServiceTest {
+
+    @Test
+    void keepsOnlyTradesAfterTheWatermarkWithinItsSecond() {
+        // The last stored trade is the second one of 09:15:01
+        TradeIngestionService.Watermark watermark = new TradeIngestionService.Watermark(20250110, "09:15:01", 1);
+        List<Trade> feed = TradeSequencer.sequence(List.of(
+                trade("FPT", "10/01/2025", "09:15:02", 5),
+                trade("FPT", "10/01/2025", "09:15:01", 4),
+                trade("FPT", "10/01/2025", "09:15:01", 3),
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:00", 1)));
+
+        assertEquals(List.of(4L, 5L), volumes(TradeIngestionService.newerThan(watermark, feed)));
+    }
+
+    @Test
+    void comparesTheDateBeforeTheTime() {
+        TradeIngestionService.Watermark watermark = new TradeIngestionService.Watermark(20250109, "14:45:00", 3);
+        List<Trade> feed = TradeSequencer.sequence(List.of(
+                trade("FPT", "10/01/2025", "09:15:00", 2),
+                trade("FPT", "09/01/2025", "14:45:00", 1),
+                trade("FPT", "08/01/2025", "14:50:00", 0)));
+
+        assertEquals(List.of(2L), volumes(TradeIngestionService.newerThan(watermark, feed)));
+    }
+
+    @Test
+    void aRepeatedPollInsertsOnlyTheTradesPrintedSince() {
+        List<Trade> firstPoll = TradeSequencer.sequence(List.of(
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 1)));
+        TradeIngestionService.Watermark watermark =
+                TradeIngestionService.Watermark.of(firstPoll.get(firstPoll.size() - 1));
+
+        // Same second grew by one trade, plus a trade of the next second
+        List<Trade> secondPoll = TradeSequencer.sequence(List.of(
+                trade("FPT", "10/01/2025", "09:15:02", 4),
+                trade("FPT", "10/01/2025", "09:15:01", 3),
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 1)));
+
+        List<Trade> newTrades = TradeIngestionService.newerThan(watermark, secondPoll);
+        assertEquals(List.of(3L, 4L), volumes(newTrades));
+        assertEquals(List.of(2, 0), newTrades.stream().map(Trade::getSeq).toList());
+
+        // Polling the same feed again after those are stored finds nothing
+        TradeIngestionService.Watermark next = TradeIngestionService.Watermark.of(newTrades.get(newTrades.size() - 1));
+        assertEquals(List.of(), TradeIngestionService.newerThan(next, secondPoll));
+    }
+
+    @Test
+    void withoutAWatermarkEveryTradeIsNew() {
+        List<Trade> feed = TradeSequencer.sequence(List.of(
+                trade("FPT", "10/01/2025", "09:15:01", 1),
+                trade("FPT", "10/01/2025", "09:15:00", 0)));
+
+        assertEquals(List.of(0L, 1L), volumes(TradeIngestionService.newerThan(TradeIngestionService.Watermark.NONE, feed)));
+    }
+
+    private static List<Long> volumes(List<Trade> trades) {
+        return trades.stream().map(Trade::getVolume).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.data.trade.service;
+
+import com.data.trade.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradeSequencerTest {
+
+    @Test
+    void numbersANewestFirstFeedOldestFirstWithinEachSecond() {
+        // As Finpath lists them: newest first, so within 09:15:01 volume 3 printed before 2, and 2 before 1
+        List<Trade> feed = List.of(
+                trade("FPT", "10/01/2025", "09:15:02", 4),
+                trade("FPT", "10/01/2025", "09:15:01", 3),
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 1),
+                trade("FPT", "09/01/2025", "14:45:00", 0));
+
+        List<Trade> sequenced = TradeSequencer.sequence(feed);
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), volumes(sequenced));
+        assertEquals(List.of(0, 0, 1, 2, 0), seqs(sequenced));
+        Trade first = sequenced.get(0);
+        assertEquals(20250109, first.getTradeDateNumeric());
+        assertEquals(14 * 3600 + 45 * 60, first.getTradeSeconds());
+    }
+
+    @Test
+    void theSameTradesGetTheSameKeysWhicheverWayTheFeedIsOrdered() {
+        List<Trade> newestFirst = List.of(
+                trade("FPT", "10/01/2025", "09:15:01", 3),
+                trade("HPG", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 1),
+                trade("FPT", "10/01/2025", "09:15:00", 0));
+        List<Trade> oldestFirst = List.of(
+                trade("FPT", "10/01/2025", "09:15:00", 0),
+                trade("FPT", "10/01/2025", "09:15:01", 1),
+                trade("HPG", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 3));
+
+        List<String> keys = keys(TradeSequencer.sequence(newestFirst));
+
+        assertEquals(keys, keys(TradeSequencer.sequence(oldestFirst)));
+        // Seqs count per code: HPG's trade does not take one of FPT's
+        assertEquals(List.of("FPT 09:15:00#0 v0", "FPT 09:15:01#0 v1", "HPG 09:15:01#0 v2", "FPT 09:15:01#1 v3"), keys);
+    }
+
+    @Test
+    void aSecondThatGrowsBetweenFetchesKeepsTheKeysAlreadyGiven() {
+        List<Trade> firstFetch = List.of(
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 1));
+        // Two more trades printed in the same second by the next poll
+        List<Trade> secondFetch = List.of(
+                trade("FPT", "10/01/2025", "09:15:01", 4),
+                trade("FPT", "10/01/2025", "09:15:01", 3),
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:01", 1));
+
+        List<String> first = keys(TradeSequencer.sequence(firstFetch));
+        List<String> second = keys(TradeSequencer.sequence(secondFetch));
+
+        assertEquals(first, second.subList(0, first.size()));
+        assertEquals(List.of("FPT 09:15:01#2 v3", "FPT 09:15:01#3 v4"), second.subList(first.size(), second.size()));
+    }
+
+    @Test
+    void runningSequencerCarriesTheCountOfASecondAcrossBatches() {
+        TradeSequencer.Running running = new TradeSequencer.Running();
+
+        List<Trade> firstBatch = running.sequence(new ArrayList<>(List.of(
+                trade("FPT", "10/01/2025", "09:15:00", 0),
+                trade("FPT", "10/01/2025", "09:15:01", 1))));
+        List<Trade> secondBatch = running.sequence(new ArrayList<>(List.of(
+                trade("FPT", "10/01/2025", "09:15:01", 2),
+                trade("FPT", "10/01/2025", "09:15:02", 3))));
+
+        assertEquals(List.of(0, 0), seqs(firstBatch));
+        assertEquals(List.of(1, 0), seqs(secondBatch));
+    }
+
+    @Test
+    void parsesDatesAndTimes() {
+        assertEquals(20251024, TradeSequencer.dateKey("24/10/2025"));
+        assertEquals(20250105, TradeSequencer.dateKey("5/1/2025"));
+        assertEquals(53100, TradeSequencer.secondsOfDay("14:45:00"));
+        assertEquals(53100, TradeSequencer.secondsOfDay("14:45"));
+    }
+
+    static Trade trade(String code, String date, String time, long volume) {
+        return Trade.builder()
+                .code(code)
+                .price(new BigDecimal("100.00"))
+                .volume(volume)
+                .side("buy")
+                .tradeDate(date)
+                .tradeTime(time)
+                .build();
+    }
+
+    private static List<Long> volumes(List<Trade> trades) {
+        return trades.stream().map(Trade::getVolume).toList();
+    }
+
+    private static List<Integer> seqs(List<Trade> trades) {
+        return trades.stream().map(Trade::getSeq).toList();
+    }
+
+    // Natural key, with the volume telling which trade of the feed it is
+    private static List<String> keys(List<Trade> trades) {
+        return trades.stream()
+                .map(t -> t.getCode() + " " + t.getTradeTime() + "#" + t.getSeq() + " v" + t.getVolume())
+                .toList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.data.trade.service;
+
+import com.data.trade.dto.TradeCursorPageResponse;
+import com.data.trade.model.Trade;
+import com.data.trade.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class TradeServiceTest {
+
+    private static final Specification<Trade> ALL = (root, q, cb) -> null;
+
+    private TradeRepository tradeRepository;
+    private TradeService tradeService;
+
+    @BeforeEach
+    void setUp() {
+        tradeRepository = mock(TradeRepository.class);
+        tradeService = new TradeService(tradeRepository, mock(TradeIngestionService.class), mock(IntradayTickStore.class),
+                mock(DailyBarWindows.class), mock(IndicatorStore.class));
+    }
+
+    @Test
+    void cursorRoundTripsThroughItsToken() {
+        TradeService.TradeCursor cursor = new TradeService.TradeCursor(20250110, 33_301, 9_876_543_210L);
+
+        String token = cursor.encode();
+
+        assertEquals("MjAyNTAxMTAuMzMzMDEuOTg3NjU0MzIxMA", token);
+        assertEquals(cursor, TradeService.TradeCursor.decode(token));
+        assertEquals(new TradeService.TradeCursor(20250110, 33_301, 42L),
+                TradeService.TradeCursor.of(trade(42L, 20250110, 33_301)));
+    }
+
+    @Test
+    void oneRowMoreThanThePageMeansAnotherPageFollowsTheLastRowShown() {
+        doReturn(trades(4)).when(tradeRepository).findBy(any(Specification.class), any());
+
+        TradeCursorPageResponse page = tradeService.findTradesAfterCursor(ALL, null, 3, "asc", false);
+
+        assertEquals(List.of(1L, 2L, 3L), page.getTrades().stream().map(Trade::getId).toList());
+        assertTrue(page.isHasNext());
+        assertEquals(new TradeService.TradeCursor(20250110, 33_303, 3L), TradeService.TradeCursor.decode(page.getNextCursor()));
+        assertNull(page.getTotalRecords());
+    }
+
+    @Test
+    void aFullPageWithoutTheExtraRowIsTheLast() {
+        doReturn(trades(3)).when(tradeRepository).findBy(any(Specification.class), any());
+
+        TradeCursorPageResponse page = tradeService.findTradesAfterCursor(ALL,
+                new TradeService.TradeCursor(20250110, 33_300, 0L).encode(), 3, "asc", false);
+
+        assertEquals(3, page.getTrades().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String cursor : List.of(
+                "not base64!",
+                encoded("20250110.33301"),
+                encoded("20250110.33301.1.2"),
+                encoded("20250110.33301."),
+                encoded("20250110.x.1"),
+                encoded("20250110.33301.99999999999999999999"))) {
+            assertThrows(IllegalArgumentException.class, () -> TradeService.TradeCursor.decode(cursor), cursor);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> tradeService.findTradesAfterCursor(ALL, encoded("1.2"), 10, "asc", false));
+    }
+
+    private static String encoded(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Trades with ids 1..count, one per second from 09:15:01 on 10/01/2025
+     */
+    private static List<Trade> trades(int count) {
+        List<Trade> trades = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            trades.add(trade(id, 20250110, 33_300 + (int) id));
+        }
+        return trades;
+    }
+
+    private static Trade trade(long id, int date, int seconds) {
+        Trade trade = Trade.builder().id(id).code("FPT").build();
+        trade.setTradeDateNumeric(date);
+        trade.setTradeSeconds(seconds);
+        return trade;
+    }
+}
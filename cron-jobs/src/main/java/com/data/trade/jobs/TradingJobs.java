@@ -40,6 +40,16 @@ public class TradingJobs {
     @Value("${market.vn30.codes}")
     private List<String> vn30;
 
+    @Value("${app.trades.partitions-ahead-months:3}")
+    private int partitionsAheadMonths;
+
+    // 0 keeps every month; otherwise whole months older than this are detached from trades
+    @Value("${app.trades.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${app.trades.drop-detached-partitions:false}")
+    private boolean dropDetachedPartitions;
+
     /**
      * Refresh tracked stocks and generate recommendations every 5 minutes
      * Runs at: 00:00, 00:05, 00:10, ... 23:55
@@ -123,24 +133,22 @@ public class TradingJobs {
         log.info("========== Starting VN30 ingestion job at {} for trade date {} ==========", 
                 now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), tradeDateStr);
         
-        int successCount = 0;
-        int failCount = 0;
-
-        tradeRepository.deleteOnDate(tradeDateStr);
+        // Codes are fetched concurrently; only trades newer than each code's high-water mark are written
+        TradeIngestionService.IngestionResult result = null;
+        try {
+            result = ingestionService.ingestAll(vn30);
+            log.info("========== VN30 ingestion completed. Success: {}, Failed: {}, New trades: {} ==========", 
+                    result.succeeded(), result.failed(), result.inserted());
+        } catch (Exception ex) {
+            log.error("Failed to write VN30 trades: {}", ex.getMessage(), ex);
+        }
 
-        for (String stockCode : vn30) {
-            try {
-                ingestionService.ingestForCode(stockCode);
-                successCount++;
-            } catch (Exception ex) {
-                failCount++;
-                log.error("Failed to ingest data for {}: {}", stockCode, ex.getMessage(), ex);
-            }
+        if (result != null && result.inserted() > 0) {
+            // The backend serves suggestions from a snapshot that is rebuilt only when the data changes;
+            // only the codes written here are reloaded there
+            backendApiClient.triggerRecommendationRefresh(result.codes());
         }
         
-        log.info("========== VN30 ingestion completed. Success: {}, Failed: {} ==========", 
-                successCount, failCount);
-        
         log.info("Triggering signal calculation after VN30 ingestion via backend API...");
         try {
             // Call backend API instead of local service to ensure signals reach frontend WebSocket clients
@@ -196,4 +204,34 @@ public class TradingJobs {
             log.error("Failed to trigger price alerts check via backend API: {}", ex.getMessage(), ex);
         }
     }
+
+    /**
+     * Create upcoming monthly trades partitions and apply retention by detaching old ones
+     * Runs: daily at 01:00, outside trading hours
+     */
+    @Scheduled(cron = "${cron.trades-partition-maintenance}", zone = "${cron.timezone}")
+    public void maintainTradePartitions() {
+        log.info("Starting trades partition maintenance...");
+        try {
+            tradeRepository.ensurePartitions(partitionsAheadMonths);
+            log.info("Trades partitions ensured for the next {} months", partitionsAheadMonths);
+        } catch (Exception ex) {
+            log.error("Failed to create trades partitions: {}", ex.getMessage(), ex);
+            return;
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+
+        LocalDate cutoff = LocalDate.now(ZoneId.of(appTz)).minusMonths(retentionMonths);
+        int cutoffDateNumeric = Integer.parseInt(cutoff.format(DateTimeFormatter.BASIC_ISO_DATE));
+        try {
+            List<String> detached = tradeRepository.detachPartitionsBefore(cutoffDateNumeric, dropDetachedPartitions);
+            log.info("Trades retention: {} partitions before {} {}: {}",
+                    detached.size(), cutoffDateNumeric, dropDetachedPartitions ? "dropped" : "detached", detached);
+        } catch (Exception ex) {
+            log.error("Failed to detach old trades partitions: {}", ex.getMessage(), ex);
+        }
+    }
 }
@@ -7,9 +7,9 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "trades", indexes = {
-        @Index(name = "idx_trades_code_date_time", columnList = "code, tradeDate, tradeTime"),
-        @Index(name = "idx_trades_volume", columnList = "volume"),
-        @Index(name = "idx_trades_price", columnList = "price")
+        @Index(name = "idx_trades_code_date_seconds_id", columnList = "code, tradeDateNumeric, tradeSeconds, id"),
+        @Index(name = "idx_trades_date_numeric_seconds_id", columnList = "tradeDateNumeric, tradeSeconds, id"),
+        @Index(name = "idx_trades_volume", columnList = "volume")
 })
 @Getter
 @Setter
@@ -38,4 +38,14 @@ public class Trade {
 
     @Column(nullable = false, length = 8)
     private String tradeTime; // Format: "HH:mm:ss" as received from API (e.g., "14:45:00")
+
+    @Column(nullable = false)
+    private Integer tradeDateNumeric; // tradeDate as YYYYMMDD (e.g., 20251024), used for range filters
+
+    @Column(nullable = false)
+    private Integer tradeSeconds; // tradeTime as seconds since midnight (e.g., 53100 for "14:45:00")
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer seq = 0; // Ordinal among trades of the same code printed in the same second
 }
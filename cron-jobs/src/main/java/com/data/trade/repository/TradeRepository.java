@@ -3,32 +3,37 @@ package com.data.trade.repository;
 import com.data.trade.model.Trade;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
-public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecificationExecutor<Trade> {
+public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecificationExecutor<Trade>, TradeRepositoryCustom {
     
     @Query("SELECT DISTINCT t.code FROM Trade t")
     List<String> findDistinctCodes();
     
-    // Find latest trade for a given code, ordering by date DESC then time DESC
-    @Query("SELECT t FROM Trade t WHERE t.code = :code ORDER BY t.tradeDate DESC, t.tradeTime DESC")
-    List<Trade> findLatestByCode(@Param("code") String code);
+    // Find latest trade for a given code; only the newest partition holding the code is read
+    Optional<Trade> findFirstByCodeOrderByTradeDateNumericDescTradeSecondsDescSeqDesc(String code);
 
-    // Find trades for a code on a specific date
-    @Query("SELECT t FROM Trade t WHERE t.code = :code AND t.tradeDate = :tradeDate ORDER BY t.tradeTime DESC")
-    List<Trade> findByCodeAndTradeDate(@Param("code") String code, @Param("tradeDate") String tradeDate);
+    // Find trades for a code on a specific date (YYYYMMDD), latest first
+    @Query("SELECT t FROM Trade t WHERE t.code = :code AND t.tradeDateNumeric = :tradeDateNumeric ORDER BY t.tradeSeconds DESC, t.seq DESC")
+    List<Trade> findByCodeAndTradeDate(@Param("code") String code, @Param("tradeDateNumeric") int tradeDateNumeric);
 
-    @Transactional
-    @Modifying
-    @Query(value = "delete from trades where TO_DATE(trade_date, 'DD/MM/YYYY') = TO_DATE(:tradeDate, 'DD/MM/YYYY')", nativeQuery = true)
-    void deleteOnDate(@Param("tradeDate") String tradeDate);
+    /**
+     * Natural key (trade_date_numeric, trade_time, seq) of the most recent stored trade for a code.
+     * Used to seed the ingestion high-water mark; served by idx_trades_code_date_seconds_id.
+     */
+    @Query(value = """
+        SELECT t.trade_date_numeric, t.trade_time, t.seq
+        FROM trades t
+        WHERE t.code = :code
+        ORDER BY t.trade_date_numeric DESC, t.trade_seconds DESC, t.seq DESC
+        LIMIT 1
+        """, nativeQuery = true)
+    List<Object[]> findLatestNaturalKey(@Param("code") String code);
 
     @Query(value = """
         select case
@@ -49,8 +54,8 @@ public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecific
           else 'Neutral — hold'
         end
         from trades t
-        where upper(t.code) = upper(:stockCode)
-          and t.trade_date = :tradeDate
+        where t.code = upper(:stockCode)
+          and t.trade_date_numeric = cast(substring(:tradeDate, 7, 4) || substring(:tradeDate, 4, 2) || substring(:tradeDate, 1, 2) as integer)
     """, nativeQuery = true)
     String recommendationFor(
             @Param("stockCode") String stockCode,
@@ -62,12 +67,12 @@ public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecific
     Long sumVolumeBySide(@Param("side") String side);
 
     // Statistics queries for tracked stocks
-    @Query("SELECT MIN(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDate = :tradeDate")
-    Optional<BigDecimal> findMinPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDate") String tradeDate);
+    @Query("SELECT MIN(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDateNumeric = :tradeDateNumeric")
+    Optional<BigDecimal> findMinPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDateNumeric") int tradeDateNumeric);
 
-    @Query("SELECT MAX(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDate = :tradeDate")
-    Optional<BigDecimal> findMaxPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDate") String tradeDate);
+    @Query("SELECT MAX(t.price) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDateNumeric = :tradeDateNumeric")
+    Optional<BigDecimal> findMaxPriceByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDateNumeric") int tradeDateNumeric);
 
-    @Query("SELECT MAX(t.volume) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDate = :tradeDate")
-    Optional<Long> findMaxVolumeByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDate") String tradeDate);
+    @Query("SELECT MAX(t.volume) FROM Trade t WHERE t.code = :code AND t.side = :side AND t.tradeDateNumeric = :tradeDateNumeric")
+    Optional<Long> findMaxVolumeByCodeAndSideAndDate(@Param("code") String code, @Param("side") String side, @Param("tradeDateNumeric") int tradeDateNumeric);
 }
@@ -0,0 +1,34 @@
+package com.data.trade.repository;
+
+import com.data.trade.model.Trade;
+
+import java.util.List;
+
+/**
+ * Write paths for trades that Spring Data cannot express with derived or annotated queries
+ */
+public interface TradeRepositoryCustom {
+
+    /**
+     * Insert trades keyed by (code, trade_date_numeric, trade_time, seq), silently skipping rows
+     * that already exist. Retried polls and re-imported files therefore never create duplicates.
+     * Rows are streamed with the COPY protocol into a staging table and merged in a single statement.
+     * The daily_bars and minute_bars rollups are updated from the newly inserted rows in the same statement.
+     * @return number of rows actually inserted
+     */
+    int insertIgnoringDuplicates(List<Trade> trades);
+
+    /**
+     * Create the monthly trades partitions from the current month through monthsAhead months ahead
+     * @return number of months checked
+     */
+    int ensurePartitions(int monthsAhead);
+
+    /**
+     * Detach every monthly trades partition lying entirely before the month of cutoffDateNumeric (YYYYMMDD).
+     * Detached partitions are kept as standalone tables, renamed trades_yYYYYmMM_detached_<timestamp>, unless
+     * drop is set; a later trade for their month gets a new partition.
+     * @return names of the detached (renamed) or dropped tables
+     */
+    List<String> detachPartitionsBefore(int cutoffDateNumeric, boolean drop);
+}
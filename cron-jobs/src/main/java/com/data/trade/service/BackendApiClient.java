@@ -8,6 +8,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.Collection;
 
 /**
  * Service to communicate with backend API for triggering signal calculations
@@ -114,6 +115,39 @@ public class BackendApiClient {
             // Don't throw - allow cron job to continue even if this fails
         }
     }
-}
 
+    /**
+     * Trigger a rebuild of the recommendation snapshot on backend service
+     * Called after ingestion wrote new trades for the given codes; the backend reloads only those
+     * codes' daily bars and rebuilds in the background
+     */
+    public void triggerRecommendationRefresh(Collection<String> codes) {
+        try {
+            WebClient webClient = webClientBuilder
+                    .baseUrl(backendBaseUrl)
+                    .build();
+
+            log.info("Calling backend API to refresh recommendations for {} codes: {}/api/internal/recommendations/refresh",
+                    codes.size(), backendBaseUrl);
 
+            webClient.post()
+                    .uri(uriBuilder -> uriBuilder.path("/api/internal/recommendations/refresh")
+                            .queryParam("codes", String.join(",", codes))
+                            .build())
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .retryWhen(Retry.fixedDelay(2, Duration.ofSeconds(1))
+                            .filter(throwable -> {
+                                log.warn("Retrying backend API call after error: {}", throwable.getMessage());
+                                return true;
+                            }))
+                    .doOnSuccess(response -> log.info("Backend recommendation refresh triggered successfully"))
+                    .doOnError(error -> log.error("Failed to trigger recommendation refresh on backend: {}", error.getMessage(), error))
+                    .block(Duration.ofSeconds(5));
+
+        } catch (Exception e) {
+            log.error("Error calling backend API for recommendation refresh: {}", e.getMessage(), e);
+            // Don't throw - allow cron job to continue even if this fails
+        }
+    }
+}
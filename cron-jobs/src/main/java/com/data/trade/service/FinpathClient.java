@@ -4,6 +4,7 @@ import com.data.trade.dto.FinpathResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 @Service
 public class FinpathClient {
@@ -21,6 +22,13 @@ public class FinpathClient {
     }
 
     public FinpathResponse fetchTrades(String code, int page, Integer pageSizeOverride) {
+        return fetchTradesAsync(code, page, pageSizeOverride).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchTrades} for fanning out over many codes
+     */
+    public Mono<FinpathResponse> fetchTradesAsync(String code, int page, Integer pageSizeOverride) {
         int pageSize = pageSizeOverride != null ? pageSizeOverride : defaultPageSize;
         String path = "/api/stocks/v2/trades/" + code;
         return webClient.get()
@@ -29,7 +37,6 @@ public class FinpathClient {
                         .queryParam("pageSize", pageSize)
                         .build())
                 .retrieve()
-                .bodyToMono(FinpathResponse.class)
-                .block();
+                .bodyToMono(FinpathResponse.class);
     }
 }
@@ -1,6 +1,7 @@
 package com.data.trade.service;
 
 import com.data.trade.dto.SignalNotification;
+import com.data.trade.model.ScaledPrice;
 import com.data.trade.model.Trade;
 import com.data.trade.model.TrackedStock;
 import com.data.trade.repository.TradeRepository;
@@ -11,11 +12,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -103,59 +103,24 @@ public class SignalCalculationService {
      * Uses multi-factor analysis including volume imbalance, large blocks, and price momentum
      */
     public SignalNotification calculateSignalForCode(String code) {
-        // Find the latest trade for this stock code
-        List<Trade> latestTrades = tradeRepository.findLatestByCode(code);
-        
-        if (latestTrades == null || latestTrades.isEmpty()) {
-            log.debug("No trades found for code: {}", code);
-            return null;
-        }
-        
-        Trade latestTrade = latestTrades.get(0);
-        String latestTradeDate = latestTrade.getTradeDate(); // Format: "DD/MM/YYYY"
-        
-        // Get all trades from the same date as the latest trade
-        // This simplified approach uses same-day trades instead of 30-minute window
-        List<Trade> recentTrades = tradeRepository.findByCodeAndTradeDate(code, latestTradeDate);
-
-        if (recentTrades.isEmpty()) {
-            log.debug("No trades found for code: {} on date {}", code, latestTradeDate);
+        // Trades of the most recent stored day
+        DayFlow flow = latestDayFlowFromTable(code);
+        if (flow == null) {
             return null;
         }
 
-        // Already sorted by time descending from the query
-
         // 1. Volume Analysis
-        long buyVolume = recentTrades.stream()
-                .filter(t -> "buy".equalsIgnoreCase(t.getSide()))
-                .mapToLong(Trade::getVolume)
-                .sum();
-
-        long sellVolume = recentTrades.stream()
-                .filter(t -> "sell".equalsIgnoreCase(t.getSide()))
-                .mapToLong(Trade::getVolume)
-                .sum();
+        long buyVolume = flow.buyVolume();
+        long sellVolume = flow.sellVolume();
 
         // 2. Large Block Detection (>= 100k shares)
-        long largeBuyCount = recentTrades.stream()
-                .filter(t -> "buy".equalsIgnoreCase(t.getSide()) && t.getVolume() >= 100000)
-                .count();
-
-        long largeSellCount = recentTrades.stream()
-                .filter(t -> "sell".equalsIgnoreCase(t.getSide()) && t.getVolume() >= 100000)
-                .count();
+        long largeBuyCount = flow.largeBuyCount();
+        long largeSellCount = flow.largeSellCount();
 
         // 3. Price Momentum Analysis
-        BigDecimal firstPrice = recentTrades.get(recentTrades.size() - 1).getPrice();
-        BigDecimal lastPrice = recentTrades.get(0).getPrice();
-        double priceChange = 0;
-        
-        if (firstPrice.compareTo(BigDecimal.ZERO) > 0) {
-            priceChange = lastPrice.subtract(firstPrice)
-                    .divide(firstPrice, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .doubleValue();
-        }
+        long lastPrice = flow.lastPrice();
+        int tradeCount = flow.tradeCount();
+        double priceChange = ScaledPrice.percentChange(flow.firstPrice(), lastPrice);
 
         // 4. Decision Logic with Scoring System
         int buyScore = 0;
@@ -230,7 +195,7 @@ public class SignalCalculationService {
                     "Strong buy pressure detected! Buy volume: %,d vs Sell: %,d (Ratio: %.2fx). " +
                     "Large buy blocks: %d. Price change: %+.2f%%. Total trades: %d",
                     buyVolume, sellVolume, volumeRatio,
-                    largeBuyCount, priceChange, recentTrades.size()
+                    largeBuyCount, priceChange, tradeCount
             );
         } else if (sellScore >= 4 && sellScore > buyScore) {
             signalType = "SELL";
@@ -241,7 +206,7 @@ public class SignalCalculationService {
                     "Strong sell pressure detected! Sell volume: %,d vs Buy: %,d (Ratio: %.2fx). " +
                     "Large sell blocks: %d. Price change: %+.2f%%. Total trades: %d",
                     sellVolume, buyVolume, volumeRatio,
-                    largeSellCount, priceChange, recentTrades.size()
+                    largeSellCount, priceChange, tradeCount
             );
         }
 
@@ -255,11 +220,57 @@ public class SignalCalculationService {
                 .reason(reason)
                 .buyVolume(buyVolume)
                 .sellVolume(sellVolume)
-                .lastPrice(lastPrice)
+                .lastPrice(ScaledPrice.toBigDecimal(lastPrice))
                 .timestamp(OffsetDateTime.now())
                 .score(finalScore)
                 .priceChange(priceChange)
                 .build();
     }
-}
 
+    /**
+     * Flow of the most recent stored trading day, read from the trades table
+     */
+    private DayFlow latestDayFlowFromTable(String code) {
+        Optional<Trade> latest = tradeRepository.findFirstByCodeOrderByTradeDateNumericDescTradeSecondsDescSeqDesc(code);
+        if (latest.isEmpty()) {
+            log.debug("No trades found for code: {}", code);
+            return null;
+        }
+
+        List<Trade> dayTrades = tradeRepository.findByCodeAndTradeDate(code, latest.get().getTradeDateNumeric());
+        if (dayTrades.isEmpty()) {
+            log.debug("No trades found for code: {} on date {}", code, latest.get().getTradeDate());
+            return null;
+        }
+        return DayFlow.of(dayTrades);
+    }
+
+    /**
+     * Buy/sell volume, large blocks and first/last price (ScaledPrice) of one trading day
+     */
+    private record DayFlow(long buyVolume, long sellVolume, long largeBuyCount, long largeSellCount,
+                           long firstPrice, long lastPrice, int tradeCount) {
+
+        private static final long LARGE_BLOCK_VOLUME = 100000;
+
+        // Trades are ordered latest first
+        static DayFlow of(List<Trade> trades) {
+            long buyVolume = 0;
+            long sellVolume = 0;
+            long largeBuyCount = 0;
+            long largeSellCount = 0;
+            for (Trade t : trades) {
+                if ("buy".equalsIgnoreCase(t.getSide())) {
+                    buyVolume += t.getVolume();
+                    largeBuyCount += t.getVolume() >= LARGE_BLOCK_VOLUME ? 1 : 0;
+                } else if ("sell".equalsIgnoreCase(t.getSide())) {
+                    sellVolume += t.getVolume();
+                    largeSellCount += t.getVolume() >= LARGE_BLOCK_VOLUME ? 1 : 0;
+                }
+            }
+            return new DayFlow(buyVolume, sellVolume, largeBuyCount, largeSellCount,
+                    ScaledPrice.of(trades.get(trades.size() - 1).getPrice()), ScaledPrice.of(trades.get(0).getPrice()),
+                    trades.size());
+        }
+    }
+}
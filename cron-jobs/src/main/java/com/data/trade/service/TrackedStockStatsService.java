@@ -41,13 +41,14 @@ public class TrackedStockStatsService {
      */
     public TrackedStockStatsDTO calculateStatsForCode(String code, String tradeDate) {
         log.debug("Calculating stats for code: {} on date: {}", code, tradeDate);
-
-        BigDecimal lowestPriceBuy = tradeRepository.findMinPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDate).orElse(null);
-        BigDecimal highestPriceBuy = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDate).orElse(null);
-        BigDecimal lowestPriceSell = tradeRepository.findMinPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDate).orElse(null);
-        BigDecimal highestPriceSell = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDate).orElse(null);
-        Long largestVolumeBuy = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, BUY_SIDE, tradeDate).orElse(null);
-        Long largestVolumeSell = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, SELL_SIDE, tradeDate).orElse(null);
+        int tradeDateNumeric = TradeSequencer.dateKey(tradeDate);
+
+        BigDecimal lowestPriceBuy = tradeRepository.findMinPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDateNumeric).orElse(null);
+        BigDecimal highestPriceBuy = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, BUY_SIDE, tradeDateNumeric).orElse(null);
+        BigDecimal lowestPriceSell = tradeRepository.findMinPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDateNumeric).orElse(null);
+        BigDecimal highestPriceSell = tradeRepository.findMaxPriceByCodeAndSideAndDate(code, SELL_SIDE, tradeDateNumeric).orElse(null);
+        Long largestVolumeBuy = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, BUY_SIDE, tradeDateNumeric).orElse(null);
+        Long largestVolumeSell = tradeRepository.findMaxVolumeByCodeAndSideAndDate(code, SELL_SIDE, tradeDateNumeric).orElse(null);
 
         return TrackedStockStatsDTO.builder()
                 .code(code)
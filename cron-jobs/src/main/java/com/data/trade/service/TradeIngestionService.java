@@ -5,29 +5,159 @@ import com.data.trade.model.Trade;
 import com.data.trade.repository.TradeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TradeIngestionService {
 
+    private static final int FETCH_PAGE_SIZE = 10000;
+
     private final TradeRepository tradeRepository;
     private final FinpathClient finpathClient;
+    private final TransactionTemplate transactionTemplate;
+
+    // Last ingested natural key per code (high-water mark)
+    private final Map<String, Watermark> watermarks = new ConcurrentHashMap<>();
+
+    // Max number of codes fetched from Finpath at the same time
+    @Value("${app.ingestion.concurrency:8}")
+    private int concurrency;
+
+    // Per-code fetch timeout; a slow code is skipped for this cycle instead of holding up the rest
+    @Value("${app.ingestion.per-code-timeout-ms:15000}")
+    private long perCodeTimeoutMs;
+
+    /**
+     * Outcome of a fan-out ingestion cycle; codes are those that had new trades to write
+     */
+    public record IngestionResult(int succeeded, int failed, int inserted, Set<String> codes) {
+    }
 
-    @Transactional
-    public void ingestForCode(String code) {
-        FinpathResponse response = finpathClient.fetchTrades(code, 1, 10000);
+    /**
+     * Fetch the latest trades for a code and insert only those newer than the code's high-water mark.
+     * Inserts are keyed by the natural key, so a retried poll cannot create duplicates.
+     * The fetch runs outside any transaction; only the insert holds a connection.
+     * @return number of rows inserted
+     */
+    public int ingestForCode(String code) {
+        FinpathResponse response = finpathClient.fetchTrades(code, 1, FETCH_PAGE_SIZE);
         if (response == null || response.getData() == null || response.getData().getTrades() == null) {
             log.error("error");
-            return;
+            return 0;
+        }
+
+        List<Trade> trades = toTrades(response);
+        Watermark watermark = watermarks.computeIfAbsent(code, this::loadWatermark);
+        List<Trade> newTrades = newerThan(watermark, trades);
+
+        if (newTrades.isEmpty()) {
+            log.debug("[{}] No new trades after {}", code, watermark);
+            return 0;
+        }
+
+        try {
+            int inserted = write(newTrades, Map.of(code, Watermark.of(newTrades.get(newTrades.size() - 1))));
+            log.info("[{}] Fetched {} trades, {} newer than {}, inserted {}",
+                    code, trades.size(), newTrades.size(), watermark, inserted);
+            return inserted;
+        } catch (Exception ex) {
+            log.error("Failed to save trades: {}", ex.getMessage(), ex);
+            // Re-seed from the table on the next poll
+            watermarks.remove(code);
+            return 0;
+        }
+    }
+
+    /**
+     * Fetch trades for all codes concurrently (bounded by app.ingestion.concurrency) and write
+     * the new ones in a single bulk insert. Each code has its own timeout; a code that fails or
+     * times out is counted as failed and does not affect the others.
+     * No transaction or connection is held while fetching; the insert runs in its own transaction.
+     */
+    public IngestionResult ingestAll(List<String> codes) {
+        AtomicInteger failed = new AtomicInteger();
+        Duration perCodeTimeout = Duration.ofMillis(perCodeTimeoutMs);
+
+        List<Map.Entry<String, FinpathResponse>> responses = Flux.fromIterable(codes)
+                .flatMap(code -> finpathClient.fetchTradesAsync(code, 1, FETCH_PAGE_SIZE)
+                        .timeout(perCodeTimeout)
+                        .map(response -> Map.entry(code, response))
+                        .onErrorResume(ex -> {
+                            failed.incrementAndGet();
+                            log.error("Failed to fetch trades for {}: {}", code, ex.toString());
+                            return Mono.empty();
+                        }), concurrency)
+                .collectList()
+                .block();
+
+        List<Trade> batch = new ArrayList<>();
+        Map<String, Watermark> nextMarks = new HashMap<>();
+        int succeeded = 0;
+        for (Map.Entry<String, FinpathResponse> entry : responses) {
+            String code = entry.getKey();
+            FinpathResponse response = entry.getValue();
+            if (response.getData() == null || response.getData().getTrades() == null) {
+                failed.incrementAndGet();
+                log.error("[{}] Empty trades response", code);
+                continue;
+            }
+            succeeded++;
+
+            Watermark watermark = watermarks.computeIfAbsent(code, this::loadWatermark);
+            List<Trade> newTrades = newerThan(watermark, toTrades(response));
+            if (!newTrades.isEmpty()) {
+                batch.addAll(newTrades);
+                nextMarks.put(code, Watermark.of(newTrades.get(newTrades.size() - 1)));
+            }
         }
 
-        List<Trade> trades = response.getData().getTrades().stream()
+        if (batch.isEmpty()) {
+            return new IngestionResult(succeeded, failed.get(), 0, Set.of());
+        }
+
+        try {
+            int inserted = write(batch, nextMarks);
+            log.info("Fan-out ingestion: {} codes fetched, {} failed, {} new trades, inserted {}",
+                    succeeded, failed.get(), batch.size(), inserted);
+            return new IngestionResult(succeeded, failed.get(), inserted, Set.copyOf(nextMarks.keySet()));
+        } catch (RuntimeException ex) {
+            // Re-seed from the table on the next poll
+            nextMarks.keySet().forEach(watermarks::remove);
+            throw ex;
+        }
+    }
+
+    /**
+     * Insert the trades in one transaction; watermarks advance once it commits
+     */
+    private int write(List<Trade> trades, Map<String, Watermark> nextMarks) {
+        Integer inserted = transactionTemplate.execute(status -> {
+            int count = tradeRepository.insertIgnoringDuplicates(trades);
+            nextMarks.forEach(this::advanceWatermarkAfterCommit);
+            return count;
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    private List<Trade> toTrades(FinpathResponse response) {
+        return TradeSequencer.sequence(response.getData().getTrades().stream()
                 .map(t -> Trade.builder()
                         .code(t.getCode())
                         .price(t.getPrice())
@@ -36,12 +166,70 @@ public class TradeIngestionService {
                         .tradeDate(t.getDate())  // Store as-is: "DD/MM/YYYY"
                         .tradeTime(t.getTime())  // Store as-is: "HH:mm:ss"
                         .build())
-                .collect(Collectors.toList());
+                .toList());
+    }
 
-        try {
-            tradeRepository.saveAll(trades);
-        } catch (Exception ex) {
-            log.error("Failed to save trades: {}", ex.getMessage(), ex);
+    private static List<Trade> newerThan(Watermark watermark, List<Trade> trades) {
+        return trades.stream()
+                .filter(watermark::isBefore)
+                .toList();
+    }
+
+    private void advanceWatermarkAfterCommit(String code, Watermark next) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            watermarks.put(code, next);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                watermarks.put(code, next);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    watermarks.remove(code);
+                }
+            }
+        });
+    }
+
+    private Watermark loadWatermark(String code) {
+        return tradeRepository.findLatestNaturalKey(code).stream()
+                .findFirst()
+                .map(row -> new Watermark(
+                        ((Number) row[0]).intValue(),
+                        (String) row[1],
+                        ((Number) row[2]).intValue()))
+                .orElse(Watermark.NONE);
+    }
+
+    /**
+     * Natural key of the last stored trade: (YYYYMMDD, HH:mm:ss, seq)
+     */
+    private record Watermark(int tradeDate, String tradeTime, int seq) {
+        static final Watermark NONE = new Watermark(0, "", -1);
+
+        static Watermark of(Trade t) {
+            return new Watermark(TradeSequencer.dateKey(t.getTradeDate()), t.getTradeTime(), t.getSeq());
+        }
+
+        boolean isBefore(Trade t) {
+            int date = TradeSequencer.dateKey(t.getTradeDate());
+            if (date != tradeDate) {
+                return date > tradeDate;
+            }
+            int time = t.getTradeTime().compareTo(tradeTime);
+            if (time != 0) {
+                return time > 0;
+            }
+            return t.getSeq() > seq;
+        }
+
+        @Override
+        public String toString() {
+            return this == NONE ? "<none>" : tradeDate + " " + tradeTime + "#" + seq;
         }
     }
 }
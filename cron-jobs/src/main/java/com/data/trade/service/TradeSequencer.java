@@ -0,0 +1,108 @@
+package com.data.trade.service;
+
+import com.data.trade.model.Trade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns the seq component of a trade's natural key (code, tradeDate, tradeTime, seq).
+ * Trades printed for the same code in the same second are numbered 0, 1, 2... in
+ * chronological feed order, so re-reading the same feed always yields the same keys.
+ * Also fills the typed tradeDateNumeric / tradeSeconds columns from the raw strings.
+ */
+public final class TradeSequencer {
+
+    private static final Comparator<Trade> CHRONOLOGICAL = Comparator
+            .comparingInt((Trade t) -> dateKey(t.getTradeDate()))
+            .thenComparing(Trade::getTradeTime);
+
+    private TradeSequencer() {
+    }
+
+    /**
+     * Sort trades oldest first and number trades sharing the same second.
+     * The feed is taken as newest first (Finpath's order) unless its first trade is older than
+     * its last; it is reversed before the (stable) sort so that trades within one second keep
+     * their original relative order. A feed lying within a single second is newest first too,
+     * so its keys agree with those of a later, longer fetch.
+     */
+    public static List<Trade> sequence(List<Trade> trades) {
+        List<Trade> ordered = new ArrayList<>(trades);
+        if (ordered.size() > 1 && CHRONOLOGICAL.compare(ordered.get(0), ordered.get(ordered.size() - 1)) >= 0) {
+            Collections.reverse(ordered);
+        }
+        ordered.sort(CHRONOLOGICAL);
+
+        Map<String, Integer> counters = new HashMap<>();
+        for (Trade t : ordered) {
+            number(t, counters);
+        }
+        return ordered;
+    }
+
+    /**
+     * Sequencer for trades fed in several batches, e.g. rows streamed from an import file.
+     * Counters carry over between batches, so trades of one second split across two batches
+     * still get distinct seqs. Trades are numbered in the order given, without sorting.
+     * Only the current second of each code is counted: a code's trades of one second are
+     * expected to be adjacent, as in any time-ordered file, so memory stays one entry per code.
+     */
+    public static final class Running {
+        private final Map<String, CurrentSecond> counters = new HashMap<>();
+
+        public List<Trade> sequence(List<Trade> batch) {
+            for (Trade t : batch) {
+                t.setTradeDateNumeric(dateKey(t.getTradeDate()));
+                t.setTradeSeconds(secondsOfDay(t.getTradeTime()));
+                CurrentSecond current = counters.get(t.getCode());
+                if (current == null || current.dateNumeric != t.getTradeDateNumeric() || current.seconds != t.getTradeSeconds()) {
+                    // The reader moved past the code's previous second, so its count is dropped
+                    current = new CurrentSecond(t.getTradeDateNumeric(), t.getTradeSeconds());
+                    counters.put(t.getCode(), current);
+                }
+                t.setSeq(current.next++);
+            }
+            return batch;
+        }
+
+        private static final class CurrentSecond {
+            private final int dateNumeric;
+            private final int seconds;
+            private int next;
+
+            private CurrentSecond(int dateNumeric, int seconds) {
+                this.dateNumeric = dateNumeric;
+                this.seconds = seconds;
+            }
+        }
+    }
+
+    private static void number(Trade t, Map<String, Integer> counters) {
+        t.setTradeDateNumeric(dateKey(t.getTradeDate()));
+        t.setTradeSeconds(secondsOfDay(t.getTradeTime()));
+        String second = t.getCode() + '|' + t.getTradeDate() + '|' + t.getTradeTime();
+        t.setSeq(counters.merge(second, 1, Integer::sum) - 1);
+    }
+
+    /**
+     * Convert "DD/MM/YYYY" (or unpadded "D/M/YYYY") to a sortable YYYYMMDD integer
+     */
+    public static int dateKey(String tradeDate) {
+        String[] parts = tradeDate.split("/");
+        return Integer.parseInt(parts[2]) * 10000 + Integer.parseInt(parts[1]) * 100 + Integer.parseInt(parts[0]);
+    }
+
+    /**
+     * Convert "HH:mm:ss" to seconds since midnight
+     */
+    public static int secondsOfDay(String tradeTime) {
+        String[] parts = tradeTime.split(":");
+        int seconds = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+        return Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60 + seconds;
+    }
+}
@@ -206,8 +206,19 @@ const Config = () => {
         const errorText = await resp.text();
         throw new Error(errorText || 'Failed to import');
       }
-      const text = await resp.text();
-      toast.success(text || 'Imported successfully');
+      const report = await resp.json();
+      const summary = `Imported ${report.imported} new trades from ${report.rows} rows`;
+      if (report.failed > 0) {
+        const failedBatch = report.batches?.find((b: any) => b.error);
+        toast.error(`${summary}; ${report.failed} rows in failed batches were not stored` +
+          (failedBatch ? ` (rows ${failedBatch.firstRow}-${failedBatch.lastRow}: ${failedBatch.error})` : ''));
+      } else if (report.rejected > 0) {
+        const firstError = report.errors?.[0];
+        toast.warning(`${summary}; ${report.rejected} rows rejected` +
+          (firstError ? ` (row ${firstError.row}: ${firstError.message})` : ''));
+      } else {
+        toast.success(summary);
+      }
       setImportFile(null);
       // Reset file input
       const fileInput = document.getElementById('import-file-input') as HTMLInputElement;